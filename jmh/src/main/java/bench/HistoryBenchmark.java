@@ -0,0 +1,39 @@
+package bench;
+
+import common.ParkingSpot;
+import common.SpotHistory;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Ajout et lecture de l'historique d'une place dont le buffer est déjà plein */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark {
+
+    ParkingSpot spot;
+    SpotHistory item;
+
+    @Setup
+    public void setup() {
+        spot = new ParkingSpot(1, "B1", "Bench");
+        item = new SpotHistory(LocalDateTime.now(), "PAYMENT", "Paiement reservation bench", 2.0);
+        for (int i = 0; i < 10_000; i++) spot.addHistory(item);
+    }
+
+    @Benchmark
+    public void addHistory() {
+        spot.addHistory(item);
+    }
+
+    @Benchmark
+    public List<SpotHistory> getHistory() {
+        return spot.getHistory();
+    }
+}
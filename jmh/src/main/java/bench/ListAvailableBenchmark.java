@@ -0,0 +1,48 @@
+package bench;
+
+import common.ClientInfo;
+import common.ParkingSpot;
+import org.openjdk.jmh.annotations.*;
+import server.ReservationServiceImpl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Liste des places libres d'une zone, à différentes tailles de parc (une place sur deux
+ * libre). La recherche sur une fenêtre horaire est mesurée par {@link ListWindowBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ListAvailableBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int spots;
+
+    ReservationServiceImpl service;
+
+    @Setup
+    public void setup() throws Exception {
+        service = new ReservationServiceImpl();
+        service.addZone("Bench");
+        ClientInfo client = new ClientInfo("Bench", "00000000");
+        for (int i = 0; i < spots; i++) {
+            ParkingSpot p = service.addSpot("B" + i, "Bench");
+            if (i % 2 == 0) service.reserveSpot(client, null, p.getId(), 24);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Services.close(service);
+    }
+
+    @Benchmark
+    public List<ParkingSpot> listAvailableSpots() throws Exception {
+        return service.listAvailableSpots("Bench");
+    }
+}
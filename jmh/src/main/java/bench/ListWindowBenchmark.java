@@ -0,0 +1,53 @@
+package bench;
+
+import common.ClientInfo;
+import common.ParkingSpot;
+import org.openjdk.jmh.annotations.*;
+import server.ReservationServiceImpl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Places libres sur une fenêtre d'une heure : 10 000 places, 5 créneaux de 2 h à venir par
+ * place (50 000 réservations). Objectif : moins de 1 ms par appel. La recherche parcourt le
+ * planning de chaque place de la zone ; un index des créneaux par zone ne se justifierait
+ * que si cette mesure dépasse l'objectif.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListWindowBenchmark {
+
+    ReservationServiceImpl service;
+    LocalDateTime from;
+    LocalDateTime to;
+
+    @Setup
+    public void setup() throws Exception {
+        service = new ReservationServiceImpl();
+        service.addZone("Bench");
+        ClientInfo client = new ClientInfo("Bench", "00000000");
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withMinute(0).withSecond(0).withNano(0);
+        for (int i = 0; i < 10_000; i++) {
+            ParkingSpot p = service.addSpot("B" + i, "Bench");
+            for (int k = 0; k < 5; k++) service.reserveSpot(client, null, p.getId(), base.plusHours(4 * k + i % 3), 2);
+        }
+        from = base.plusHours(5);
+        to = base.plusHours(6);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Services.close(service);
+    }
+
+    @Benchmark
+    public List<ParkingSpot> listAvailableSpots() throws Exception {
+        return service.listAvailableSpots("Bench", from, to);
+    }
+}
@@ -0,0 +1,53 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import server.PricingEngine;
+
+import java.time.LocalDateTime;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût d'un calcul de prix par {@link PricingEngine} : tarifs de 3 zones avec plages horaires
+ * et majoration selon l'occupation, pour des durées de 1 h et 8 h.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    static final String[] ZONES = {"Mall", "Centre Ville", "Gare", "Autre"};
+    static final double[] OCCUPANCY = {0.1, 0.5, 0.85, 0.97};
+
+    @Param({"1", "8"})
+    int hours;
+
+    PricingEngine engine;
+    LocalDateTime start;
+    int cursor;
+
+    @Setup
+    public void setup() {
+        Properties rules = new Properties();
+        rules.setProperty("rate", "1.0");
+        rules.setProperty("band.8-18", "1.2");
+        rules.setProperty("band.22-24", "0.5");
+        rules.setProperty("zone.Mall.rate", "1.5");
+        rules.setProperty("zone.Mall.band.18-22", "1.4");
+        rules.setProperty("zone.Centre Ville.rate", "2.0");
+        rules.setProperty("zone.Gare.rate", "1.2");
+        rules.setProperty("surge.0.80", "1.25");
+        rules.setProperty("surge.0.95", "1.5");
+        engine = new PricingEngine(rules);
+        start = LocalDateTime.now().withHour(7);
+    }
+
+    @Benchmark
+    public double price() {
+        int i = cursor++ & 3;
+        return engine.price(ZONES[i], start, hours, OCCUPANCY[i]);
+    }
+}
@@ -0,0 +1,132 @@
+package bench;
+
+import client.BinaryClient;
+import common.*;
+import org.openjdk.jmh.annotations.*;
+import server.AdminServiceImpl;
+import server.BinaryEndpoint;
+import server.PersistenceManager;
+import server.ReservationServiceImpl;
+import server.RmiTransport;
+import server.TransportMetrics;
+
+import java.rmi.server.RemoteObject;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RMI contre protocole binaire, sur le même service et en boucle locale.
+ *
+ * Un service en mémoire est exporté par RMI (transport réglé, voir {@link RmiTransport}) et
+ * servi par un {@link BinaryEndpoint} ; un stub RMI et un client binaire sont partagés par
+ * tous les threads appelants (-t 1, -t 8...). Petite réponse : getReservation ; grande
+ * réponse : listAvailableSpots sur une zone de {@code freeSpots} places libres. Le lot
+ * pipeliné envoie {@value #BATCH} requêtes sans attendre les réponses, le score est
+ * ramené à la requête. Les octets échangés par appel sont affichés à la mise en place.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolBenchmark {
+
+    static final int BATCH = 32;
+
+    @Param("1000")
+    int freeSpots;
+
+    ReservationServiceImpl service;
+    AdminServiceImpl admin;
+    BinaryEndpoint endpoint;
+    IReservationService rmi;
+    BinaryClient binary;
+    String id;
+
+    @Setup
+    public void setup() throws Exception {
+        System.setProperty("parking.rmi.servicePort", "0");
+        RmiTransport transport = RmiTransport.fromProperties();
+        service = new ReservationServiceImpl(PersistenceManager.inMemory(), transport);
+        admin = new AdminServiceImpl(service, transport);
+        endpoint = new BinaryEndpoint(service, admin, 0, 16, 256);
+
+        service.addZone("Bench");
+        List<ParkingSpot> spots = new ArrayList<>();
+        for (int i = 0; i < freeSpots + 1; i++) spots.add(service.addSpot("B" + i, "Bench"));
+        id = service.reserveSpot(new ClientInfo("Bench", "00000000"),
+                new Vehicle("BENCH", "Clio", "Gris"), spots.get(0).getId(), 24).getId();
+
+        rmi = (IReservationService) RemoteObject.toStub(service);
+        binary = new BinaryClient("localhost", endpoint.getPort());
+
+        System.out.println();
+        System.out.println("Octets par appel (requête + réponse, sur le fil)");
+        bytesPerCall("getReservation", transport.metrics(), endpoint.metrics(),
+                () -> rmi.getReservation(id), () -> binary.getReservation(id));
+        bytesPerCall("listAvailableSpots (" + freeSpots + " places)", transport.metrics(), endpoint.metrics(),
+                () -> rmi.listAvailableSpots("Bench"), () -> binary.listAvailableSpots("Bench"));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        binary.close();
+        endpoint.close();
+        UnicastRemoteObject.unexportObject(admin, true);
+        Services.close(service);
+    }
+
+    @Benchmark
+    public Reservation rmiGetReservation() throws Exception {
+        return rmi.getReservation(id);
+    }
+
+    @Benchmark
+    public Reservation binaryGetReservation() throws Exception {
+        return binary.getReservation(id);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int binaryGetReservationPipelined() {
+        List<CompletableFuture<Reservation>> calls = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) calls.add(binary.getReservationAsync(id));
+        int sum = 0;
+        for (CompletableFuture<Reservation> c : calls) sum += c.join().hashCode();
+        return sum;
+    }
+
+    @Benchmark
+    public List<ParkingSpot> rmiListAvailableSpots() throws Exception {
+        return rmi.listAvailableSpots("Bench");
+    }
+
+    @Benchmark
+    public List<ParkingSpot> binaryListAvailableSpots() throws Exception {
+        return binary.listAvailableSpots("Bench");
+    }
+
+    /** Appel mesuré pour le relevé d'octets */
+    private interface Call {
+        Object run() throws Exception;
+    }
+
+    private static void bytesPerCall(String name, TransportMetrics rmiMetrics, TransportMetrics binaryMetrics,
+                                     Call rmiCall, Call binaryCall) throws Exception {
+        int calls = 200;
+        rmiCall.run(); // connexion et échanges d'ouverture hors relevé
+        binaryCall.run();
+        long rmi0 = rmiMetrics.getBytesReceived() + rmiMetrics.getBytesSent();
+        for (int i = 0; i < calls; i++) rmiCall.run();
+        long rmi = rmiMetrics.getBytesReceived() + rmiMetrics.getBytesSent() - rmi0;
+        long bin0 = binaryMetrics.getBytesReceived() + binaryMetrics.getBytesSent();
+        for (int i = 0; i < calls; i++) binaryCall.run();
+        long bin = binaryMetrics.getBytesReceived() + binaryMetrics.getBytesSent() - bin0;
+        System.out.printf(Locale.ROOT, "  %-40s rmi %,10d   binaire %,10d%n", name, rmi / calls, bin / calls);
+    }
+}
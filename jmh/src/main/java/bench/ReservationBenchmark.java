@@ -0,0 +1,78 @@
+package bench;
+
+import common.ClientInfo;
+import common.ParkingSpot;
+import common.Payment;
+import common.Reservation;
+import common.Vehicle;
+import org.openjdk.jmh.annotations.*;
+import server.ReservationServiceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Débit de réservation + paiement + annulation sur le service en mémoire.
+ *
+ * Chaque thread travaille sur ses propres places (pas de conflit métier) : on mesure le coût
+ * du chemin critique et des verrous partagés. Le nombre de threads se choisit au lancement,
+ * par exemple -t 1, -t 4, -t 16 (au plus {@code maxThreads}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationBenchmark {
+
+    static final int SPOTS_PER_THREAD = 256;
+
+    @Param("64")
+    int maxThreads;
+
+    ReservationServiceImpl service;
+    List<ParkingSpot> spots;
+    final AtomicInteger threads = new AtomicInteger();
+    final ClientInfo client = new ClientInfo("Bench", "00000000");
+    final Vehicle vehicle = new Vehicle("BENCH", null, null);
+    final Payment payment = new Payment("carte", 1.0);
+
+    /** Places réservées à un thread */
+    @State(Scope.Thread)
+    public static class Slice {
+        int first;
+        int cursor;
+
+        @Setup
+        public void setup(ReservationBenchmark b) {
+            int index = b.threads.getAndIncrement();
+            if (index >= b.maxThreads) throw new IllegalStateException("Plus de " + b.maxThreads + " threads : augmenter maxThreads");
+            first = index * SPOTS_PER_THREAD;
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        service = new ReservationServiceImpl();
+        service.addZone("Bench");
+        spots = new ArrayList<>(SPOTS_PER_THREAD * maxThreads);
+        for (int i = 0; i < SPOTS_PER_THREAD * maxThreads; i++) spots.add(service.addSpot("B" + i, "Bench"));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Services.close(service);
+    }
+
+    @Benchmark
+    public boolean reserveAndPay(Slice slice) throws Exception {
+        int i = slice.cursor;
+        slice.cursor = (i + 1) % SPOTS_PER_THREAD;
+        Reservation r = service.reserveSpot(client, vehicle, spots.get(slice.first + i).getId(), 1);
+        service.payReservation(r.getId(), payment);
+        return service.removeReservation(r.getId());
+    }
+}
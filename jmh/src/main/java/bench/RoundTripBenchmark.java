@@ -0,0 +1,72 @@
+package bench;
+
+import common.ClientInfo;
+import common.ParkingSpot;
+import common.Reservation;
+import common.SpotHistory;
+import common.Vehicle;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aller-retour écriture + lecture par sérialisation Java, comme un appel RMI : une
+ * réservation, une place avec 256 événements d'historique (non transmis) et une liste de
+ * 1000 places.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoundTripBenchmark {
+
+    Reservation reservation;
+    ParkingSpot spot;
+    ArrayList<ParkingSpot> page;
+
+    @Setup
+    public void setup() {
+        spot = new ParkingSpot(42, "B-12", "Bench");
+        for (int i = 0; i < 256; i++) {
+            spot.addHistory(new SpotHistory(LocalDateTime.now(), "PAYMENT", "Paiement reservation " + i, 2.0));
+        }
+        reservation = new Reservation(new ClientInfo("Client Test", "22123456"),
+                new Vehicle("123TU4567", "Clio", "Gris"), spot, 3, 3.0);
+        page = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) page.add(new ParkingSpot(i, "P-" + i, "Bench"));
+    }
+
+    @Benchmark
+    public Object reservation() throws Exception {
+        return read(write(reservation));
+    }
+
+    @Benchmark
+    public Object parkingSpot() throws Exception {
+        return read(write(spot));
+    }
+
+    @Benchmark
+    public Object spotList() throws Exception {
+        return read(write(page));
+    }
+
+    static byte[] write(Object o) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(o);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Object read(byte[] data) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return in.readObject();
+        }
+    }
+}
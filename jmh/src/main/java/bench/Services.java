@@ -0,0 +1,19 @@
+package bench;
+
+import server.ReservationServiceImpl;
+
+import java.rmi.server.UnicastRemoteObject;
+
+/** Outils communs aux benchmarks */
+final class Services {
+
+    private Services() {}
+
+    /** Désexporte un service en mémoire et arrête ses échéanciers (fin d'un essai) */
+    static void close(ReservationServiceImpl service) throws Exception {
+        UnicastRemoteObject.unexportObject(service, true);
+        service.getExpiry().close();
+        service.getSlotStarts().close();
+        service.getHoldSweeper().close();
+    }
+}
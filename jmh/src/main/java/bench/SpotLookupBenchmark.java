@@ -0,0 +1,51 @@
+package bench;
+
+import common.ParkingSpot;
+import org.openjdk.jmh.annotations.*;
+import server.SpotRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecture d'une place par id aléatoire : {@link SpotRegistry} (tableau dense indexé par id)
+ * contre l'ancienne ConcurrentHashMap&lt;Integer, ParkingSpot&gt;. La mémoire occupée par
+ * chaque structure est mesurée par bench.SpotRegistryBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SpotLookupBenchmark {
+
+    @Param("1000000")
+    int spots;
+
+    SpotRegistry registry;
+    Map<Integer, ParkingSpot> map;
+
+    @Setup
+    public void setup() {
+        registry = new SpotRegistry();
+        map = new ConcurrentHashMap<>();
+        for (int i = 0; i < spots; i++) {
+            ParkingSpot p = new ParkingSpot(i + 1, "B" + i, "Bench");
+            registry.put(p);
+            map.put(p.getId(), p);
+        }
+    }
+
+    @Benchmark
+    public ParkingSpot concurrentHashMap() {
+        return map.get(ThreadLocalRandom.current().nextInt(1, spots + 1));
+    }
+
+    @Benchmark
+    public ParkingSpot spotRegistry() {
+        return registry.get(ThreadLocalRandom.current().nextInt(1, spots + 1));
+    }
+}
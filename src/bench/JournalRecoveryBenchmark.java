@@ -0,0 +1,97 @@
+package bench;
+
+import common.ClientInfo;
+import common.Payment;
+import common.Reservation;
+import common.Vehicle;
+import server.PersistenceManager;
+import server.ReservationServiceImpl;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark du temps de récupération au démarrage.
+ *
+ * Génère N événements dans un journal (cycles réservation / paiement / annulation sur un
+ * ensemble de places), puis mesure :
+ * - la récupération par relecture complète du journal
+ * - la récupération après compactage (snapshot + journal vide)
+ *
+ * Usage : java -Xmx4g bench.JournalRecoveryBenchmark [événements] [places]
+ */
+public class JournalRecoveryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        long events = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        int spotCount = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        Path dir = Files.createTempDirectory("parking-journal-bench");
+
+        try {
+            // ======= Génération du journal =======
+            long t0 = System.nanoTime();
+            PersistenceManager writer = new PersistenceManager(dir, 256 << 20, false);
+            ReservationServiceImpl service = new ReservationServiceImpl(writer);
+            service.addZone("Bench");
+            for (int i = 0; i < spotCount; i++) service.addSpot("B" + i, "Bench");
+
+            ClientInfo client = new ClientInfo("Bench", "00000000");
+            Vehicle vehicle = new Vehicle("BENCH", "Modèle", "Couleur");
+            Payment payment = new Payment("carte", 1.0);
+            long written = spotCount + 1;
+            int spotId = 9; // les 8 premières places sont celles créées par défaut
+            while (written < events) {
+                Reservation r = service.reserveSpot(client, vehicle, spotId, 1);
+                service.payReservation(r.getId(), payment);
+                service.removeReservation(r.getId());
+                written += 3;
+                if (++spotId > spotCount + 8) spotId = 9;
+            }
+            writer.close();
+            UnicastRemoteObject.unexportObject(service, true);
+            System.out.printf("Journal : %,d événements écrits en %,d ms (%,d Mo)%n",
+                    written, (System.nanoTime() - t0) / 1_000_000, size(dir) >> 20);
+            service = null;
+
+            // ======= Récupération par relecture complète =======
+            System.gc();
+            long replayMs = timeRecovery(dir);
+            System.out.printf("Récupération (journal seul)     : %,d ms%n", replayMs);
+
+            // ======= Compactage puis récupération depuis le snapshot =======
+            PersistenceManager compactor = new PersistenceManager(dir, 256 << 20, false);
+            long t1 = System.nanoTime();
+            compactor.snapshot();
+            System.out.printf("Compactage                      : %,d ms (%,d Mo sur disque)%n",
+                    (System.nanoTime() - t1) / 1_000_000, size(dir) >> 20);
+            compactor.close();
+
+            System.gc();
+            long snapshotMs = timeRecovery(dir);
+            System.out.printf("Récupération (snapshot)         : %,d ms%n", snapshotMs);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    private static long timeRecovery(Path dir) throws Exception {
+        long t = System.nanoTime();
+        PersistenceManager pm = new PersistenceManager(dir, 256 << 20, false);
+        int spots = pm.recover().spotCount();
+        long ms = (System.nanoTime() - t) / 1_000_000;
+        pm.close();
+        if (spots == 0) throw new IllegalStateException("Récupération vide");
+        return ms;
+    }
+
+    private static long size(Path dir) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.mapToLong(p -> p.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package bench;
+
+import client.BinaryClient;
+import common.*;
+import server.AdminServiceImpl;
+import server.BinaryEndpoint;
+import server.LatencyHistogram;
+import server.PersistenceManager;
+import server.ReservationServiceImpl;
+import server.RmiTransport;
+
+import java.rmi.RemoteException;
+import java.rmi.ServerException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Générateur de charge : des milliers de bornes simulées (threads virtuels) appellent le
+ * serveur par RMI, comme autant de ClientSwing, sans interface graphique.
+ *
+ * Chaque borne a son client et son véhicule et enregistre un vrai INotificationListener.
+ * Les opérations sont tirées selon un mélange configurable :
+ * - list    : listAvailableSpots d'une zone au hasard (la borne garde la liste reçue)
+ * - reserve : reserveSpot d'une place de sa dernière liste (identifiant de requête)
+ * - pay     : payReservation d'une réservation non payée
+ * - cancel  : annulation admin d'une réservation (rend la place, la charge peut durer)
+ * - admin   : getZoneStats ou recherche des réservations non payées
+ * Sans réservation à payer ou à annuler, la borne fait un list à la place.
+ *
+ * Deux modes :
+ * - boucle ouverte (load.rate > 0) : les arrivées suivent un processus de Poisson au débit
+ *   demandé, indépendamment des réponses. La latence est comptée depuis l'heure d'arrivée
+ *   prévue : un serveur qui ralentit fait monter la latence au lieu de ralentir la charge
+ *   (pas d'omission coordonnée) ;
+ * - boucle fermée (load.rate = 0) : chaque borne enchaîne ses appels, avec un temps de
+ *   réflexion éventuel ; le débit obtenu est celui que le serveur soutient.
+ *
+ * Le rapport donne, par opération : débit, taux de refus (erreur renvoyée par le serveur :
+ * place déjà prise…), taux d'erreurs (transport, délai), latences p50/p99/p999/max.
+ *
+ * Usage : java bench.LoadGenerator [hôte] [port du registre RMI ou du protocole binaire]
+ *
+ * Paramètres (propriétés système) :
+ * - load.clients     : nombre de bornes (défaut 1000)
+ * - load.rate        : arrivées par seconde, 0 = boucle fermée (défaut 500)
+ * - load.thinkMs     : temps de réflexion entre deux appels en boucle fermée (défaut 0)
+ * - load.durationSec : durée mesurée (défaut 60)
+ * - load.warmupSec   : chauffe, non comptée (défaut 10)
+ * - load.reportSec   : période des rapports intermédiaires (défaut 10)
+ * - load.mix         : poids des opérations (défaut list=50,reserve=20,pay=15,cancel=10,admin=5)
+ * - load.listeners   : enregistrer un listener de notification par borne (défaut true)
+ * - load.embedded    : démarrer un serveur en mémoire dans ce processus (défaut false)
+ * - load.spots       : places créées par le serveur embarqué (défaut 10000)
+ * - load.protocol    : rmi ou binary (protocole binaire, une connexion partagée par toutes les bornes ; défaut rmi)
+ */
+public class LoadGenerator {
+
+    /** Opérations simulées */
+    enum Kind { LIST, RESERVE, PAY, CANCEL, ADMIN }
+
+    /** Compteurs d'une opération pour une phase (chauffe ou mesure) */
+    private static final class OpStats {
+        final LatencyHistogram latency;
+        final LongAdder ok = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder failed = new LongAdder();
+
+        OpStats(Kind kind) {
+            latency = new LatencyHistogram(kind.name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private final IReservationService service;
+    private final IAdminService admin;
+    private final List<String> zones = new ArrayList<>();
+    private final int[] mix = new int[Kind.values().length];
+    private final int mixTotal;
+
+    /** Réservations à payer, puis à annuler (partagées par toutes les bornes) */
+    private final Queue<Reservation> unpaid = new ConcurrentLinkedQueue<>();
+    private final Queue<Reservation> paid = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder notifications = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    /** Compteurs de la phase en cours */
+    private volatile OpStats[] stats = newStats();
+
+    /** Fin de la charge */
+    private volatile boolean stopped;
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        boolean binary = "binary".equals(System.getProperty("load.protocol", "rmi"));
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : binary ? 1101 : 1099;
+        if (Boolean.getBoolean("load.embedded")) startEmbeddedServer(port, Integer.getInteger("load.spots", 10_000), binary);
+
+        String mix = System.getProperty("load.mix", "list=50,reserve=20,pay=15,cancel=10,admin=5");
+        LoadGenerator gen;
+        if (binary) {
+            BinaryClient client = new BinaryClient(host, port);
+            gen = new LoadGenerator(client, client, mix);
+        } else {
+            Registry reg = LocateRegistry.getRegistry(host, port);
+            gen = new LoadGenerator((IReservationService) reg.lookup("ParkingService"), (IAdminService) reg.lookup("AdminService"), mix);
+        }
+        gen.run();
+        System.exit(0); // les stubs exportés des listeners gardent la JVM en vie
+    }
+
+    LoadGenerator(IReservationService service, IAdminService admin, String mixSpec) throws RemoteException {
+        this.service = service;
+        this.admin = admin;
+        for (ParkingZone z : service.listZones()) zones.add(z.getName());
+        if (zones.isEmpty()) zones.add("");
+        int total = 0;
+        for (String part : mixSpec.split(",")) {
+            String[] kv = part.trim().split("=");
+            int w = Integer.parseInt(kv[1].trim());
+            mix[Kind.valueOf(kv[0].trim().toUpperCase(Locale.ROOT)).ordinal()] = w;
+            total += w;
+        }
+        if (total <= 0) throw new IllegalArgumentException("Mélange vide: " + mixSpec);
+        this.mixTotal = total;
+    }
+
+    private void run() throws Exception {
+        int clients = Integer.getInteger("load.clients", 1000);
+        double rate = Double.parseDouble(System.getProperty("load.rate", "500"));
+        long warmupNs = TimeUnit.SECONDS.toNanos(Integer.getInteger("load.warmupSec", 10));
+        long durationNs = TimeUnit.SECONDS.toNanos(Integer.getInteger("load.durationSec", 60));
+        long reportNs = TimeUnit.SECONDS.toNanos(Math.max(1, Integer.getInteger("load.reportSec", 10)));
+
+        Kiosk[] kiosks = new Kiosk[clients];
+        for (int i = 0; i < clients; i++) kiosks[i] = new Kiosk(i);
+        if (Boolean.parseBoolean(System.getProperty("load.listeners", "true"))) {
+            for (Kiosk k : kiosks) k.registerListener();
+        }
+        System.out.printf(Locale.ROOT, "%,d bornes, %s, zones %s%n", clients,
+                rate > 0 ? String.format(Locale.ROOT, "boucle ouverte %.0f arrivées/s", rate) : "boucle fermée", zones);
+
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            long start = System.nanoTime();
+            long measureStart = start + warmupNs;
+            long end = measureStart + durationNs;
+            if (rate <= 0) {
+                long thinkMs = Long.getLong("load.thinkMs", 0);
+                for (Kiosk k : kiosks) threads.execute(() -> k.loop(thinkMs));
+            } else {
+                Thread arrivals = Thread.ofPlatform().name("load-arrivals").daemon().start(() -> openLoop(kiosks, rate, threads));
+                arrivals.setPriority(Thread.MAX_PRIORITY);
+            }
+
+            sleepUntil(measureStart);
+            stats = newStats(); // fin de chauffe : on repart de zéro
+            System.out.println("Chauffe terminée, mesure pendant " + TimeUnit.NANOSECONDS.toSeconds(durationNs) + " s");
+            for (long next = measureStart + reportNs; next < end; next += reportNs) {
+                sleepUntil(next);
+                report("Intermédiaire", stats, next - measureStart);
+            }
+            sleepUntil(end);
+            OpStats[] result = stats;
+            stopped = true;
+            report("Résultat", result, end - measureStart);
+            threads.shutdownNow();
+        }
+    }
+
+    /** Arrivées de Poisson au débit demandé, chacune sur son propre thread virtuel */
+    private void openLoop(Kiosk[] kiosks, double rate, ExecutorService threads) {
+        double meanNs = 1e9 / rate;
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        long next = System.nanoTime();
+        while (!stopped) {
+            long intended = next;
+            Kiosk k = kiosks[rnd.nextInt(kiosks.length)];
+            Kind kind = pick(rnd);
+            threads.execute(() -> k.perform(kind, intended));
+            next += (long) (-Math.log(1 - rnd.nextDouble()) * meanNs);
+            long wait = next - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+        }
+    }
+
+    private Kind pick(ThreadLocalRandom rnd) {
+        int r = rnd.nextInt(mixTotal);
+        for (Kind k : Kind.values()) {
+            r -= mix[k.ordinal()];
+            if (r < 0) return k;
+        }
+        return Kind.LIST;
+    }
+
+    // ======= Borne simulée =======
+
+    /** Une borne : son client, son véhicule, la dernière liste de places reçue */
+    private final class Kiosk {
+        final ClientInfo client;
+        final Vehicle vehicle;
+        volatile List<ParkingSpot> lastSeen = List.of();
+
+        Kiosk(int index) {
+            this.client = new ClientInfo("Borne " + index, String.format("9%07d", index));
+            this.vehicle = new Vehicle(String.format("%03d TU %04d", index % 1000, index), "Modèle", "Couleur");
+        }
+
+        void registerListener() throws RemoteException {
+            INotificationListener listener = new INotificationListener() {
+                @Override
+                public void onNotification(Notification notification) {
+                    notifications.increment();
+                }
+
+                @Override
+                public void onNotifications(List<Notification> list) {
+                    notifications.add(list.size());
+                }
+            };
+            // le client binaire appelle ses listeners localement : pas d'export RMI
+            service.registerListener(client.getPhone(), service instanceof BinaryClient ? listener
+                    : (INotificationListener) UnicastRemoteObject.exportObject(listener, 0));
+        }
+
+        /** Boucle fermée : enchaîne les opérations jusqu'à la fin de la charge */
+        void loop(long thinkMs) {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            try {
+                while (!stopped) {
+                    perform(pick(rnd), System.nanoTime());
+                    if (thinkMs > 0) Thread.sleep(thinkMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Exécute une opération et la comptabilise
+         * @param intended heure prévue du début (System.nanoTime()), origine de la latence
+         */
+        void perform(Kind kind, long intended) {
+            if (stopped) return;
+            int n = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(n, Math::max);
+            OpStats[] phase = stats;
+            Kind done = kind;
+            try {
+                done = call(kind);
+                phase[done.ordinal()].ok.increment();
+            } catch (ServerException e) {
+                phase[done.ordinal()].rejected.increment();
+            } catch (Exception e) {
+                phase[done.ordinal()].failed.increment();
+            } finally {
+                phase[done.ordinal()].latency.recordSince(intended);
+                inFlight.decrementAndGet();
+            }
+        }
+
+        /** @return l'opération réellement faite (list si rien à payer ou à annuler) */
+        private Kind call(Kind kind) throws RemoteException {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            switch (kind) {
+                case RESERVE -> {
+                    List<ParkingSpot> seen = lastSeen;
+                    if (seen.isEmpty()) return list(rnd);
+                    ParkingSpot spot = seen.get(rnd.nextInt(seen.size()));
+                    Reservation r = service.reserveSpot(UUID.randomUUID().toString(), client, vehicle, spot.getId(), 1);
+                    unpaid.add(r);
+                    return Kind.RESERVE;
+                }
+                case PAY -> {
+                    Reservation r = unpaid.poll();
+                    if (r == null) return list(rnd);
+                    service.payReservation(UUID.randomUUID().toString(), r.getId(), new Payment("carte", r.getAmount()));
+                    paid.add(r);
+                    return Kind.PAY;
+                }
+                case CANCEL -> {
+                    Reservation r = paid.poll();
+                    if (r == null) r = unpaid.poll();
+                    if (r == null) return list(rnd);
+                    admin.cancelReservation(r.getId());
+                    return Kind.CANCEL;
+                }
+                case ADMIN -> {
+                    if (rnd.nextBoolean()) admin.getZoneStats();
+                    else admin.findReservations(ReservationQuery.unpaid(50));
+                    return Kind.ADMIN;
+                }
+                default -> {
+                    return list(rnd);
+                }
+            }
+        }
+
+        private Kind list(ThreadLocalRandom rnd) throws RemoteException {
+            lastSeen = service.listAvailableSpots(zones.get(rnd.nextInt(zones.size())));
+            return Kind.LIST;
+        }
+    }
+
+    // ======= Rapport =======
+
+    private void report(String title, OpStats[] phase, long elapsedNs) {
+        double seconds = elapsedNs / 1e9;
+        System.out.printf(Locale.ROOT, "%n%s (%.0f s) — en vol max %d, notifications reçues %,d%n",
+                title, seconds, maxInFlight.get(), notifications.sum());
+        System.out.printf(Locale.ROOT, "%-8s %10s %10s %8s %8s %9s %9s %9s %9s%n",
+                "op", "appels", "appels/s", "refus %", "err %", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        long total = 0, errors = 0;
+        for (Kind k : Kind.values()) {
+            OpStats s = phase[k.ordinal()];
+            long count = s.latency.getCount();
+            if (count == 0) continue;
+            total += count;
+            errors += s.failed.sum();
+            System.out.printf(Locale.ROOT, "%-8s %,10d %,10.0f %8.2f %8.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    k.name().toLowerCase(Locale.ROOT), count, count / seconds,
+                    100.0 * s.rejected.sum() / count, 100.0 * s.failed.sum() / count,
+                    s.latency.quantileNanos(0.50) / 1e6, s.latency.quantileNanos(0.99) / 1e6,
+                    s.latency.quantileNanos(0.999) / 1e6, s.latency.getMaxMicros() / 1e3);
+        }
+        System.out.printf(Locale.ROOT, "total    %,10d %,10.0f %8s %8.2f%n", total, total / seconds, "",
+                total == 0 ? 0.0 : 100.0 * errors / total);
+    }
+
+    private static OpStats[] newStats() {
+        OpStats[] s = new OpStats[Kind.values().length];
+        for (Kind k : Kind.values()) s[k.ordinal()] = new OpStats(k);
+        return s;
+    }
+
+    private static void sleepUntil(long deadline) throws InterruptedException {
+        long ms = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (ms > 0) Thread.sleep(ms);
+    }
+
+    /** Serveur en mémoire (sans persistance) dans ce processus, pour une charge autonome */
+    private static void startEmbeddedServer(int port, int spotCount, boolean binary) throws Exception {
+        // même transport que ServerMain (parking.rmi.*) : comparer NODELAY, tampons, compression
+        RmiTransport.applySystemProperties();
+        RmiTransport transport = RmiTransport.fromProperties();
+        ReservationServiceImpl service = new ReservationServiceImpl(PersistenceManager.inMemory(), transport);
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < spotCount; i++) labels.add("L" + i);
+        service.addZone("Load");
+        service.addSpots(labels, "Load");
+        AdminServiceImpl admin = new AdminServiceImpl(service, transport);
+        if (binary) {
+            new BinaryEndpoint(service, admin, port, Integer.getInteger("parking.binary.workers", 16),
+                    Integer.getInteger("parking.binary.maxInFlight", 256));
+        } else {
+            Registry reg = LocateRegistry.createRegistry(port);
+            reg.rebind("ParkingService", service);
+            reg.rebind("AdminService", admin);
+        }
+        System.out.println("Serveur embarqué : " + spotCount + " places dans la zone Load");
+    }
+}
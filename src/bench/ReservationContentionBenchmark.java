@@ -0,0 +1,103 @@
+package bench;
+
+import common.ClientInfo;
+import common.ParkingSpot;
+import common.Reservation;
+import common.Vehicle;
+import server.ReservationServiceImpl;
+
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmark de contention multi-threads sur ReservationServiceImpl.
+ * Chaque thread enchaîne réservation puis annulation (reserveSpot + removeReservation)
+ * et on mesure le débit total pour 1, 2, 4 ... N threads.
+ *
+ * Deux scénarios :
+ * - "disjoint" : chaque thread travaille sur ses propres places (aucun conflit)
+ * - "partagé"  : tous les threads tirent au hasard dans la même zone (conflits réels)
+ *
+ * Usage : java bench.ReservationContentionBenchmark [places] [durée ms par palier]
+ */
+public class ReservationContentionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int spotCount = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        long durationMs = args.length > 1 ? Long.parseLong(args[1]) : 2000;
+        int maxThreads = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+
+        ReservationServiceImpl service = new ReservationServiceImpl();
+        service.addZone("Bench");
+        List<ParkingSpot> benchSpots = new ArrayList<>();
+        for (int i = 0; i < spotCount; i++) {
+            benchSpots.add(service.addSpot("B" + i, "Bench"));
+        }
+
+        System.out.println("Places: " + spotCount + ", coeurs: " + Runtime.getRuntime().availableProcessors());
+        for (boolean shared : new boolean[]{false, true}) {
+            System.out.println("Scénario " + (shared ? "partagé" : "disjoint"));
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                run(service, benchSpots, threads, durationMs, shared); // palier de chauffe
+                Result r = run(service, benchSpots, threads, durationMs, shared);
+                System.out.printf("  %2d threads : %,12.0f ops/s  (%,d conflits)%n",
+                        threads, r.ops * 1000.0 / durationMs, r.conflicts);
+            }
+        }
+
+        UnicastRemoteObject.unexportObject(service, true);
+    }
+
+    /** Résultat d'un palier : opérations réussies et réservations refusées (place déjà prise) */
+    private record Result(long ops, long conflicts) {}
+
+    private static Result run(ReservationServiceImpl service, List<ParkingSpot> benchSpots,
+                              int threads, long durationMs, boolean shared) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        LongAdder conflicts = new LongAdder();
+        AtomicBoolean stop = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        int slice = benchSpots.size() / threads;
+        for (int t = 0; t < threads; t++) {
+            int from = shared ? 0 : t * slice;
+            int to = shared ? benchSpots.size() : from + slice;
+            Thread w = new Thread(() -> {
+                ClientInfo client = new ClientInfo("Bench", "00000000");
+                Vehicle vehicle = new Vehicle("BENCH", null, null);
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                int i = from;
+                while (!stop.get()) {
+                    int spotId = benchSpots.get(shared ? rnd.nextInt(from, to) : i).getId();
+                    if (++i == to) i = from;
+                    try {
+                        Reservation r = service.reserveSpot(client, vehicle, spotId, 1);
+                        service.removeReservation(r.getId());
+                        ops.increment();
+                    } catch (Exception e) {
+                        conflicts.increment();
+                    }
+                }
+            });
+            workers.add(w);
+            w.start();
+        }
+
+        start.countDown();
+        Thread.sleep(durationMs);
+        stop.set(true);
+        for (Thread w : workers) w.join();
+        return new Result(ops.sum(), conflicts.sum());
+    }
+}
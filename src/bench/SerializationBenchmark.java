@@ -0,0 +1,155 @@
+package bench;
+
+import common.ClientInfo;
+import common.ParkingSpot;
+import common.Reservation;
+import common.SpotHistory;
+import common.Vehicle;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark de l'encodage RMI des objets échangés.
+ *
+ * Compare, pour une réservation, une liste de places et une page d'historique :
+ * - l'ancien encodage (sérialisation Java par défaut, réservation embarquant la place et
+ *   tout son historique), reproduit par les classes Legacy* ci-dessous
+ * - l'encodage actuel (Externalizable versionné, réservation avec id et label de la place)
+ * Mesure la taille en octets et le temps d'un aller-retour écriture + lecture.
+ *
+ * Usage : java bench.SerializationBenchmark [événements d'historique par place] [itérations]
+ */
+public class SerializationBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int historySize = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        ClientInfo client = new ClientInfo("Client Test", "22123456");
+        Vehicle vehicle = new Vehicle("123TU4567", "Clio", "Gris");
+        LocalDateTime now = LocalDateTime.now();
+
+        // ======= Une réservation sur une place avec historique =======
+        ParkingSpot spot = new ParkingSpot(42, "B-12", "Zone B");
+        LegacySpot legacySpot = new LegacySpot(42, "B-12", "Zone B");
+        for (int i = 0; i < historySize; i++) {
+            SpotHistory h = new SpotHistory(now.minusMinutes(historySize - i), "PAYMENT", "Réservation R" + i, 2.5);
+            spot.addHistory(h);
+            legacySpot.history.add(0, new LegacyHistory(h.getDate(), h.getType(), h.getDetails(), h.getAmount()));
+        }
+        Reservation reservation = new Reservation(client, vehicle, spot, 3, 3.0);
+        LegacyReservation legacyReservation = new LegacyReservation(reservation.getId(), client, vehicle, legacySpot, 3, 3.0, now);
+
+        System.out.printf("Encodage RMI (%d événements d'historique par place, %,d itérations)%n", historySize, iterations);
+        compare("Réservation", legacyReservation, reservation, iterations);
+
+        // ======= Liste de 1000 places (listAvailableSpots) =======
+        ArrayList<ParkingSpot> spots = new ArrayList<>();
+        ArrayList<LegacySpot> legacySpots = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ParkingSpot p = new ParkingSpot(i, "P-" + i, "Zone " + (i % 10));
+            LegacySpot lp = new LegacySpot(i, "P-" + i, "Zone " + (i % 10));
+            for (int h = 0; h < 4; h++) {
+                p.addHistory(new SpotHistory(now, "FREE", "Place libérée", 0));
+                lp.history.add(new LegacyHistory(now, "FREE", "Place libérée", 0));
+            }
+            spots.add(p);
+            legacySpots.add(lp);
+        }
+        compare("1000 places", legacySpots, spots, Math.max(1, iterations / 100));
+
+        // ======= Page d'historique de 50 événements =======
+        ArrayList<SpotHistory> page = new ArrayList<>(spot.getHistory().subList(0, Math.min(50, historySize)));
+        ArrayList<LegacyHistory> legacyPage = new ArrayList<>(legacySpot.history.subList(0, Math.min(50, historySize)));
+        compare("Page d'historique (50)", legacyPage, page, iterations);
+    }
+
+    private static void compare(String name, Object legacy, Object current, int iterations) throws Exception {
+        byte[] a = write(legacy);
+        byte[] b = write(current);
+        long legacyNs = roundTrip(legacy, iterations);
+        long currentNs = roundTrip(current, iterations);
+        System.out.printf("%-24s ancien : %,9d octets %,9d ns | actuel : %,9d octets %,9d ns | x%.1f octets, x%.1f temps%n",
+                name, a.length, legacyNs, b.length, currentNs,
+                (double) a.length / b.length, (double) legacyNs / currentNs);
+    }
+
+    /** Temps moyen d'un aller-retour (après une phase de chauffe) */
+    private static long roundTrip(Object o, int iterations) throws Exception {
+        for (int i = 0; i < Math.max(100, iterations / 10); i++) read(write(o));
+        long t = System.nanoTime();
+        for (int i = 0; i < iterations; i++) read(write(o));
+        return (System.nanoTime() - t) / iterations;
+    }
+
+    private static byte[] write(Object o) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(o);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object read(byte[] data) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return in.readObject();
+        }
+    }
+
+    // ======= Ancien modèle (sérialisation par défaut) =======
+
+    static class LegacyHistory implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final LocalDateTime date;
+        final String type;
+        final String details;
+        final double amount;
+
+        LegacyHistory(LocalDateTime date, String type, String details, double amount) {
+            this.date = date;
+            this.type = type;
+            this.details = details;
+            this.amount = amount;
+        }
+    }
+
+    static class LegacySpot implements Serializable {
+        private static final long serialVersionUID = 1L;
+        int id;
+        String label;
+        String region;
+        boolean reserved;
+        final List<LegacyHistory> history = new ArrayList<>();
+
+        LegacySpot(int id, String label, String region) {
+            this.id = id;
+            this.label = label;
+            this.region = region;
+        }
+    }
+
+    static class LegacyReservation implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final String id;
+        final ClientInfo client;
+        final Vehicle vehicle;
+        final LegacySpot spot;
+        final int hours;
+        final LocalDateTime createdAt;
+        final double amount;
+        boolean paid;
+
+        LegacyReservation(String id, ClientInfo client, Vehicle vehicle, LegacySpot spot, int hours, double amount, LocalDateTime createdAt) {
+            this.id = id;
+            this.client = client;
+            this.vehicle = vehicle;
+            this.spot = spot;
+            this.hours = hours;
+            this.amount = amount;
+            this.createdAt = createdAt;
+        }
+    }
+}
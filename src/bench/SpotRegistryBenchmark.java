@@ -0,0 +1,52 @@
+package bench;
+
+import common.ParkingSpot;
+import server.SpotRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Benchmark du registre des places à 1M places : {@link SpotRegistry} (tableau dense indexé
+ * par id) contre l'ancienne ConcurrentHashMap&lt;Integer, ParkingSpot&gt;.
+ *
+ * Mesure la mémoire occupée par la structure seule (les places sont créées à l'avance et
+ * partagées). Le débit de lecture par id aléatoire est mesuré par le benchmark JMH
+ * SpotLookupBenchmark (module jmh).
+ *
+ * Usage : java -Xmx2g bench.SpotRegistryBenchmark [places]
+ */
+public class SpotRegistryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        ParkingSpot[] spots = new ParkingSpot[count];
+        for (int i = 0; i < count; i++) spots[i] = new ParkingSpot(i + 1, "B" + i, "Bench");
+
+        long base = usedMemory();
+        SpotRegistry registry = new SpotRegistry();
+        for (ParkingSpot p : spots) registry.put(p);
+        long registryBytes = usedMemory() - base;
+
+        base = usedMemory();
+        Map<Integer, ParkingSpot> map = new ConcurrentHashMap<>();
+        for (ParkingSpot p : spots) map.put(p.getId(), p);
+        long mapBytes = usedMemory() - base;
+
+        System.out.printf("Mémoire pour %,d places : ConcurrentHashMap %,d octets (%.1f/place), SpotRegistry %,d octets (%.1f/place)%n",
+                count, mapBytes, (double) mapBytes / count, registryBytes, (double) registryBytes / count);
+        Reference.reachabilityFence(registry); // structures vivantes pendant les mesures
+        Reference.reachabilityFence(map);
+    }
+
+    /** Mémoire occupée après GC complet (tas seul) */
+    private static long usedMemory() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -6,9 +6,15 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Interface Admin V2 permettant de gérer :
@@ -20,6 +26,9 @@ public class AdminPanelV2 extends JFrame {
 
     private IAdminService adminService;
 
+    // Appels RMI hors de l'Event Dispatch Thread (résultats rendus sur l'EDT)
+    private final AsyncCalls calls = new AsyncCalls();
+
     // Tableau des zones (gauche)
     private DefaultTableModel zonesModel;
     private JTable zonesTable;
@@ -32,6 +41,14 @@ public class AdminPanelV2 extends JFrame {
     private DefaultTableModel historyModel;
     private JTable historyTable;
 
+    // Pagination de l’historique : seules les lignes affichées sont chargées
+    private static final int HISTORY_PAGE_SIZE = 50;
+    private JComboBox<String> historyTypeCombo;
+    private JButton moreHistoryBtn;
+    private int historySpotId = -1;
+    private HistoryQuery historyQuery;
+    private HistoryPage historyPage;
+
     public AdminPanelV2() {
 
         // Paramètres de base de la fenêtre
@@ -48,6 +65,13 @@ public class AdminPanelV2 extends JFrame {
 
         // Chargement initial des zones
         loadZones();
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                calls.shutdown();
+            }
+        });
     }
 
     /**
@@ -55,7 +79,8 @@ public class AdminPanelV2 extends JFrame {
      */
     private void connectToServer() {
         try {
-            Registry reg = LocateRegistry.getRegistry("localhost", 1099);
+            Registry reg = LocateRegistry.getRegistry(
+                    System.getProperty("parking.server.host", "localhost"), Integer.getInteger("parking.server.port", 1099));
             adminService = (IAdminService) reg.lookup("AdminService");
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Erreur connexion serveur: " + e.getMessage());
@@ -78,7 +103,7 @@ public class AdminPanelV2 extends JFrame {
         JPanel left = new JPanel(new BorderLayout());
         left.setPreferredSize(new Dimension(260, 0));
 
-        zonesModel = new DefaultTableModel(new String[]{"Nom Zone", "Total", "Disponibles"}, 0);
+        zonesModel = new DefaultTableModel(new String[]{"Nom Zone", "Total", "Disponibles", "Impayées", "Recettes"}, 0);
         zonesTable = new JTable(zonesModel);
         left.add(new JScrollPane(zonesTable), BorderLayout.CENTER);
 
@@ -120,8 +145,17 @@ public class AdminPanelV2 extends JFrame {
 
         JPanel histTop = new JPanel(new FlowLayout(FlowLayout.LEFT));
         histTop.add(new JLabel("Historique place sélectionnée"));
+        historyTypeCombo = new JComboBox<>(new String[]{"Tous", "RESERVATION", "PAYMENT", "FREE", "CANCEL", "EXPIRE"});
+        histTop.add(historyTypeCombo);
         right.add(histTop, BorderLayout.NORTH);
 
+        // Bouton pour charger la page suivante (événements plus anciens)
+        JPanel histActions = new JPanel();
+        moreHistoryBtn = new JButton("Plus ancien");
+        moreHistoryBtn.setEnabled(false);
+        histActions.add(moreHistoryBtn);
+        right.add(histActions, BorderLayout.SOUTH);
+
         /* Assemblage général */
         main.add(left, BorderLayout.WEST);
         main.add(middle, BorderLayout.CENTER);
@@ -144,31 +178,25 @@ public class AdminPanelV2 extends JFrame {
         spotsTable.getSelectionModel().addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting()) onSpotSelected();
         });
+
+        historyTypeCombo.addActionListener(e -> {
+            if (historySpotId != -1) loadHistory(historySpotId);
+        });
+        moreHistoryBtn.addActionListener(e -> loadMoreHistory());
     }
 
     /**
-     * Chargement de toutes les zones avec calcul du nombre de places
+     * Chargement de toutes les zones avec leurs compteurs (un seul appel RMI).
+     * Le tableau est mis à jour sur place : la zone sélectionnée le reste.
      */
     private void loadZones() {
-        try {
-            zonesModel.setRowCount(0);
-            List<ParkingZone> zones = adminService.listZones();
-
-            for (ParkingZone z : zones) {
-
-                // Charger les places de la zone
-                List<ParkingSpot> spots = adminService.listSpotsByZone(z.getName());
-
-                long total = spots.size();
-                long free = spots.stream().filter(s -> !s.isReserved()).count();
-
-                // Ajouter dans le tableau
-                zonesModel.addRow(new Object[]{z.getName(), total, free});
+        calls.load("zones", () -> adminService.getZoneStats(), stats -> {
+            List<Object[]> rows = new ArrayList<>(stats.size());
+            for (ZoneStats z : stats) {
+                rows.add(new Object[]{z.getName(), z.getTotal(), z.getFree(), z.getUnpaid(), z.getRevenue()});
             }
-
-        } catch (Exception ex) {
-            showError(ex.getMessage());
-        }
+            ModelSync.syncTable(zonesModel, rows);
+        }, ex -> showError(ex.getMessage()));
     }
 
     /**
@@ -183,25 +211,21 @@ public class AdminPanelV2 extends JFrame {
     }
 
     /**
-     * Charger les places d'une zone
+     * Charger les places d'une zone (le chargement d'une zone précédemment sélectionnée est abandonné)
      */
     private void loadSpots(String zoneName) {
-        try {
-            spotsModel.setRowCount(0);
-            List<ParkingSpot> spots = adminService.listSpotsByZone(zoneName);
-
+        calls.load("spots", () -> adminService.listSpotsByZone(zoneName), spots -> {
+            List<Object[]> rows = new ArrayList<>(spots.size());
             for (ParkingSpot p : spots) {
-                spotsModel.addRow(new Object[]{
+                rows.add(new Object[]{
                         p.getId(),
                         p.getLabel(),
                         p.isReserved() ? "Réservée" : "Disponible",
                         p.getRegion()
                 });
             }
-
-        } catch (Exception ex) {
-            showError(ex.getMessage());
-        }
+            ModelSync.syncTable(spotsModel, rows);
+        }, ex -> showError(ex.getMessage()));
     }
 
     /**
@@ -216,14 +240,40 @@ public class AdminPanelV2 extends JFrame {
     }
 
     /**
-     * Charger l'historique d'une place
+     * Charger la première page de l'historique d'une place
      */
     private void loadHistory(int spotId) {
-        try {
-            historyModel.setRowCount(0);
-            List<SpotHistory> hist = adminService.getSpotHistory(spotId);
+        historySpotId = spotId;
 
-            for (SpotHistory h : hist) {
+        String type = (String) historyTypeCombo.getSelectedItem();
+        Set<String> types = type == null || "Tous".equals(type) ? null : Set.of(type);
+        historyQuery = new HistoryQuery(null, null, types, HISTORY_PAGE_SIZE, HistoryQuery.FIRST_PAGE);
+        fetchHistoryPage(true);
+    }
+
+    /**
+     * Charger la page suivante (plus ancienne) de l'historique
+     */
+    private void loadMoreHistory() {
+        if (historyPage == null || !historyPage.hasNext()) return;
+        historyQuery = historyQuery.next(historyPage);
+        fetchHistoryPage(false);
+    }
+
+    /**
+     * Récupérer une page d'historique et l'ajouter au tableau.
+     * Une autre place sélectionnée entre-temps rend la page obsolète : elle n'est pas affichée.
+     * @param first première page : remplace le contenu du tableau à l'arrivée
+     */
+    private void fetchHistoryPage(boolean first) {
+        int spotId = historySpotId;
+        HistoryQuery query = historyQuery;
+        moreHistoryBtn.setEnabled(false);
+        calls.load("history", () -> adminService.getSpotHistory(spotId, query), page -> {
+            historyPage = page;
+            if (first) historyModel.setRowCount(0);
+
+            for (SpotHistory h : page.getItems()) {
                 historyModel.addRow(new Object[]{
                         h.getDate().toString(),
                         h.getType(),
@@ -231,10 +281,8 @@ public class AdminPanelV2 extends JFrame {
                         h.getAmount()
                 });
             }
-
-        } catch (Exception ex) {
-            showError(ex.getMessage());
-        }
+            moreHistoryBtn.setEnabled(page.hasNext());
+        }, ex -> showError(ex.getMessage()));
     }
 
     /**
@@ -244,15 +292,11 @@ public class AdminPanelV2 extends JFrame {
         String name = JOptionPane.showInputDialog(this, "Nom nouvelle zone:");
         if (name == null || name.trim().isEmpty()) return;
 
-        try {
-            boolean ok = adminService.addZone(name.trim());
+        calls.submit(() -> adminService.addZone(name.trim()), ok -> {
             if (!ok) showError("Zone existante ou erreur.");
 
             loadZones();
-
-        } catch (Exception ex) {
-            showError(ex.getMessage());
-        }
+        }, ex -> showError(ex.getMessage()));
     }
 
     /**
@@ -267,18 +311,18 @@ public class AdminPanelV2 extends JFrame {
 
         String name = (String) zonesModel.getValueAt(row, 0);
 
-        try {
-            boolean ok = adminService.removeZone(name);
+        calls.submit(() -> adminService.removeZone(name), ok -> {
             if (!ok)
                 showError("Impossible de supprimer (zone non vide ?)");
 
             loadZones();
+            calls.cancel("spots");
+            calls.cancel("history");
             spotsModel.setRowCount(0);
             historyModel.setRowCount(0);
-
-        } catch (Exception ex) {
-            showError(ex.getMessage());
-        }
+            historySpotId = -1;
+            moreHistoryBtn.setEnabled(false);
+        }, ex -> showError(ex.getMessage()));
     }
 
     /**
@@ -292,69 +336,80 @@ public class AdminPanelV2 extends JFrame {
         }
 
         String zone = (String) zonesModel.getValueAt(row, 0);
-        String label = JOptionPane.showInputDialog(this, "Label nouvelle place (ex: C1):");
+        String label = JOptionPane.showInputDialog(this, "Label nouvelle place (ex: C1, ou C1..C50 pour plusieurs):");
 
         if (label == null || label.trim().isEmpty()) return;
 
-        try {
-            ParkingSpot p = adminService.addSpot(label.trim(), zone);
+        List<String> labels = expandLabels(label.trim());
+        calls.submit(() -> {
+            if (labels.size() == 1) {
+                adminService.addSpot(labels.get(0), zone);
+                return null;
+            }
+            return adminService.addSpots(labels, zone); // un seul appel RMI
+        }, result -> {
+            if (result != null && !result.allSucceeded()) showError(result + " places créées.");
             loadZones();
             loadSpots(zone);
+        }, ex -> showError(ex.getMessage()));
+    }
 
-        } catch (Exception ex) {
-            showError(ex.getMessage());
-        }
+    /**
+     * Plage de labels "C1..C50" → C1, C2, ..., C50 (sinon le label seul)
+     */
+    private static List<String> expandLabels(String input) {
+        Matcher m = Pattern.compile("(\\D*)(\\d+)\\.\\.\\1?(\\d+)").matcher(input);
+        if (!m.matches()) return List.of(input);
+        int from = Integer.parseInt(m.group(2)), to = Integer.parseInt(m.group(3));
+        List<String> labels = new ArrayList<>();
+        for (int i = Math.min(from, to); i <= Math.max(from, to); i++) labels.add(m.group(1) + i);
+        return labels;
+    }
+
+    /** Ids des places sélectionnées dans la table */
+    private List<Integer> selectedSpotIds() {
+        List<Integer> ids = new ArrayList<>();
+        for (int row : spotsTable.getSelectedRows()) ids.add((int) spotsModel.getValueAt(row, 0));
+        return ids;
     }
 
     /**
-     * Supprimer une place
+     * Supprimer les places sélectionnées
      */
     private void onDeleteSpot() {
-        int row = spotsTable.getSelectedRow();
-        if (row == -1) {
+        List<Integer> ids = selectedSpotIds();
+        if (ids.isEmpty()) {
             showError("Sélectionnez une place.");
             return;
         }
 
-        int id = (int) spotsModel.getValueAt(row, 0);
-
-        try {
-            boolean ok = adminService.removeSpot(id);
-            if (!ok) showError("Erreur suppression place.");
+        calls.submit(() -> adminService.removeSpots(ids), result -> { // un seul appel RMI
+            if (!result.allSucceeded()) showError("Erreur suppression place (" + result + ").");
 
             loadZones();
 
             int zRow = zonesTable.getSelectedRow();
             if (zRow != -1) onZoneSelected();
-
-        } catch (Exception ex) {
-            showError(ex.getMessage());
-        }
+        }, ex -> showError(ex.getMessage()));
     }
 
     /**
-     * Libérer une place (changer son état à disponible)
+     * Libérer les places sélectionnées (changer leur état à disponible)
      */
     private void onFreeSpot() {
-        int row = spotsTable.getSelectedRow();
-        if (row == -1) {
+        List<Integer> ids = selectedSpotIds();
+        if (ids.isEmpty()) {
             showError("Sélectionnez une place.");
             return;
         }
 
-        int id = (int) spotsModel.getValueAt(row, 0);
-
-        try {
-            boolean ok = adminService.freeSpot(id);
-            if (!ok) showError("Erreur libération.");
+        calls.submit(() -> adminService.freeSpots(ids), result -> { // un seul appel RMI
+            if (!result.allSucceeded()) showError("Erreur libération (" + result + ").");
 
             loadZones();
             onZoneSelected();
-            loadHistory(id);
-
-        } catch (Exception ex) {
-            showError(ex.getMessage());
-        }
+            loadHistory(ids.get(0));
+        }, ex -> showError(ex.getMessage()));
     }
 
     /**
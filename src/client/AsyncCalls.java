@@ -0,0 +1,148 @@
+package client;
+
+import javax.swing.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Appels RMI des interfaces Swing, exécutés hors de l'Event Dispatch Thread.
+ *
+ * Un appel part sur un petit pool de threads ; son résultat (ou son erreur) est rendu sur
+ * l'EDT, où il peut modifier les composants. L'interface ne se fige donc plus pendant un
+ * aller-retour avec un serveur chargé.
+ *
+ * Les chargements (liste des places, historique, devis…) sont rangés par clé :
+ * - un nouveau chargement d'une clé rend les précédents obsolètes : leur résultat, s'il
+ *   arrive encore, est ignoré (une sélection qui change n'affiche jamais l'ancienne) ;
+ * - les demandes répétées sont regroupées : tant qu'un chargement attend un thread, les
+ *   demandes suivantes ne font que remplacer son appel, un seul part au serveur.
+ * Les actions (réserver, payer, ajouter une zone…) ne sont ni regroupées ni annulées.
+ *
+ * Les méthodes publiques s'appellent depuis l'EDT.
+ *
+ * Paramètres (propriétés système) :
+ * - parking.client.workers : nombre de threads d'appel (défaut 4)
+ */
+public class AsyncCalls {
+
+    /** Appel distant exécuté hors EDT */
+    public interface Call<T> {
+        T call() throws Exception;
+    }
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final ExecutorService workers = Executors.newFixedThreadPool(
+            Math.max(1, Integer.getInteger("parking.client.workers", 4)), r -> {
+                Thread t = new Thread(r, "client-rmi-" + THREADS.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+
+    /** Chargements par clé (accès sous le moniteur de l'objet) */
+    private final Map<String, Slot> slots = new HashMap<>();
+
+    /** État d'une clé de chargement */
+    private static final class Slot {
+        /** Génération du dernier chargement demandé ; un résultat d'une autre génération est ignoré */
+        long generation;
+        /** Dernière demande, prise par la tâche en file d'attente */
+        Request<?> latest;
+        /** Une tâche attend un thread (les nouvelles demandes la réutilisent) */
+        boolean queued;
+        /** Chargements partis au serveur et pas encore rendus */
+        int running;
+    }
+
+    private record Request<T>(long generation, Call<T> call, Consumer<T> onResult, Consumer<Exception> onError) {}
+
+    // ======= Chargements =======
+
+    /**
+     * Lance (ou regroupe) le chargement d'une clé ; seul le résultat du dernier demandé est rendu
+     * @param key clé du chargement ("spots", "history"…)
+     * @param onResult appelé sur l'EDT avec le résultat
+     * @param onError appelé sur l'EDT en cas d'erreur
+     */
+    public synchronized <T> void load(String key, Call<T> call, Consumer<T> onResult, Consumer<Exception> onError) {
+        Slot slot = slots.computeIfAbsent(key, k -> new Slot());
+        slot.latest = new Request<>(++slot.generation, call, onResult, onError);
+        if (slot.queued) return; // la tâche en attente prendra cette demande
+        slot.queued = true;
+        workers.execute(() -> runLatest(slot));
+    }
+
+    /** Abandonne le chargement en cours d'une clé (son résultat sera ignoré) */
+    public synchronized void cancel(String key) {
+        Slot slot = slots.get(key);
+        if (slot == null) return;
+        slot.generation++;
+        slot.latest = null;
+    }
+
+    /** Vrai si un chargement de la clé est en attente ou en cours */
+    public synchronized boolean isLoading(String key) {
+        Slot slot = slots.get(key);
+        return slot != null && (slot.queued || slot.running > 0);
+    }
+
+    private void runLatest(Slot slot) {
+        Request<?> req;
+        synchronized (this) {
+            slot.queued = false;
+            req = slot.latest;
+            slot.latest = null;
+            if (req == null) return; // annulé avant de partir
+            slot.running++;
+        }
+        run(slot, req);
+    }
+
+    private <T> void run(Slot slot, Request<T> req) {
+        try {
+            T value = req.call().call();
+            deliver(slot, req, () -> req.onResult().accept(value));
+        } catch (Exception e) {
+            deliver(slot, req, () -> req.onError().accept(e));
+        }
+    }
+
+    /** Rend un résultat sur l'EDT, sauf si un chargement plus récent a été demandé entre-temps */
+    private void deliver(Slot slot, Request<?> req, Runnable callback) {
+        SwingUtilities.invokeLater(() -> {
+            boolean current;
+            synchronized (this) {
+                slot.running--;
+                current = slot.generation == req.generation();
+            }
+            if (current) callback.run();
+        });
+    }
+
+    // ======= Actions =======
+
+    /**
+     * Exécute une action hors EDT (jamais regroupée ni ignorée)
+     * @param onResult appelé sur l'EDT avec le résultat
+     * @param onError appelé sur l'EDT en cas d'erreur
+     */
+    public <T> void submit(Call<T> call, Consumer<T> onResult, Consumer<Exception> onError) {
+        workers.execute(() -> {
+            try {
+                T value = call.call();
+                SwingUtilities.invokeLater(() -> onResult.accept(value));
+            } catch (Exception e) {
+                SwingUtilities.invokeLater(() -> onError.accept(e));
+            }
+        });
+    }
+
+    /** Arrête les threads d'appel (fermeture de la fenêtre) */
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,460 @@
+package client;
+
+import common.*;
+import common.BinaryCodec.In;
+import common.BinaryCodec.Out;
+import common.BinaryCodec.Reader;
+import common.BinaryProtocol.Op;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.rmi.ConnectException;
+import java.rmi.RemoteException;
+import java.rmi.ServerException;
+import java.rmi.UnmarshalException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static common.BinaryCodec.*;
+
+/**
+ * Client du protocole binaire ({@link BinaryProtocol}) : mêmes interfaces que les stubs RMI,
+ * sur une seule connexion partagée par tous les threads de l'application.
+ *
+ * Chaque appel reçoit un id, part aussitôt et attend sa réponse ; les appels de plusieurs
+ * threads s'entrelacent sur la connexion sans s'attendre les uns les autres, et un thread
+ * peut enchaîner plusieurs appels sans attendre leurs réponses (variantes *Async). Un thread
+ * de lecture apparie les réponses aux appels par leur id.
+ *
+ * Les erreurs du service arrivent en {@link ServerException}, comme par RMI. Une connexion
+ * perdue fait échouer les appels en cours et les suivants : il faut créer un nouveau client.
+ * Les listeners de notification sont des objets locaux, appelés (dans l'ordre, sur un thread
+ * dédié) quand le serveur pousse leurs notifications.
+ *
+ * Paramètres (propriétés système) :
+ * - parking.binary.connectTimeoutMs : délai de connexion (défaut 5000)
+ * - parking.binary.timeoutMs        : délai de réponse d'un appel (défaut 10000)
+ */
+public class BinaryClient implements IReservationService, IAdminService, Closeable {
+
+    /** Arguments d'un appel */
+    private interface Args {
+        void write(Out out) throws IOException;
+    }
+
+    /** Réponse brute : statut et données */
+    private record Response(byte status, byte[] data) {}
+
+    private static final long TIMEOUT_MS = Long.getLong("parking.binary.timeoutMs", 10_000);
+
+    private final Socket socket;
+    private final OutputStream out;
+    private final Map<Integer, CompletableFuture<Response>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger ids = new AtomicInteger();
+    private final Map<String, INotificationListener> listeners = new ConcurrentHashMap<>();
+    private final ExecutorService notifications = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "binary-notifications");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Cause de la perte de la connexion (null tant qu'elle est ouverte) */
+    private volatile IOException failure;
+
+    /**
+     * Ouvre la connexion
+     * @param host hôte du serveur
+     * @param port port du protocole binaire (parking.binary.port du serveur)
+     */
+    public BinaryClient(String host, int port) throws IOException {
+        socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.setKeepAlive(true);
+        socket.connect(new InetSocketAddress(host, port), Integer.getInteger("parking.binary.connectTimeoutMs", 5000));
+        try {
+            out = new BufferedOutputStream(socket.getOutputStream(), 1 << 16);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+            DataOutputStream hello = new DataOutputStream(out);
+            hello.writeInt(BinaryProtocol.MAGIC);
+            hello.writeByte(BinaryProtocol.VERSION);
+            hello.flush();
+            if (in.readInt() != BinaryProtocol.MAGIC || in.readUnsignedByte() != BinaryProtocol.VERSION) {
+                throw new IOException("Le serveur ne parle pas le protocole binaire v" + BinaryProtocol.VERSION);
+            }
+            Thread.ofPlatform().name("binary-client-read").daemon().start(() -> readLoop(in));
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    // ======= Transport =======
+
+    /** Envoie une requête ; la réponse complète le futur (ou l'échec du délai) */
+    private <T> CompletableFuture<T> send(Op op, Args args, Reader<T> result) {
+        int id = ids.updateAndGet(i -> i == Integer.MAX_VALUE ? 1 : i + 1); // 0 = notifications poussées
+        CompletableFuture<Response> response = new CompletableFuture<>();
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            Out frame = new Out(bytes);
+            frame.writeInt(0); // longueur, complétée plus bas
+            frame.writeInt(id);
+            frame.writeByte(op.ordinal());
+            args.write(frame);
+            byte[] data = bytes.toByteArray();
+            int length = data.length - 4;
+            data[0] = (byte) (length >>> 24);
+            data[1] = (byte) (length >>> 16);
+            data[2] = (byte) (length >>> 8);
+            data[3] = (byte) length;
+
+            pending.put(id, response);
+            IOException lost = failure;
+            if (lost != null) throw lost;
+            synchronized (out) {
+                out.write(data);
+                out.flush();
+            }
+        } catch (IOException e) {
+            pending.remove(id);
+            response.completeExceptionally(new ConnectException("Connexion au serveur perdue", e));
+        }
+        response.orTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS).whenComplete((r, e) -> pending.remove(id));
+        return response.thenApply(r -> decode(r, result));
+    }
+
+    /** Appel synchrone : attend la réponse et rend les erreurs comme un stub RMI */
+    private static <T> T await(CompletableFuture<T> call) throws RemoteException {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RemoteException re) throw re;
+            if (cause instanceof TimeoutException) throw new RemoteException("Délai de réponse dépassé");
+            throw new RemoteException("Échec de l'appel", cause);
+        }
+    }
+
+    private static <T> T decode(Response r, Reader<T> result) {
+        In in = new In(new ByteArrayInputStream(r.data()));
+        try {
+            switch (r.status()) {
+                case BinaryProtocol.OK:
+                    return result.read(in);
+                case BinaryProtocol.FAILED: {
+                    String message = readString(in);
+                    throw new CompletionException(new ServerException(message, new RemoteException(message)));
+                }
+                default:
+                    throw new CompletionException(new RemoteException("Requête refusée par le serveur: " + readString(in)));
+            }
+        } catch (IOException e) {
+            throw new CompletionException(new UnmarshalException("Réponse illisible", e));
+        }
+    }
+
+    private void readLoop(DataInputStream in) {
+        try {
+            while (true) {
+                int length = in.readInt();
+                if (length < 5 || length > BinaryProtocol.MAX_FRAME) throw new IOException("Trame invalide (" + length + " octets)");
+                int id = in.readInt();
+                byte status = in.readByte();
+                byte[] data = new byte[length - 5];
+                in.readFully(data);
+                if (id == BinaryProtocol.PUSH_ID) {
+                    if (status == BinaryProtocol.NOTIFICATION) push(data);
+                    continue;
+                }
+                CompletableFuture<Response> call = pending.remove(id);
+                if (call != null) call.complete(new Response(status, data)); // sinon : délai déjà dépassé
+            }
+        } catch (IOException e) {
+            failure = e;
+            for (CompletableFuture<Response> call : pending.values()) {
+                call.completeExceptionally(new ConnectException("Connexion au serveur perdue", e));
+            }
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // déjà fermée
+            }
+        }
+    }
+
+    /** Transmet des notifications poussées à leur listener, hors du thread de lecture */
+    private void push(byte[] data) throws IOException {
+        In in = new In(new ByteArrayInputStream(data));
+        String clientId = readString(in);
+        List<Notification> list = readList(in, BinaryCodec::readNotification);
+        INotificationListener listener = listeners.get(clientId);
+        if (listener == null) return;
+        notifications.execute(() -> {
+            try {
+                listener.onNotifications(list);
+            } catch (Exception e) {
+                System.err.println("Listener " + clientId + " : " + e.getMessage());
+            }
+        });
+    }
+
+    /** Ferme la connexion ; les appels en cours échouent */
+    @Override
+    public void close() throws IOException {
+        notifications.shutdownNow();
+        socket.close();
+    }
+
+    // ======= Appels pipelinés =======
+
+    /** {@link #listAvailableSpots(String)} sans attendre la réponse */
+    public CompletableFuture<List<ParkingSpot>> listAvailableSpotsAsync(String region) {
+        return send(Op.LIST_AVAILABLE, o -> writeString(o, region), i -> readList(i, BinaryCodec::readSpot));
+    }
+
+    /** {@link #getReservation(String)} sans attendre la réponse */
+    public CompletableFuture<Reservation> getReservationAsync(String reservationId) {
+        return send(Op.GET_RESERVATION, o -> writeString(o, reservationId), BinaryCodec::readReservation);
+    }
+
+    /** {@link #quote(int, int)} sans attendre la réponse */
+    public CompletableFuture<Double> quoteAsync(int spotId, int hours) {
+        return send(Op.QUOTE, o -> {
+            o.writeInt(spotId);
+            o.writeInt(hours);
+        }, DataInputStream::readDouble);
+    }
+
+    // ======= IReservationService =======
+
+    @Override
+    public List<ParkingSpot> listAvailableSpots(String region) throws RemoteException {
+        return await(listAvailableSpotsAsync(region));
+    }
+
+    @Override
+    public List<ParkingSpot> listAvailableSpots(String region, LocalDateTime from, LocalDateTime to) throws RemoteException {
+        return await(send(Op.LIST_AVAILABLE_WINDOW, o -> {
+            writeString(o, region);
+            writeTime(o, from);
+            writeTime(o, to);
+        }, i -> readList(i, BinaryCodec::readSpot)));
+    }
+
+    @Override
+    public AvailabilitySnapshot getAvailabilitySnapshot(String region) throws RemoteException {
+        return await(send(Op.AVAILABILITY_SNAPSHOT, o -> writeString(o, region), BinaryCodec::readSnapshot));
+    }
+
+    @Override
+    public AvailabilityDelta getAvailabilityChanges(String region, long sinceSeq) throws RemoteException {
+        return await(send(Op.AVAILABILITY_CHANGES, o -> {
+            writeString(o, region);
+            o.writeLong(sinceSeq);
+        }, BinaryCodec::readDelta));
+    }
+
+    @Override
+    public Reservation reserveSpot(ClientInfo client, Vehicle vehicle, int spotId, int hours) throws RemoteException {
+        return await(send(Op.RESERVE, o -> {
+            writeClient(o, client);
+            writeVehicle(o, vehicle);
+            o.writeInt(spotId);
+            o.writeInt(hours);
+        }, BinaryCodec::readReservation));
+    }
+
+    @Override
+    public double quote(int spotId, int hours) throws RemoteException {
+        return await(quoteAsync(spotId, hours));
+    }
+
+    @Override
+    public Reservation holdSpot(String requestId, ClientInfo client, Vehicle vehicle, int spotId, int hours) throws RemoteException {
+        return await(send(Op.HOLD, o -> {
+            writeString(o, requestId);
+            writeClient(o, client);
+            writeVehicle(o, vehicle);
+            o.writeInt(spotId);
+            o.writeInt(hours);
+        }, BinaryCodec::readReservation));
+    }
+
+    @Override
+    public Reservation reserveSpot(String requestId, ClientInfo client, Vehicle vehicle, int spotId, int hours) throws RemoteException {
+        return await(send(Op.RESERVE_IDEMPOTENT, o -> {
+            writeString(o, requestId);
+            writeClient(o, client);
+            writeVehicle(o, vehicle);
+            o.writeInt(spotId);
+            o.writeInt(hours);
+        }, BinaryCodec::readReservation));
+    }
+
+    @Override
+    public boolean payReservation(String requestId, String reservationId, Payment payment) throws RemoteException {
+        return await(send(Op.PAY_IDEMPOTENT, o -> {
+            writeString(o, requestId);
+            writeString(o, reservationId);
+            writePayment(o, payment);
+        }, DataInputStream::readBoolean));
+    }
+
+    @Override
+    public Reservation reserveSpot(ClientInfo client, Vehicle vehicle, int spotId, LocalDateTime startAt, int hours) throws RemoteException {
+        return await(send(Op.RESERVE_AT, o -> {
+            writeClient(o, client);
+            writeVehicle(o, vehicle);
+            o.writeInt(spotId);
+            writeTime(o, startAt);
+            o.writeInt(hours);
+        }, BinaryCodec::readReservation));
+    }
+
+    @Override
+    public BatchResult<Reservation> reserveSpots(ClientInfo client, Vehicle vehicle, List<Integer> spotIds, int hours,
+                                                 boolean allOrNothing) throws RemoteException {
+        return await(send(Op.RESERVE_BATCH, o -> {
+            writeClient(o, client);
+            writeVehicle(o, vehicle);
+            writeInts(o, spotIds);
+            o.writeInt(hours);
+            o.writeBoolean(allOrNothing);
+        }, i -> readBatch(i, BinaryCodec::readReservation)));
+    }
+
+    @Override
+    public boolean payReservation(String reservationId, Payment payment) throws RemoteException {
+        return await(send(Op.PAY, o -> {
+            writeString(o, reservationId);
+            writePayment(o, payment);
+        }, DataInputStream::readBoolean));
+    }
+
+    @Override
+    public Reservation getReservation(String reservationId) throws RemoteException {
+        return await(getReservationAsync(reservationId));
+    }
+
+    @Override
+    public void registerListener(String clientId, INotificationListener listener) throws RemoteException {
+        listeners.put(clientId, listener);
+        await(send(Op.REGISTER_LISTENER, o -> writeString(o, clientId), i -> null));
+    }
+
+    @Override
+    public void unregisterListener(String clientId) throws RemoteException {
+        listeners.remove(clientId);
+        await(send(Op.UNREGISTER_LISTENER, o -> writeString(o, clientId), i -> null));
+    }
+
+    @Override
+    public List<ParkingZone> listZones() throws RemoteException {
+        return await(send(Op.LIST_ZONES, o -> {}, i -> readList(i, BinaryCodec::readZone)));
+    }
+
+    // ======= IAdminService =======
+
+    @Override
+    public List<ParkingSpot> getAllSpots() throws RemoteException {
+        return await(send(Op.ALL_SPOTS, o -> {}, i -> readList(i, BinaryCodec::readSpot)));
+    }
+
+    @Override
+    public List<Reservation> getAllReservations() throws RemoteException {
+        return await(send(Op.ALL_RESERVATIONS, o -> {}, i -> readList(i, BinaryCodec::readReservation)));
+    }
+
+    @Override
+    public ReservationPage findReservations(ReservationQuery query) throws RemoteException {
+        return await(send(Op.FIND_RESERVATIONS, o -> writeReservationQuery(o, query), BinaryCodec::readReservationPage));
+    }
+
+    @Override
+    public ReservationPage findArchivedReservations(ReservationQuery query) throws RemoteException {
+        return await(send(Op.FIND_ARCHIVED, o -> writeReservationQuery(o, query), BinaryCodec::readReservationPage));
+    }
+
+    @Override
+    public boolean freeSpot(int spotId) throws RemoteException {
+        return await(send(Op.FREE_SPOT, o -> o.writeInt(spotId), DataInputStream::readBoolean));
+    }
+
+    @Override
+    public boolean cancelReservation(String reservationId) throws RemoteException {
+        return await(send(Op.CANCEL_RESERVATION, o -> writeString(o, reservationId), DataInputStream::readBoolean));
+    }
+
+    @Override
+    public ParkingSpot addSpot(String label, String region) throws RemoteException {
+        return await(send(Op.ADD_SPOT, o -> {
+            writeString(o, label);
+            writeString(o, region);
+        }, BinaryCodec::readSpot));
+    }
+
+    @Override
+    public boolean removeSpot(int spotId) throws RemoteException {
+        return await(send(Op.REMOVE_SPOT, o -> o.writeInt(spotId), DataInputStream::readBoolean));
+    }
+
+    @Override
+    public BatchResult<ParkingSpot> addSpots(List<String> labels, String region) throws RemoteException {
+        return await(send(Op.ADD_SPOTS, o -> {
+            writeStrings(o, labels);
+            writeString(o, region);
+        }, i -> readBatch(i, BinaryCodec::readSpot)));
+    }
+
+    @Override
+    public BatchResult<Boolean> removeSpots(List<Integer> spotIds) throws RemoteException {
+        return await(send(Op.REMOVE_SPOTS, o -> writeInts(o, spotIds), i -> readBatch(i, DataInputStream::readBoolean)));
+    }
+
+    @Override
+    public BatchResult<Boolean> freeSpots(List<Integer> spotIds) throws RemoteException {
+        return await(send(Op.FREE_SPOTS, o -> writeInts(o, spotIds), i -> readBatch(i, DataInputStream::readBoolean)));
+    }
+
+    @Override
+    public BatchResult<Boolean> cancelReservations(List<String> reservationIds) throws RemoteException {
+        return await(send(Op.CANCEL_RESERVATIONS, o -> writeStrings(o, reservationIds), i -> readBatch(i, DataInputStream::readBoolean)));
+    }
+
+    @Override
+    public boolean addZone(String zoneName) throws RemoteException {
+        return await(send(Op.ADD_ZONE, o -> writeString(o, zoneName), DataInputStream::readBoolean));
+    }
+
+    @Override
+    public boolean removeZone(String zoneName) throws RemoteException {
+        return await(send(Op.REMOVE_ZONE, o -> writeString(o, zoneName), DataInputStream::readBoolean));
+    }
+
+    @Override
+    public List<ParkingSpot> listSpotsByZone(String zoneName) throws RemoteException {
+        return await(send(Op.SPOTS_BY_ZONE, o -> writeString(o, zoneName), i -> readList(i, BinaryCodec::readSpot)));
+    }
+
+    @Override
+    public List<ZoneStats> getZoneStats() throws RemoteException {
+        return await(send(Op.ZONE_STATS, o -> {}, i -> readList(i, BinaryCodec::readZoneStats)));
+    }
+
+    @Override
+    public List<SpotHistory> getSpotHistory(int spotId) throws RemoteException {
+        return await(send(Op.SPOT_HISTORY, o -> o.writeInt(spotId), i -> readList(i, BinaryCodec::readHistory)));
+    }
+
+    @Override
+    public HistoryPage getSpotHistory(int spotId, HistoryQuery query) throws RemoteException {
+        return await(send(Op.SPOT_HISTORY_PAGE, o -> {
+            o.writeInt(spotId);
+            writeHistoryQuery(o, query);
+        }, BinaryCodec::readHistoryPage));
+    }
+}
@@ -0,0 +1,96 @@
+package client;
+
+import common.ParkingSpot;
+import common.ParkingZone;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache côté client de la liste des zones et des places libres par zone.
+ *
+ * Les zones ne changent presque jamais : elles sont gardées jusqu'à leur TTL, ou jusqu'à ce
+ * que le serveur annonce une autre version de la liste (version renvoyée avec chaque
+ * snapshot et chaque lot de changements de disponibilité, donc sans appel dédié).
+ *
+ * Pour chaque zone déjà consultée, on garde la liste des places libres et la séquence du
+ * flux de disponibilité à laquelle elle correspond. Revenir sur une zone récente affiche la
+ * liste sans appel ; une zone plus ancienne est affichée tout de suite puis rattrapée par
+ * un appel de changements (bien plus léger qu'un snapshot). Le nombre de zones gardées est
+ * borné : la moins récemment consultée est évincée.
+ *
+ * Accès depuis l'EDT uniquement.
+ *
+ * Paramètres (propriétés système) :
+ * - parking.client.zonesTtlSec : durée de validité de la liste des zones (défaut 300)
+ * - parking.client.spotsTtlMs  : durée pendant laquelle une liste de places est affichée sans appel (défaut 2000)
+ * - parking.client.cacheZones  : nombre maximal de listes de places gardées (défaut 16)
+ */
+public class ClientCache {
+
+    /** Liste de places d'une zone, à une séquence du flux de disponibilité */
+    public record Spots(List<ParkingSpot> spots, long seq, long fetchedAt) {}
+
+    private final long zonesTtlMs = Integer.getInteger("parking.client.zonesTtlSec", 300) * 1000L;
+    private final long spotsTtlMs = Integer.getInteger("parking.client.spotsTtlMs", 2000);
+    private final int maxZones = Math.max(1, Integer.getInteger("parking.client.cacheZones", 16));
+
+    private List<ParkingZone> zones;
+    private long zonesVersion;
+    private long zonesFetchedAt;
+
+    /** Listes de places par zone, de la moins récemment consultée à la plus récente */
+    private final Map<String, Spots> spots = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Spots> eldest) {
+            return size() > maxZones;
+        }
+    };
+
+    // ======= Zones =======
+
+    /** Zones en cache, ou null s'il faut les recharger */
+    public List<ParkingZone> zones() {
+        if (zones != null && System.currentTimeMillis() - zonesFetchedAt > zonesTtlMs) zones = null;
+        return zones;
+    }
+
+    public void putZones(List<ParkingZone> zones) {
+        this.zones = List.copyOf(zones);
+        this.zonesFetchedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Prend connaissance de la version des zones annoncée par le serveur
+     * @return true si elle a changé depuis la dernière annonce (zones en cache oubliées)
+     */
+    public boolean zonesVersion(long version) {
+        if (version == zonesVersion) return false;
+        boolean known = zonesVersion != 0;
+        zonesVersion = version;
+        if (known) zones = null;
+        return known;
+    }
+
+    // ======= Places par zone =======
+
+    /** Liste de places en cache pour une zone, ou null */
+    public Spots spots(String region) {
+        return spots.get(region);
+    }
+
+    /** Vrai si la liste peut être affichée sans appel au serveur */
+    public boolean isFresh(Spots entry) {
+        return System.currentTimeMillis() - entry.fetchedAt() <= spotsTtlMs;
+    }
+
+    public void putSpots(String region, List<ParkingSpot> list, long seq) {
+        spots.put(region, new Spots(List.copyOf(list), seq, System.currentTimeMillis()));
+    }
+
+    /** Oublie toutes les listes de places (serveur redémarré, zones modifiées) */
+    public void clearSpots() {
+        spots.clear();
+    }
+}
@@ -6,16 +6,30 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import java.awt.*;
+import java.rmi.RemoteException;
+import java.rmi.ServerException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
 public class ClientSwing extends JFrame {
 
     // Référence vers le service RMI de réservation
     private IReservationService service;
 
+    // Appels RMI hors de l'Event Dispatch Thread (résultats rendus sur l'EDT)
+    private final AsyncCalls calls = new AsyncCalls();
+
+    // Zones et places libres par zone déjà chargées (évite un aller-retour à chaque changement de zone)
+    private final ClientCache cache = new ClientCache();
+
+    // Vrai pendant le remplissage du combo des zones (ses événements ne rechargent rien)
+    private boolean fillingZones = false;
+
     // Modèle pour afficher les places disponibles
     private DefaultListModel<ParkingSpot> listModel = new DefaultListModel<>();
     private JList<ParkingSpot> list = new JList<>(listModel);
@@ -27,10 +41,24 @@ public class ClientSwing extends JFrame {
     private JTextField plateField = new JTextField(10);
     private JSpinner hoursSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 24, 1));
 
-    // Affichage du montant et bouton Paiement
+    // Affichage du montant, boutons Réservation et Paiement
     private JLabel amountLabel = new JLabel("Montant : 0.0");
+    private JButton reserveBtn = new JButton("Réserver");
     private JButton payBtn = new JButton("Payer");
 
+    // Séquence du flux de disponibilité déjà appliquée à la liste (-1 = aucun snapshot)
+    private long availabilitySeq = -1;
+
+    // Période de synchronisation incrémentale de la liste des places (ms)
+    private static final int SYNC_PERIOD_MS = Integer.getInteger("parking.client.syncMs", 2000);
+
+    // Adresse du registre RMI du serveur
+    private static final String SERVER_HOST = System.getProperty("parking.server.host", "localhost");
+    private static final int SERVER_PORT = Integer.getInteger("parking.server.port", 1099);
+
+    // Nombre de tentatives d'un appel interrompu (réponse perdue, serveur injoignable)
+    private static final int CALL_ATTEMPTS = Integer.getInteger("parking.client.attempts", 3);
+
     // Identifiants internes de réservation
     private String reservationId = null;
     private String clientKey = null;
@@ -44,13 +72,23 @@ public class ClientSwing extends JFrame {
         connectToServer();       // Connexion au serveur RMI
         initUI();                // Construction de l'interface graphique
         loadZonesAndSpots();     // Charger zones + places disponibles
+        new Timer(SYNC_PERIOD_MS, e -> syncSpots()).start(); // changements des autres clients
         welcomeMessage();        // Message de bienvenue
     }
 
     /** Connexion au serveur RMI */
     private void connectToServer() {
+        // délai de réponse des appels RMI : au-delà, l'appel échoue et peut être rejoué
+        if (System.getProperty("sun.rmi.transport.tcp.responseTimeout") == null) {
+            System.setProperty("sun.rmi.transport.tcp.responseTimeout", System.getProperty("parking.client.timeoutMs", "10000"));
+        }
+        // durée de conservation d'une connexion inactive : plus longue que la période de
+        // synchronisation, les appels réguliers réutilisent la même connexion
+        if (System.getProperty("sun.rmi.transport.connectionTimeout") == null) {
+            System.setProperty("sun.rmi.transport.connectionTimeout", System.getProperty("parking.client.connectionReuseMs", "60000"));
+        }
         try {
-            Registry reg = LocateRegistry.getRegistry("localhost", 1099);
+            Registry reg = LocateRegistry.getRegistry(SERVER_HOST, SERVER_PORT);
             service = (IReservationService) reg.lookup("ParkingService");
         } catch (Exception e) {
             showError("Erreur connexion serveur: " + e.getMessage());
@@ -114,7 +152,6 @@ public class ClientSwing extends JFrame {
         right.add(Box.createVerticalStrut(8));
 
         // Bouton réservation
-        JButton reserveBtn = new JButton("Réserver");
         reserveBtn.setBackground(new Color(52,152,219));
         reserveBtn.setForeground(Color.WHITE);
 
@@ -137,7 +174,27 @@ public class ClientSwing extends JFrame {
         // -----------------------
         reserveBtn.addActionListener(e -> reserveSpot());
         payBtn.addActionListener(e -> payReservation());
-        regionCombo.addActionListener(e -> loadSpots());
+        regionCombo.addActionListener(e -> { if (!fillingZones) loadSpots(); });
+        list.addListSelectionListener(e -> { if (!e.getValueIsAdjusting()) showQuote(); });
+        hoursSpinner.addChangeListener(e -> showQuote());
+    }
+
+    /** Affiche le prix de la place sélectionnée pour la durée choisie (sans la réserver) */
+    private void showQuote() {
+        if (payBtn.isEnabled()) return; // une place bloquée attend son paiement : on garde son montant
+        ParkingSpot spot = list.getSelectedValue();
+        if (spot == null) {
+            calls.cancel("quote");
+            amountLabel.setText("Montant : 0.0");
+            return;
+        }
+        int hours = (int) hoursSpinner.getValue();
+        // seul le devis de la dernière sélection est affiché (clics et flèches du spinner regroupés)
+        calls.load("quote", () -> service.quote(spot.getId(), hours),
+                amount -> {
+                    if (!payBtn.isEnabled()) amountLabel.setText("Montant estimé : " + amount + " DT");
+                },
+                e -> amountLabel.setText("Montant : indisponible"));
     }
 
     /** Petit message de bienvenue */
@@ -149,35 +206,109 @@ public class ClientSwing extends JFrame {
         );
     }
 
-    /** Charger les zones et ensuite les places associées */
+    /** Charger les zones (depuis le cache si possible) et ensuite les places associées */
     private void loadZonesAndSpots() {
+        List<ParkingZone> cached = cache.zones();
+        if (cached != null) {
+            fillZones(cached);
+            return;
+        }
+        calls.load("zones", () -> service.listZones(), zones -> {
+            cache.putZones(zones);
+            fillZones(zones);
+        }, e -> showError(e.getMessage()));
+    }
+
+    /** Remplir le combo des zones (la zone sélectionnée le reste si elle existe encore) */
+    private void fillZones(List<ParkingZone> zones) {
+        String selected = selectedRegion();
+        fillingZones = true;
         try {
             regionCombo.removeAllItems();
-            List<ParkingZone> zones = service.listZones();
-
             regionCombo.addItem(""); // option = toutes les zones
             for (ParkingZone z : zones)
                 regionCombo.addItem(z.getName());
-
-            loadSpots();
-        } catch (Exception e) {
-            showError(e.getMessage());
+            regionCombo.setSelectedItem(selected);
+        } finally {
+            fillingZones = false;
         }
+        loadSpots();
     }
 
-    /** Charger les places disponibles selon la zone sélectionnée */
+    /** Recharger les zones si le serveur annonce que la liste a changé */
+    private void checkZonesVersion(long version) {
+        if (cache.zonesVersion(version)) loadZonesAndSpots();
+    }
+
+    /**
+     * Charger les places disponibles selon la zone sélectionnée.
+     * Une zone déjà consultée est affichée depuis le cache, sans appel si sa liste est récente,
+     * sinon rattrapée par les seuls changements survenus depuis.
+     */
     private void loadSpots() {
-        try {
-            listModel.clear();
-            String region = (String) regionCombo.getSelectedItem();
-            List<ParkingSpot> spots = service.listAvailableSpots(region == null ? "" : region);
+        String region = selectedRegion();
+        ClientCache.Spots cached = cache.spots(region);
+        if (cached == null) {
+            fetchSnapshot(region);
+            return;
+        }
+        calls.cancel("spots"); // le chargement d'une autre zone ne doit plus s'afficher
+        ModelSync.syncList(listModel, cached.spots(), ParkingSpot::getId);
+        availabilitySeq = cached.seq();
+        if (!cache.isFresh(cached)) syncSpots();
+    }
 
-            for (ParkingSpot p : spots)
-                listModel.addElement(p);
+    /**
+     * Charger la liste complète des places libres d'une zone.
+     * Un changement de zone rend obsolète le chargement précédent, encore en cours ou non.
+     */
+    private void fetchSnapshot(String region) {
+        calls.load("spots", () -> service.getAvailabilitySnapshot(region), snapshot -> {
+            ModelSync.syncList(listModel, snapshot.getSpots(), ParkingSpot::getId);
+            availabilitySeq = snapshot.getSeq();
+            cache.putSpots(region, snapshot.getSpots(), snapshot.getSeq());
+            checkZonesVersion(snapshot.getZonesVersion());
+        }, e -> showError(e.getMessage()));
+    }
 
-        } catch (Exception e) {
-            showError(e.getMessage());
+    /** Mettre à jour la liste avec les seuls changements survenus depuis le dernier chargement */
+    private void syncSpots() {
+        if (availabilitySeq < 0 || calls.isLoading("spots")) return; // un chargement complet est déjà en route
+        String region = selectedRegion();
+        long since = availabilitySeq;
+        calls.load("spots", () -> service.getAvailabilityChanges(region, since), delta -> {
+            if (delta.isResetRequired()) {
+                fetchSnapshot(region);
+                return;
+            }
+            boolean changed = false;
+            for (AvailabilityChange c : delta.getChanges()) {
+                int index = indexOfSpot(c.getSpotId());
+                if (c.isAvailable() && index < 0) {
+                    listModel.addElement(c.toSpot());
+                    changed = true;
+                } else if (!c.isAvailable() && index >= 0) {
+                    listModel.remove(index);
+                    changed = true;
+                }
+            }
+            availabilitySeq = delta.getSeq();
+            ClientCache.Spots cached = cache.spots(region);
+            cache.putSpots(region, changed || cached == null ? Collections.list(listModel.elements()) : cached.spots(), delta.getSeq());
+            checkZonesVersion(delta.getZonesVersion());
+        }, e -> System.err.println("Synchronisation des places impossible: " + e.getMessage()));
+    }
+
+    private int indexOfSpot(int spotId) {
+        for (int i = 0; i < listModel.size(); i++) {
+            if (listModel.get(i).getId() == spotId) return i;
         }
+        return -1;
+    }
+
+    private String selectedRegion() {
+        String region = (String) regionCombo.getSelectedItem();
+        return region == null ? "" : region;
     }
 
     /** Réserver une place */
@@ -200,82 +331,130 @@ public class ClientSwing extends JFrame {
         String plate = plateField.getText().trim();
         if (plate.isEmpty()) { showError("Plaque voiture obligatoire !"); return; }
 
-        try {
-            // Vérifier qu'une place est sélectionnée
-            ParkingSpot spot = list.getSelectedValue();
-            if (spot == null) {
-                showError("Choisissez une place.");
-                return;
-            }
-
-            // Création des objets métier
-            ClientInfo client = new ClientInfo(nom, tel);
-            Vehicle veh = new Vehicle(plate, "Modèle", "Couleur");
-            int hours = (int) hoursSpinner.getValue();
+        // Vérifier qu'une place est sélectionnée
+        ParkingSpot spot = list.getSelectedValue();
+        if (spot == null) {
+            showError("Choisissez une place.");
+            return;
+        }
 
-            // Appel RMI => réservation
-            Reservation r = service.reserveSpot(client, veh, spot.getId(), hours);
+        // Création des objets métier
+        ClientInfo client = new ClientInfo(nom, tel);
+        Vehicle veh = new Vehicle(plate, "Modèle", "Couleur");
+        int hours = (int) hoursSpinner.getValue();
+
+        // listener de notification : enregistré une seule fois, avec la première réservation
+        boolean register = clientKey == null;
+        if (register) clientKey = tel;
+
+        calls.cancel("quote");
+        reserveBtn.setEnabled(false); // pas de second clic pendant l'appel
+
+        // Appel RMI => place bloquée jusqu'au paiement (identifiant de requête : un rejeu ne bloque pas deux places)
+        String requestId = UUID.randomUUID().toString();
+        calls.submit(() -> {
+            Reservation r = withRetry(() -> service.holdSpot(requestId, client, veh, spot.getId(), hours));
+            if (register) registerListener(tel);
+            return r;
+        }, r -> {
+            reserveBtn.setEnabled(true);
             reservationId = r.getId();
 
             amountLabel.setText("Montant : " + r.getAmount() + " DT");
             payBtn.setEnabled(true);
 
-            loadSpots(); // rafraîchir les places
-
-            // -----------------------
-            // ENREGISTRER LE LISTENER DE NOTIFICATION
-            // -----------------------
-            if (clientKey == null) {
-                clientKey = tel;
-
-                try {
-                    ClientNotificationListener listener = new ClientNotificationListener();
+            syncSpots(); // rafraîchir les places
 
-                    INotificationListener stub =
-                            (INotificationListener) UnicastRemoteObject.exportObject(listener, 0);
+            // Message confirmation
+            String until = r.getHoldUntil() == null ? "" : r.getHoldUntil().format(DateTimeFormatter.ofPattern("HH:mm"));
+            JLabel success = new JLabel("<html><font color='green'>Place bloquée !<br>Réf: "
+                    + r.getId() + "<br>Place: " + r.getSpotLabel()
+                    + "<br>Payez avant " + until + " pour confirmer la réservation.</font></html>");
 
-                    service.registerListener(clientKey, stub);
+            JOptionPane.showMessageDialog(this, success, "Réservé", JOptionPane.INFORMATION_MESSAGE);
+        }, e -> {
+            reserveBtn.setEnabled(true);
+            showError(e.getMessage());
+        });
+    }
 
-                } catch (Exception ex) {
-                    System.err.println("Impossible register callback: " + ex.getMessage());
-                }
-            }
+    /** Enregistre le listener de notification du client (thread d'appel, hors EDT) */
+    private void registerListener(String key) {
+        try {
+            ClientNotificationListener listener = new ClientNotificationListener();
 
-            // Message confirmation
-            JLabel success = new JLabel("<html><font color='green'>Réservation OK !<br>Réf: "
-                    + r.getId() + "<br>Place: " + r.getSpot().getLabel() + "</font></html>");
+            INotificationListener stub =
+                    (INotificationListener) UnicastRemoteObject.exportObject(listener, 0);
 
-            JOptionPane.showMessageDialog(this, success, "Réservé", JOptionPane.INFORMATION_MESSAGE);
+            service.registerListener(key, stub);
 
-        } catch (Exception e) {
-            showError(e.getMessage());
+        } catch (Exception ex) {
+            System.err.println("Impossible register callback: " + ex.getMessage());
         }
     }
 
     /** Effectuer le paiement */
     private void payReservation() {
-        try {
-            if (reservationId == null) {
-                showError("Aucune réservation à payer.");
-                return;
-            }
+        if (reservationId == null) {
+            showError("Aucune réservation à payer.");
+            return;
+        }
 
-            Reservation r = service.getReservation(reservationId);
+        String id = reservationId;
+        payBtn.setEnabled(false); // pas de second clic pendant l'appel
+        calls.submit(() -> {
+            Reservation r = service.getReservation(id);
+            if (r == null) return null; // blocage expiré ou réservation annulée
             Payment p = new Payment("carte", r.getAmount());
 
-            // Paiement côté serveur
-            service.payReservation(reservationId, p);
-
-            payBtn.setEnabled(false);
-            loadSpots();
+            // Paiement côté serveur (identifiant de requête : un rejeu ne paie pas deux fois)
+            String requestId = UUID.randomUUID().toString();
+            withRetry(() -> service.payReservation(requestId, id, p));
+            return r;
+        }, r -> {
+            syncSpots();
+            if (r == null) {
+                reservationId = null; // plus rien à payer : le bouton reste désactivé
+                amountLabel.setText("Montant : 0.0");
+                showError("Réservation expirée : la place a été libérée. Veuillez réserver à nouveau.");
+                return;
+            }
 
             JLabel success = new JLabel("<html><font color='green'> Paiement effectué !<br>Montant: "
-                    + r.getAmount() + " DT<br>Place: " + r.getSpot().getLabel() + "</font></html>");
+                    + r.getAmount() + " DT<br>Place: " + r.getSpotLabel() + "</font></html>");
 
             JOptionPane.showMessageDialog(this, success, "Paiement", JOptionPane.INFORMATION_MESSAGE);
-
-        } catch (Exception e) {
+        }, e -> {
+            payBtn.setEnabled(true);
             showError(e.getMessage());
+        });
+    }
+
+    /** Appel RMI pouvant être rejoué */
+    private interface RemoteCall<T> {
+        T call() throws RemoteException;
+    }
+
+    /**
+     * Rejoue un appel interrompu par une erreur de transport. Une erreur levée par le serveur
+     * (ServerException : place déjà prise, montant incorrect…) est remontée telle quelle.
+     * Les appels rejoués doivent être idempotents (identifiant de requête).
+     */
+    private static <T> T withRetry(RemoteCall<T> call) throws RemoteException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.call();
+            } catch (ServerException e) {
+                throw e;
+            } catch (RemoteException e) {
+                if (attempt >= CALL_ATTEMPTS) throw e;
+                try {
+                    Thread.sleep(200L * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
         }
     }
 
@@ -299,5 +478,20 @@ public class ClientSwing extends JFrame {
                         JOptionPane.INFORMATION_MESSAGE);
             });
         }
+
+        /** Envoi groupé du serveur : une seule boîte de dialogue pour tout le lot */
+        @Override
+        public void onNotifications(List<Notification> notifications) {
+            StringBuilder html = new StringBuilder("<html>");
+            for (Notification n : notifications) {
+                html.append("<b>").append(n.getTitle()).append("</b><br>").append(n.getMessage()).append("<br>");
+            }
+            html.append("</html>");
+
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(ClientSwing.this,
+                    html.toString(),
+                    "Notifications serveur",
+                    JOptionPane.INFORMATION_MESSAGE));
+        }
     }
 }
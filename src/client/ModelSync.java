@@ -0,0 +1,61 @@
+package client;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Mise à jour incrémentale des modèles Swing à partir d'une liste rechargée du serveur.
+ *
+ * Au lieu de vider le modèle puis de tout réinsérer (un événement par ligne, sélection et
+ * défilement perdus), on compare par clé : les lignes disparues sont retirées, les lignes
+ * modifiées mises à jour sur place, les nouvelles ajoutées en fin. Une liste inchangée ne
+ * provoque aucun événement.
+ */
+public final class ModelSync {
+
+    private ModelSync() {}
+
+    /**
+     * Aligne une liste sur les éléments reçus
+     * @param id clé d'un élément (id de la place…)
+     */
+    public static <T> void syncList(DefaultListModel<T> model, List<T> items, ToIntFunction<T> id) {
+        if (model.isEmpty()) {
+            model.addAll(items); // un seul événement
+            return;
+        }
+        Map<Integer, T> incoming = new LinkedHashMap<>();
+        for (T item : items) incoming.put(id.applyAsInt(item), item);
+        for (int i = model.size() - 1; i >= 0; i--) {
+            T current = model.get(i);
+            T fresh = incoming.remove(id.applyAsInt(current));
+            if (fresh == null) {
+                model.remove(i);
+            } else if (!current.toString().equals(fresh.toString())) {
+                model.set(i, fresh); // rendu différent : seule cette ligne est redessinée
+            }
+        }
+        if (!incoming.isEmpty()) model.addAll(incoming.values());
+    }
+
+    /**
+     * Aligne un tableau sur les lignes reçues ; la première colonne sert de clé
+     */
+    public static void syncTable(DefaultTableModel model, List<Object[]> rows) {
+        Map<Object, Object[]> incoming = new LinkedHashMap<>();
+        for (Object[] row : rows) incoming.put(row[0], row);
+        for (int r = model.getRowCount() - 1; r >= 0; r--) {
+            Object[] fresh = incoming.remove(model.getValueAt(r, 0));
+            if (fresh == null) {
+                model.removeRow(r);
+                continue;
+            }
+            for (int c = 1; c < fresh.length; c++) {
+                if (!Objects.equals(model.getValueAt(r, c), fresh[c])) model.setValueAt(fresh[c], r, c);
+            }
+        }
+        for (Object[] row : incoming.values()) model.addRow(row);
+    }
+}
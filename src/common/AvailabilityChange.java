@@ -0,0 +1,62 @@
+package common;
+
+import java.io.Serializable;
+
+/**
+ * Changement de disponibilité d'une place dans le flux de synchronisation :
+ * la place est devenue libre, ou n'est plus disponible (réservée ou supprimée).
+ */
+public class AvailabilityChange implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Numéro de séquence du changement dans le flux */
+    private final long seq;
+
+    private final int spotId;
+    private final String label;
+    private final String region;
+
+    /** true = la place est libre, false = réservée ou supprimée */
+    private final boolean available;
+
+    /**
+     * Constructeur principal
+     * @param seq séquence du changement
+     * @param spot place concernée
+     * @param available nouvel état de la place
+     */
+    public AvailabilityChange(long seq, ParkingSpot spot, boolean available) {
+        this.seq = seq;
+        this.spotId = spot.getId();
+        this.label = spot.getLabel();
+        this.region = spot.getRegion();
+        this.available = available;
+    }
+
+    // ======= Getters =======
+    public long getSeq() { return seq; }
+
+    public int getSpotId() { return spotId; }
+
+    public String getLabel() { return label; }
+
+    public String getRegion() { return region; }
+
+    public boolean isAvailable() { return available; }
+
+    /** Vrai si le changement concerne la zone demandée (null ou "" = toutes les zones) */
+    public boolean matches(String zone) {
+        return zone == null || zone.isEmpty() || zone.equals(region);
+    }
+
+    /** Place correspondante, telle qu'elle est affichée dans une liste de places libres */
+    public ParkingSpot toSpot() {
+        return new ParkingSpot(spotId, label, region);
+    }
+
+    @Override
+    public String toString() {
+        return "#" + seq + " " + label + (available ? " libre" : " prise");
+    }
+}
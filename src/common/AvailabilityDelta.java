@@ -0,0 +1,44 @@
+package common;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Changements de disponibilité survenus depuis une séquence donnée.
+ *
+ * Si le serveur ne peut plus fournir tous les changements demandés (client trop en retard,
+ * redémarrage du serveur), {@link #isResetRequired()} est vrai : le client doit recharger
+ * un {@link AvailabilitySnapshot}.
+ */
+public class AvailabilityDelta implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Changements, dans l'ordre des séquences */
+    private final List<AvailabilityChange> changes;
+
+    /** Séquence à redemander au prochain appel */
+    private final long seq;
+
+    /** Le client doit repartir d'un snapshot */
+    private final boolean resetRequired;
+
+    /** Version de la liste des zones (change à chaque ajout ou suppression de zone) */
+    private final long zonesVersion;
+
+    public AvailabilityDelta(List<AvailabilityChange> changes, long seq, boolean resetRequired, long zonesVersion) {
+        this.changes = changes;
+        this.seq = seq;
+        this.resetRequired = resetRequired;
+        this.zonesVersion = zonesVersion;
+    }
+
+    // ======= Getters =======
+    public List<AvailabilityChange> getChanges() { return changes; }
+
+    public long getSeq() { return seq; }
+
+    public boolean isResetRequired() { return resetRequired; }
+
+    public long getZonesVersion() { return zonesVersion; }
+}
@@ -0,0 +1,35 @@
+package common;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Liste complète des places libres d'une zone, avec la séquence du flux de disponibilité
+ * à partir de laquelle demander les changements suivants.
+ */
+public class AvailabilitySnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Places libres au moment du snapshot */
+    private final List<ParkingSpot> spots;
+
+    /** Séquence du dernier changement déjà pris en compte */
+    private final long seq;
+
+    /** Version de la liste des zones (voir {@link AvailabilityDelta#getZonesVersion()}) */
+    private final long zonesVersion;
+
+    public AvailabilitySnapshot(List<ParkingSpot> spots, long seq, long zonesVersion) {
+        this.spots = spots;
+        this.seq = seq;
+        this.zonesVersion = zonesVersion;
+    }
+
+    // ======= Getters =======
+    public List<ParkingSpot> getSpots() { return spots; }
+
+    public long getSeq() { return seq; }
+
+    public long getZonesVersion() { return zonesVersion; }
+}
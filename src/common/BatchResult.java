@@ -0,0 +1,74 @@
+package common;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Résultat d'une opération groupée : un résultat par élément de la demande, dans le même ordre.
+ * Pour chaque élément, soit une valeur (succès), soit un message d'erreur.
+ *
+ * @param <T> type du résultat d'un élément (réservation, place, Boolean…)
+ */
+public class BatchResult<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Valeur de chaque élément (null en cas d'échec) */
+    private final List<T> values;
+
+    /** Erreur de chaque élément (null en cas de succès) */
+    private final List<String> errors;
+
+    /**
+     * Crée un résultat vide de la taille de la demande
+     * @param size nombre d'éléments demandés
+     */
+    public BatchResult(int size) {
+        this.values = new ArrayList<>(Collections.nCopies(size, null));
+        this.errors = new ArrayList<>(Collections.nCopies(size, null));
+    }
+
+    /** Marque l'élément i comme réussi */
+    public void succeed(int i, T value) {
+        values.set(i, value);
+        errors.set(i, null);
+    }
+
+    /** Marque l'élément i comme échoué */
+    public void fail(int i, String error) {
+        values.set(i, null);
+        errors.set(i, error);
+    }
+
+    // ======= Lecture =======
+
+    public int size() { return values.size(); }
+
+    public boolean isSuccess(int i) { return errors.get(i) == null; }
+
+    public T get(int i) { return values.get(i); }
+
+    public String getError(int i) { return errors.get(i); }
+
+    public List<T> getValues() { return values; }
+
+    public List<String> getErrors() { return errors; }
+
+    /** Nombre d'éléments réussis */
+    public int successCount() {
+        int n = 0;
+        for (String e : errors) if (e == null) n++;
+        return n;
+    }
+
+    public boolean allSucceeded() {
+        return successCount() == size();
+    }
+
+    @Override
+    public String toString() {
+        return successCount() + "/" + size() + " OK";
+    }
+}
@@ -0,0 +1,314 @@
+package common;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Encodage des objets du service pour le protocole binaire (voir {@link BinaryProtocol}).
+ *
+ * Les classes déjà encodées à la main pour RMI (ParkingSpot, Reservation, SpotHistory)
+ * réutilisent leur writeExternal/readExternal sur un simple flux de données : pas de
+ * description de classe, pas de réflexion, pas de table de références. Les autres objets,
+ * petits et figés, sont écrits champ par champ ci-dessous. Un objet ou une liste pouvant
+ * être null est précédé d'un marqueur de présence.
+ */
+public final class BinaryCodec {
+
+    private BinaryCodec() {}
+
+    /** Écriture d'un élément de liste */
+    public interface Writer<T> {
+        void write(Out out, T value) throws IOException;
+    }
+
+    /** Lecture d'un élément de liste */
+    public interface Reader<T> {
+        T read(In in) throws IOException;
+    }
+
+    /** Flux de sortie accepté par writeExternal (writeObject n'est jamais appelé) */
+    public static final class Out extends DataOutputStream implements ObjectOutput {
+
+        public Out(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void writeObject(Object obj) {
+            throw new UnsupportedOperationException("Objet non encodable: " + obj.getClass().getName());
+        }
+    }
+
+    /** Flux d'entrée accepté par readExternal (readObject n'est jamais appelé) */
+    public static final class In extends DataInputStream implements ObjectInput {
+
+        public In(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public Object readObject() {
+            throw new UnsupportedOperationException("Objet non décodable");
+        }
+    }
+
+    // ======= Valeurs simples =======
+
+    public static void writeString(Out out, String s) throws IOException {
+        WireFormat.writeString(out, s);
+    }
+
+    public static String readString(In in) throws IOException {
+        return WireFormat.readString(in);
+    }
+
+    public static void writeTime(Out out, LocalDateTime t) throws IOException {
+        WireFormat.writeTime(out, t);
+    }
+
+    public static LocalDateTime readTime(In in) throws IOException {
+        return WireFormat.readTime(in);
+    }
+
+    public static <T> void writeList(Out out, List<T> list, Writer<T> writer) throws IOException {
+        if (list == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(list.size());
+        for (T value : list) writer.write(out, value);
+    }
+
+    public static <T> List<T> readList(In in, Reader<T> reader) throws IOException {
+        int n = in.readInt();
+        if (n < 0) return null;
+        List<T> list = new ArrayList<>(Math.min(n, 1 << 16)); // taille annoncée non vérifiée : pas de grosse allocation d'avance
+        for (int i = 0; i < n; i++) list.add(reader.read(in));
+        return list;
+    }
+
+    public static void writeInts(Out out, List<Integer> list) throws IOException {
+        writeList(out, list, (o, v) -> o.writeInt(v));
+    }
+
+    public static List<Integer> readInts(In in) throws IOException {
+        return readList(in, DataInputStream::readInt);
+    }
+
+    public static void writeStrings(Out out, List<String> list) throws IOException {
+        writeList(out, list, BinaryCodec::writeString);
+    }
+
+    public static List<String> readStrings(In in) throws IOException {
+        return readList(in, BinaryCodec::readString);
+    }
+
+    // ======= Objets encodés pour RMI =======
+
+    public static void writeSpot(Out out, ParkingSpot s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) s.writeExternal(out);
+    }
+
+    public static ParkingSpot readSpot(In in) throws IOException {
+        if (!in.readBoolean()) return null;
+        ParkingSpot s = new ParkingSpot();
+        s.readExternal(in);
+        return s;
+    }
+
+    public static void writeReservation(Out out, Reservation r) throws IOException {
+        out.writeBoolean(r != null);
+        if (r != null) r.writeExternal(out);
+    }
+
+    public static Reservation readReservation(In in) throws IOException {
+        if (!in.readBoolean()) return null;
+        Reservation r = new Reservation();
+        r.readExternal(in);
+        return r;
+    }
+
+    public static void writeHistory(Out out, SpotHistory h) throws IOException {
+        out.writeBoolean(h != null);
+        if (h != null) h.writeExternal(out);
+    }
+
+    public static SpotHistory readHistory(In in) throws IOException {
+        if (!in.readBoolean()) return null;
+        SpotHistory h = new SpotHistory();
+        h.readExternal(in);
+        return h;
+    }
+
+    // ======= Autres objets =======
+
+    public static void writeClient(Out out, ClientInfo c) throws IOException {
+        out.writeBoolean(c != null);
+        if (c == null) return;
+        writeString(out, c.getName());
+        writeString(out, c.getPhone());
+    }
+
+    public static ClientInfo readClient(In in) throws IOException {
+        return in.readBoolean() ? new ClientInfo(readString(in), readString(in)) : null;
+    }
+
+    public static void writeVehicle(Out out, Vehicle v) throws IOException {
+        out.writeBoolean(v != null);
+        if (v == null) return;
+        writeString(out, v.getPlateNumber());
+        writeString(out, v.getModel());
+        writeString(out, v.getColor());
+    }
+
+    public static Vehicle readVehicle(In in) throws IOException {
+        return in.readBoolean() ? new Vehicle(readString(in), readString(in), readString(in)) : null;
+    }
+
+    public static void writePayment(Out out, Payment p) throws IOException {
+        out.writeBoolean(p != null);
+        if (p == null) return;
+        writeString(out, p.getMethod());
+        out.writeDouble(p.getAmount());
+        writeTime(out, p.getDate());
+    }
+
+    public static Payment readPayment(In in) throws IOException {
+        return in.readBoolean() ? new Payment(readString(in), in.readDouble(), readTime(in)) : null;
+    }
+
+    public static void writeZone(Out out, ParkingZone z) throws IOException {
+        writeString(out, z.getName());
+        writeString(out, z.getDescription());
+    }
+
+    public static ParkingZone readZone(In in) throws IOException {
+        return new ParkingZone(readString(in), readString(in));
+    }
+
+    public static void writeZoneStats(Out out, ZoneStats z) throws IOException {
+        writeString(out, z.getName());
+        out.writeInt(z.getTotal());
+        out.writeInt(z.getFree());
+        out.writeInt(z.getUnpaid());
+        out.writeDouble(z.getRevenue());
+    }
+
+    public static ZoneStats readZoneStats(In in) throws IOException {
+        return new ZoneStats(readString(in), in.readInt(), in.readInt(), in.readInt(), in.readDouble());
+    }
+
+    public static void writeNotification(Out out, Notification n) throws IOException {
+        writeString(out, n.getTitle());
+        writeString(out, n.getMessage());
+        writeTime(out, n.getAt());
+    }
+
+    public static Notification readNotification(In in) throws IOException {
+        return new Notification(readString(in), readString(in), readTime(in));
+    }
+
+    public static void writeSnapshot(Out out, AvailabilitySnapshot s) throws IOException {
+        writeList(out, s.getSpots(), BinaryCodec::writeSpot);
+        out.writeLong(s.getSeq());
+        out.writeLong(s.getZonesVersion());
+    }
+
+    public static AvailabilitySnapshot readSnapshot(In in) throws IOException {
+        return new AvailabilitySnapshot(readList(in, BinaryCodec::readSpot), in.readLong(), in.readLong());
+    }
+
+    public static void writeDelta(Out out, AvailabilityDelta d) throws IOException {
+        writeList(out, d.getChanges(), (o, c) -> {
+            o.writeLong(c.getSeq());
+            o.writeInt(c.getSpotId());
+            writeString(o, c.getLabel());
+            writeString(o, c.getRegion());
+            o.writeBoolean(c.isAvailable());
+        });
+        out.writeLong(d.getSeq());
+        out.writeBoolean(d.isResetRequired());
+        out.writeLong(d.getZonesVersion());
+    }
+
+    public static AvailabilityDelta readDelta(In in) throws IOException {
+        List<AvailabilityChange> changes = readList(in, i -> new AvailabilityChange(i.readLong(),
+                new ParkingSpot(i.readInt(), readString(i), readString(i)), i.readBoolean()));
+        return new AvailabilityDelta(changes, in.readLong(), in.readBoolean(), in.readLong());
+    }
+
+    public static <T> void writeBatch(Out out, BatchResult<T> b, Writer<T> writer) throws IOException {
+        out.writeInt(b.size());
+        for (int i = 0; i < b.size(); i++) {
+            String error = b.getError(i);
+            writeString(out, error);
+            if (error == null) writer.write(out, b.get(i));
+        }
+    }
+
+    public static <T> BatchResult<T> readBatch(In in, Reader<T> reader) throws IOException {
+        int n = in.readInt();
+        BatchResult<T> b = new BatchResult<>(n);
+        for (int i = 0; i < n; i++) {
+            String error = readString(in);
+            if (error == null) b.succeed(i, reader.read(in));
+            else b.fail(i, error);
+        }
+        return b;
+    }
+
+    public static void writeHistoryQuery(Out out, HistoryQuery q) throws IOException {
+        writeTime(out, q.getFrom());
+        writeTime(out, q.getTo());
+        writeStrings(out, q.getTypes() == null ? null : new ArrayList<>(q.getTypes()));
+        out.writeInt(q.getPageSize());
+        out.writeLong(q.getCursor());
+    }
+
+    public static HistoryQuery readHistoryQuery(In in) throws IOException {
+        LocalDateTime from = readTime(in), to = readTime(in);
+        List<String> types = readStrings(in);
+        Set<String> typeSet = types == null ? null : new LinkedHashSet<>(types);
+        return new HistoryQuery(from, to, typeSet, in.readInt(), in.readLong());
+    }
+
+    public static void writeHistoryPage(Out out, HistoryPage p) throws IOException {
+        writeList(out, p.getItems(), BinaryCodec::writeHistory);
+        out.writeLong(p.getNextCursor());
+    }
+
+    public static HistoryPage readHistoryPage(In in) throws IOException {
+        return new HistoryPage(readList(in, BinaryCodec::readHistory), in.readLong());
+    }
+
+    public static void writeReservationQuery(Out out, ReservationQuery q) throws IOException {
+        out.writeByte(q.getPaid() == null ? -1 : q.getPaid() ? 1 : 0);
+        writeString(out, q.getPhone());
+        writeString(out, q.getPlate());
+        writeString(out, q.getZone());
+        writeTime(out, q.getFrom());
+        writeTime(out, q.getTo());
+        out.writeInt(q.getPageSize());
+        out.writeLong(q.getCursor());
+    }
+
+    public static ReservationQuery readReservationQuery(In in) throws IOException {
+        byte paid = in.readByte();
+        return new ReservationQuery(paid < 0 ? null : paid == 1, readString(in), readString(in), readString(in),
+                readTime(in), readTime(in), in.readInt(), in.readLong());
+    }
+
+    public static void writeReservationPage(Out out, ReservationPage p) throws IOException {
+        writeList(out, p.getItems(), BinaryCodec::writeReservation);
+        out.writeLong(p.getNextCursor());
+    }
+
+    public static ReservationPage readReservationPage(In in) throws IOException {
+        return new ReservationPage(readList(in, BinaryCodec::readReservation), in.readLong());
+    }
+}
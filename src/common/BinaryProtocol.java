@@ -0,0 +1,102 @@
+package common;
+
+/**
+ * Protocole binaire du service de réservation, servi à côté de RMI (voir server.BinaryEndpoint
+ * et client.BinaryClient).
+ *
+ * Ouverture : le client envoie {@link #MAGIC} puis {@link #VERSION} (un octet), le serveur
+ * répond de même. Ensuite, dans les deux sens, une suite de trames préfixées par leur
+ * longueur :
+ *
+ *   [longueur int][id de requête int][code octet][données]
+ *
+ * La longueur compte tout ce qui la suit. Dans une requête le code est l'opération
+ * ({@link Op}), dans une réponse c'est le statut ({@link #OK}, {@link #FAILED}…) et la réponse
+ * reprend l'id de la requête. Le client n'attend pas une réponse pour envoyer la requête
+ * suivante (pipelining) et le serveur traite les requêtes d'une connexion en parallèle : les
+ * réponses reviennent dans l'ordre où elles sont prêtes, l'id sert à les apparier
+ * (multiplexage de plusieurs appelants sur une seule connexion). L'id 0 est réservé aux
+ * notifications poussées par le serveur ({@link #NOTIFICATION}).
+ *
+ * Données : voir {@link BinaryCodec}. Une réponse {@link #FAILED} porte le message de
+ * l'erreur du service (place déjà prise, montant incorrect…).
+ */
+public final class BinaryProtocol {
+
+    private BinaryProtocol() {}
+
+    /** "PRKB" */
+    public static final int MAGIC = 0x50524B42;
+
+    public static final int VERSION = 1;
+
+    /** Taille maximale d'une trame (au-delà, la connexion est fermée) */
+    public static final int MAX_FRAME = 32 << 20;
+
+    /** Id des trames de notification poussées par le serveur */
+    public static final int PUSH_ID = 0;
+
+    // ======= Statuts des réponses =======
+
+    /** Appel réussi : les données sont le résultat */
+    public static final byte OK = 0;
+
+    /** Erreur du service : les données sont le message */
+    public static final byte FAILED = 1;
+
+    /** Requête illisible ou opération inconnue : les données sont le message */
+    public static final byte BAD_REQUEST = 2;
+
+    /** Notifications d'un client (id {@link #PUSH_ID}) : id client puis liste de notifications */
+    public static final byte NOTIFICATION = 3;
+
+    /**
+     * Opérations de IReservationService et IAdminService. Le code envoyé est le rang dans
+     * l'énumération : ne jamais réordonner, toujours ajouter en fin.
+     */
+    public enum Op {
+        // IReservationService
+        LIST_AVAILABLE,
+        LIST_AVAILABLE_WINDOW,
+        AVAILABILITY_SNAPSHOT,
+        AVAILABILITY_CHANGES,
+        RESERVE,
+        QUOTE,
+        HOLD,
+        RESERVE_IDEMPOTENT,
+        PAY_IDEMPOTENT,
+        RESERVE_AT,
+        RESERVE_BATCH,
+        PAY,
+        GET_RESERVATION,
+        REGISTER_LISTENER,
+        UNREGISTER_LISTENER,
+        LIST_ZONES,
+        // IAdminService
+        ALL_SPOTS,
+        ALL_RESERVATIONS,
+        FIND_RESERVATIONS,
+        FIND_ARCHIVED,
+        FREE_SPOT,
+        CANCEL_RESERVATION,
+        ADD_SPOT,
+        REMOVE_SPOT,
+        ADD_SPOTS,
+        REMOVE_SPOTS,
+        FREE_SPOTS,
+        CANCEL_RESERVATIONS,
+        ADD_ZONE,
+        REMOVE_ZONE,
+        SPOTS_BY_ZONE,
+        ZONE_STATS,
+        SPOT_HISTORY,
+        SPOT_HISTORY_PAGE;
+
+        private static final Op[] VALUES = values();
+
+        /** Opération d'un code reçu, ou null s'il est inconnu */
+        public static Op of(int code) {
+            return code >= 0 && code < VALUES.length ? VALUES[code] : null;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package common;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Une page de l'historique d'une place, du plus récent au plus ancien.
+ */
+public class HistoryPage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Curseur renvoyé quand il n'y a plus de page après celle-ci */
+    public static final long END = -1;
+
+    /** Événements de la page */
+    private final List<SpotHistory> items;
+
+    /** Curseur de la page suivante, ou {@link #END} */
+    private final long nextCursor;
+
+    /**
+     * Constructeur principal
+     * @param items événements de la page
+     * @param nextCursor curseur de la page suivante ou {@link #END}
+     */
+    public HistoryPage(List<SpotHistory> items, long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // ======= Getters =======
+    public List<SpotHistory> getItems() { return items; }
+
+    public long getNextCursor() { return nextCursor; }
+
+    public boolean hasNext() { return nextCursor != END; }
+}
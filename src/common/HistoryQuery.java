@@ -0,0 +1,70 @@
+package common;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Critères d'une lecture paginée de l'historique d'une place.
+ * Les pages vont du plus récent au plus ancien ; le curseur de la page suivante
+ * est fourni par {@link HistoryPage#getNextCursor()}.
+ */
+public class HistoryQuery implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Curseur de la première page (les événements les plus récents) */
+    public static final long FIRST_PAGE = Long.MAX_VALUE;
+
+    /** Début de la période (inclus), null = pas de limite */
+    private final LocalDateTime from;
+
+    /** Fin de la période (exclue), null = pas de limite */
+    private final LocalDateTime to;
+
+    /** Types d'événements voulus ("RESERVATION", "PAYMENT"…), null = tous */
+    private final Set<String> types;
+
+    /** Nombre maximal d'événements par page */
+    private final int pageSize;
+
+    /** Position de départ (renvoyée par la page précédente) */
+    private final long cursor;
+
+    /**
+     * Constructeur principal
+     * @param from début de la période (inclus) ou null
+     * @param to fin de la période (exclue) ou null
+     * @param types types d'événements voulus ou null pour tous
+     * @param pageSize nombre maximal d'événements par page
+     * @param cursor {@link #FIRST_PAGE} ou curseur renvoyé par la page précédente
+     */
+    public HistoryQuery(LocalDateTime from, LocalDateTime to, Set<String> types, int pageSize, long cursor) {
+        this.from = from;
+        this.to = to;
+        this.types = types;
+        this.pageSize = pageSize;
+        this.cursor = cursor;
+    }
+
+    /** Première page des événements les plus récents, sans filtre */
+    public static HistoryQuery latest(int pageSize) {
+        return new HistoryQuery(null, null, null, pageSize, FIRST_PAGE);
+    }
+
+    /** Même requête, positionnée sur la page suivante */
+    public HistoryQuery next(HistoryPage page) {
+        return new HistoryQuery(from, to, types, pageSize, page.getNextCursor());
+    }
+
+    // ======= Getters =======
+    public LocalDateTime getFrom() { return from; }
+
+    public LocalDateTime getTo() { return to; }
+
+    public Set<String> getTypes() { return types; }
+
+    public int getPageSize() { return pageSize; }
+
+    public long getCursor() { return cursor; }
+}
@@ -9,15 +9,29 @@ public interface IAdminService extends Remote {
     // Spots & reservations (existing)
     List<ParkingSpot> getAllSpots() throws RemoteException;
     List<Reservation> getAllReservations() throws RemoteException;
+    // Indexed search: paid flag, client phone, plate, zone, creation range; paged, newest first
+    ReservationPage findReservations(ReservationQuery query) throws RemoteException;
+    // Same filters over completed reservations (cancelled, expired), read from the disk archive
+    ReservationPage findArchivedReservations(ReservationQuery query) throws RemoteException;
     boolean freeSpot(int spotId) throws RemoteException;
     boolean cancelReservation(String reservationId) throws RemoteException;
     ParkingSpot addSpot(String label, String region) throws RemoteException;
     boolean removeSpot(int spotId) throws RemoteException;
 
+    // Batch operations: one server pass, one result per item (same order as the request)
+    BatchResult<ParkingSpot> addSpots(List<String> labels, String region) throws RemoteException;
+    BatchResult<Boolean> removeSpots(List<Integer> spotIds) throws RemoteException;
+    BatchResult<Boolean> freeSpots(List<Integer> spotIds) throws RemoteException;
+    BatchResult<Boolean> cancelReservations(List<String> reservationIds) throws RemoteException;
+
     // New: zone management and per-spot history
     boolean addZone(String zoneName) throws RemoteException;
     boolean removeZone(String zoneName) throws RemoteException;
     List<ParkingZone> listZones() throws RemoteException; // same as reservation service but exposed
     List<ParkingSpot> listSpotsByZone(String zoneName) throws RemoteException;
+    List<ZoneStats> getZoneStats() throws RemoteException; // per-zone totals, O(zones)
     List<SpotHistory> getSpotHistory(int spotId) throws RemoteException;
+
+    // Paged history: time range, event types and page size, newest first
+    HistoryPage getSpotHistory(int spotId, HistoryQuery query) throws RemoteException;
 }
@@ -2,6 +2,7 @@ package common;
 
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.util.List;
 
 /**
  * Interface RMI pour recevoir des notifications du serveur.
@@ -16,5 +17,17 @@ public interface INotificationListener extends Remote {
      * @throws RemoteException en cas de problème de communication RMI
      */
     void onNotification(Notification notification) throws RemoteException;
+
+    /**
+     * Reçoit plusieurs notifications en un seul appel distant (envoi groupé du serveur).
+     * Par défaut, chaque notification est transmise à {@link #onNotification(Notification)}.
+     * @param notifications les notifications, de la plus ancienne à la plus récente
+     * @throws RemoteException en cas de problème de communication RMI
+     */
+    default void onNotifications(List<Notification> notifications) throws RemoteException {
+        for (Notification n : notifications) {
+            onNotification(n);
+        }
+    }
 }
 
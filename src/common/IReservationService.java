@@ -2,11 +2,37 @@ package common;
 
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface IReservationService extends Remote {
     List<ParkingSpot> listAvailableSpots(String region) throws RemoteException;
+
+    // Places libres sur toute la fenêtre [from, to[ (créneaux réservés à l'avance compris)
+    List<ParkingSpot> listAvailableSpots(String region, LocalDateTime from, LocalDateTime to) throws RemoteException;
+
+    // Synchronisation incrémentale des places libres : snapshot puis changements depuis une séquence
+    AvailabilitySnapshot getAvailabilitySnapshot(String region) throws RemoteException;
+    AvailabilityDelta getAvailabilityChanges(String region, long sinceSeq) throws RemoteException;
+
     Reservation reserveSpot(ClientInfo client, Vehicle vehicle, int spotId, int hours) throws RemoteException;
+
+    // Prix d'une réservation immédiate, sans prendre la place
+    double quote(int spotId, int hours) throws RemoteException;
+
+    // Blocage court d'une place (réservation non payée) : confirmé par payReservation, sinon relâché
+    Reservation holdSpot(String requestId, ClientInfo client, Vehicle vehicle, int spotId, int hours) throws RemoteException;
+
+    // Variantes idempotentes : un rejeu avec le même requestId renvoie le résultat d'origine
+    Reservation reserveSpot(String requestId, ClientInfo client, Vehicle vehicle, int spotId, int hours) throws RemoteException;
+    boolean payReservation(String requestId, String reservationId, Payment payment) throws RemoteException;
+
+    // Réservation d'un créneau à venir : la place n'est prise qu'à startAt
+    Reservation reserveSpot(ClientInfo client, Vehicle vehicle, int spotId, LocalDateTime startAt, int hours) throws RemoteException;
+
+    // Réservation groupée : un résultat par place ; allOrNothing = aucune place réservée si l'une échoue
+    BatchResult<Reservation> reserveSpots(ClientInfo client, Vehicle vehicle, List<Integer> spotIds, int hours,
+                                          boolean allOrNothing) throws RemoteException;
     boolean payReservation(String reservationId, Payment payment) throws RemoteException;
     Reservation getReservation(String reservationId) throws RemoteException;
 
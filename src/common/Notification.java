@@ -31,6 +31,18 @@ public class Notification implements Serializable {
         this.at = LocalDateTime.now(); // on enregistre automatiquement le moment de création
     }
 
+    /**
+     * Constructeur avec la date de création (notification relue depuis le protocole binaire)
+     * @param title Titre de la notification
+     * @param message Message de la notification
+     * @param at Date et heure de création
+     */
+    public Notification(String title, String message, LocalDateTime at) {
+        this.title = title;
+        this.message = message;
+        this.at = at;
+    }
+
     /** Retourne le titre de la notification */
     public String getTitle() {
         return title;
@@ -1,18 +1,38 @@
 package common;
 
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.List;
 
 /**
  * Classe représentant une place de parking.
  * Contient les informations de base (id, label, zone), son état (réservée ou libre)
  * et l'historique des réservations.
+ *
+ * Via RMI, seuls l'id, le label, la zone et l'état sont transmis (encodage {@link Externalizable}
+ * versionné) : l'historique reste côté serveur et se consulte par page avec IAdminService.
  */
-public class ParkingSpot implements Serializable {
+public class ParkingSpot implements Externalizable {
 
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
+
+    /** Version de l'encodage écrit par {@link #writeExternal} */
+    private static final int WIRE_VERSION = 1;
+
+    /** Accès atomique (CAS) au champ reserved, utilisé pour réserver une place sans verrou global */
+    private static final VarHandle RESERVED;
+
+    static {
+        try {
+            RESERVED = MethodHandles.lookup().findVarHandle(ParkingSpot.class, "reserved", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     /** Identifiant unique de la place */
     private int id;
@@ -21,15 +41,15 @@ public class ParkingSpot implements Serializable {
     private String label;
 
     /** État de réservation : true si la place est réservée */
-    private boolean reserved;
+    private volatile boolean reserved;
 
     /** Zone ou région où se situe la place */
     private String region;
 
-    /** Historique des actions sur cette place (réservations, libérations, paiements…) */
-    private final List<SpotHistory> history = new ArrayList<>();
+    /** Historique borné des actions sur cette place (réservations, libérations, paiements…) */
+    private final SpotHistoryLog history = new SpotHistoryLog();
 
-    /** Constructeur vide pour sérialisation/RMI */
+    /** Constructeur vide pour sérialisation/RMI (obligatoire pour Externalizable) */
     public ParkingSpot() {}
 
     /**
@@ -55,6 +75,22 @@ public class ParkingSpot implements Serializable {
 
     public void setReserved(boolean reserved) { this.reserved = reserved; }
 
+    /**
+     * Réserve la place de façon atomique (compare-and-set libre → réservée).
+     * @return true si la place était libre et vient d'être prise par l'appelant
+     */
+    public boolean tryReserve() {
+        return RESERVED.compareAndSet(this, false, true);
+    }
+
+    /**
+     * Libère la place de façon atomique (compare-and-set réservée → libre).
+     * @return true si la place était réservée et vient d'être libérée par l'appelant
+     */
+    public boolean release() {
+        return RESERVED.compareAndSet(this, true, false);
+    }
+
     public String getRegion() { return region; }
 
     public void setRegion(String region) { this.region = region; }
@@ -62,20 +98,45 @@ public class ParkingSpot implements Serializable {
     // ======= Gestion de l'historique =======
 
     /**
-     * Ajoute un élément à l'historique.
-     * Les nouvelles actions sont ajoutées en début de liste.
+     * Ajoute un élément à l'historique (en O(1)).
+     * Au-delà de la capacité du buffer, l'événement le plus ancien est écarté.
      * @param item l'événement à ajouter
      */
-    public synchronized void addHistory(SpotHistory item) {
-        history.add(0, item); // ajout en tête de liste pour que le plus récent soit en premier
+    public void addHistory(SpotHistory item) {
+        history.add(item);
     }
 
     /**
-     * Retourne l'historique des actions sous forme de liste non modifiable.
+     * Retourne l'historique en mémoire, du plus récent au plus ancien.
      * @return liste de SpotHistory
      */
-    public synchronized List<SpotHistory> getHistory() {
-        return Collections.unmodifiableList(new ArrayList<>(history));
+    public List<SpotHistory> getHistory() {
+        return history.toList();
+    }
+
+    /** Accès direct au buffer d'historique (lecture paginée, archivage côté serveur) */
+    public SpotHistoryLog getHistoryLog() {
+        return history;
+    }
+
+    // ======= Encodage RMI =======
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeByte(WIRE_VERSION);
+        out.writeInt(id);
+        WireFormat.writeString(out, label);
+        WireFormat.writeString(out, region);
+        out.writeBoolean(reserved);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        WireFormat.readVersion(in, WIRE_VERSION, ParkingSpot.class);
+        id = in.readInt();
+        label = WireFormat.readString(in);
+        region = WireFormat.readString(in);
+        reserved = in.readBoolean();
     }
 
     /**
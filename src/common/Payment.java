@@ -34,6 +34,18 @@ public class Payment implements Serializable {
         this.date = LocalDateTime.now(); // capture la date actuelle
     }
 
+    /**
+     * Constructeur avec la date du paiement (paiement relu depuis le protocole binaire)
+     * @param method méthode de paiement
+     * @param amount montant payé
+     * @param date date du paiement
+     */
+    public Payment(String method, double amount, LocalDateTime date) {
+        this.method = method;
+        this.amount = amount;
+        this.date = date;
+    }
+
     // ======= Getters =======
     public String getMethod() { return method; }
 
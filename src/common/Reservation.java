@@ -1,6 +1,9 @@
 package common;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -8,34 +11,59 @@ import java.util.UUID;
  * Classe représentant une réservation d'une place de parking.
  * Contient les informations du client, du véhicule, de la place, la durée,
  * le montant à payer, la date de création et l'état de paiement.
+ *
+ * La place n'est référencée que par son id et son label : une réservation transmise via
+ * RMI n'embarque plus la place ni son historique. L'encodage est écrit à la main
+ * ({@link Externalizable}) et versionné.
+ *
+ * Une réservation occupe le créneau [startAt, startAt + hours[ : startAt vaut createdAt pour
+ * une réservation immédiate, une date future pour un créneau réservé à l'avance.
+ *
+ * Une place bloquée ({@link #isHold()}) est une réservation non payée à durée de vie courte :
+ * le paiement avant holdUntil la confirme, sinon le serveur rend la place.
  */
-public class Reservation implements Serializable {
+public class Reservation implements Externalizable {
 
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
+
+    /** Version de l'encodage écrit par {@link #writeExternal} */
+    private static final int WIRE_VERSION = 1;
 
     /** Identifiant unique de la réservation (UUID) */
-    private final String id;
+    private String id;
 
     /** Informations du client ayant effectué la réservation */
-    private final ClientInfo client;
+    private ClientInfo client;
 
     /** Informations sur le véhicule réservé */
-    private final Vehicle vehicle;
+    private Vehicle vehicle;
+
+    /** Identifiant de la place réservée */
+    private int spotId;
 
-    /** Place de parking réservée */
-    private final ParkingSpot spot;
+    /** Label de la place réservée (pour affichage) */
+    private String spotLabel;
 
     /** Durée de réservation en heures */
-    private final int hours;
+    private int hours;
 
     /** Date et heure de création de la réservation */
-    private final LocalDateTime createdAt;
+    private LocalDateTime createdAt;
+
+    /** Début du créneau réservé (= createdAt pour une réservation immédiate) */
+    private LocalDateTime startAt;
+
+    /** Fin du blocage de la place si elle n'est pas payée (null = réservation ordinaire) */
+    private LocalDateTime holdUntil;
 
     /** Montant à payer pour cette réservation */
-    private final double amount;
+    private double amount;
 
     /** Indique si la réservation a été payée */
-    private boolean paid;
+    private volatile boolean paid;
+
+    /** Constructeur vide pour la désérialisation */
+    public Reservation() {}
 
     /**
      * Constructeur principal
@@ -46,14 +74,66 @@ public class Reservation implements Serializable {
      * @param amount montant à payer
      */
     public Reservation(ClientInfo client, Vehicle vehicle, ParkingSpot spot, int hours, double amount) {
-        this.id = UUID.randomUUID().toString(); // génération d'un ID unique
+        this(UUID.randomUUID().toString(), client, vehicle, spot, hours, amount, LocalDateTime.now(), false);
+    }
+
+    /**
+     * Constructeur d'une réservation de créneau à venir
+     * @param client informations du client
+     * @param vehicle informations du véhicule
+     * @param spot place de parking réservée
+     * @param startAt début du créneau
+     * @param hours durée du créneau
+     * @param amount montant à payer
+     */
+    public Reservation(ClientInfo client, Vehicle vehicle, ParkingSpot spot, LocalDateTime startAt, int hours, double amount) {
+        this(UUID.randomUUID().toString(), client, vehicle, spot, hours, amount, LocalDateTime.now(), startAt, false);
+    }
+
+    /**
+     * Constructeur de restauration (relecture du journal ou d'un snapshot côté serveur)
+     * @param id identifiant d'origine de la réservation
+     * @param client informations du client
+     * @param vehicle informations du véhicule
+     * @param spot place de parking réservée
+     * @param hours durée de réservation
+     * @param amount montant à payer
+     * @param createdAt date de création d'origine
+     * @param paid état de paiement
+     */
+    public Reservation(String id, ClientInfo client, Vehicle vehicle, ParkingSpot spot, int hours, double amount,
+                       LocalDateTime createdAt, boolean paid) {
+        this(id, client, vehicle, spot, hours, amount, createdAt, createdAt, paid);
+    }
+
+    /**
+     * Constructeur de restauration d'une réservation de créneau
+     * @param startAt début du créneau réservé
+     * @see #Reservation(String, ClientInfo, Vehicle, ParkingSpot, int, double, LocalDateTime, boolean)
+     */
+    public Reservation(String id, ClientInfo client, Vehicle vehicle, ParkingSpot spot, int hours, double amount,
+                       LocalDateTime createdAt, LocalDateTime startAt, boolean paid) {
+        this(id, client, vehicle, spot.getId(), spot.getLabel(), hours, amount, createdAt, startAt, paid);
+    }
+
+    /**
+     * Constructeur de restauration sans la place elle-même (archive des réservations terminées)
+     * @param spotId id de la place réservée
+     * @param spotLabel libellé de la place
+     * @see #Reservation(String, ClientInfo, Vehicle, ParkingSpot, int, double, LocalDateTime, LocalDateTime, boolean)
+     */
+    public Reservation(String id, ClientInfo client, Vehicle vehicle, int spotId, String spotLabel, int hours,
+                       double amount, LocalDateTime createdAt, LocalDateTime startAt, boolean paid) {
+        this.id = id;
         this.client = client;
         this.vehicle = vehicle;
-        this.spot = spot;
+        this.spotId = spotId;
+        this.spotLabel = spotLabel;
         this.hours = hours;
         this.amount = amount;
-        this.createdAt = LocalDateTime.now(); // date actuelle
-        this.paid = false; // initialement non payé
+        this.createdAt = createdAt;
+        this.startAt = startAt;
+        this.paid = paid;
     }
 
     // ======= Getters =======
@@ -63,16 +143,80 @@ public class Reservation implements Serializable {
 
     public Vehicle getVehicle() { return vehicle; }
 
-    public ParkingSpot getSpot() { return spot; }
+    public int getSpotId() { return spotId; }
+
+    public String getSpotLabel() { return spotLabel; }
 
     public int getHours() { return hours; }
 
     public LocalDateTime getCreatedAt() { return createdAt; }
 
+    public LocalDateTime getStartAt() { return startAt; }
+
+    /** Fin du créneau réservé */
+    public LocalDateTime getEndAt() { return startAt.plusHours(hours); }
+
+    /** Vrai pour un créneau réservé à l'avance (il ne commence pas à la création) */
+    public boolean isScheduled() { return startAt.isAfter(createdAt); }
+
+    public LocalDateTime getHoldUntil() { return holdUntil; }
+
+    /** Vrai tant qu'une place bloquée n'a pas été payée */
+    public boolean isHold() { return holdUntil != null && !paid; }
+
     public double getAmount() { return amount; }
 
     public boolean isPaid() { return paid; }
 
     // ======= Setter =======
     public void setPaid(boolean paid) { this.paid = paid; }
+
+    public void setHoldUntil(LocalDateTime holdUntil) { this.holdUntil = holdUntil; }
+
+    // ======= Encodage RMI =======
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeByte(WIRE_VERSION);
+        WireFormat.writeString(out, id);
+        out.writeBoolean(client != null);
+        if (client != null) {
+            WireFormat.writeString(out, client.getName());
+            WireFormat.writeString(out, client.getPhone());
+        }
+        out.writeBoolean(vehicle != null);
+        if (vehicle != null) {
+            WireFormat.writeString(out, vehicle.getPlateNumber());
+            WireFormat.writeString(out, vehicle.getModel());
+            WireFormat.writeString(out, vehicle.getColor());
+        }
+        out.writeInt(spotId);
+        WireFormat.writeString(out, spotLabel);
+        out.writeInt(hours);
+        WireFormat.writeTime(out, createdAt);
+        out.writeDouble(amount);
+        out.writeBoolean(paid);
+        WireFormat.writeTime(out, startAt);
+        WireFormat.writeTime(out, holdUntil);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        WireFormat.readVersion(in, WIRE_VERSION, Reservation.class);
+        id = WireFormat.readString(in);
+        if (in.readBoolean()) {
+            client = new ClientInfo(WireFormat.readString(in), WireFormat.readString(in));
+        }
+        if (in.readBoolean()) {
+            vehicle = new Vehicle(WireFormat.readString(in), WireFormat.readString(in), WireFormat.readString(in));
+        }
+        spotId = in.readInt();
+        spotLabel = WireFormat.readString(in);
+        hours = in.readInt();
+        createdAt = WireFormat.readTime(in);
+        amount = in.readDouble();
+        paid = in.readBoolean();
+        startAt = WireFormat.readTime(in);
+        holdUntil = WireFormat.readTime(in);
+    }
 }
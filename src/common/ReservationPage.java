@@ -0,0 +1,38 @@
+package common;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Une page de résultats d'une {@link ReservationQuery}, de la plus récente à la plus ancienne.
+ */
+public class ReservationPage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Curseur renvoyé quand il n'y a plus de page après celle-ci */
+    public static final long END = -1;
+
+    /** Réservations de la page */
+    private final List<Reservation> items;
+
+    /** Curseur de la page suivante, ou {@link #END} */
+    private final long nextCursor;
+
+    /**
+     * Constructeur principal
+     * @param items réservations de la page
+     * @param nextCursor curseur de la page suivante ou {@link #END}
+     */
+    public ReservationPage(List<Reservation> items, long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // ======= Getters =======
+    public List<Reservation> getItems() { return items; }
+
+    public long getNextCursor() { return nextCursor; }
+
+    public boolean hasNext() { return nextCursor != END; }
+}
@@ -0,0 +1,102 @@
+package common;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Critères d'une recherche paginée dans les réservations en cours (admin).
+ * Tous les critères sont optionnels (null = pas de filtre) et se combinent.
+ * Les pages vont de la réservation la plus récente à la plus ancienne ; le curseur de la
+ * page suivante est fourni par {@link ReservationPage#getNextCursor()}.
+ */
+public class ReservationQuery implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Curseur de la première page (les réservations les plus récentes) */
+    public static final long FIRST_PAGE = Long.MAX_VALUE;
+
+    /** true = payées, false = non payées, null = toutes */
+    private final Boolean paid;
+
+    /** Téléphone du client */
+    private final String phone;
+
+    /** Immatriculation du véhicule */
+    private final String plate;
+
+    /** Zone de la place */
+    private final String zone;
+
+    /** Création à partir de (inclus) */
+    private final LocalDateTime from;
+
+    /** Création avant (exclu) */
+    private final LocalDateTime to;
+
+    /** Nombre maximal de réservations par page */
+    private final int pageSize;
+
+    /** Position de départ (renvoyée par la page précédente) */
+    private final long cursor;
+
+    /**
+     * Constructeur principal
+     * @param paid état de paiement voulu ou null
+     * @param phone téléphone du client ou null
+     * @param plate immatriculation ou null
+     * @param zone zone de la place ou null
+     * @param from création à partir de (inclus) ou null
+     * @param to création avant (exclu) ou null
+     * @param pageSize nombre maximal de réservations par page
+     * @param cursor {@link #FIRST_PAGE} ou curseur renvoyé par la page précédente
+     */
+    public ReservationQuery(Boolean paid, String phone, String plate, String zone,
+                            LocalDateTime from, LocalDateTime to, int pageSize, long cursor) {
+        this.paid = paid;
+        this.phone = phone;
+        this.plate = plate;
+        this.zone = zone;
+        this.from = from;
+        this.to = to;
+        this.pageSize = pageSize;
+        this.cursor = cursor;
+    }
+
+    /** Première page des réservations non payées, les plus récentes d'abord */
+    public static ReservationQuery unpaid(int pageSize) {
+        return new ReservationQuery(false, null, null, null, null, null, pageSize, FIRST_PAGE);
+    }
+
+    /** Première page des réservations d'un client */
+    public static ReservationQuery byPhone(String phone, int pageSize) {
+        return new ReservationQuery(null, phone, null, null, null, null, pageSize, FIRST_PAGE);
+    }
+
+    /** Première page des réservations d'un véhicule */
+    public static ReservationQuery byPlate(String plate, int pageSize) {
+        return new ReservationQuery(null, null, plate, null, null, null, pageSize, FIRST_PAGE);
+    }
+
+    /** Même requête, positionnée sur la page suivante */
+    public ReservationQuery next(ReservationPage page) {
+        return new ReservationQuery(paid, phone, plate, zone, from, to, pageSize, page.getNextCursor());
+    }
+
+    // ======= Getters =======
+    public Boolean getPaid() { return paid; }
+
+    public String getPhone() { return phone; }
+
+    public String getPlate() { return plate; }
+
+    public String getZone() { return zone; }
+
+    public LocalDateTime getFrom() { return from; }
+
+    public LocalDateTime getTo() { return to; }
+
+    public int getPageSize() { return pageSize; }
+
+    public long getCursor() { return cursor; }
+}
@@ -0,0 +1,73 @@
+package common;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.rmi.server.RMIClientSocketFactory;
+import java.util.Objects;
+
+/**
+ * Fabrique des connexions client vers les services RMI du serveur.
+ *
+ * Elle voyage avec le stub du service : le client n'a rien à configurer, ses connexions
+ * reprennent les réglages du serveur (TCP_NODELAY, tampons, compression, délai de connexion).
+ * equals/hashCode portent sur les réglages : RMI réutilise les connexions ouvertes vers un
+ * même hôte, port et fabrique, tous les stubs du serveur partagent donc le même pool.
+ */
+public class RmiClientSocketFactory implements RMIClientSocketFactory, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean noDelay;
+    private final int sendBuffer;
+    private final int receiveBuffer;
+    private final boolean compress;
+    private final int connectTimeoutMs;
+
+    /**
+     * Constructeur principal
+     * @param noDelay désactive l'algorithme de Nagle (petits messages envoyés sans attente)
+     * @param sendBuffer taille du tampon d'émission en octets, 0 = valeur du système
+     * @param receiveBuffer taille du tampon de réception en octets, 0 = valeur du système
+     * @param compress compression du flux (le serveur doit avoir le même réglage)
+     * @param connectTimeoutMs délai de connexion, 0 = attente illimitée
+     */
+    public RmiClientSocketFactory(boolean noDelay, int sendBuffer, int receiveBuffer, boolean compress, int connectTimeoutMs) {
+        this.noDelay = noDelay;
+        this.sendBuffer = sendBuffer;
+        this.receiveBuffer = receiveBuffer;
+        this.compress = compress;
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        TunedSocket socket = new TunedSocket(compress);
+        socket.setTcpNoDelay(noDelay);
+        socket.setKeepAlive(true);
+        if (sendBuffer > 0) socket.setSendBufferSize(sendBuffer);
+        if (receiveBuffer > 0) socket.setReceiveBufferSize(receiveBuffer); // avant connect : fenêtre TCP négociée
+        try {
+            socket.connect(new InetSocketAddress(host, port), connectTimeoutMs);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        return socket;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RmiClientSocketFactory)) return false;
+        RmiClientSocketFactory f = (RmiClientSocketFactory) o;
+        return noDelay == f.noDelay && sendBuffer == f.sendBuffer && receiveBuffer == f.receiveBuffer
+                && compress == f.compress && connectTimeoutMs == f.connectTimeoutMs;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(noDelay, sendBuffer, receiveBuffer, compress, connectTimeoutMs);
+    }
+}
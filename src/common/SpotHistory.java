@@ -1,28 +1,38 @@
 package common;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.time.LocalDateTime;
 
 /**
  * Classe représentant l'historique d'une place de parking.
  * Chaque événement sur la place (réservation, paiement, libération, annulation)
  * est enregistré avec la date, le type, les détails et le montant associé.
+ * Encodage RMI écrit à la main ({@link Externalizable}) et versionné.
  */
-public class SpotHistory implements Serializable {
+public class SpotHistory implements Externalizable {
 
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
+
+    /** Version de l'encodage écrit par {@link #writeExternal} */
+    private static final int WIRE_VERSION = 1;
 
     /** Date et heure de l'événement */
-    private final LocalDateTime date;
+    private LocalDateTime date;
 
-    /** Type de l'événement : "RESERVATION", "PAYMENT", "FREE", "CANCEL" */
-    private final String type;
+    /** Type de l'événement : "RESERVATION", "PAYMENT", "FREE", "CANCEL", "EXPIRE" */
+    private String type;
 
     /** Détails supplémentaires sur l'événement */
-    private final String details;
+    private String details;
 
     /** Montant lié à l'événement (0 si non applicable) */
-    private final double amount;
+    private double amount;
+
+    /** Constructeur vide pour la désérialisation */
+    public SpotHistory() {}
 
     /**
      * Constructeur principal
@@ -47,6 +57,26 @@ public class SpotHistory implements Serializable {
 
     public double getAmount() { return amount; }
 
+    // ======= Encodage RMI =======
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeByte(WIRE_VERSION);
+        WireFormat.writeTime(out, date);
+        WireFormat.writeString(out, type);
+        WireFormat.writeString(out, details);
+        out.writeDouble(amount);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        WireFormat.readVersion(in, WIRE_VERSION, SpotHistory.class);
+        date = WireFormat.readTime(in);
+        type = WireFormat.readString(in);
+        details = WireFormat.readString(in);
+        amount = in.readDouble();
+    }
+
     @Override
     public String toString() {
         return "[" + date + "] " + type + " - " + details + (amount > 0 ? (" (DT " + amount + ")") : "");
@@ -0,0 +1,271 @@
+package common;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Historique borné d'une place, stocké en colonnes dans un buffer circulaire.
+ *
+ * Chaque événement occupe une case dans des tableaux primitifs (date en millisecondes,
+ * code de type, montant) plus le texte des détails. L'ajout est en O(1), la lecture du
+ * plus récent au plus ancien aussi. Les tableaux grandissent à la demande jusqu'à la
+ * capacité maximale ; au-delà, l'événement le plus ancien est écrasé et transmis au
+ * {@link Overflow} éventuel (archivage côté serveur).
+ *
+ * La capacité maximale se règle avec la propriété système parking.history.capacity (défaut 256).
+ */
+public class SpotHistoryLog implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Capacité maximale par défaut (nombre d'événements gardés en mémoire) */
+    public static final int DEFAULT_CAPACITY = Integer.getInteger("parking.history.capacity", 256);
+
+    /** Table des types d'événements : le code est l'indice dans cette liste */
+    private static final List<String> TYPES = new CopyOnWriteArrayList<>(
+            List.of("RESERVATION", "PAYMENT", "FREE", "CANCEL", "EXPIRE"));
+
+    /** Reçoit les événements les plus anciens quand le buffer est plein */
+    public interface Overflow {
+        void evicted(SpotHistory item);
+    }
+
+    private final int maxCapacity;
+
+    // ======= Colonnes (buffer circulaire) =======
+    private transient long[] times;
+    private transient byte[] types;
+    private transient double[] amounts;
+    private transient String[] details;
+
+    /** Indice de la prochaine écriture */
+    private transient int head;
+
+    /** Nombre d'événements présents */
+    private transient int size;
+
+    /** Nombre total d'événements ajoutés depuis la création (séquence du prochain événement) */
+    private transient long appended;
+
+    /** Destination des événements écrasés (côté serveur uniquement) */
+    private transient Overflow overflow;
+
+    /** Historique avec la capacité par défaut */
+    public SpotHistoryLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructeur principal
+     * @param maxCapacity nombre maximal d'événements gardés
+     */
+    public SpotHistoryLog(int maxCapacity) {
+        this.maxCapacity = Math.max(1, maxCapacity);
+        allocate(Math.min(4, this.maxCapacity));
+    }
+
+    private void allocate(int capacity) {
+        times = new long[capacity];
+        types = new byte[capacity];
+        amounts = new double[capacity];
+        details = new String[capacity];
+    }
+
+    /** Définit la destination des événements écrasés (null = ils sont perdus) */
+    public synchronized void setOverflow(Overflow overflow) {
+        this.overflow = overflow;
+    }
+
+    // ======= Écriture =======
+
+    /** Ajoute un événement (le plus récent), en O(1) */
+    public synchronized void add(SpotHistory item) {
+        if (size == times.length && size < maxCapacity) grow();
+        if (size == times.length) {
+            // buffer plein : head pointe sur le plus ancien, qui va être écrasé
+            if (overflow != null) overflow.evicted(get(head));
+        } else {
+            size++;
+        }
+        times[head] = toMillis(item.getDate());
+        types[head] = typeCode(item.getType());
+        amounts[head] = item.getAmount();
+        details[head] = item.getDetails();
+        head = (head + 1) % times.length;
+        appended++;
+    }
+
+    /** Double la taille des colonnes en remettant les événements dans l'ordre */
+    private void grow() {
+        int newCapacity = Math.min(maxCapacity, times.length * 2);
+        long[] t = times;
+        byte[] ty = types;
+        double[] a = amounts;
+        String[] d = details;
+        int oldest = (head - size + t.length) % t.length;
+        allocate(newCapacity);
+        for (int i = 0; i < size; i++) {
+            int src = (oldest + i) % t.length;
+            times[i] = t[src];
+            types[i] = ty[src];
+            amounts[i] = a[src];
+            details[i] = d[src];
+        }
+        head = size;
+    }
+
+    // ======= Lecture =======
+
+    /** Nombre d'événements présents en mémoire */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Nombre total d'événements ajoutés (y compris ceux écrasés depuis) */
+    public synchronized long appendedCount() {
+        return appended;
+    }
+
+    /**
+     * Événement à la position i en partant du plus récent (0 = le plus récent), en O(1)
+     */
+    public synchronized SpotHistory newest(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+        return get((head - 1 - i + times.length) % times.length);
+    }
+
+    /** Date (ms epoch UTC) de l'événement à la position i en partant du plus récent */
+    public synchronized long newestTime(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+        return times[(head - 1 - i + times.length) % times.length];
+    }
+
+    // ======= Accès par séquence (lecture paginée) =======
+    // Chaque événement a une séquence stable : 0 pour le premier ajouté, puis +1 à chaque ajout.
+
+    /** Séquence du plus ancien événement encore en mémoire */
+    public synchronized long oldestSeq() {
+        return appended - size;
+    }
+
+    /**
+     * Recale la numérotation : le prochain événement ajouté aura la séquence appendedCount.
+     * Utilisé après récupération pour rester aligné sur l'archive disque.
+     */
+    public synchronized void setAppendedCount(long appendedCount) {
+        this.appended = Math.max(appendedCount, size);
+    }
+
+    /** Case du buffer d'un événement, ou -1 s'il n'est pas (ou plus) en mémoire */
+    private int slotOf(long seq) {
+        long rank = appended - 1 - seq;
+        if (rank < 0 || rank >= size) return -1;
+        return (int) ((head - 1 - rank + times.length) % times.length);
+    }
+
+    /** Date (ms epoch UTC) d'un événement, ou Long.MIN_VALUE s'il n'est pas en mémoire */
+    public synchronized long timeBySeq(long seq) {
+        int slot = slotOf(seq);
+        return slot < 0 ? Long.MIN_VALUE : times[slot];
+    }
+
+    /** Code de type d'un événement, ou -1 s'il n'est pas en mémoire */
+    public synchronized int typeBySeq(long seq) {
+        int slot = slotOf(seq);
+        return slot < 0 ? -1 : types[slot];
+    }
+
+    /** Événement d'une séquence donnée, ou null s'il n'est pas en mémoire */
+    public synchronized SpotHistory bySeq(long seq) {
+        int slot = slotOf(seq);
+        return slot < 0 ? null : get(slot);
+    }
+
+    /** Copie de l'historique, du plus récent au plus ancien */
+    public synchronized List<SpotHistory> toList() {
+        List<SpotHistory> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) list.add(newest(i));
+        return list;
+    }
+
+    private SpotHistory get(int slot) {
+        return new SpotHistory(toTime(times[slot]), TYPES.get(types[slot]), details[slot], amounts[slot]);
+    }
+
+    // ======= Codes de type et dates =======
+
+    /** Code d'un type d'événement (les types inconnus sont ajoutés à la table) */
+    public static byte typeCode(String type) {
+        int code = TYPES.indexOf(type);
+        if (code >= 0) return (byte) code;
+        synchronized (TYPES) {
+            code = TYPES.indexOf(type);
+            if (code < 0) {
+                if (TYPES.size() >= Byte.MAX_VALUE) throw new IllegalStateException("Trop de types d'historique");
+                TYPES.add(type);
+                code = TYPES.size() - 1;
+            }
+            return (byte) code;
+        }
+    }
+
+    /** Code d'un type d'événement déjà connu, sans l'ajouter à la table (-1 si inconnu) */
+    public static int knownTypeCode(String type) {
+        return TYPES.indexOf(type);
+    }
+
+    /** Type d'événement correspondant à un code */
+    public static String typeName(byte code) {
+        return TYPES.get(code);
+    }
+
+    public static long toMillis(LocalDateTime t) {
+        return t.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public static LocalDateTime toTime(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    // ======= Sérialisation (colonnes écrites du plus ancien au plus récent) =======
+
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeLong(appended);
+        out.writeInt(size);
+        for (int i = size - 1; i >= 0; i--) {
+            int slot = (head - 1 - i + times.length) % times.length;
+            out.writeLong(times[slot]);
+            out.writeUTF(TYPES.get(types[slot]));
+            out.writeDouble(amounts[slot]);
+            out.writeObject(details[slot]);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        long total = in.readLong();
+        int n = in.readInt();
+        allocate(Math.max(1, Math.min(maxCapacity, n)));
+        for (int i = 0; i < n; i++) {
+            long t = in.readLong();
+            String type = in.readUTF();
+            double amount = in.readDouble();
+            String d = (String) in.readObject();
+            add(new SpotHistory(toTime(t), type, d, amount));
+        }
+        appended = total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return toList().toString();
+    }
+}
@@ -0,0 +1,80 @@
+package common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Socket des connexions RMI, avec compression optionnelle du flux dans les deux sens.
+ *
+ * La compression (deflate, niveau rapide) vide son tampon à chaque flush : RMI vide le flux
+ * à la fin de chaque message, un message n'attend donc jamais le suivant. Les deux bouts de
+ * la connexion doivent être d'accord (même réglage dans les fabriques client et serveur).
+ * Les sous-classes peuvent envelopper les flux bruts (comptage des octets réellement émis).
+ */
+public class TunedSocket extends Socket {
+
+    private final boolean compress;
+    private Deflater deflater;
+    private Inflater inflater;
+    private InputStream in;
+    private OutputStream out;
+
+    public TunedSocket(boolean compress) {
+        this.compress = compress;
+    }
+
+    /** Enveloppe le flux d'entrée brut (avant décompression) */
+    protected InputStream rawInput(InputStream raw) {
+        return raw;
+    }
+
+    /** Enveloppe le flux de sortie brut (après compression) */
+    protected OutputStream rawOutput(OutputStream raw) {
+        return raw;
+    }
+
+    @Override
+    public synchronized InputStream getInputStream() throws IOException {
+        if (in == null) {
+            InputStream raw = rawInput(super.getInputStream());
+            if (compress) {
+                inflater = new Inflater();
+                in = new InflaterInputStream(raw, inflater, 8192);
+            } else {
+                in = raw;
+            }
+        }
+        return in;
+    }
+
+    @Override
+    public synchronized OutputStream getOutputStream() throws IOException {
+        if (out == null) {
+            OutputStream raw = rawOutput(super.getOutputStream());
+            if (compress) {
+                deflater = new Deflater(Deflater.BEST_SPEED);
+                out = new DeflaterOutputStream(raw, deflater, 8192, true);
+            } else {
+                out = raw;
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            // mémoire native du compresseur : libérée explicitement
+            if (deflater != null) deflater.end();
+            if (inflater != null) inflater.end();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package common;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.time.LocalDateTime;
+
+/**
+ * Petites fonctions d'encodage partagées par les classes {@link java.io.Externalizable}
+ * échangées via RMI (Reservation, ParkingSpot, SpotHistory).
+ *
+ * Chaque classe écrit d'abord un octet de version : un lecteur accepte toutes les versions
+ * inférieures ou égales à la sienne, ce qui permet d'ajouter des champs plus tard.
+ */
+public final class WireFormat {
+
+    private WireFormat() {}
+
+    /** Écrit une chaîne pouvant être null */
+    public static void writeString(ObjectOutput out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    /** Lit une chaîne écrite par {@link #writeString} */
+    public static String readString(ObjectInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /** Écrit une date (pouvant être null) en millisecondes */
+    public static void writeTime(ObjectOutput out, LocalDateTime t) throws IOException {
+        out.writeLong(t == null ? Long.MIN_VALUE : SpotHistoryLog.toMillis(t));
+    }
+
+    /** Lit une date écrite par {@link #writeTime} */
+    public static LocalDateTime readTime(ObjectInput in) throws IOException {
+        long millis = in.readLong();
+        return millis == Long.MIN_VALUE ? null : SpotHistoryLog.toTime(millis);
+    }
+
+    /** Lit l'octet de version et refuse une version plus récente que celle supportée */
+    public static int readVersion(ObjectInput in, int supported, Class<?> type) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version > supported) {
+            throw new IOException("Version " + version + " de " + type.getSimpleName() + " non supportée");
+        }
+        return version;
+    }
+}
@@ -0,0 +1,53 @@
+package common;
+
+import java.io.Serializable;
+
+/**
+ * Résumé de l'occupation d'une zone (une ligne du tableau des zones de l'admin).
+ */
+public class ZoneStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Nom de la zone */
+    private final String name;
+
+    /** Nombre total de places */
+    private final int total;
+
+    /** Nombre de places libres */
+    private final int free;
+
+    /** Nombre de réservations en cours non payées */
+    private final int unpaid;
+
+    /** Total des paiements reçus pour les places de la zone */
+    private final double revenue;
+
+    public ZoneStats(String name, int total, int free, int unpaid, double revenue) {
+        this.name = name;
+        this.total = total;
+        this.free = free;
+        this.unpaid = unpaid;
+        this.revenue = revenue;
+    }
+
+    // ======= Getters =======
+    public String getName() { return name; }
+
+    public int getTotal() { return total; }
+
+    public int getFree() { return free; }
+
+    /** Nombre de places réservées */
+    public int getReserved() { return total - free; }
+
+    public int getUnpaid() { return unpaid; }
+
+    public double getRevenue() { return revenue; }
+
+    @Override
+    public String toString() {
+        return name + " : " + free + "/" + total + " libres, " + unpaid + " impayées, " + revenue + " DT";
+    }
+}
@@ -21,7 +21,17 @@ public class AdminServiceImpl extends UnicastRemoteObject implements IAdminServi
      * @throws RemoteException
      */
     public AdminServiceImpl(ReservationServiceImpl mainService) throws RemoteException {
-        super(); // exporte automatiquement cet objet RMI
+        this(mainService, RmiTransport.defaults());
+    }
+
+    /**
+     * Constructeur avec transport RMI (même port et mêmes fabriques que le service principal)
+     * @param mainService service principal de réservation
+     * @param transport réglages du transport RMI
+     * @throws RemoteException
+     */
+    public AdminServiceImpl(ReservationServiceImpl mainService, RmiTransport transport) throws RemoteException {
+        super(transport.servicePort(), transport.clientFactory(), transport.serverFactory()); // exporte automatiquement cet objet RMI
         this.mainService = mainService;
     }
 
@@ -30,25 +40,42 @@ public class AdminServiceImpl extends UnicastRemoteObject implements IAdminServi
     /** Retourne toutes les places de parking */
     @Override
     public List<ParkingSpot> getAllSpots() throws RemoteException {
-        // récupère toutes les valeurs de la Map de spots et les transforme en liste
-        return new java.util.ArrayList<>(mainService.getSpots().values());
+        long t0 = System.nanoTime();
+        try {
+            // récupère toutes les valeurs de la Map de spots et les transforme en liste
+            return mainService.getSpots();
+        } finally {
+            mainService.getMetrics().record(ServiceMetrics.Op.ALL_SPOTS, t0);
+        }
     }
 
     /** Retourne toutes les réservations */
     @Override
     public List<Reservation> getAllReservations() throws RemoteException {
-        return new java.util.ArrayList<>(mainService.getReservations().values());
+        long t0 = System.nanoTime();
+        try {
+            return new java.util.ArrayList<>(mainService.getReservations().values());
+        } finally {
+            mainService.getMetrics().record(ServiceMetrics.Op.ALL_RESERVATIONS, t0);
+        }
+    }
+
+    /** Recherche paginée dans les réservations (non payées, par client, véhicule, zone, période) */
+    @Override
+    public ReservationPage findReservations(ReservationQuery query) throws RemoteException {
+        return mainService.findReservations(query);
+    }
+
+    /** Même recherche dans l'archive des réservations terminées (rapports) */
+    @Override
+    public ReservationPage findArchivedReservations(ReservationQuery query) throws RemoteException {
+        return mainService.findArchivedReservations(query);
     }
 
     /** Libère une place donnée par son ID */
     @Override
     public boolean freeSpot(int spotId) throws RemoteException {
-        ParkingSpot s = mainService.getSpot(spotId);
-        if (s == null) return false;
-        s.setReserved(false);
-        // ajoute un historique indiquant que l'admin a libéré la place
-        s.addHistory(new SpotHistory(java.time.LocalDateTime.now(), "FREE", "Admin freed spot " + spotId, 0));
-        return true;
+        return mainService.freeSpot(spotId);
     }
 
     /** Annule une réservation par son ID */
@@ -69,6 +96,32 @@ public class AdminServiceImpl extends UnicastRemoteObject implements IAdminServi
         return mainService.removeSpot(spotId);
     }
 
+    // ======= Opérations groupées =======
+
+    /** Crée plusieurs places dans une zone en un seul appel */
+    @Override
+    public BatchResult<ParkingSpot> addSpots(List<String> labels, String region) throws RemoteException {
+        return mainService.addSpots(labels, region);
+    }
+
+    /** Supprime plusieurs places en un seul appel */
+    @Override
+    public BatchResult<Boolean> removeSpots(List<Integer> spotIds) throws RemoteException {
+        return mainService.removeSpots(spotIds);
+    }
+
+    /** Libère plusieurs places en un seul appel */
+    @Override
+    public BatchResult<Boolean> freeSpots(List<Integer> spotIds) throws RemoteException {
+        return mainService.freeSpots(spotIds);
+    }
+
+    /** Annule plusieurs réservations en un seul appel */
+    @Override
+    public BatchResult<Boolean> cancelReservations(List<String> reservationIds) throws RemoteException {
+        return mainService.cancelReservations(reservationIds);
+    }
+
     // ======= Gestion des zones =======
 
     /** Ajoute une nouvelle zone */
@@ -95,11 +148,21 @@ public class AdminServiceImpl extends UnicastRemoteObject implements IAdminServi
         return mainService.listSpotsByZone(zoneName);
     }
 
+    /** Résumé de toutes les zones (compteurs maintenus par le serveur) */
+    @Override
+    public List<ZoneStats> getZoneStats() throws RemoteException {
+        return mainService.getZoneStats();
+    }
+
     /** Récupère l'historique d'une place spécifique */
     @Override
     public List<SpotHistory> getSpotHistory(int spotId) throws RemoteException {
-        ParkingSpot s = mainService.getSpot(spotId);
-        if (s == null) return java.util.Collections.emptyList();
-        return s.getHistory();
+        return mainService.getSpotHistory(spotId);
+    }
+
+    /** Récupère une page de l'historique d'une place (période, types, taille de page) */
+    @Override
+    public HistoryPage getSpotHistory(int spotId, HistoryQuery query) throws RemoteException {
+        return mainService.getSpotHistoryPage(spotId, query);
     }
 }
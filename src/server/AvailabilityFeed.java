@@ -0,0 +1,109 @@
+package server;
+
+import common.AvailabilityChange;
+import common.AvailabilityDelta;
+import common.ParkingSpot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Flux des changements de disponibilité des places, pour la synchronisation incrémentale
+ * des clients (snapshot puis "changements depuis la séquence N").
+ *
+ * Les changements sont rangés sans verrou dans un buffer circulaire : un écrivain prend une
+ * séquence par incrément atomique puis dépose le changement dans la case correspondante.
+ * L'état de la place est lu après la prise de séquence, donc le dernier changement publié
+ * pour une place reflète toujours son état le plus récent, même si deux écrivains se croisent.
+ *
+ * Les séquences partent de l'heure de démarrage (en ms, décalée de 16 bits) : après un
+ * redémarrage du serveur, un client qui présente une ancienne séquence est détecté et
+ * renvoyé vers un snapshot.
+ *
+ * Le flux porte aussi la version de la liste des zones, renvoyée avec chaque snapshot et
+ * chaque lot de changements : un client qui garde les zones en cache voit qu'elles ont
+ * changé sans appel supplémentaire. Elle part elle aussi de l'heure de démarrage.
+ *
+ * Taille du buffer : propriété système parking.availability.feedSize (défaut 16384).
+ */
+public class AvailabilityFeed {
+
+    /** Nombre maximal de changements renvoyés par appel */
+    static final int MAX_CHANGES = 1000;
+
+    private final AtomicReferenceArray<AvailabilityChange> ring;
+    private final int mask;
+
+    /** Séquence précédant le premier changement de ce démarrage */
+    private final long base;
+
+    /** Dernière séquence attribuée */
+    private final AtomicLong seq;
+
+    /** Version de la liste des zones */
+    private final AtomicLong zonesVersion;
+
+    public AvailabilityFeed() {
+        this(Integer.getInteger("parking.availability.feedSize", 1 << 14));
+    }
+
+    /** @param capacity nombre de changements conservés (arrondi à la puissance de 2 supérieure) */
+    public AvailabilityFeed(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.base = System.currentTimeMillis() << 16;
+        this.seq = new AtomicLong(base);
+        this.zonesVersion = new AtomicLong(base);
+    }
+
+    /** Séquence du dernier changement publié */
+    public long latest() {
+        return seq.get();
+    }
+
+    /** Version courante de la liste des zones */
+    public long zonesVersion() {
+        return zonesVersion.get();
+    }
+
+    /** Signale un ajout ou une suppression de zone */
+    public void zonesChanged() {
+        zonesVersion.incrementAndGet();
+    }
+
+    /** Publie l'état courant d'une place (à appeler après chaque changement de son état) */
+    public void publish(ParkingSpot spot) {
+        long s = seq.incrementAndGet();
+        ring.set((int) (s & mask), new AvailabilityChange(s, spot, !spot.isReserved()));
+    }
+
+    /** Publie la suppression d'une place */
+    public void publishRemoved(ParkingSpot spot) {
+        long s = seq.incrementAndGet();
+        ring.set((int) (s & mask), new AvailabilityChange(s, spot, false));
+    }
+
+    /**
+     * Changements d'une zone postérieurs à une séquence
+     * @param region zone (null ou "" = toutes)
+     * @param since dernière séquence connue du client
+     */
+    public AvailabilityDelta changesSince(String region, long since) {
+        long last = seq.get();
+        if (since < base || since > last || last - since > ring.length()) {
+            return new AvailabilityDelta(new ArrayList<>(), last, true, zonesVersion());
+        }
+        List<AvailabilityChange> changes = new ArrayList<>();
+        long s = since + 1;
+        for (; s <= last && changes.size() < MAX_CHANGES; s++) {
+            AvailabilityChange c = ring.get((int) (s & mask));
+            if (c == null || c.getSeq() < s) break; // séquence prise mais pas encore déposée : la suite au prochain appel
+            if (c.getSeq() > s) return new AvailabilityDelta(new ArrayList<>(), last, true, zonesVersion()); // déjà écrasée
+            if (c.matches(region)) changes.add(c);
+        }
+        return new AvailabilityDelta(changes, s - 1, false, zonesVersion());
+    }
+}
@@ -0,0 +1,361 @@
+package server;
+
+import common.*;
+import common.BinaryCodec.In;
+import common.BinaryCodec.Out;
+import common.BinaryProtocol.Op;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static common.BinaryCodec.*;
+
+/**
+ * Point d'accès du service par le protocole binaire ({@link BinaryProtocol}), servi à côté
+ * de RMI sur les mêmes objets de service : mêmes verrous, même journal, mêmes métriques par
+ * méthode.
+ *
+ * Chaque connexion a un thread virtuel de lecture et un d'écriture. Le lecteur découpe les
+ * trames et confie chaque requête au pool d'appels, sans attendre la précédente : une borne
+ * peut enchaîner ses requêtes, plusieurs appelants partager une connexion. L'écrivain envoie
+ * les réponses dans l'ordre où elles sont prêtes et ne vide son tampon que lorsqu'il n'a plus
+ * rien à écrire (les réponses rapprochées partent dans le même paquet). Le nombre de requêtes
+ * en cours par connexion est borné, réponse comprise : une requête ne libère sa place qu'une
+ * fois sa réponse écrite sur la socket. Un client qui enchaîne ses requêtes sans lire les
+ * réponses bloque donc l'écrivain, puis le lecteur, et TCP le freine ; la mémoire retenue par
+ * connexion reste bornée. Les notifications poussées ont la même borne : au-delà, la livraison
+ * échoue et le distributeur finit par retirer le listener.
+ *
+ * Les appels au service s'exécutent sur des threads ordinaires : le service synchronise sur
+ * ses objets, ce qui bloquerait les threads porteurs de threads virtuels.
+ *
+ * Les listeners enregistrés par une connexion reçoivent leurs notifications dans des trames
+ * poussées sur cette connexion ; ils sont retirés à sa fermeture.
+ *
+ * Paramètres (propriétés système) :
+ * - parking.binary.port        : port d'écoute (défaut 1101, 0 = désactivé)
+ * - parking.binary.workers     : threads d'appel au service (défaut 16)
+ * - parking.binary.maxInFlight : requêtes en cours max par connexion (défaut 256)
+ */
+public class BinaryEndpoint implements Closeable {
+
+    /** Marque de fin pour l'écrivain d'une connexion */
+    private static final Outgoing CLOSE = new Outgoing(new byte[0], null);
+
+    /** Trame à écrire, avec la place à libérer une fois écrite (null pour le salut) */
+    private record Outgoing(byte[] frame, Semaphore permit) {}
+
+    private final ReservationServiceImpl service;
+    private final IAdminService admin;
+    private final ServerSocket server;
+    private final ExecutorService calls;
+    private final int maxInFlight;
+    private final TransportMetrics metrics = new TransportMetrics("binary");
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * Démarre l'écoute
+     * @param service service de réservation
+     * @param admin service d'administration (sur le même service)
+     * @param port port d'écoute (0 = port libre quelconque)
+     * @param workers threads d'appel au service
+     * @param maxInFlight requêtes en cours max par connexion
+     */
+    public BinaryEndpoint(ReservationServiceImpl service, IAdminService admin, int port, int workers, int maxInFlight) throws IOException {
+        this.service = service;
+        this.admin = admin;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        AtomicInteger threads = new AtomicInteger();
+        this.calls = Executors.newFixedThreadPool(Math.max(1, workers), r -> {
+            Thread t = new Thread(r, "binary-call-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(new InetSocketAddress(port), 1024);
+        Thread.ofVirtual().name("binary-accept").start(this::acceptLoop);
+    }
+
+    /** Démarre le point d'accès sur le port configuré, ou renvoie null s'il est désactivé */
+    public static BinaryEndpoint fromProperties(ReservationServiceImpl service, IAdminService admin) throws IOException {
+        int port = Integer.getInteger("parking.binary.port", 1101);
+        return port <= 0 ? null : new BinaryEndpoint(service, admin, port,
+                Integer.getInteger("parking.binary.workers", 16), Integer.getInteger("parking.binary.maxInFlight", 256));
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /** Mesures des connexions de ce point d'accès */
+    public TransportMetrics metrics() {
+        return metrics;
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                socket.setKeepAlive(true);
+                Connection c = new Connection(socket);
+                connections.add(c);
+                Thread.ofVirtual().name("binary-read").start(c::readLoop);
+            } catch (IOException e) {
+                if (!closed) System.err.println("Protocole binaire : échec d'acceptation : " + e.getMessage());
+            }
+        }
+    }
+
+    /** Arrête l'écoute et ferme les connexions */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        for (Connection c : connections) c.close();
+        calls.shutdownNow();
+    }
+
+    // ======= Connexion =======
+
+    private final class Connection {
+        final Socket socket;
+        final TransportMetrics.Connection meter;
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final Semaphore pushes = new Semaphore(maxInFlight);
+        final BlockingQueue<Outgoing> outbox = new LinkedBlockingQueue<>();
+        final Map<String, PushListener> listeners = new ConcurrentHashMap<>();
+        final AtomicBoolean closing = new AtomicBoolean();
+
+        Connection(Socket socket) {
+            this.socket = socket;
+            this.meter = metrics.opened(String.valueOf(socket.getRemoteSocketAddress()));
+        }
+
+        void readLoop() {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+                if (in.readInt() != BinaryProtocol.MAGIC || in.readUnsignedByte() != BinaryProtocol.VERSION) return;
+                meter.received(5);
+                outbox.add(new Outgoing(FrameBuilder.hello(), null));
+                Thread.ofVirtual().name("binary-write").start(this::writeLoop);
+                while (true) {
+                    int length = in.readInt();
+                    if (length < 5 || length > BinaryProtocol.MAX_FRAME) return; // flux désynchronisé
+                    byte[] frame = new byte[length];
+                    in.readFully(frame);
+                    meter.received(4 + length);
+                    inFlight.acquire();
+                    try {
+                        calls.execute(() -> handle(frame));
+                    } catch (RejectedExecutionException e) {
+                        return; // point d'accès arrêté
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                // connexion fermée par le client ou coupée
+            } finally {
+                close();
+            }
+        }
+
+        void writeLoop() {
+            try {
+                OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 1 << 16);
+                while (true) {
+                    Outgoing next = outbox.take();
+                    while (next != null) {
+                        if (next == CLOSE) return;
+                        out.write(next.frame());
+                        meter.sent(next.frame().length);
+                        if (next.permit() != null) next.permit().release(); // écrite : la place se libère
+                        next = outbox.poll();
+                    }
+                    out.flush(); // plus rien en attente : on envoie
+                }
+            } catch (IOException | InterruptedException e) {
+                close();
+            }
+        }
+
+        /** Exécute une requête et met sa réponse en file */
+        void handle(byte[] frame) {
+            int id = ((frame[0] & 0xFF) << 24) | ((frame[1] & 0xFF) << 16) | ((frame[2] & 0xFF) << 8) | (frame[3] & 0xFF);
+            Op op = Op.of(frame[4]);
+            FrameBuilder response = new FrameBuilder(id);
+            try {
+                if (op == null) {
+                    response.error(BinaryProtocol.BAD_REQUEST, "Opération inconnue: " + frame[4]);
+                } else {
+                    dispatch(op, new In(new ByteArrayInputStream(frame, 5, frame.length - 5)), response.begin(BinaryProtocol.OK));
+                }
+            } catch (RemoteException | RuntimeException e) {
+                response.error(BinaryProtocol.FAILED, e.getMessage());
+            } catch (IOException e) {
+                response.error(BinaryProtocol.BAD_REQUEST, "Requête illisible: " + e.getMessage());
+            }
+            send(response.toFrame(), inFlight);
+        }
+
+        /** Met une trame en file ; l'écrivain libère la place de permit après l'avoir écrite */
+        void send(byte[] frame, Semaphore permit) {
+            if (!closing.get()) outbox.add(new Outgoing(frame, permit));
+        }
+
+        /** Exécute une opération : lit ses arguments, appelle le service, écrit le résultat */
+        void dispatch(Op op, In in, Out out) throws IOException {
+            switch (op) {
+                case LIST_AVAILABLE -> writeList(out, service.listAvailableSpots(readString(in)), BinaryCodec::writeSpot);
+                case LIST_AVAILABLE_WINDOW -> writeList(out,
+                        service.listAvailableSpots(readString(in), readTime(in), readTime(in)), BinaryCodec::writeSpot);
+                case AVAILABILITY_SNAPSHOT -> writeSnapshot(out, service.getAvailabilitySnapshot(readString(in)));
+                case AVAILABILITY_CHANGES -> writeDelta(out, service.getAvailabilityChanges(readString(in), in.readLong()));
+                case RESERVE -> writeReservation(out,
+                        service.reserveSpot(readClient(in), readVehicle(in), in.readInt(), in.readInt()));
+                case QUOTE -> out.writeDouble(service.quote(in.readInt(), in.readInt()));
+                case HOLD -> writeReservation(out,
+                        service.holdSpot(readString(in), readClient(in), readVehicle(in), in.readInt(), in.readInt()));
+                case RESERVE_IDEMPOTENT -> writeReservation(out,
+                        service.reserveSpot(readString(in), readClient(in), readVehicle(in), in.readInt(), in.readInt()));
+                case PAY_IDEMPOTENT -> out.writeBoolean(service.payReservation(readString(in), readString(in), readPayment(in)));
+                case RESERVE_AT -> writeReservation(out,
+                        service.reserveSpot(readClient(in), readVehicle(in), in.readInt(), readTime(in), in.readInt()));
+                case RESERVE_BATCH -> writeBatch(out, service.reserveSpots(readClient(in), readVehicle(in), readInts(in),
+                        in.readInt(), in.readBoolean()), BinaryCodec::writeReservation);
+                case PAY -> out.writeBoolean(service.payReservation(readString(in), readPayment(in)));
+                case GET_RESERVATION -> writeReservation(out, service.getReservation(readString(in)));
+                case REGISTER_LISTENER -> {
+                    String clientId = readString(in);
+                    PushListener l = new PushListener(clientId);
+                    listeners.put(clientId, l);
+                    service.registerListener(clientId, l);
+                }
+                case UNREGISTER_LISTENER -> {
+                    String clientId = readString(in);
+                    PushListener l = listeners.remove(clientId);
+                    if (l != null) service.getNotifier().unregister(clientId, l);
+                }
+                case LIST_ZONES -> writeList(out, service.listZones(), BinaryCodec::writeZone);
+
+                case ALL_SPOTS -> writeList(out, admin.getAllSpots(), BinaryCodec::writeSpot);
+                case ALL_RESERVATIONS -> writeList(out, admin.getAllReservations(), BinaryCodec::writeReservation);
+                case FIND_RESERVATIONS -> writeReservationPage(out, admin.findReservations(readReservationQuery(in)));
+                case FIND_ARCHIVED -> writeReservationPage(out, admin.findArchivedReservations(readReservationQuery(in)));
+                case FREE_SPOT -> out.writeBoolean(admin.freeSpot(in.readInt()));
+                case CANCEL_RESERVATION -> out.writeBoolean(admin.cancelReservation(readString(in)));
+                case ADD_SPOT -> writeSpot(out, admin.addSpot(readString(in), readString(in)));
+                case REMOVE_SPOT -> out.writeBoolean(admin.removeSpot(in.readInt()));
+                case ADD_SPOTS -> writeBatch(out, admin.addSpots(readStrings(in), readString(in)), BinaryCodec::writeSpot);
+                case REMOVE_SPOTS -> writeBatch(out, admin.removeSpots(readInts(in)), DataOutputStream::writeBoolean);
+                case FREE_SPOTS -> writeBatch(out, admin.freeSpots(readInts(in)), DataOutputStream::writeBoolean);
+                case CANCEL_RESERVATIONS -> writeBatch(out, admin.cancelReservations(readStrings(in)), DataOutputStream::writeBoolean);
+                case ADD_ZONE -> out.writeBoolean(admin.addZone(readString(in)));
+                case REMOVE_ZONE -> out.writeBoolean(admin.removeZone(readString(in)));
+                case SPOTS_BY_ZONE -> writeList(out, admin.listSpotsByZone(readString(in)), BinaryCodec::writeSpot);
+                case ZONE_STATS -> writeList(out, admin.getZoneStats(), BinaryCodec::writeZoneStats);
+                case SPOT_HISTORY -> writeList(out, admin.getSpotHistory(in.readInt()), BinaryCodec::writeHistory);
+                case SPOT_HISTORY_PAGE -> writeHistoryPage(out, admin.getSpotHistory(in.readInt(), readHistoryQuery(in)));
+            }
+        }
+
+        void close() {
+            if (!closing.compareAndSet(false, true)) return;
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // déjà fermée
+            }
+            outbox.add(CLOSE);
+            inFlight.release(maxInFlight); // débloque le lecteur s'il attendait une place
+            for (Map.Entry<String, PushListener> e : listeners.entrySet()) service.getNotifier().unregister(e.getKey(), e.getValue());
+            connections.remove(this);
+            meter.closed();
+        }
+
+        /** Listener local qui pousse les notifications sur la connexion */
+        final class PushListener implements INotificationListener {
+            final String clientId;
+
+            PushListener(String clientId) {
+                this.clientId = clientId;
+            }
+
+            @Override
+            public void onNotification(Notification notification) throws RemoteException {
+                onNotifications(List.of(notification));
+            }
+
+            @Override
+            public void onNotifications(List<Notification> notifications) throws RemoteException {
+                if (closing.get()) throw new RemoteException("Connexion fermée"); // le distributeur retire le listener
+                if (!pushes.tryAcquire()) throw new RemoteException("Client trop lent: notifications non lues");
+                FrameBuilder push = new FrameBuilder(BinaryProtocol.PUSH_ID);
+                try {
+                    Out out = push.begin(BinaryProtocol.NOTIFICATION);
+                    writeString(out, clientId);
+                    writeList(out, notifications, BinaryCodec::writeNotification);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // écriture en mémoire
+                }
+                send(push.toFrame(), pushes);
+            }
+        }
+    }
+
+    /** Construction d'une trame en mémoire : longueur complétée à la fin */
+    private static final class FrameBuilder {
+        private final int id;
+        private ByteArrayOutputStream bytes;
+        private Out out;
+
+        FrameBuilder(int id) {
+            this.id = id;
+        }
+
+        static byte[] hello() {
+            return new byte[]{
+                    (byte) (BinaryProtocol.MAGIC >>> 24), (byte) (BinaryProtocol.MAGIC >>> 16),
+                    (byte) (BinaryProtocol.MAGIC >>> 8), (byte) BinaryProtocol.MAGIC, (byte) BinaryProtocol.VERSION};
+        }
+
+        /** Commence la trame avec un statut ; renvoie le flux des données */
+        Out begin(byte status) throws IOException {
+            bytes = new ByteArrayOutputStream(256);
+            out = new Out(bytes);
+            out.writeInt(0); // longueur, complétée par toFrame
+            out.writeInt(id);
+            out.writeByte(status);
+            return out;
+        }
+
+        /** Remplace le contenu par une erreur */
+        void error(byte status, String message) {
+            try {
+                writeString(begin(status), message);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        byte[] toFrame() {
+            byte[] frame = bytes.toByteArray();
+            int length = frame.length - 4;
+            frame[0] = (byte) (length >>> 24);
+            frame[1] = (byte) (length >>> 16);
+            frame[2] = (byte) (length >>> 8);
+            frame[3] = (byte) length;
+            return frame;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package server;
+
+import java.io.Closeable;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Échéancier des fins de réservation, sur une roue temporelle hiérarchique.
+ * (Une seconde instance programme le début des créneaux réservés à l'avance.)
+ *
+ * Quatre roues de 256 cases : la première avance d'une case par tick, chaque roue
+ * supérieure d'une case par tour complet de la précédente (256 ticks, 65 536 ticks…).
+ * Une échéance est rangée dans la roue la plus fine qui la couvre, puis redescend d'un
+ * niveau à chaque tour de la roue inférieure : insertion et expiration en O(1), quel que
+ * soit le nombre d'échéances en attente (une case est une simple liste chaînée).
+ *
+ * Seul le thread de l'échéancier touche aux roues. Le chemin de réservation se contente de
+ * déposer l'échéance dans une file sans verrou (plusieurs producteurs, un consommateur),
+ * vidée à chaque tick. Les réservations arrivées à échéance sont remises au {@link Handler}
+ * par lots, toujours depuis ce thread.
+ *
+ * Paramètres (propriétés système) :
+ * - parking.expiry.tickMs    : durée d'un tick en millisecondes (défaut 1000)
+ * - parking.expiry.batchSize : taille maximale d'un lot transmis au handler (défaut 512)
+ */
+public class ExpiryScheduler implements Closeable {
+
+    /** Traitement d'un lot de réservations arrivées à échéance */
+    public interface Handler {
+        void expired(List<String> reservationIds);
+    }
+
+    private static final int WHEEL_BITS = 8;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    private final Handler handler;
+    private final long tickMs;
+    private final int batchSize;
+
+    /** Échéances déposées par les producteurs, pas encore rangées dans les roues */
+    private final Queue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+
+    /** Roues : tête de la liste chaînée de chaque case (thread de l'échéancier uniquement) */
+    private final Timeout[][] wheels = new Timeout[LEVELS][WHEEL_SIZE];
+
+    /** Prochain tick à traiter (thread de l'échéancier uniquement) */
+    private long tick;
+
+    /** Lot en cours de constitution */
+    private final List<String> batch = new ArrayList<>();
+
+    private final LongAdder pending = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /** Échéancier avec la configuration des propriétés système */
+    public ExpiryScheduler(Handler handler) {
+        this(handler, "expiry-scheduler");
+    }
+
+    /** Échéancier avec la configuration des propriétés système et un nom de thread donné */
+    public ExpiryScheduler(Handler handler, String threadName) {
+        this(handler, threadName, Long.getLong("parking.expiry.tickMs", 1000), Integer.getInteger("parking.expiry.batchSize", 512));
+    }
+
+    /**
+     * Constructeur principal
+     * @param handler traitement des lots de réservations expirées
+     * @param threadName nom du thread de l'échéancier
+     * @param tickMs résolution de l'échéancier en millisecondes
+     * @param batchSize taille maximale d'un lot
+     */
+    public ExpiryScheduler(Handler handler, String threadName, long tickMs, int batchSize) {
+        this.handler = handler;
+        this.tickMs = Math.max(1, tickMs);
+        this.batchSize = Math.max(1, batchSize);
+        this.tick = System.currentTimeMillis() / this.tickMs;
+        this.thread = new Thread(this::run, threadName);
+        this.thread.setDaemon(true);
+    }
+
+    /** Démarre le thread de l'échéancier */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Programme la fin d'une réservation (appelable depuis n'importe quel thread, sans verrou).
+     * Une réservation annulée entre-temps n'est pas retirée : le handler l'ignorera.
+     * @param reservationId réservation concernée
+     * @param deadlineMillis échéance (ms epoch)
+     */
+    public void schedule(String reservationId, long deadlineMillis) {
+        incoming.add(new Timeout(reservationId, Math.floorDiv(deadlineMillis, tickMs)));
+        pending.increment();
+    }
+
+    /**
+     * Programme une échéance exprimée en heure locale du serveur
+     * @param reservationId réservation concernée
+     * @param at échéance (fuseau par défaut de la JVM, comme LocalDateTime.now())
+     */
+    public void schedule(String reservationId, LocalDateTime at) {
+        schedule(reservationId, epochMillis(at));
+    }
+
+    /**
+     * Instant réel (ms epoch) d'une date locale du serveur. Les dates des réservations sont
+     * en heure locale, l'échéancier avance sur System.currentTimeMillis() : la conversion
+     * passe par le fuseau de la JVM, pas par UTC.
+     */
+    public static long epochMillis(LocalDateTime t) {
+        return t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /** Nombre d'échéances programmées non encore traitées */
+    public long pendingCount() {
+        return pending.sum();
+    }
+
+    /** Nombre total d'échéances traitées */
+    public long expiredCount() {
+        return expired.sum();
+    }
+
+    // ======= Thread de l'échéancier =======
+
+    private void run() {
+        while (running) {
+            long now = System.currentTimeMillis() / tickMs;
+            drainIncoming();
+            while (tick <= now) {
+                advance();
+                tick++;
+            }
+            flushBatch();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos((now + 1) * tickMs - System.currentTimeMillis()));
+        }
+    }
+
+    /** Range les échéances déposées depuis le dernier tick */
+    private void drainIncoming() {
+        Timeout t;
+        while ((t = incoming.poll()) != null) place(t);
+    }
+
+    /** Traite le tick courant : redescente des roues supérieures puis expiration de la case */
+    private void advance() {
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            if ((tick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) continue; // la roue inférieure n'a pas fini son tour
+            int slot = (int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+            Timeout t = wheels[level][slot];
+            wheels[level][slot] = null;
+            while (t != null) {
+                Timeout next = t.next;
+                place(t);
+                t = next;
+            }
+        }
+        int slot = (int) (tick & WHEEL_MASK);
+        Timeout t = wheels[0][slot];
+        wheels[0][slot] = null;
+        while (t != null) {
+            expire(t);
+            t = t.next;
+        }
+    }
+
+    /** Range une échéance dans la roue la plus fine qui la couvre (ou l'expire si elle est passée) */
+    private void place(Timeout t) {
+        long delta = t.deadlineTick - tick;
+        if (delta < 0) {
+            expire(t);
+            return;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (WHEEL_BITS * (level + 1))) level++;
+        // au-delà de la dernière roue, l'échéance y fait des tours jusqu'à être assez proche
+        long position = delta >= 1L << (WHEEL_BITS * LEVELS) ? tick + (1L << (WHEEL_BITS * LEVELS)) - 1 : t.deadlineTick;
+        int slot = (int) ((position >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        t.next = wheels[level][slot];
+        wheels[level][slot] = t;
+    }
+
+    private void expire(Timeout t) {
+        batch.add(t.reservationId);
+        pending.decrement();
+        expired.increment();
+        if (batch.size() >= batchSize) flushBatch();
+    }
+
+    private void flushBatch() {
+        if (batch.isEmpty()) return;
+        List<String> ids = new ArrayList<>(batch);
+        batch.clear();
+        try {
+            handler.expired(ids);
+        } catch (RuntimeException e) {
+            System.err.println("Erreur expiration des réservations: " + e.getMessage());
+        }
+    }
+
+    /** Arrête l'échéancier (les échéances en attente sont abandonnées) */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Une échéance : maillon de la liste chaînée d'une case de roue */
+    private static final class Timeout {
+        final String reservationId;
+        final long deadlineTick;
+        Timeout next;
+
+        Timeout(String reservationId, long deadlineTick) {
+            this.reservationId = reservationId;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
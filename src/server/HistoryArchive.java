@@ -0,0 +1,186 @@
+package server;
+
+import common.SpotHistory;
+import common.SpotHistoryLog;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Archive disque de l'historique ancien des places.
+ *
+ * Quand le buffer d'historique d'une place ({@link SpotHistoryLog}) est plein, l'événement
+ * le plus ancien est écrit ici au lieu d'être perdu. Le fichier est en ajout seul ; un index
+ * mémoire garde, pour chaque place, la position, la date et le type de ses événements
+ * (17 octets par événement au lieu de l'objet complet), reconstruit au démarrage.
+ * Les filtres par date et par type d'une lecture paginée s'évaluent donc sans lire le disque.
+ *
+ * Format d'un enregistrement : [id place int][date long][code type byte][montant double]
+ * [longueur détails int][détails UTF-8].
+ */
+public class HistoryArchive implements Closeable {
+
+    private final Path file;
+    private final DataOutputStream out;
+    private final RandomAccessFile reader;
+
+    /** Position dans le fichier du prochain enregistrement */
+    private long position;
+
+    /** Index : id place → ses événements archivés (du plus ancien au plus récent) */
+    private final Map<Integer, Entries> index = new HashMap<>();
+
+    /**
+     * Ouvre (ou crée) l'archive et reconstruit son index
+     * @param file fichier de l'archive
+     */
+    public HistoryArchive(Path file) throws IOException {
+        this.file = file;
+        if (Files.exists(file)) rebuildIndex();
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile(), true), 1 << 16));
+        this.reader = new RandomAccessFile(file.toFile(), "r");
+    }
+
+    /** Destination d'archivage pour le buffer d'historique d'une place */
+    public SpotHistoryLog.Overflow overflowFor(int spotId) {
+        return item -> append(spotId, item);
+    }
+
+    /** Ajoute un événement à l'archive d'une place */
+    public synchronized void append(int spotId, SpotHistory item) {
+        try {
+            byte[] details = item.getDetails() == null ? new byte[0] : item.getDetails().getBytes(StandardCharsets.UTF_8);
+            long time = SpotHistoryLog.toMillis(item.getDate());
+            byte type = SpotHistoryLog.typeCode(item.getType());
+            index.computeIfAbsent(spotId, k -> new Entries()).add(position, time, type);
+            out.writeInt(spotId);
+            out.writeLong(time);
+            out.writeByte(type);
+            out.writeDouble(item.getAmount());
+            out.writeInt(details.length);
+            out.write(details);
+            position += 4 + 8 + 1 + 8 + 4 + details.length;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Nombre d'événements archivés pour une place */
+    public synchronized int count(int spotId) {
+        Entries e = index.get(spotId);
+        return e == null ? 0 : e.size;
+    }
+
+    /** Date (ms epoch UTC) du i-ème événement archivé d'une place (0 = le plus ancien), sans accès disque */
+    public synchronized long timeAt(int spotId, int i) {
+        return index.get(spotId).times[i];
+    }
+
+    /** Code de type du i-ème événement archivé d'une place, sans accès disque */
+    public synchronized byte typeAt(int spotId, int i) {
+        return index.get(spotId).types[i];
+    }
+
+    /** Lit le i-ème événement archivé d'une place (0 = le plus ancien) */
+    public synchronized SpotHistory get(int spotId, int i) {
+        try {
+            out.flush();
+            return readAt(index.get(spotId).offsets[i]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lit des événements archivés d'une place, du plus récent au plus ancien.
+     * @param skip nombre d'événements récents à sauter
+     * @param max nombre maximal d'événements à lire
+     */
+    public synchronized List<SpotHistory> read(int spotId, int skip, int max) {
+        List<SpotHistory> list = new ArrayList<>();
+        Entries entries = index.get(spotId);
+        if (entries == null) return list;
+        try {
+            out.flush();
+            for (int i = entries.size - 1 - skip; i >= 0 && list.size() < max; i--) {
+                list.add(readAt(entries.offsets[i]));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return list;
+    }
+
+    private SpotHistory readAt(long offset) throws IOException {
+        reader.seek(offset + 4); // on saute l'id de la place
+        long time = reader.readLong();
+        byte type = reader.readByte();
+        double amount = reader.readDouble();
+        byte[] details = new byte[reader.readInt()];
+        reader.readFully(details);
+        return new SpotHistory(SpotHistoryLog.toTime(time), SpotHistoryLog.typeName(type),
+                new String(details, StandardCharsets.UTF_8), amount);
+    }
+
+    /** Relit le fichier une fois pour reconstruire l'index (s'arrête à un enregistrement tronqué) */
+    private void rebuildIndex() throws IOException {
+        long length = Files.size(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            while (position + 25 <= length) {
+                int spotId = in.readInt();
+                long time = in.readLong();
+                byte type = in.readByte();
+                in.readDouble();
+                int len = in.readInt();
+                if (position + 25 + len > length) break;
+                in.skipNBytes(len);
+                index.computeIfAbsent(spotId, k -> new Entries()).add(position, time, type);
+                position += 25 + len;
+            }
+        }
+        if (position < length) {
+            // fin de fichier incomplète (arrêt brutal) : on la coupe
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(position);
+            }
+        }
+    }
+
+    /** Écrit les données en attente sur disque */
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+        reader.close();
+    }
+
+    /** Index d'une place en colonnes primitives : position dans le fichier, date, type */
+    private static final class Entries {
+        long[] offsets = new long[4];
+        long[] times = new long[4];
+        byte[] types = new byte[4];
+        int size;
+
+        void add(long offset, long time, byte type) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                times = Arrays.copyOf(times, size * 2);
+                types = Arrays.copyOf(types, size * 2);
+            }
+            offsets[size] = offset;
+            times[size] = time;
+            types[size] = type;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package server;
+
+import common.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecture paginée de l'historique d'une place, par séquence d'événement.
+ *
+ * Les événements récents sont dans le buffer mémoire de la place, les plus anciens dans
+ * l'{@link HistoryArchive} (séquence = rang dans l'archive). Les dates sont croissantes avec
+ * la séquence : la borne de fin de période se trouve par recherche dichotomique, puis on
+ * descend jusqu'à remplir la page ou passer sous le début de période. Dates et types sont lus
+ * dans les colonnes primitives des deux index : seuls les événements retenus sont matérialisés.
+ */
+class HistoryReader {
+
+    /** Taille maximale d'une page */
+    static final int MAX_PAGE_SIZE = 500;
+
+    private final int spotId;
+    private final SpotHistoryLog log;
+    private final HistoryArchive archive;
+
+    HistoryReader(ParkingSpot spot, HistoryArchive archive) {
+        this.spotId = spot.getId();
+        this.log = spot.getHistoryLog();
+        this.archive = archive;
+    }
+
+    HistoryPage page(HistoryQuery q) {
+        int pageSize = Math.max(1, Math.min(MAX_PAGE_SIZE, q.getPageSize()));
+        long fromMs = q.getFrom() == null ? Long.MIN_VALUE : SpotHistoryLog.toMillis(q.getFrom());
+        long toMs = q.getTo() == null ? Long.MAX_VALUE : SpotHistoryLog.toMillis(q.getTo());
+        boolean[] allowed = null;
+        if (q.getTypes() != null) {
+            allowed = new boolean[Byte.MAX_VALUE + 1];
+            for (String t : q.getTypes()) {
+                int code = SpotHistoryLog.knownTypeCode(t); // type jamais enregistré : aucun événement à trouver
+                if (code >= 0) allowed[code] = true;
+            }
+        }
+
+        // plus ancienne séquence lisible : 0 si l'archive couvre tout ce qui a quitté la mémoire
+        long oldestInMemory = log.oldestSeq();
+        long low = archive != null && archive.count(spotId) >= oldestInMemory ? 0 : oldestInMemory;
+        long high = Math.min(q.getCursor(), log.appendedCount()) - 1;
+        if (toMs != Long.MAX_VALUE) high = Math.min(high, lastBefore(low, high, toMs));
+
+        List<SpotHistory> items = new ArrayList<>(pageSize);
+        long seq = high;
+        for (; seq >= low && items.size() < pageSize; seq--) {
+            if (timeAt(seq) < fromMs) {
+                seq = low - 1; // tout ce qui suit est encore plus ancien
+                break;
+            }
+            if (allowed != null && !allowed[typeAt(seq)]) continue;
+            items.add(itemAt(seq));
+        }
+        return new HistoryPage(items, seq >= low ? seq + 1 : HistoryPage.END);
+    }
+
+    /** Plus grande séquence de [low, high] dont la date est strictement avant toMs (low - 1 si aucune) */
+    private long lastBefore(long low, long high, long toMs) {
+        long lo = low, hi = high, found = low - 1;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            if (timeAt(mid) < toMs) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    // ======= Accès par séquence : mémoire d'abord, archive sinon =======
+
+    private long timeAt(long seq) {
+        long t = log.timeBySeq(seq);
+        return t != Long.MIN_VALUE ? t : archive.timeAt(spotId, (int) seq);
+    }
+
+    private int typeAt(long seq) {
+        int t = log.typeBySeq(seq);
+        return t >= 0 ? t : archive.typeAt(spotId, (int) seq);
+    }
+
+    private SpotHistory itemAt(long seq) {
+        SpotHistory h = log.bySeq(seq);
+        return h != null ? h : archive.get(spotId, (int) seq);
+    }
+}
@@ -0,0 +1,154 @@
+package server;
+
+import java.rmi.RemoteException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mémoire des appels déjà traités, indexée par l'identifiant de requête fourni par le client.
+ *
+ * Un client qui n'a pas reçu la réponse d'un appel (délai dépassé, connexion coupée) le
+ * rejoue avec le même identifiant : il obtient le résultat d'origine, sans que l'opération
+ * soit refaite (pas de double réservation ni de double paiement). Un rejeu qui arrive pendant
+ * l'exécution de l'appel d'origine attend son résultat.
+ *
+ * Seuls les succès sont mémorisés : un appel en erreur n'a rien modifié (l'état est rendu
+ * avant de lever l'exception), la tentative suivante le réexécute simplement.
+ *
+ * La mémoire est bornée en nombre d'entrées et en durée : les entrées sont purgées par ordre
+ * d'arrivée, dès qu'elles ont expiré ou que la capacité est dépassée (coût amorti O(1)).
+ *
+ * Paramètres (propriétés système) :
+ * - parking.idempotency.maxEntries : nombre maximal d'appels mémorisés (défaut 100 000)
+ * - parking.idempotency.ttlSec     : durée de rétention d'un résultat (défaut 600)
+ */
+public class IdempotencyCache {
+
+    /** Appel protégé */
+    public interface Call<T> {
+        T call() throws RemoteException;
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /** Entrées par ordre d'arrivée (donc d'expiration) */
+    private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder replays = new LongAdder();
+
+    /** Cache avec la configuration des propriétés système */
+    public IdempotencyCache() {
+        this(Integer.getInteger("parking.idempotency.maxEntries", 100_000),
+                TimeUnit.SECONDS.toNanos(Integer.getInteger("parking.idempotency.ttlSec", 600)));
+    }
+
+    /**
+     * Constructeur principal
+     * @param maxEntries nombre maximal d'appels mémorisés
+     * @param ttlNanos durée de rétention d'un résultat en nanosecondes
+     */
+    public IdempotencyCache(int maxEntries, long ttlNanos) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = ttlNanos;
+    }
+
+    /**
+     * Exécute un appel une seule fois par identifiant de requête
+     * @param operation nom de l'opération (un même identifiant peut servir à deux opérations)
+     * @param requestId identifiant fourni par le client, null = appel non protégé
+     * @return le résultat de l'appel, ou celui de l'appel d'origine pour un rejeu
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, String requestId, Call<T> call) throws RemoteException {
+        if (requestId == null) return call.call();
+        String key = operation + ':' + requestId;
+        long now = System.nanoTime();
+        purge(now);
+
+        Entry mine = new Entry(key, now);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, mine);
+            if (existing == null) break;
+            if (!existing.isExpired(now, ttlNanos)) {
+                replays.increment();
+                return (T) await(existing.result);
+            }
+            if (entries.replace(key, existing, mine)) break;
+        }
+        order.add(mine);
+        evictOverflow();
+
+        try {
+            T value = call.call();
+            mine.result.complete(value);
+            return value;
+        } catch (RemoteException | RuntimeException e) {
+            entries.remove(key, mine); // non mémorisé : un nouvel essai réexécute l'appel
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /** Nombre de rejeux servis depuis la mémoire */
+    public long replayCount() {
+        return replays.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Retire les entrées expirées (en tête de la file d'arrivée) */
+    private void purge(long now) {
+        Entry head;
+        while ((head = order.peek()) != null && head.isExpired(now, ttlNanos)) {
+            if (order.remove(head)) entries.remove(head.key, head);
+        }
+    }
+
+    /** Retire les plus anciennes entrées au-delà de la capacité */
+    private void evictOverflow() {
+        while (entries.size() > maxEntries) {
+            Entry head = order.poll();
+            if (head == null) return;
+            entries.remove(head.key, head);
+        }
+    }
+
+    /** Résultat d'un appel en cours ou terminé, avec l'exception d'origine en cas d'échec */
+    private static Object await(CompletableFuture<Object> result) throws RemoteException {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RemoteException re) throw re;
+            if (cause instanceof RuntimeException rt) throw rt;
+            throw e;
+        }
+    }
+
+    /** Un appel mémorisé */
+    private static final class Entry {
+        final String key;
+        final long createdNanos;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Entry(String key, long createdNanos) {
+            this.key = key;
+            this.createdNanos = createdNanos;
+        }
+
+        boolean isExpired(long now, long ttlNanos) {
+            return now - createdNanos > ttlNanos;
+        }
+    }
+}
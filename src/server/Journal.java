@@ -0,0 +1,337 @@
+package server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal d'événements en ajout seul, sur fichiers mappés en mémoire.
+ *
+ * Le journal est découpé en segments de taille fixe nommés d'après le numéro de séquence
+ * de leur premier enregistrement ("journal-00000000000000000042.log"). Chaque enregistrement
+ * est stocké ainsi : [longueur int][crc32c int][données]. Une longueur 0 marque la fin des
+ * données écrites ; un crc invalide (écriture interrompue) est traité de la même façon.
+ *
+ * Les écritures passent par un unique thread écrivain qui regroupe tout ce qui est en
+ * attente (group commit) : un seul force() sur disque valide tout le lot, et chaque appelant
+ * n'attend que la fin de ce lot. Les enregistrements d'un même appendAll sont écrits d'un
+ * bloc dans un seul segment : ils sont tous validés ou tous rejetés.
+ */
+public class Journal implements Closeable {
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+
+    /** Taille d'en-tête d'un enregistrement : longueur + crc */
+    private static final int HEADER = 8;
+
+    private final Path dir;
+    private final int segmentSize;
+
+    /** true : append() attend que l'enregistrement soit sur disque */
+    private final boolean syncWrites;
+
+    /** Enregistrements en attente d'écriture, dans l'ordre de séquence */
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // ======= État du segment courant (thread écrivain uniquement, après ouverture) =======
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long segmentStartSeq;
+
+    /** Séquence du prochain enregistrement écrit */
+    private long nextSeq;
+
+    /**
+     * Ouvre (ou crée) le journal d'un répertoire et se positionne après le dernier
+     * enregistrement valide.
+     * @param dir répertoire des segments
+     * @param segmentSize taille d'un segment en octets
+     * @param syncWrites attendre la durabilité à chaque append
+     */
+    public Journal(Path dir, int segmentSize, boolean syncWrites) throws IOException {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.syncWrites = syncWrites;
+        Files.createDirectories(dir);
+
+        List<Long> segments = segmentStarts();
+        if (segments.isEmpty()) {
+            openSegment(0);
+        } else {
+            // on reprend à la fin des données valides du dernier segment
+            long start = segments.get(segments.size() - 1);
+            openSegment(start);
+            long seq = start;
+            while (readRecord(buffer) != null) seq++;
+            nextSeq = seq;
+        }
+
+        writer = new Thread(this::writeLoop, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // ======= Écriture =======
+
+    /**
+     * Ajoute un enregistrement au journal.
+     * En mode synchrone, l'appel rend la main quand le lot qui le contient est sur disque.
+     */
+    public void append(byte[] payload) {
+        appendAll(List.of(payload));
+    }
+
+    /**
+     * Ajoute plusieurs enregistrements, dans l'ordre, en un seul bloc : ils sont écrits
+     * consécutivement dans le même segment et validés (ou rejetés) ensemble.
+     * En mode synchrone, l'appel rend la main quand le bloc est sur disque.
+     */
+    public void appendAll(List<byte[]> payloads) {
+        if (closed) throw new IllegalStateException("Journal fermé");
+        Pending p = new Pending(payloads, false);
+        if (p.size + 4 > segmentSize) throw new IllegalArgumentException("Enregistrement trop grand");
+        queue.add(p);
+        if (syncWrites) p.done.join();
+    }
+
+    /**
+     * Ferme le segment courant et en ouvre un nouveau.
+     * @return la séquence du premier enregistrement du nouveau segment : tout ce qui précède
+     * se trouve dans des segments scellés, qui ne seront plus modifiés
+     */
+    public long roll() {
+        Pending p = new Pending(null, true);
+        queue.add(p);
+        return p.done.join();
+    }
+
+    /** Attend que tout ce qui a été ajouté jusqu'ici soit sur disque (même en mode asynchrone) */
+    public void flush() {
+        Pending p = new Pending(null, false);
+        queue.add(p);
+        p.done.join();
+    }
+
+    /**
+     * Boucle du thread écrivain : écrit tout ce qui est en attente puis force le lot sur disque.
+     * Si une écriture échoue en cours de lot, les blocs déjà forcés (segment précédent) sont
+     * validés ; ceux du segment courant qui ne le sont pas encore sont effacés du fichier, puis
+     * échouent avec le reste du lot : un appelant qui annule son opération ne la verra jamais
+     * réapparaître à la relecture.
+     */
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            int durable = 0; // batch[0, durable[ est sur disque
+            int dirtyFrom = buffer.position();
+            long dirtySeq = nextSeq;
+            try {
+                Pending first = queue.take();
+                batch.add(first);
+                queue.drainTo(batch);
+
+                for (int i = 0; i < batch.size(); i++) {
+                    Pending p = batch.get(i);
+                    if (p.roll || p.payloads != null && buffer.remaining() < p.size + 4) {
+                        buffer.force(dirtyFrom, buffer.position() - dirtyFrom);
+                        durable = i;
+                        dirtyFrom = buffer.position();
+                        openSegment(nextSeq);
+                        dirtyFrom = 0;
+                        dirtySeq = nextSeq;
+                    }
+                    if (p.payloads != null) {
+                        for (byte[] payload : p.payloads) {
+                            CRC32C crc = new CRC32C();
+                            crc.update(payload);
+                            buffer.putInt(payload.length);
+                            buffer.putInt((int) crc.getValue());
+                            buffer.put(payload);
+                            nextSeq++;
+                        }
+                    }
+                    p.seq = nextSeq;
+                }
+                buffer.force(dirtyFrom, buffer.position() - dirtyFrom);
+                for (Pending p : batch) p.done.complete(p.seq);
+            } catch (InterruptedException e) {
+                if (closed) break;
+            } catch (Exception e) {
+                discard(dirtyFrom, dirtySeq);
+                for (int i = 0; i < batch.size(); i++) {
+                    Pending p = batch.get(i);
+                    if (i < durable) p.done.complete(p.seq);
+                    else p.done.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    /** Efface les enregistrements écrits depuis from et pas encore forcés (échec d'un lot) */
+    private void discard(int from, long seq) {
+        int end = buffer.position();
+        if (end <= from) return;
+        buffer.put(from, new byte[end - from]); // longueur 0 : fin des données
+        buffer.position(from);
+        nextSeq = seq;
+        try {
+            buffer.force(from, end - from);
+        } catch (RuntimeException e) {
+            // les données effacées n'ont de toute façon pas été validées
+        }
+    }
+
+    private void openSegment(long startSeq) throws IOException {
+        if (channel != null) channel.close();
+        Path file = dir.resolve(segmentName(startSeq));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segmentStartSeq = startSeq;
+        nextSeq = startSeq;
+    }
+
+    // ======= Lecture =======
+
+    /**
+     * Relit tous les enregistrements de séquence supérieure ou égale à fromSeq,
+     * dans l'ordre. À utiliser à la récupération ou sur des segments scellés.
+     * @param fromSeq première séquence voulue
+     * @param toSeq séquence de fin (exclue)
+     */
+    public void replay(long fromSeq, long toSeq, Consumer<ByteBuffer> consumer) throws IOException {
+        replay(dir, fromSeq, toSeq, consumer);
+    }
+
+    /** Relecture des segments d'un répertoire sans ouvrir de journal en écriture */
+    public static void replay(Path dir, long fromSeq, long toSeq, Consumer<ByteBuffer> consumer) throws IOException {
+        List<Long> starts = segmentStarts(dir);
+        for (int i = 0; i < starts.size(); i++) {
+            long start = starts.get(i);
+            long end = i + 1 < starts.size() ? starts.get(i + 1) : Long.MAX_VALUE;
+            if (end <= fromSeq || start >= toSeq) continue;
+            try (FileChannel ch = FileChannel.open(dir.resolve(segmentName(start)), StandardOpenOption.READ)) {
+                ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                long seq = start;
+                ByteBuffer record;
+                while (seq < toSeq && (record = readRecord(buf)) != null) {
+                    if (seq >= fromSeq) consumer.accept(record);
+                    seq++;
+                }
+            }
+        }
+    }
+
+    /** Lit l'enregistrement suivant, ou null (et recule la position) s'il n'y en a plus */
+    private static ByteBuffer readRecord(ByteBuffer buf) {
+        int start = buf.position();
+        if (buf.remaining() < HEADER) return null;
+        int length = buf.getInt();
+        int crc = buf.getInt();
+        if (length <= 0 || length > buf.remaining()) {
+            buf.position(start);
+            return null;
+        }
+        ByteBuffer record = buf.slice(buf.position(), length);
+        CRC32C check = new CRC32C();
+        check.update(record.duplicate());
+        if ((int) check.getValue() != crc) {
+            buf.position(start);
+            return null;
+        }
+        buf.position(buf.position() + length);
+        return record;
+    }
+
+    // ======= Segments =======
+
+    /** Supprime les segments dont tous les enregistrements précèdent seq */
+    public void deleteSegmentsBefore(long seq) throws IOException {
+        List<Long> starts = segmentStarts();
+        for (int i = 0; i + 1 < starts.size(); i++) {
+            if (starts.get(i + 1) <= seq) Files.deleteIfExists(dir.resolve(segmentName(starts.get(i))));
+        }
+    }
+
+    private List<Long> segmentStarts() throws IOException {
+        return segmentStarts(dir);
+    }
+
+    private static List<Long> segmentStarts(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(PREFIX) && n.endsWith(SUFFIX))
+                    .map(n -> Long.parseLong(n.substring(PREFIX.length(), n.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String segmentName(long startSeq) {
+        return PREFIX + String.format("%020d", startSeq) + SUFFIX;
+    }
+
+    /** Séquence de départ du segment courant (informatif) */
+    public long currentSegmentStart() {
+        return segmentStartSeq;
+    }
+
+    /** Vide la file d'attente, force les dernières écritures et arrête le thread écrivain */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        flush(); // garantit que tout ce qui précède est écrit et forcé
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    /**
+     * Bloc d'enregistrements en attente ; payloads null = marqueur (flush, ou changement de
+     * segment si roll)
+     */
+    private static final class Pending {
+        final List<byte[]> payloads;
+        final boolean roll;
+
+        /** Place occupée dans le segment, en-têtes compris */
+        final int size;
+
+        /** Séquence qui suit le bloc, une fois écrit */
+        final CompletableFuture<Long> done = new CompletableFuture<>();
+        long seq;
+
+        Pending(List<byte[]> payloads, boolean roll) {
+            this.payloads = payloads;
+            this.roll = roll;
+            int n = 0;
+            if (payloads != null) for (byte[] payload : payloads) n += payload.length + HEADER;
+            this.size = n;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package server;
+
+import common.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Encodage binaire des événements écrits dans le {@link Journal}.
+ * Chaque enregistrement commence par un octet de type, suivi des champs de l'événement.
+ * Les chaînes sont encodées en UTF-8 précédées de leur longueur (-1 = null),
+ * les dates en millisecondes depuis l'epoch (LocalDateTime interprété en UTC).
+ */
+final class JournalEvents {
+
+    static final byte ZONE_ADD = 1;
+    static final byte ZONE_REMOVE = 2;
+    static final byte SPOT_ADD = 3;
+    static final byte SPOT_REMOVE = 4;
+    static final byte RESERVE = 5;
+    static final byte PAY = 6;
+    static final byte CANCEL = 7;
+    static final byte FREE = 8;
+    static final byte EXPIRE = 9;
+    static final byte START = 10;
+
+    private JournalEvents() {}
+
+    // ======= Encodage des événements =======
+
+    static byte[] zoneAdd(ParkingZone z) {
+        return new Writer(ZONE_ADD).putString(z.getName()).putString(z.getDescription()).toArray();
+    }
+
+    static byte[] zoneRemove(String name) {
+        return new Writer(ZONE_REMOVE).putString(name).toArray();
+    }
+
+    static byte[] spotAdd(ParkingSpot p) {
+        return new Writer(SPOT_ADD).putInt(p.getId()).putString(p.getLabel()).putString(p.getRegion()).toArray();
+    }
+
+    static byte[] spotRemove(int spotId) {
+        return new Writer(SPOT_REMOVE).putInt(spotId).toArray();
+    }
+
+    static byte[] reserve(Reservation r) {
+        ClientInfo c = r.getClient();
+        Vehicle v = r.getVehicle();
+        return new Writer(RESERVE)
+                .putString(r.getId())
+                .putInt(r.getSpotId())
+                .putString(c == null ? null : c.getName())
+                .putString(c == null ? null : c.getPhone())
+                .putString(v == null ? null : v.getPlateNumber())
+                .putString(v == null ? null : v.getModel())
+                .putString(v == null ? null : v.getColor())
+                .putInt(r.getHours())
+                .putDouble(r.getAmount())
+                .putTime(r.getCreatedAt())
+                .putTime(r.getStartAt()) // absent des enregistrements plus anciens (= createdAt)
+                .putLong(r.getHoldUntil() == null ? Long.MIN_VALUE : toMillis(r.getHoldUntil())) // idem (null)
+                .toArray();
+    }
+
+    static byte[] pay(String reservationId, Payment payment, LocalDateTime at) {
+        return new Writer(PAY)
+                .putString(reservationId)
+                .putString(payment.getMethod())
+                .putDouble(payment.getAmount())
+                .putTime(at)
+                .toArray();
+    }
+
+    static byte[] cancel(String reservationId, LocalDateTime at) {
+        return new Writer(CANCEL).putString(reservationId).putTime(at).toArray();
+    }
+
+    static byte[] free(int spotId, LocalDateTime at) {
+        return new Writer(FREE).putInt(spotId).putTime(at).toArray();
+    }
+
+    static byte[] expire(String reservationId, LocalDateTime at) {
+        return new Writer(EXPIRE).putString(reservationId).putTime(at).toArray();
+    }
+
+    /** Début d'un créneau réservé à l'avance : la réservation prend sa place */
+    static byte[] start(String reservationId, LocalDateTime at) {
+        return new Writer(START).putString(reservationId).putTime(at).toArray();
+    }
+
+    // ======= Décodage =======
+
+    static String getString(ByteBuffer buf) {
+        int len = buf.getInt();
+        if (len < 0) return null;
+        byte[] bytes = new byte[len];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static LocalDateTime getTime(ByteBuffer buf) {
+        return toTime(buf.getLong());
+    }
+
+    static long toMillis(LocalDateTime t) {
+        return SpotHistoryLog.toMillis(t);
+    }
+
+    static LocalDateTime toTime(long millis) {
+        return SpotHistoryLog.toTime(millis);
+    }
+
+    /** Petit tampon extensible pour construire un enregistrement */
+    static final class Writer {
+        private byte[] buf = new byte[64];
+        private int pos;
+
+        Writer(byte type) {
+            buf[pos++] = type;
+        }
+
+        private void ensure(int n) {
+            if (pos + n > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+        }
+
+        Writer putInt(int v) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) buf[pos++] = (byte) (v >>> shift);
+            return this;
+        }
+
+        Writer putLong(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) buf[pos++] = (byte) (v >>> shift);
+            return this;
+        }
+
+        Writer putDouble(double v) {
+            return putLong(Double.doubleToRawLongBits(v));
+        }
+
+        Writer putTime(LocalDateTime t) {
+            return putLong(toMillis(t));
+        }
+
+        Writer putString(String s) {
+            if (s == null) return putInt(-1);
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+            return this;
+        }
+
+        byte[] toArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+}
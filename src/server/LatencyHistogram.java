@@ -0,0 +1,121 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramme de durées à précision relative constante (même principe que HdrHistogram).
+ *
+ * Les valeurs (en nanosecondes) sont rangées dans des cases log-linéaires : chaque puissance
+ * de deux est découpée en 32 cases égales, soit une erreur relative d'au plus 3 % de 1 ns
+ * à plusieurs heures, pour un tableau fixe d'environ 1900 compteurs. L'enregistrement est un
+ * calcul d'indice (bit de poids fort) et un incrément atomique : aucune allocation, aucun verrou.
+ *
+ * Les quantiles sont calculés à la lecture en parcourant les cases ; ils portent sur toutes
+ * les valeurs enregistrées depuis le démarrage.
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+
+    /** Bits significatifs conservés : 2^SUB_BITS cases exactes, puis 2^(SUB_BITS-1) cases par puissance de deux */
+    private static final int SUB_BITS = 6;
+    private static final int HALF = 1 << (SUB_BITS - 1);
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(indexOf(Long.MAX_VALUE) + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Enregistre une durée en nanosecondes */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(indexOf(nanos));
+        count.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /** Enregistre la durée écoulée depuis startNanos (valeur de System.nanoTime()) */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    // ======= Cases =======
+
+    /** Case d'une valeur : exacte sous 2^SUB_BITS, puis SUB_BITS bits significatifs */
+    static int indexOf(long v) {
+        int msb = 63 - Long.numberOfLeadingZeros(v | 1);
+        if (msb < SUB_BITS) return (int) v;
+        int shift = msb - SUB_BITS + 1;
+        return (shift << (SUB_BITS - 1)) + (int) (v >>> shift);
+    }
+
+    /** Plus grande valeur rangée dans une case */
+    static long highestOf(int index) {
+        if (index < 2 * HALF) return index;
+        int shift = index / HALF - 1;
+        long sub = index - (long) shift * HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    // ======= Lecture =======
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    /** Somme des durées enregistrées (ns) */
+    public long getSumNanos() {
+        return sum.sum();
+    }
+
+    /**
+     * Quantile des durées enregistrées (ns), à la précision d'une case près
+     * @param q quantile entre 0 et 1
+     */
+    public long quantileNanos(double q) {
+        long total = 0;
+        int n = counts.length();
+        long[] snapshot = new long[n];
+        for (int i = 0; i < n; i++) total += snapshot[i] = counts.get(i);
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < n; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(highestOf(i), max.get());
+        }
+        return max.get();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long c = count.sum();
+        return c == 0 ? 0 : sum.sum() / 1e3 / c;
+    }
+
+    @Override
+    public double getP50Micros() { return quantileNanos(0.50) / 1e3; }
+
+    @Override
+    public double getP90Micros() { return quantileNanos(0.90) / 1e3; }
+
+    @Override
+    public double getP99Micros() { return quantileNanos(0.99) / 1e3; }
+
+    @Override
+    public double getP999Micros() { return quantileNanos(0.999) / 1e3; }
+
+    @Override
+    public double getMaxMicros() { return max.get() / 1e3; }
+}
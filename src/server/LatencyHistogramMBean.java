@@ -0,0 +1,19 @@
+package server;
+
+/** Vue JMX d'un {@link LatencyHistogram} (durées en microsecondes) */
+public interface LatencyHistogramMBean {
+
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+}
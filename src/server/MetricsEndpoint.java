@@ -0,0 +1,68 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Petit serveur HTTP local qui sert les métriques au format texte Prometheus sur /metrics.
+ * N'écoute que sur l'interface de bouclage : l'exposition vers l'extérieur passe par un
+ * agent ou un proxy choisi par l'exploitation.
+ *
+ * Paramètre (propriété système) :
+ * - parking.metrics.port : port d'écoute (défaut 9404, 0 = désactivé)
+ */
+public class MetricsEndpoint implements Closeable {
+
+    private final HttpServer server;
+
+    /**
+     * Démarre le serveur
+     * @param metrics métriques à servir
+     * @param port port d'écoute (0 = port libre quelconque)
+     */
+    public MetricsEndpoint(ServiceMetrics metrics, int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> serve(exchange, metrics));
+        server.setExecutor(null); // un seul thread : les lectures sont rares
+        server.start();
+    }
+
+    /** Démarre l'endpoint sur le port configuré, ou renvoie null s'il est désactivé */
+    public static MetricsEndpoint fromProperties(ServiceMetrics metrics) throws IOException {
+        int port = Integer.getInteger("parking.metrics.port", 9404);
+        return port <= 0 ? null : new MetricsEndpoint(metrics, port);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private static void serve(HttpExchange exchange, ServiceMetrics metrics) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            StringBuilder text = new StringBuilder(16 * 1024);
+            metrics.writePrometheus(text);
+            byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
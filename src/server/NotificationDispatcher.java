@@ -0,0 +1,235 @@
+package server;
+
+import common.INotificationListener;
+import common.Notification;
+
+import java.rmi.RemoteException;
+import java.rmi.ServerException;
+import java.rmi.UnmarshalException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distributeur asynchrone des notifications vers les listeners RMI des clients.
+ *
+ * Chaque client enregistré possède une file bornée ; l'appel métier (réservation, paiement)
+ * ne fait que déposer la notification dans cette file et repart aussitôt. Un pool de workers
+ * (threads virtuels par défaut) vide les files et regroupe plusieurs notifications en un seul
+ * appel distant {@link INotificationListener#onNotifications(List)}. Un listener qui échoue
+ * plusieurs fois de suite est retiré.
+ *
+ * Paramètres (propriétés système) :
+ * - parking.notify.workers       : taille du pool, 0 = un thread virtuel par envoi (défaut 0)
+ * - parking.notify.queueCapacity : notifications en attente max par client (défaut 64)
+ * - parking.notify.batchSize     : notifications max par appel distant (défaut 16)
+ * - parking.notify.maxFailures   : échecs consécutifs avant éviction (défaut 3)
+ */
+public class NotificationDispatcher {
+
+    /** Boîtes aux lettres : clé = identifiant client (téléphone) */
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /** Workers qui effectuent les appels distants */
+    private final ExecutorService workers;
+
+    private final int queueCapacity;
+    private final int batchSize;
+    private final int maxFailures;
+
+    // ======= Compteurs =======
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** Constructeur avec la configuration lue dans les propriétés système */
+    public NotificationDispatcher() {
+        this(Integer.getInteger("parking.notify.workers", 0),
+                Integer.getInteger("parking.notify.queueCapacity", 64),
+                Integer.getInteger("parking.notify.batchSize", 16),
+                Integer.getInteger("parking.notify.maxFailures", 3));
+    }
+
+    /**
+     * Constructeur principal
+     * @param workerCount taille du pool de workers (0 ou moins : threads virtuels)
+     * @param queueCapacity nombre max de notifications en attente par client
+     * @param batchSize nombre max de notifications envoyées en un appel
+     * @param maxFailures nombre d'échecs consécutifs avant de retirer le listener
+     */
+    public NotificationDispatcher(int workerCount, int queueCapacity, int batchSize, int maxFailures) {
+        this.workers = workerCount <= 0
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(workerCount, r -> {
+                    Thread t = new Thread(r, "notify-worker");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxFailures = Math.max(1, maxFailures);
+    }
+
+    /** Enregistre (ou remplace) le listener d'un client */
+    public void register(String clientId, INotificationListener listener) {
+        mailboxes.put(clientId, new Mailbox(clientId, listener));
+    }
+
+    /** Retire le listener d'un client ; les notifications en attente sont abandonnées */
+    public void unregister(String clientId) {
+        mailboxes.remove(clientId);
+    }
+
+    /** Retire le listener d'un client s'il n'a pas été remplacé entre-temps (connexion fermée) */
+    public void unregister(String clientId, INotificationListener listener) {
+        mailboxes.computeIfPresent(clientId, (id, m) -> m.listener == listener ? null : m);
+    }
+
+    /**
+     * Dépose une notification pour un client, sans jamais bloquer l'appelant.
+     * @return false si le client n'a pas de listener ou si sa file est pleine
+     */
+    public boolean dispatch(String clientId, Notification n) {
+        if (clientId == null) return false;
+        Mailbox m = mailboxes.get(clientId);
+        if (m == null) return false;
+        if (!m.queue.offer(n)) {
+            dropped.increment(); // client trop lent : on ne bloque pas la réservation
+            return false;
+        }
+        m.schedule();
+        return true;
+    }
+
+    /** Arrête les workers (les notifications en attente sont abandonnées) */
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            workers.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ======= Statistiques =======
+
+    public int listenerCount() { return mailboxes.size(); }
+
+    /** Nombre total de notifications en attente, tous clients confondus */
+    public int pendingCount() {
+        int n = 0;
+        for (Mailbox m : mailboxes.values()) n += m.queue.size();
+        return n;
+    }
+
+    public long deliveredCount() { return delivered.sum(); }
+
+    public long droppedCount() { return dropped.sum(); }
+
+    public long failureCount() { return failures.sum(); }
+
+    public long evictionCount() { return evictions.sum(); }
+
+    /**
+     * File d'un client. Au plus un worker la vide à un instant donné (drapeau scheduled),
+     * ce qui garantit l'ordre des notifications pour ce client.
+     */
+    private final class Mailbox implements Runnable {
+        final String clientId;
+        final INotificationListener listener;
+        final BlockingQueue<Notification> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /** Échecs consécutifs (accédé uniquement par le worker en cours) */
+        int consecutiveFailures;
+
+        /** Passe à false si le client ne connaît pas onNotifications (ancienne version) */
+        boolean batchSupported = true;
+
+        Mailbox(String clientId, INotificationListener listener) {
+            this.clientId = clientId;
+            this.listener = listener;
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    workers.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false); // dispatcher arrêté
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            List<Notification> batch = new ArrayList<>(batchSize);
+            try {
+                while (queue.drainTo(batch, batchSize) > 0) {
+                    boolean ok = deliver(List.copyOf(batch));
+                    batch.clear();
+                    if (!ok && !isActive()) return;
+                }
+            } finally {
+                scheduled.set(false);
+                // une notification a pu arriver entre le dernier drainTo et la remise à false
+                if (!queue.isEmpty() && isActive()) schedule();
+            }
+        }
+
+        private boolean isActive() {
+            return mailboxes.get(clientId) == this;
+        }
+
+        private boolean deliver(List<Notification> batch) {
+            try {
+                if (batch.size() == 1) {
+                    listener.onNotification(batch.get(0));
+                } else if (batchSupported) {
+                    try {
+                        listener.onNotifications(batch);
+                    } catch (RemoteException e) {
+                        if (!isUnknownMethod(e)) throw e;
+                        // le client ne connaît pas la méthode groupée : envoi unitaire
+                        batchSupported = false;
+                        for (Notification n : batch) listener.onNotification(n);
+                    }
+                } else {
+                    for (Notification n : batch) listener.onNotification(n);
+                }
+                consecutiveFailures = 0;
+                delivered.add(batch.size());
+                return true;
+            } catch (Exception ex) {
+                failures.increment();
+                System.err.println("Erreur notify (" + clientId + "): " + ex.getMessage());
+                if (++consecutiveFailures >= maxFailures && mailboxes.remove(clientId, this)) {
+                    evictions.increment();
+                    queue.clear();
+                    System.err.println("Listener retiré après " + consecutiveFailures + " échecs: " + clientId);
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Vrai si l'appel a échoué parce que l'objet distant ne connaît pas la méthode : RMI le
+     * signale côté appelant par une ServerException dont la cause est une UnmarshalException
+     * (hash de méthode inconnu).
+     */
+    static boolean isUnknownMethod(RemoteException e) {
+        return e instanceof UnmarshalException
+                || e instanceof ServerException && e.getCause() instanceof UnmarshalException;
+    }
+}
@@ -0,0 +1,203 @@
+package server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Persistance de l'état du service : journal d'événements + snapshots périodiques.
+ *
+ * Chaque modification (réservation, paiement, annulation, libération, ajout/suppression de
+ * place ou de zone) est écrite dans le {@link Journal}. Périodiquement, le journal est
+ * compacté : le dernier snapshot est rechargé, les segments scellés depuis sont rejoués
+ * dessus, et le résultat devient le nouveau snapshot ; les segments couverts sont supprimés.
+ * Le compactage travaille sur sa propre image et ne touche jamais à l'état vivant du service.
+ * L'historique ancien des places, écarté des buffers mémoire, part dans une {@link HistoryArchive} ;
+ * les réservations terminées, retirées de la mémoire, dans une {@link ReservationArchive}.
+ *
+ * Paramètres (propriétés système) :
+ * - parking.journal.segmentMB       : taille d'un segment du journal (défaut 64)
+ * - parking.journal.sync            : attendre l'écriture disque avant de répondre (défaut true)
+ * - parking.snapshot.intervalSec    : période de compactage en secondes (défaut 300, 0 = jamais)
+ * - parking.archive.blockRecords    : réservations terminées par bloc compressé de l'archive (défaut 4096)
+ */
+public class PersistenceManager implements Closeable {
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    /** Répertoire des données (null = persistance désactivée) */
+    private final Path dir;
+    private final Journal journal;
+    private final HistoryArchive historyArchive;
+    private final ReservationArchive reservationArchive;
+    private ScheduledExecutorService snapshotter;
+
+    /** Persistance désactivée : tout reste en mémoire */
+    private PersistenceManager() {
+        this.dir = null;
+        this.journal = null;
+        this.historyArchive = null;
+        this.reservationArchive = null;
+    }
+
+    /**
+     * Ouvre la persistance dans un répertoire, avec la configuration des propriétés système.
+     * @param dir répertoire des segments du journal et des snapshots
+     */
+    public PersistenceManager(Path dir) throws IOException {
+        this(dir, Integer.getInteger("parking.journal.segmentMB", 64) << 20,
+                Boolean.parseBoolean(System.getProperty("parking.journal.sync", "true")));
+    }
+
+    /**
+     * Constructeur principal
+     * @param dir répertoire des données
+     * @param segmentSize taille d'un segment du journal en octets
+     * @param syncWrites attendre la durabilité de chaque événement
+     */
+    public PersistenceManager(Path dir, int segmentSize, boolean syncWrites) throws IOException {
+        this.dir = dir;
+        this.journal = new Journal(dir, segmentSize, syncWrites);
+        this.historyArchive = new HistoryArchive(dir.resolve("history-archive.log"));
+        this.reservationArchive = new ReservationArchive(dir.resolve("reservations-archive.bin"),
+                Integer.getInteger("parking.archive.blockRecords", 4096));
+    }
+
+    /** Persistance désactivée (service purement en mémoire) */
+    public static PersistenceManager inMemory() {
+        return new PersistenceManager();
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    /** Archive de l'historique ancien des places (null si la persistance est désactivée) */
+    public HistoryArchive historyArchive() {
+        return historyArchive;
+    }
+
+    /** Archive des réservations terminées (null si la persistance est désactivée) */
+    public ReservationArchive reservationArchive() {
+        return reservationArchive;
+    }
+
+    // ======= Récupération =======
+
+    /**
+     * Reconstruit l'état : dernier snapshot puis relecture des événements du journal qui suivent.
+     * @return l'image récupérée (vide au premier démarrage)
+     */
+    public StateImage recover() {
+        if (!isEnabled()) return new StateImage();
+        try {
+            StateImage img = loadLatestSnapshot();
+            long[] seq = {img.nextSeq};
+            journal.replay(img.nextSeq, Long.MAX_VALUE, record -> {
+                img.apply(record);
+                seq[0]++;
+            });
+            img.nextSeq = seq[0];
+            return img;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ======= Écriture =======
+
+    /**
+     * Ajoute un événement encodé (voir {@link JournalEvents}) au journal.
+     * Sans effet si la persistance est désactivée.
+     */
+    public void record(byte[] event) {
+        if (journal != null) journal.append(event);
+    }
+
+    /** Ajoute plusieurs événements en une seule attente d'écriture (opérations groupées) */
+    public void recordAll(List<byte[]> events) {
+        if (journal != null && !events.isEmpty()) journal.appendAll(events);
+    }
+
+    // ======= Snapshots =======
+
+    /** Démarre le compactage périodique */
+    public synchronized void start() {
+        long interval = Long.getLong("parking.snapshot.intervalSec", 300);
+        if (!isEnabled() || interval <= 0 || snapshotter != null) return;
+        snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "snapshotter");
+            t.setDaemon(true);
+            return t;
+        });
+        snapshotter.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (Exception e) {
+                System.err.println("Erreur snapshot: " + e.getMessage());
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Compacte le journal : scelle le segment courant, rejoue les segments scellés sur le
+     * dernier snapshot, écrit le nouveau snapshot puis supprime ce qui est devenu inutile.
+     */
+    public synchronized void snapshot() throws IOException {
+        if (!isEnabled()) return;
+        long sealedUpTo = journal.roll();
+        // après le roll : tout ce qui a été archivé avant la fin des segments scellés est sur disque
+        // avant qu'ils ne soient supprimés
+        reservationArchive.flush();
+        historyArchive.flush();
+        StateImage img = loadLatestSnapshot();
+        if (img.nextSeq >= sealedUpTo) return; // rien de nouveau
+
+        journal.replay(img.nextSeq, sealedUpTo, img::apply);
+        img.nextSeq = sealedUpTo;
+        img.writeSnapshot(dir.resolve(snapshotName(sealedUpTo)));
+
+        for (Path old : snapshotFiles()) {
+            if (!old.getFileName().toString().equals(snapshotName(sealedUpTo))) Files.deleteIfExists(old);
+        }
+        journal.deleteSegmentsBefore(sealedUpTo);
+    }
+
+    private StateImage loadLatestSnapshot() throws IOException {
+        List<Path> files = snapshotFiles();
+        return files.isEmpty() ? new StateImage() : StateImage.readSnapshot(files.get(files.size() - 1));
+    }
+
+    /** Snapshots présents, du plus ancien au plus récent */
+    private List<Path> snapshotFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> {
+                        String n = p.getFileName().toString();
+                        return n.startsWith(SNAPSHOT_PREFIX) && n.endsWith(SNAPSHOT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static String snapshotName(long seq) {
+        return SNAPSHOT_PREFIX + String.format("%020d", seq) + SNAPSHOT_SUFFIX;
+    }
+
+    /** Arrête le compactage et ferme le journal (les événements en attente sont écrits) */
+    @Override
+    public synchronized void close() throws IOException {
+        if (snapshotter != null) snapshotter.shutdownNow();
+        if (journal != null) journal.close();
+        if (historyArchive != null) historyArchive.close();
+        if (reservationArchive != null) reservationArchive.close();
+    }
+}
@@ -0,0 +1,271 @@
+package server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcul du prix d'une réservation : tarif horaire par zone et par heure de la journée,
+ * majoré selon l'occupation de la zone au moment de la réservation.
+ *
+ * Les règles sont lues dans un fichier de propriétés puis compilées en un {@link Tariff}
+ * immuable : un tableau de tarifs indexé par zone et par heure, ses sommes cumulées sur la
+ * journée, et la table des majorations. Le calcul d'un prix ne fait que quelques lectures de
+ * tableaux quelle que soit la durée, sans verrou ni allocation ; un rechargement remplace le
+ * tarif d'un bloc (référence volatile), les calculs en cours terminent avec l'ancien.
+ *
+ * Format du fichier (les espaces d'un nom de zone s'échappent : Centre\ Ville) :
+ * <pre>
+ * rate=1.0                     tarif de base (DT/heure)
+ * zone.Mall.rate=1.5           tarif de base d'une zone
+ * band.8-18=1.2                multiplicateur des heures [8h, 18h[ (toutes zones)
+ * zone.Mall.band.18-24=0.8     multiplicateur propre à une zone (remplace celui de toutes zones)
+ * surge.0.80=1.25              majoration à partir de 80 % de places occupées
+ * surge.0.95=1.5
+ * </pre>
+ *
+ * Paramètres (propriétés système) :
+ * - parking.pricing.file      : fichier des règles (défaut : aucun, tarif unique de 1 DT/heure)
+ * - parking.pricing.reloadSec : période de vérification du fichier (défaut 10, 0 = jamais)
+ */
+public class PricingEngine implements Closeable {
+
+    /** Tarif de base sans fichier de règles (DT/heure) */
+    public static final double DEFAULT_RATE = 1.0;
+
+    private final Path file;
+    private volatile Tariff tariff;
+    private long loadedModified;
+    private ScheduledExecutorService watcher;
+
+    /** Moteur configuré par les propriétés système */
+    public static PricingEngine fromProperties() {
+        String file = System.getProperty("parking.pricing.file");
+        if (file == null || file.isEmpty()) return new PricingEngine((Path) null);
+        PricingEngine engine = new PricingEngine(Path.of(file));
+        engine.watch(Long.getLong("parking.pricing.reloadSec", 10));
+        return engine;
+    }
+
+    /**
+     * Moteur lisant ses règles dans un fichier (chargé immédiatement)
+     * @param file fichier des règles, null = tarif unique {@link #DEFAULT_RATE}
+     */
+    public PricingEngine(Path file) {
+        this.file = file;
+        this.tariff = Tariff.compile(new Properties());
+        if (file != null) {
+            try {
+                load();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Erreur tarifs " + file + ": " + e.getMessage() + " (tarif par défaut)");
+            }
+        }
+    }
+
+    /** Moteur à partir de règles déjà chargées (tests, benchmarks) */
+    public PricingEngine(Properties rules) {
+        this.file = null;
+        this.tariff = Tariff.compile(rules);
+    }
+
+    // ======= Calcul =======
+
+    /**
+     * Prix d'une réservation, arrondi au millime
+     * @param zone zone de la place
+     * @param start début de la réservation (heure de la journée de la première heure)
+     * @param hours durée en heures
+     * @param occupancy part des places occupées dans la zone (0 à 1)
+     */
+    public double price(String zone, LocalDateTime start, int hours, double occupancy) {
+        Tariff t = tariff;
+        int base = t.row(zone) / 24 * 25;
+        int from = start.getHour();
+        int to = from + hours % 24;
+        double day = t.sums[base + 24];
+        // journées entières, puis les heures restantes à partir de l'heure de début (avec passage minuit)
+        double total = hours / 24 * day + (to <= 24
+                ? t.sums[base + to] - t.sums[base + from]
+                : day - t.sums[base + from] + t.sums[base + to - 24]);
+        return Math.round(total * t.surge(occupancy) * 1000) / 1000.0;
+    }
+
+    /** Tarif d'une heure de la journée dans une zone, hors majoration */
+    public double hourlyRate(String zone, int hour) {
+        Tariff t = tariff;
+        return t.rates[t.row(zone) + hour];
+    }
+
+    // ======= Rechargement =======
+
+    /**
+     * Relit le fichier des règles s'il a changé depuis le dernier chargement
+     * @return true si un nouveau tarif a été installé
+     */
+    public synchronized boolean reload() throws IOException {
+        return load();
+    }
+
+    private boolean load() throws IOException {
+        if (file == null) return false;
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        if (modified == loadedModified) return false;
+        Properties rules = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            rules.load(in);
+        }
+        tariff = Tariff.compile(rules); // une règle invalide lève une exception : l'ancien tarif reste en place
+        loadedModified = modified;
+        return true;
+    }
+
+    /** Vérifie périodiquement le fichier des règles et recharge les modifications */
+    public synchronized void watch(long periodSec) {
+        if (file == null || periodSec <= 0 || watcher != null) return;
+        watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pricing-reload");
+            t.setDaemon(true);
+            return t;
+        });
+        watcher.scheduleWithFixedDelay(() -> {
+            try {
+                if (reload()) System.out.println("Tarifs rechargés depuis " + file);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Erreur rechargement tarifs: " + e.getMessage());
+            }
+        }, periodSec, periodSec, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (watcher != null) watcher.shutdownNow();
+    }
+
+    // ======= Tarif compilé =======
+
+    /** Règles compilées : tarifs [zone × 24 heures], leurs sommes cumulées et paliers de majoration triés */
+    static final class Tariff {
+
+        /** Ligne de chaque zone citée dans les règles (les autres utilisent la ligne 0) */
+        final Map<String, Integer> rows;
+
+        /** Tarif horaire, à l'indice ligne + heure */
+        final double[] rates;
+
+        /**
+         * Sommes cumulées de chaque ligne sur 25 cases : sums[ligne / 24 * 25 + h] = tarifs des
+         * heures [0, h[, la dernière case étant le total de la journée
+         */
+        final double[] sums;
+
+        /** Seuils d'occupation croissants et majorations correspondantes */
+        final double[] surgeThresholds;
+        final double[] surgeFactors;
+
+        private Tariff(Map<String, Integer> rows, double[] rates, double[] surgeThresholds, double[] surgeFactors) {
+            this.rows = rows;
+            this.rates = rates;
+            this.sums = new double[rates.length / 24 * 25];
+            for (int row = 0, k = 0; row < rates.length; row += 24) {
+                double sum = 0;
+                sums[k++] = 0;
+                for (int h = 0; h < 24; h++) sums[k++] = sum += rates[row + h];
+            }
+            this.surgeThresholds = surgeThresholds;
+            this.surgeFactors = surgeFactors;
+        }
+
+        /** Début de la ligne d'une zone dans {@link #rates} */
+        int row(String zone) {
+            Integer r = zone == null ? null : rows.get(zone);
+            return r == null ? 0 : r;
+        }
+
+        /** Majoration pour une occupation donnée (palier le plus haut atteint) */
+        double surge(double occupancy) {
+            double factor = 1.0;
+            for (int i = 0; i < surgeThresholds.length && occupancy >= surgeThresholds[i]; i++) factor = surgeFactors[i];
+            return factor;
+        }
+
+        static Tariff compile(Properties p) {
+            double defaultRate = number(p, "rate", DEFAULT_RATE);
+            double[] unset = new double[24];
+            Arrays.fill(unset, Double.NaN);
+            double[] defaultBands = bands(p, "band.", unset);
+
+            // zones citées dans les règles
+            Set<String> zones = new TreeSet<>();
+            for (String key : p.stringPropertyNames()) {
+                if (!key.startsWith("zone.")) continue;
+                int end = Math.max(key.lastIndexOf(".rate"), key.lastIndexOf(".band."));
+                if (end <= 5) throw new IllegalArgumentException("Règle de zone invalide: " + key);
+                zones.add(key.substring(5, end));
+            }
+
+            Map<String, Integer> rows = new HashMap<>();
+            double[] rates = new double[(zones.size() + 1) * 24];
+            fillRow(rates, 0, defaultRate, defaultBands);
+            int row = 24;
+            for (String zone : zones) {
+                double rate = number(p, "zone." + zone + ".rate", defaultRate);
+                double[] bands = bands(p, "zone." + zone + ".band.", defaultBands.clone());
+                fillRow(rates, row, rate, bands);
+                rows.put(zone, row);
+                row += 24;
+            }
+
+            TreeMap<Double, Double> surge = new TreeMap<>();
+            for (String key : p.stringPropertyNames()) {
+                if (!key.startsWith("surge.")) continue;
+                double threshold = Double.parseDouble(key.substring(6));
+                if (threshold < 0 || threshold > 1) throw new IllegalArgumentException("Seuil d'occupation invalide: " + key);
+                surge.put(threshold, number(p, key, 1.0));
+            }
+            double[] thresholds = new double[surge.size()];
+            double[] factors = new double[surge.size()];
+            int i = 0;
+            for (Map.Entry<Double, Double> e : surge.entrySet()) {
+                thresholds[i] = e.getKey();
+                factors[i++] = e.getValue();
+            }
+            return new Tariff(Map.copyOf(rows), rates, thresholds, factors);
+        }
+
+        /** Multiplicateur de chaque heure (NaN = pas de plage, tarif de base) */
+        private static double[] bands(Properties p, String prefix, double[] multipliers) {
+            for (String key : p.stringPropertyNames()) {
+                if (!key.startsWith(prefix)) continue;
+                String[] range = key.substring(prefix.length()).split("-");
+                if (range.length != 2) throw new IllegalArgumentException("Plage horaire invalide: " + key);
+                int from = Integer.parseInt(range[0].trim());
+                int to = Integer.parseInt(range[1].trim());
+                if (from < 0 || to > 24 || from >= to) throw new IllegalArgumentException("Plage horaire invalide: " + key);
+                double m = number(p, key, 1.0);
+                for (int h = from; h < to; h++) multipliers[h] = m;
+            }
+            return multipliers;
+        }
+
+        private static void fillRow(double[] rates, int row, double rate, double[] bands) {
+            for (int h = 0; h < 24; h++) rates[row + h] = rate * (Double.isNaN(bands[h]) ? 1.0 : bands[h]);
+        }
+
+        private static double number(Properties p, String key, double defaultValue) {
+            String v = p.getProperty(key);
+            if (v == null) return defaultValue;
+            double d = Double.parseDouble(v.trim());
+            if (d < 0 || Double.isNaN(d)) throw new IllegalArgumentException("Valeur négative: " + key);
+            return d;
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package server;
+
+import common.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Archive disque des réservations terminées (annulées, échues, blocages relâchés).
+ *
+ * Une réservation terminée quitte la map du service et les index en mémoire ; elle est
+ * ajoutée ici pour les rapports. Les réservations s'accumulent dans un bloc ouvert, en
+ * mémoire. Un bloc plein est scellé et confié à un thread d'écriture qui le compresse
+ * (deflate) et l'ajoute au fichier ; le bloc ouvert est aussi écrit à chaque snapshot et à
+ * l'arrêt. Le fichier est en ajout seul ; un index mémoire garde, pour chaque bloc, sa
+ * position et l'intervalle des dates de création qu'il contient (32 octets par bloc),
+ * reconstruit au démarrage en ne lisant que les en-têtes. Une recherche ne décompresse que
+ * les blocs dont l'intervalle recoupe la période demandée.
+ *
+ * Deux verrous : le moniteur de l'archive protège le bloc ouvert et les blocs scellés en
+ * attente d'écriture, le verrou du fichier protège le fichier et l'index des blocs. Un ajout
+ * ne prend que le premier, brièvement : une longue recherche dans les blocs écrits ne bloque
+ * ni les annulations ni les expirations.
+ *
+ * Chaque réservation archivée a un rang (0 = la première archivée) qui sert de curseur :
+ * les pages vont de la plus récemment archivée à la plus ancienne. Un arrêt brutal perd au
+ * plus les blocs pas encore écrits (l'état du service, lui, est dans le journal).
+ *
+ * Format d'un bloc : [taille décompressée int][taille compressée int][nombre int]
+ * [création min long][création max long][données compressées].
+ */
+public class ReservationArchive implements Closeable {
+
+    /** Taille maximale d'une page */
+    static final int MAX_PAGE_SIZE = 500;
+
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 8 + 8;
+
+    private final Path file;
+    private final int blockRecords;
+
+    // ======= Fichier (verrou fileLock) =======
+
+    private final Object fileLock = new Object();
+    private final DataOutputStream out;
+    private final RandomAccessFile reader;
+    private final Deflater deflater = new Deflater();
+    private final Inflater inflater = new Inflater();
+
+    /** Position dans le fichier du prochain bloc */
+    private long position;
+
+    /** Blocs écrits, du plus ancien au plus récent */
+    private final List<Block> blocks = new ArrayList<>();
+
+    /** Nombre de réservations dans les blocs écrits */
+    private long written;
+
+    /** Dernier bloc décompressé (les pages successives d'une recherche le relisent souvent) */
+    private Block cachedBlock;
+    private List<Archived> cachedRecords;
+
+    /** Thread d'écriture des blocs scellés */
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "archive-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // ======= Blocs en mémoire (moniteur de l'archive) =======
+
+    /** Nombre de réservations archivées (écrites, scellées ou dans le bloc ouvert) */
+    private long appended;
+
+    /** Blocs pleins pas encore écrits, du plus ancien au plus récent */
+    private final List<Sealed> sealed = new ArrayList<>();
+
+    /** Bloc ouvert : réservations encodées, pas encore compressées */
+    private ByteArrayOutputStream openBytes = new ByteArrayOutputStream();
+    private DataOutputStream openOut = new DataOutputStream(openBytes);
+    private int openCount;
+    private long openMin = Long.MAX_VALUE;
+    private long openMax = Long.MIN_VALUE;
+
+    /**
+     * Ouvre (ou crée) l'archive et reconstruit l'index des blocs
+     * @param file fichier de l'archive
+     * @param blockRecords nombre de réservations par bloc
+     */
+    public ReservationArchive(Path file, int blockRecords) throws IOException {
+        this.file = file;
+        this.blockRecords = Math.max(1, blockRecords);
+        if (Files.exists(file)) rebuildIndex();
+        this.appended = written;
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile(), true), 1 << 16));
+        this.reader = new RandomAccessFile(file.toFile(), "r");
+    }
+
+    /** Une réservation archivée, avec la zone de sa place */
+    private record Archived(Reservation reservation, String zone, long createdAt) {}
+
+    /** Un bloc écrit : position, rang de sa première réservation, intervalle des créations */
+    private record Block(long offset, long first, int count, int rawSize, int compressedSize,
+                         long minCreated, long maxCreated) {}
+
+    /** Un bloc scellé, encodé mais pas encore compressé ni écrit */
+    private record Sealed(byte[] raw, long first, int count, long minCreated, long maxCreated) {}
+
+    // ======= Écriture =======
+
+    /**
+     * Archive une réservation terminée
+     * @param zone zone de sa place (null si la place a été supprimée)
+     */
+    public synchronized void append(Reservation r, String zone) {
+        try {
+            long created = SpotHistoryLog.toMillis(r.getCreatedAt());
+            ClientInfo c = r.getClient();
+            Vehicle v = r.getVehicle();
+            writeString(openOut, r.getId());
+            writeString(openOut, c == null ? null : c.getName());
+            writeString(openOut, c == null ? null : c.getPhone());
+            writeString(openOut, v == null ? null : v.getPlateNumber());
+            writeString(openOut, v == null ? null : v.getModel());
+            writeString(openOut, v == null ? null : v.getColor());
+            openOut.writeInt(r.getSpotId());
+            writeString(openOut, r.getSpotLabel());
+            writeString(openOut, zone);
+            openOut.writeInt(r.getHours());
+            openOut.writeDouble(r.getAmount());
+            openOut.writeLong(created);
+            openOut.writeLong(SpotHistoryLog.toMillis(r.getStartAt()));
+            openOut.writeBoolean(r.isPaid());
+            openCount++;
+            appended++;
+            openMin = Math.min(openMin, created);
+            openMax = Math.max(openMax, created);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (openCount >= blockRecords) {
+            seal();
+            try {
+                writer.execute(this::writeSealedInBackground);
+            } catch (RejectedExecutionException e) {
+                // archive fermée : le bloc reste scellé en mémoire
+            }
+        }
+    }
+
+    /** Écrit le bloc ouvert et les blocs scellés, puis les données en attente sur disque */
+    public void flush() throws IOException {
+        synchronized (this) {
+            seal();
+        }
+        synchronized (fileLock) {
+            writeSealed();
+            out.flush();
+        }
+    }
+
+    /** Ferme le bloc ouvert et le range parmi les blocs à écrire (sous le moniteur) */
+    private void seal() {
+        if (openCount == 0) return;
+        sealed.add(new Sealed(openBytes.toByteArray(), appended - openCount, openCount, openMin, openMax));
+        openBytes = new ByteArrayOutputStream();
+        openOut = new DataOutputStream(openBytes);
+        openCount = 0;
+        openMin = Long.MAX_VALUE;
+        openMax = Long.MIN_VALUE;
+    }
+
+    private void writeSealedInBackground() {
+        synchronized (fileLock) {
+            try {
+                writeSealed();
+            } catch (IOException e) {
+                System.err.println("Erreur archive réservations: " + e.getMessage() + " (nouvel essai au prochain flush)");
+            }
+        }
+    }
+
+    /**
+     * Compresse et écrit les blocs scellés, du plus ancien au plus récent (sous fileLock).
+     * Un bloc n'est retiré des blocs scellés qu'une fois indexé : une recherche le trouve
+     * toujours à l'un des deux endroits.
+     */
+    private void writeSealed() throws IOException {
+        while (true) {
+            Sealed next;
+            synchronized (this) {
+                if (sealed.isEmpty()) return;
+                next = sealed.get(0);
+            }
+            writeBlock(next);
+            synchronized (this) {
+                sealed.remove(0);
+            }
+        }
+    }
+
+    private void writeBlock(Sealed block) throws IOException {
+        byte[] raw = block.raw();
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 4 + 64);
+        byte[] chunk = new byte[1 << 14];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(chunk);
+            compressed.write(chunk, 0, n);
+        }
+        out.writeInt(raw.length);
+        out.writeInt(compressed.size());
+        out.writeInt(block.count());
+        out.writeLong(block.minCreated());
+        out.writeLong(block.maxCreated());
+        compressed.writeTo(out);
+
+        blocks.add(new Block(position, block.first(), block.count(), raw.length, compressed.size(),
+                block.minCreated(), block.maxCreated()));
+        position += HEADER_SIZE + compressed.size();
+        written += block.count();
+    }
+
+    // ======= Lecture =======
+
+    /** Nombre de réservations archivées */
+    public synchronized long count() {
+        return appended;
+    }
+
+    /** Nombre de blocs écrits sur disque */
+    public int blockCount() {
+        synchronized (fileLock) {
+            return blocks.size();
+        }
+    }
+
+    /**
+     * Page de réservations archivées correspondant à tous les critères de la requête,
+     * de la plus récemment archivée à la plus ancienne
+     */
+    public ReservationPage query(ReservationQuery q) {
+        int pageSize = Math.max(1, Math.min(MAX_PAGE_SIZE, q.getPageSize()));
+        long fromMs = q.getFrom() == null ? Long.MIN_VALUE : SpotHistoryLog.toMillis(q.getFrom());
+        long toMs = q.getTo() == null ? Long.MAX_VALUE : SpotHistoryLog.toMillis(q.getTo());
+        List<Reservation> items = new ArrayList<>(pageSize);
+
+        // copie des blocs en mémoire : le bloc ouvert se referme comme un bloc scellé
+        List<Sealed> pending;
+        long high;
+        synchronized (this) {
+            pending = new ArrayList<>(sealed);
+            if (openCount > 0) pending.add(new Sealed(openBytes.toByteArray(), appended - openCount, openCount, openMin, openMax));
+            high = Math.min(q.getCursor(), appended); // rangs < high
+        }
+        try {
+            // blocs en mémoire d'abord (les plus récents), puis les blocs écrits du plus récent au plus ancien
+            for (int b = pending.size() - 1; b >= 0 && items.size() < pageSize; b--) {
+                Sealed block = pending.get(b);
+                if (block.first() >= high) continue;
+                high = block.maxCreated() < fromMs || block.minCreated() >= toMs ? block.first()
+                        : collect(decode(block.raw(), block.count()), block.first(), high, q, fromMs, toMs, items, pageSize);
+            }
+            synchronized (fileLock) {
+                // un bloc écrit depuis la copie a déjà été parcouru : son rang est >= high
+                for (int b = blocks.size() - 1; b >= 0 && items.size() < pageSize; b--) {
+                    Block block = blocks.get(b);
+                    if (block.first() >= high) continue;
+                    if (block.maxCreated() < fromMs || block.minCreated() >= toMs) {
+                        high = block.first(); // aucune réservation de la période : bloc sauté sans lecture
+                        continue;
+                    }
+                    high = collect(records(block), block.first(), high, q, fromMs, toMs, items, pageSize);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ReservationPage(items, items.size() == pageSize && high > 0 ? high : ReservationPage.END);
+    }
+
+    /**
+     * Parcourt un bloc décodé du rang high - 1 vers son début
+     * @return le rang de la dernière réservation examinée (curseur de la suite)
+     */
+    private static long collect(List<Archived> records, long first, long high, ReservationQuery q,
+                                long fromMs, long toMs, List<Reservation> items, int pageSize) {
+        long rank = Math.min(high, first + records.size());
+        while (rank > first && items.size() < pageSize) {
+            Archived a = records.get((int) (--rank - first));
+            if (a.createdAt() >= fromMs && a.createdAt() < toMs && matches(a, q)) items.add(a.reservation());
+        }
+        return rank;
+    }
+
+    private static boolean matches(Archived a, ReservationQuery q) {
+        Reservation r = a.reservation();
+        if (q.getPaid() != null && r.isPaid() != q.getPaid()) return false;
+        if (q.getPhone() != null && (r.getClient() == null || !q.getPhone().equals(r.getClient().getPhone()))) return false;
+        if (q.getPlate() != null && (r.getVehicle() == null || !q.getPlate().equals(r.getVehicle().getPlateNumber()))) return false;
+        return q.getZone() == null || q.getZone().equals(a.zone());
+    }
+
+    /** Réservations d'un bloc écrit (lu et décompressé, ou dernier bloc lu), sous fileLock */
+    private List<Archived> records(Block block) throws IOException {
+        if (block.equals(cachedBlock)) return cachedRecords;
+        out.flush();
+        byte[] compressed = new byte[block.compressedSize()];
+        reader.seek(block.offset() + HEADER_SIZE);
+        reader.readFully(compressed);
+        byte[] raw = new byte[block.rawSize()];
+        inflater.reset();
+        inflater.setInput(compressed);
+        try {
+            if (inflater.inflate(raw) != raw.length) throw new IOException("Bloc d'archive tronqué à " + block.offset());
+        } catch (DataFormatException e) {
+            throw new IOException("Bloc d'archive corrompu à " + block.offset(), e);
+        }
+        cachedRecords = decode(raw, block.count());
+        cachedBlock = block;
+        return cachedRecords;
+    }
+
+    private static List<Archived> decode(byte[] raw, int count) throws IOException {
+        List<Archived> records = new ArrayList<>(count);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        for (int i = 0; i < count; i++) {
+            String id = readString(in);
+            ClientInfo client = new ClientInfo(readString(in), readString(in));
+            Vehicle vehicle = new Vehicle(readString(in), readString(in), readString(in));
+            int spotId = in.readInt();
+            String label = readString(in);
+            String zone = readString(in);
+            int hours = in.readInt();
+            double amount = in.readDouble();
+            long created = in.readLong();
+            long start = in.readLong();
+            boolean paid = in.readBoolean();
+            Reservation r = new Reservation(id, client, vehicle, spotId, label, hours, amount,
+                    SpotHistoryLog.toTime(created), SpotHistoryLog.toTime(start), paid);
+            records.add(new Archived(r, zone, created));
+        }
+        return records;
+    }
+
+    /** Relit les en-têtes de blocs pour reconstruire l'index (s'arrête à un bloc tronqué) */
+    private void rebuildIndex() throws IOException {
+        long length = Files.size(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            while (position + HEADER_SIZE <= length) {
+                int rawSize = in.readInt();
+                int compressedSize = in.readInt();
+                int count = in.readInt();
+                long min = in.readLong();
+                long max = in.readLong();
+                if (position + HEADER_SIZE + compressedSize > length) break;
+                in.skipNBytes(compressedSize);
+                blocks.add(new Block(position, written, count, rawSize, compressedSize, min, max));
+                position += HEADER_SIZE + compressedSize;
+                written += count;
+            }
+        }
+        if (position < length) {
+            // fin de fichier incomplète (arrêt brutal) : on la coupe
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(position);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /** Écrit les blocs en mémoire puis ferme l'archive */
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        flush();
+        synchronized (fileLock) {
+            out.close();
+            reader.close();
+            deflater.end();
+            inflater.end();
+        }
+    }
+}
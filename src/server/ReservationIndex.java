@@ -0,0 +1,184 @@
+package server;
+
+import common.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index secondaires des réservations en cours, pour les recherches de l'admin.
+ *
+ * Chaque réservation reçoit une clé d'ordre : sa date de création en millisecondes, décalée
+ * de {@link #SEQ_BITS} bits pour départager les réservations créées dans la même
+ * milliseconde. Les clés sont strictement croissantes (au-delà de 1024 créations dans la même
+ * milliseconde, elles empiètent sur les suivantes : une borne de période peut alors décaler
+ * quelques réservations d'une milliseconde). Chaque index (téléphone, immatriculation, zone,
+ * non payées, non payées par zone) est un ensemble trié de clés : une recherche part de
+ * l'index le plus sélectif, le parcourt de la fin de période vers le début et ne teste les
+ * autres critères que sur les réservations de cet index. La clé sert aussi de curseur.
+ *
+ * Les index sont concurrents (sans verrou global) ; un ensemble vide est retiré de sa map
+ * sous le verrou de la case (compute), jamais pendant qu'une réservation y est ajoutée.
+ */
+class ReservationIndex {
+
+    /** Taille maximale d'une page */
+    static final int MAX_PAGE_SIZE = 500;
+
+    /** Bits de la clé réservés au départage dans une milliseconde */
+    private static final int SEQ_BITS = 10;
+
+    /** Une réservation indexée, avec la zone de sa place au moment de la création */
+    private record Entry(long key, Reservation reservation, String zone) {}
+
+    /** Dernière clé attribuée */
+    private final AtomicLong lastKey = new AtomicLong(Long.MIN_VALUE);
+
+    /** Toutes les réservations, par clé (ordre de création) */
+    private final ConcurrentSkipListMap<Long, Entry> byKey = new ConcurrentSkipListMap<>();
+
+    private final Map<String, Entry> byId = new ConcurrentHashMap<>();
+
+    private final Map<String, NavigableSet<Long>> byPhone = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Long>> byPlate = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Long>> byZone = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Long>> unpaidByZone = new ConcurrentHashMap<>();
+    private final NavigableSet<Long> unpaid = new ConcurrentSkipListSet<>();
+
+    // ======= Mise à jour =======
+
+    /**
+     * Indexe une réservation (avant sa publication dans la map du service : un paiement
+     * ne peut pas la trouver avant qu'elle soit indexée)
+     * @param zone zone de la place, null si inconnue
+     */
+    void add(Reservation r, String zone) {
+        long key = nextKey(r.getCreatedAt());
+        Entry e = new Entry(key, r, zone);
+        if (byId.putIfAbsent(r.getId(), e) != null) return;
+        byKey.put(key, e);
+        addTo(byPhone, phoneOf(r), key);
+        addTo(byPlate, plateOf(r), key);
+        addTo(byZone, zone, key);
+        if (!r.isPaid()) {
+            unpaid.add(key);
+            addTo(unpaidByZone, zone, key);
+        }
+    }
+
+    /** La réservation vient d'être payée */
+    void paid(Reservation r) {
+        Entry e = byId.get(r.getId());
+        if (e == null) return;
+        unpaid.remove(e.key());
+        removeFrom(unpaidByZone, e.zone(), e.key());
+    }
+
+    /** Retire une réservation terminée (annulée ou échue) */
+    void remove(Reservation r) {
+        Entry e = byId.remove(r.getId());
+        if (e == null) return;
+        long key = e.key();
+        byKey.remove(key);
+        removeFrom(byPhone, phoneOf(r), key);
+        removeFrom(byPlate, plateOf(r), key);
+        removeFrom(byZone, e.zone(), key);
+        unpaid.remove(key);
+        removeFrom(unpaidByZone, e.zone(), key);
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    // ======= Recherche =======
+
+    /** Page de réservations correspondant à tous les critères, de la plus récente à la plus ancienne */
+    ReservationPage query(ReservationQuery q) {
+        int pageSize = Math.max(1, Math.min(MAX_PAGE_SIZE, q.getPageSize()));
+        List<Reservation> items = new ArrayList<>(pageSize);
+        NavigableSet<Long> source = source(q);
+        if (source == null) return new ReservationPage(items, ReservationPage.END);
+
+        long low = q.getFrom() == null ? Long.MIN_VALUE : SpotHistoryLog.toMillis(q.getFrom()) << SEQ_BITS;
+        long high = q.getCursor();
+        if (q.getTo() != null) high = Math.min(high, SpotHistoryLog.toMillis(q.getTo()) << SEQ_BITS);
+
+        Iterator<Long> it = source.headSet(high, false).descendingIterator();
+        long last = ReservationPage.END;
+        while (it.hasNext() && items.size() < pageSize) {
+            long key = it.next();
+            if (key < low) return new ReservationPage(items, ReservationPage.END); // tout ce qui suit est plus ancien
+            Entry e = byKey.get(key);
+            if (e == null || !matches(e, q)) continue; // retirée entre-temps, ou critère non indexé
+            items.add(e.reservation());
+            last = key;
+        }
+        return new ReservationPage(items, it.hasNext() ? last : ReservationPage.END);
+    }
+
+    /**
+     * Index le plus sélectif pour une requête : téléphone, immatriculation, non payées de la
+     * zone, zone, non payées, et à défaut toutes les réservations
+     * @return null si un critère indexé ne correspond à aucune réservation
+     */
+    private NavigableSet<Long> source(ReservationQuery q) {
+        if (q.getPhone() != null) return byPhone.get(q.getPhone());
+        if (q.getPlate() != null) return byPlate.get(q.getPlate());
+        if (q.getZone() != null) {
+            return Boolean.FALSE.equals(q.getPaid()) ? unpaidByZone.get(q.getZone()) : byZone.get(q.getZone());
+        }
+        if (Boolean.FALSE.equals(q.getPaid())) return unpaid;
+        return byKey.keySet();
+    }
+
+    /** Vérifie tous les critères (y compris celui de l'index parcouru, sans conséquence) */
+    private static boolean matches(Entry e, ReservationQuery q) {
+        Reservation r = e.reservation();
+        if (q.getPaid() != null && r.isPaid() != q.getPaid()) return false;
+        if (q.getPhone() != null && !q.getPhone().equals(phoneOf(r))) return false;
+        if (q.getPlate() != null && !q.getPlate().equals(plateOf(r))) return false;
+        return q.getZone() == null || q.getZone().equals(e.zone());
+    }
+
+    // ======= Outils =======
+
+    /** Clé strictement croissante, proche de createdAt << SEQ_BITS */
+    private long nextKey(LocalDateTime createdAt) {
+        long base = SpotHistoryLog.toMillis(createdAt) << SEQ_BITS;
+        return lastKey.accumulateAndGet(base, (last, b) -> Math.max(last + 1, b));
+    }
+
+    private static String phoneOf(Reservation r) {
+        return r.getClient() == null ? null : r.getClient().getPhone();
+    }
+
+    private static String plateOf(Reservation r) {
+        return r.getVehicle() == null ? null : r.getVehicle().getPlateNumber();
+    }
+
+    private static void addTo(Map<String, NavigableSet<Long>> index, String value, long key) {
+        if (value == null) return;
+        index.compute(value, (v, keys) -> {
+            if (keys == null) keys = new ConcurrentSkipListSet<>();
+            keys.add(key);
+            return keys;
+        });
+    }
+
+    private static void removeFrom(Map<String, NavigableSet<Long>> index, String value, long key) {
+        if (value == null) return;
+        index.computeIfPresent(value, (v, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+}
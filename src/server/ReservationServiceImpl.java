@@ -2,40 +2,143 @@ package server;
 
 import common.*;
 
+import java.io.UncheckedIOException;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Implémentation côté serveur du service de réservation.
  * Gère les places, les réservations, les zones, et les notifications aux clients.
+ *
+ * Il n'y a pas de verrou global : la réservation d'une place est un compare-and-set
+ * sur son état ({@link ParkingSpot#tryReserve()}), les lectures parcourent les maps
+ * concurrentes sans bloquer, et seules les modifications de structure (ajout/suppression
+ * de places et de zones) sont sérialisées entre elles par {@link #structureLock}.
+ *
+ * Chaque modification est écrite dans le journal de {@link PersistenceManager} avant d'être
+ * rendue visible (réservation publiée, place libérée) : l'ordre du journal respecte donc
+ * l'ordre réel des changements d'état d'une place.
+ *
+ * Chaque réservation est programmée dans l'{@link ExpiryScheduler} pour sa fin (createdAt +
+ * hours) : à l'échéance la place est rendue, l'historique et le client sont informés.
+ * {@link #spotHolders} mémorise la réservation qui tient chaque place : une annulation ou une
+ * expiration ne rend la place que si elle est encore tenue par cette réservation.
+ *
+ * Une réservation occupe un créneau [startAt, startAt + hours[ dans le {@link SpotSchedule}
+ * de sa place. Un créneau réservé à l'avance ne prend pas la place tout de suite : un second
+ * échéancier ({@link #slotStarts}) la fait tenir par la réservation au début du créneau.
+ *
+ * {@link #holdSpot} bloque une place pour quelques minutes : une réservation non payée que le
+ * paiement confirme ; un balayeur ({@link #holdSweeper}) relâche en bloc les blocages échus.
  */
 public class ReservationServiceImpl extends UnicastRemoteObject implements IReservationService {
 
-    /** Map des places : clé = id de la place, valeur = ParkingSpot */
-    private final Map<Integer, ParkingSpot> spots = new ConcurrentHashMap<>();
+    /** Registre des places, indexé par id (ids croissants, jamais réutilisés) */
+    private final SpotRegistry spots = new SpotRegistry();
 
     /** Map des réservations : clé = id réservation, valeur = Reservation */
     private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
 
-    /** Map des listeners RMI pour notifications clients */
-    private final Map<String, INotificationListener> listeners = new ConcurrentHashMap<>();
+    /** Distributeur asynchrone des notifications vers les listeners RMI des clients */
+    private final NotificationDispatcher notifier = new NotificationDispatcher();
 
-    /** Tarif par heure */
-    private double pricePerHour = 1.0;
+    /** Calcul des prix (tarifs par zone et par heure, majoration selon l'occupation) */
+    private final PricingEngine pricing = PricingEngine.fromProperties();
 
-    /** Liste des zones de parking */
-    private final List<ParkingZone> zones = new ArrayList<>();
+    /** Liste des zones de parking (copie à l'écriture : lecture sans verrou) */
+    private final List<ParkingZone> zones = new CopyOnWriteArrayList<>();
+
+    /** Index secondaire : places par zone et places libres par zone */
+    private final ZoneIndex zoneIndex = new ZoneIndex();
+
+    /** Index secondaires des réservations (recherches admin) */
+    private final ReservationIndex reservationIndex = new ReservationIndex();
+
+    /** Réservation qui tient chaque place réservée : clé = id de la place, valeur = id réservation */
+    private final Map<Integer, String> spotHolders = new ConcurrentHashMap<>();
+
+    /** Résultats des appels déjà traités, pour les rejeux des clients (identifiant de requête) */
+    private final IdempotencyCache idempotency = new IdempotencyCache();
+
+    /** Latences, attentes de verrous, compteurs et jauges (JMX, Prometheus) */
+    private final ServiceMetrics metrics = new ServiceMetrics(this);
+
+    /** Échéancier des fins de réservation */
+    private final ExpiryScheduler expiry = new ExpiryScheduler(this::expireReservations);
+
+    /** Planning des créneaux réservés de chaque place : clé = id de la place */
+    private final Map<Integer, SpotSchedule> schedules = new ConcurrentHashMap<>();
+
+    /** Balayeur des places bloquées non payées à temps */
+    private final ExpiryScheduler holdSweeper = new ExpiryScheduler(this::releaseHolds, "hold-sweeper");
+
+    /** Durée d'un blocage de place en attente de paiement (secondes) */
+    private static final long HOLD_TTL_SEC = Long.getLong("parking.hold.ttlSec", 300);
+
+    /** Durée maximale d'une réservation (heures) */
+    private static final int MAX_HOURS = Integer.getInteger("parking.maxHours", 24 * 31);
+
+    /** Délai avant de retenter des expirations dont la journalisation a échoué (ms) */
+    private static final long EXPIRE_RETRY_MS = Long.getLong("parking.expire.retryMs", 5_000);
+
+    /** Créneaux réservés à l'avance qui n'ont pas encore commencé (ids de réservation) */
+    private final Set<String> pendingStarts = ConcurrentHashMap.newKeySet();
+
+    /** Échéancier des débuts de créneaux réservés à l'avance */
+    private final ExpiryScheduler slotStarts = new ExpiryScheduler(this::startReservations, "slot-starts");
+
+    private static final DateTimeFormatter SLOT_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    /** Flux des changements de disponibilité (synchronisation incrémentale des clients) */
+    private final AvailabilityFeed availability = new AvailabilityFeed();
+
+    /** Verrou des opérations d'administration qui modifient la structure (places, zones) */
+    private final Object structureLock = new Object();
+
+    /** Journal et snapshots (désactivé pour un service purement en mémoire) */
+    private final PersistenceManager persistence;
 
     /**
-     * Constructeur
+     * Constructeur d'un service en mémoire, sans persistance
      * @throws RemoteException
      */
-    protected ReservationServiceImpl() throws RemoteException {
-        super(); // exporte automatiquement l'objet RMI
-        initZonesAndSpots(); // initialisation des zones et des places
+    public ReservationServiceImpl() throws RemoteException {
+        this(PersistenceManager.inMemory());
+    }
+
+    /**
+     * Constructeur avec persistance : l'état est récupéré depuis le snapshot et le journal,
+     * ou initialisé avec les zones par défaut au premier démarrage.
+     * @param persistence gestionnaire de persistance
+     * @throws RemoteException
+     */
+    public ReservationServiceImpl(PersistenceManager persistence) throws RemoteException {
+        this(persistence, RmiTransport.defaults());
+    }
+
+    /**
+     * Constructeur complet : persistance et transport RMI (port d'export, fabriques de sockets)
+     * @param persistence gestionnaire de persistance
+     * @param transport réglages du transport RMI
+     * @throws RemoteException
+     */
+    public ReservationServiceImpl(PersistenceManager persistence, RmiTransport transport) throws RemoteException {
+        super(transport.servicePort(), transport.clientFactory(), transport.serverFactory()); // exporte automatiquement l'objet RMI
+        this.persistence = persistence;
+        StateImage image = persistence.recover();
+        if (image.isEmpty()) {
+            initZonesAndSpots(); // initialisation des zones et des places
+        } else {
+            install(image);
+        }
+        expiry.start();
+        slotStarts.start();
+        holdSweeper.start();
     }
 
     /** Initialisation par défaut de quelques zones et places */
@@ -44,120 +147,544 @@ public class ReservationServiceImpl extends UnicastRemoteObject implements IRese
         zones.add(new ParkingZone("Mall", "Centre commercial"));
 
         // création de quelques places par zone
-        int id = 1;
         for (ParkingZone z : zones) {
+            persistence.record(JournalEvents.zoneAdd(z));
+            zoneIndex.addZone(z.getName());
             for (int i = 1; i <= 4; i++) {
-                spots.put(id, new ParkingSpot(
-                        id,
+                ParkingSpot p = new ParkingSpot(
+                        spots.allocateId(),
                         z.getName().substring(0, 2).toUpperCase() + i,
                         z.getName()
-                ));
-                id++;
+                );
+                persistence.record(JournalEvents.spotAdd(p));
+                attachHistoryArchive(p);
+                spots.put(p);
+                zoneIndex.addSpot(p);
             }
         }
     }
 
+    /** Charge l'état récupéré par la persistance */
+    private void install(StateImage image) {
+        for (ParkingZone z : image.zones.values()) {
+            zones.add(z);
+            zoneIndex.addZone(z.getName());
+        }
+        for (ParkingSpot p : image.spots.values()) {
+            attachHistoryArchive(p);
+            spots.put(p);
+            zoneIndex.addSpot(p);
+        }
+        spots.reserveIdsUpTo(image.nextSpotId - 1); // y compris les ids de places supprimées
+        List<Reservation> byCreation = new ArrayList<>(image.reservations.values());
+        byCreation.sort(Comparator.comparing(Reservation::getCreatedAt));
+        for (Reservation r : byCreation) reservationIndex.add(r, zoneOf(r));
+        reservations.putAll(image.reservations);
+        spotHolders.putAll(image.holders);
+        for (Map.Entry<String, Double> e : image.revenue.entrySet()) zoneIndex.addRevenue(e.getKey(), e.getValue());
+        for (Reservation r : image.reservations.values()) {
+            if (!r.isPaid()) zoneIndex.adjustUnpaid(zoneOf(r), 1);
+        }
+        pendingStarts.addAll(image.pending);
+        // les réservations déjà échues seront rendues au premier tick de l'échéancier
+        for (Reservation r : image.reservations.values()) {
+            if (r.getHours() > 0) scheduleOf(r.getSpotId()).tryAdd(r.getId(), startOf(r), deadlineOf(r));
+            boolean pending = image.pending.contains(r.getId());
+            if (pending) slotStarts.schedule(r.getId(), startOf(r));
+            boolean holder = r.getId().equals(image.holders.get(r.getSpotId()));
+            if (pending || holder) expiry.schedule(r.getId(), r.getEndAt());
+            if (holder && r.isHold()) holdSweeper.schedule(r.getId(), r.getHoldUntil());
+        }
+    }
+
+    /** Branche l'archivage disque sur le buffer d'historique d'une place (si persistance active) */
+    private void attachHistoryArchive(ParkingSpot p) {
+        HistoryArchive archive = persistence.historyArchive();
+        if (archive == null) return;
+        SpotHistoryLog log = p.getHistoryLog();
+        log.setAppendedCount(archive.count(p.getId()) + log.size()); // séquences alignées sur l'archive
+        log.setOverflow(archive.overflowFor(p.getId()));
+    }
+
+    /** Gestionnaire de persistance (snapshots, arrêt) */
+    public PersistenceManager getPersistence() {
+        return persistence;
+    }
+
+    // ======= Entrées d'historique (partagées avec la relecture du journal) =======
+
+    static SpotHistory reservationHistory(Reservation r) {
+        return new SpotHistory(
+                r.getCreatedAt(),
+                "RESERVATION",
+                "Réf: " + r.getId() + " Client: " + r.getClient().getName()
+                        + (r.isScheduled() ? " Créneau: " + slotLabel(r) : ""),
+                r.getAmount()
+        );
+    }
+
+    static SpotHistory paymentHistory(Reservation r, double amount, LocalDateTime at) {
+        return new SpotHistory(
+                at,
+                "PAYMENT",
+                "Paiement reservation " + r.getId() + " par " + r.getClient().getName(),
+                amount
+        );
+    }
+
+    static SpotHistory cancelHistory(String reservationId, LocalDateTime at) {
+        return new SpotHistory(at, "CANCEL", "Annulation réservation " + reservationId, 0);
+    }
+
+    static SpotHistory freeHistory(int spotId, LocalDateTime at) {
+        return new SpotHistory(at, "FREE", "Admin freed spot " + spotId, 0);
+    }
+
+    static SpotHistory expireHistory(Reservation r, LocalDateTime at) {
+        if (r.isHold()) return new SpotHistory(at, "EXPIRE", "Blocage non payé " + r.getId() + " relâché", 0);
+        return new SpotHistory(at, "EXPIRE", "Fin de réservation " + r.getId() + " (" + r.getHours() + " h)", 0);
+    }
+
+    /** Créneau d'une réservation, pour affichage */
+    static String slotLabel(Reservation r) {
+        return r.getStartAt().format(SLOT_FORMAT) + " - " + r.getEndAt().format(SLOT_FORMAT);
+    }
+
+    /** Fin prévue d'une réservation (ms epoch, fuseau du serveur) */
+    private static long deadlineOf(Reservation r) {
+        return ExpiryScheduler.epochMillis(r.getEndAt());
+    }
+
+    /** Début du créneau d'une réservation (ms epoch, fuseau du serveur) */
+    private static long startOf(Reservation r) {
+        return ExpiryScheduler.epochMillis(r.getStartAt());
+    }
+
+    /** Refuse une durée nulle, négative ou au-delà de {@link #MAX_HOURS} */
+    private static void checkHours(int hours) throws RemoteException {
+        if (hours <= 0 || hours > MAX_HOURS) throw new RemoteException("Durée invalide (1 à " + MAX_HOURS + " h)");
+    }
+
+    /** Prix d'une réservation immédiate, majoré selon l'occupation actuelle de la zone */
+    private double priceNow(ParkingSpot s, int hours) {
+        String zone = s.getRegion();
+        int total = zoneIndex.totalCount(zone);
+        double occupancy = total == 0 ? 0 : 1 - (double) zoneIndex.freeCount(zone) / total;
+        return pricing.price(zone, LocalDateTime.now(), hours, occupancy);
+    }
+
+    /** Planning d'une place, créé à sa première réservation */
+    private SpotSchedule scheduleOf(int spotId) {
+        return schedules.computeIfAbsent(spotId, id -> new SpotSchedule());
+    }
+
+    /** Rend le créneau d'une réservation terminée, annulée ou jamais publiée */
+    private void releaseSlot(Reservation r) {
+        pendingStarts.remove(r.getId());
+        SpotSchedule schedule = schedules.get(r.getSpotId());
+        if (schedule != null) schedule.remove(r.getId(), startOf(r));
+    }
+
     // ======= Méthodes client =======
 
     /**
      * Liste les places disponibles, optionnellement filtrées par zone
      */
     @Override
-    public synchronized List<ParkingSpot> listAvailableSpots(String region) {
-        List<ParkingSpot> list = new ArrayList<>();
-        for (ParkingSpot p : spots.values()) {
-            if (!p.isReserved() && (region == null || region.isEmpty() || p.getRegion().equals(region))) {
-                list.add(p);
+    public List<ParkingSpot> listAvailableSpots(String region) {
+        long t0 = System.nanoTime();
+        try {
+            if (region == null || region.isEmpty()) return zoneIndex.availableSpots();
+            return zoneIndex.availableSpots(region);
+        } finally {
+            metrics.record(ServiceMetrics.Op.LIST_AVAILABLE, t0);
+        }
+    }
+
+    /**
+     * Places libres sur toute une fenêtre [from, to[, optionnellement filtrées par zone.
+     * Chaque place est testée sur son planning (une recherche dans l'arbre de ses créneaux) ;
+     * si la fenêtre a déjà commencé, la place doit en plus être libre maintenant.
+     */
+    @Override
+    public List<ParkingSpot> listAvailableSpots(String region, LocalDateTime from, LocalDateTime to) throws RemoteException {
+        long t0 = System.nanoTime();
+        try {
+            if (from == null || to == null || !to.isAfter(from)) throw new RemoteException("Créneau invalide");
+            long start = ExpiryScheduler.epochMillis(from);
+            long end = ExpiryScheduler.epochMillis(to);
+            boolean startsNow = !from.isAfter(LocalDateTime.now());
+            List<ParkingSpot> candidates = region == null || region.isEmpty() ? spots.values() : zoneIndex.spots(region);
+            List<ParkingSpot> list = new ArrayList<>();
+            for (ParkingSpot s : candidates) {
+                if (startsNow && s.isReserved()) continue;
+                SpotSchedule schedule = schedules.get(s.getId());
+                if (schedule == null || schedule.isFree(start, end)) list.add(s);
             }
+            return list;
+        } finally {
+            metrics.record(ServiceMetrics.Op.LIST_AVAILABLE_WINDOW, t0);
+        }
+    }
+
+    /**
+     * Places libres d'une zone avec la séquence du flux de disponibilité.
+     * La séquence est lue avant la liste : un changement plus récent que la liste sera
+     * simplement réappliqué par le client (les changements sont idempotents).
+     */
+    @Override
+    public AvailabilitySnapshot getAvailabilitySnapshot(String region) {
+        long t0 = System.nanoTime();
+        try {
+            long seq = availability.latest();
+            long zonesVersion = availability.zonesVersion();
+            return new AvailabilitySnapshot(listAvailableSpots(region), seq, zonesVersion);
+        } finally {
+            metrics.record(ServiceMetrics.Op.AVAILABILITY_SNAPSHOT, t0);
+        }
+    }
+
+    /** Changements de disponibilité d'une zone depuis la séquence connue du client */
+    @Override
+    public AvailabilityDelta getAvailabilityChanges(String region, long sinceSeq) {
+        long t0 = System.nanoTime();
+        try {
+            return availability.changesSince(region, sinceSeq);
+        } finally {
+            metrics.record(ServiceMetrics.Op.AVAILABILITY_CHANGES, t0);
         }
-        return list;
     }
 
     /**
      * Réserve une place pour un client et véhicule donnés
      */
     @Override
-    public synchronized Reservation reserveSpot(ClientInfo client, Vehicle vehicle, int spotId, int hours) throws RemoteException {
+    public Reservation reserveSpot(ClientInfo client, Vehicle vehicle, int spotId, int hours) throws RemoteException {
+        long t0 = System.nanoTime();
+        try {
+            return reserve(client, vehicle, spotId, hours, null);
+        } finally {
+            metrics.record(ServiceMetrics.Op.RESERVE, t0);
+        }
+    }
+
+    /**
+     * Réservation immédiate d'une place : prise de la place (CAS), créneau, journal, publication
+     * @param holdUntil fin du blocage si la réservation n'est pas payée, null = réservation ordinaire
+     */
+    private Reservation reserve(ClientInfo client, Vehicle vehicle, int spotId, int hours, LocalDateTime holdUntil)
+            throws RemoteException {
+        checkHours(hours);
         ParkingSpot s = spots.get(spotId);
         if (s == null) throw new RemoteException("Spot introuvable");
-        if (s.isReserved()) throw new RemoteException("Déjà prise");
+        if (!s.tryReserve()) { // prise atomique de la place
+            metrics.claimConflict();
+            throw new RemoteException("Déjà prise");
+        }
 
-        s.setReserved(true); // marque la place comme réservée
-        double amount = hours * pricePerHour;
+        double amount = priceNow(s, hours);
 
         Reservation r = new Reservation(client, vehicle, s, hours, amount);
+        r.setHoldUntil(holdUntil);
+        if (!scheduleOf(spotId).tryAdd(r.getId(), startOf(r), deadlineOf(r))) {
+            s.release(); // pas encore publiée
+            throw new RemoteException("Créneau déjà réservé (réservation à venir sur cette place)");
+        }
+        spotHolders.put(spotId, r.getId());
+        try {
+            persistence.record(JournalEvents.reserve(r));
+        } catch (RuntimeException e) {
+            spotHolders.remove(spotId, r.getId());
+            releaseSlot(r);
+            s.release(); // rien n'a été publié : on rend la place
+            throw new RemoteException("Erreur journal", e);
+        }
+        spotStateChanged(s); // publiée une fois journalisée
+        reservationIndex.add(r, s.getRegion());
         reservations.put(r.getId(), r);
+        metrics.reservationsCreated(1);
+        zoneIndex.adjustUnpaid(s.getRegion(), 1);
+        expiry.schedule(r.getId(), r.getEndAt());
+        if (holdUntil != null) holdSweeper.schedule(r.getId(), holdUntil);
 
         // ajoute un historique pour la place
-        s.addHistory(new SpotHistory(
-                LocalDateTime.now(),
-                "RESERVATION",
-                "Réf: " + r.getId() + " Client: " + client.getName(),
-                amount
-        ));
+        s.addHistory(reservationHistory(r));
 
         // notifie le client si un listener est enregistré
-        notifyClient(client, new Notification("Réservation créée", "Réf: " + r.getId() + " Place: " + s.getLabel()));
+        notifyClient(client, holdUntil == null
+                ? new Notification("Réservation créée", "Réf: " + r.getId() + " Place: " + s.getLabel())
+                : new Notification("Place bloquée", "Réf: " + r.getId() + " Place: " + s.getLabel()
+                        + " à payer avant " + holdUntil.format(SLOT_FORMAT)));
 
         return r;
     }
 
     /**
-     * Paiement d'une réservation
+     * Prix d'une réservation immédiate de la place, sans la prendre (lecture seule).
+     * Le prix dépend de l'occupation de la zone : il peut changer avant la réservation.
      */
     @Override
-    public synchronized boolean payReservation(String reservationId, Payment payment) throws RemoteException {
-        Reservation r = reservations.get(reservationId);
-        if (r == null) throw new RemoteException("Reservation introuvable");
-        if (Math.abs(r.getAmount() - payment.getAmount()) > 1e-6) throw new RemoteException("Montant incorrect");
+    public double quote(int spotId, int hours) throws RemoteException {
+        long t0 = System.nanoTime();
+        try {
+            checkHours(hours);
+            ParkingSpot s = spots.get(spotId);
+            if (s == null) throw new RemoteException("Spot introuvable");
+            return priceNow(s, hours);
+        } finally {
+            metrics.record(ServiceMetrics.Op.QUOTE, t0);
+        }
+    }
 
-        r.setPaid(true); // marque comme payé
+    /**
+     * Bloque une place pour une courte durée (parking.hold.ttlSec) : c'est une réservation
+     * non payée que le paiement confirme. Sans paiement à temps, le balayeur des blocages
+     * ({@link #releaseHolds}) rend la place. Idempotent avec un identifiant de requête.
+     */
+    @Override
+    public Reservation holdSpot(String requestId, ClientInfo client, Vehicle vehicle, int spotId, int hours)
+            throws RemoteException {
+        long t0 = System.nanoTime();
+        try {
+            return idempotency.execute("hold", requestId,
+                    () -> reserve(client, vehicle, spotId, hours, LocalDateTime.now().plusSeconds(HOLD_TTL_SEC)));
+        } finally {
+            metrics.record(ServiceMetrics.Op.HOLD, t0);
+        }
+    }
 
-        // ajoute historique sur la place
-        ParkingSpot s = r.getSpot();
-        s.addHistory(new SpotHistory(
-                LocalDateTime.now(),
-                "PAYMENT",
-                "Paiement reservation " + r.getId() + " par " + r.getClient().getName(),
-                payment.getAmount()
-        ));
+    /**
+     * Réservation idempotente : un client qui rejoue l'appel avec le même identifiant de
+     * requête (réponse perdue, délai dépassé) reçoit la réservation d'origine.
+     */
+    @Override
+    public Reservation reserveSpot(String requestId, ClientInfo client, Vehicle vehicle, int spotId, int hours)
+            throws RemoteException {
+        return idempotency.execute("reserve", requestId, () -> reserveSpot(client, vehicle, spotId, hours));
+    }
 
-        // notifie le client
-        notifyClient(r.getClient(), new Notification(
-                "Paiement reçu",
-                "Réf: " + reservationId + " Montant: " + payment.getAmount() + " DT"
-        ));
+    /**
+     * Réserve un créneau à venir sur une place : la place n'est prise qu'au début du créneau.
+     * Un créneau qui a déjà commencé est une réservation immédiate ordinaire.
+     */
+    @Override
+    public Reservation reserveSpot(ClientInfo client, Vehicle vehicle, int spotId, LocalDateTime startAt, int hours)
+            throws RemoteException {
+        long t0 = System.nanoTime();
+        try {
+            if (startAt == null || !startAt.isAfter(LocalDateTime.now())) return reserveSpot(client, vehicle, spotId, hours);
+            checkHours(hours);
+            ParkingSpot s = spots.get(spotId);
+            if (s == null) throw new RemoteException("Spot introuvable");
+
+            // pas de majoration : l'occupation au moment du créneau n'est pas connue
+            double amount = pricing.price(s.getRegion(), startAt, hours, 0);
+            Reservation r = new Reservation(client, vehicle, s, startAt, hours, amount);
+            if (!scheduleOf(spotId).tryAdd(r.getId(), startOf(r), deadlineOf(r))) throw new RemoteException("Créneau déjà réservé");
+            pendingStarts.add(r.getId());
+            try {
+                persistence.record(JournalEvents.reserve(r));
+            } catch (RuntimeException e) {
+                releaseSlot(r);
+                throw new RemoteException("Erreur journal", e);
+            }
+            reservationIndex.add(r, s.getRegion());
+            reservations.put(r.getId(), r);
+            metrics.reservationsCreated(1);
+            zoneIndex.adjustUnpaid(s.getRegion(), 1);
+            slotStarts.schedule(r.getId(), startOf(r));
+            expiry.schedule(r.getId(), r.getEndAt());
+
+            s.addHistory(reservationHistory(r));
+            notifyClient(client, new Notification("Créneau réservé",
+                    "Réf: " + r.getId() + " Place: " + s.getLabel() + " " + slotLabel(r)));
+            return r;
+        } finally {
+            metrics.record(ServiceMetrics.Op.RESERVE_SLOT, t0);
+        }
+    }
+
+    /**
+     * Réservation groupée de plusieurs places pour un même client, en une passe.
+     * Les places sont d'abord prises une à une (CAS) ; en mode tout ou rien, un seul échec rend
+     * toutes les places déjà prises. Les réservations obtenues sont journalisées ensemble
+     * (une seule attente d'écriture) et le client reçoit une seule notification.
+     */
+    @Override
+    public BatchResult<Reservation> reserveSpots(ClientInfo client, Vehicle vehicle, List<Integer> spotIds, int hours,
+                                                 boolean allOrNothing) throws RemoteException {
+        long t0 = System.nanoTime();
+        try {
+            checkHours(hours);
+            BatchResult<Reservation> result = new BatchResult<>(spotIds.size());
+            ParkingSpot[] claimed = new ParkingSpot[spotIds.size()];
+            Reservation[] claims = new Reservation[spotIds.size()];
+            boolean failed = false;
+            for (int i = 0; i < spotIds.size(); i++) {
+                ParkingSpot s = spots.get(spotIds.get(i));
+                if (s == null) {
+                    result.fail(i, "Spot introuvable");
+                    failed = true;
+                } else if (!s.tryReserve()) {
+                    metrics.claimConflict();
+                    result.fail(i, "Déjà prise");
+                    failed = true;
+                } else {
+                    Reservation r = new Reservation(client, vehicle, s, hours, priceNow(s, hours));
+                    if (scheduleOf(s.getId()).tryAdd(r.getId(), startOf(r), deadlineOf(r))) {
+                        claimed[i] = s;
+                        claims[i] = r;
+                    } else {
+                        s.release();
+                        result.fail(i, "Créneau déjà réservé");
+                        failed = true;
+                    }
+                }
+            }
+            if (failed && allOrNothing) {
+                for (int i = 0; i < claimed.length; i++) {
+                    if (claimed[i] == null) continue;
+                    releaseSlot(claims[i]);
+                    claimed[i].release(); // jamais publiée : on rend simplement la place
+                    result.fail(i, "Annulée (réservation groupée incomplète)");
+                }
+                return result;
+            }
+
+            List<Reservation> created = new ArrayList<>();
+            List<byte[]> events = new ArrayList<>();
+            for (Reservation r : claims) {
+                if (r == null) continue;
+                ParkingSpot s = spots.get(r.getSpotId());
+                spotHolders.put(s.getId(), r.getId());
+                created.add(r);
+                events.add(JournalEvents.reserve(r));
+            }
+            try {
+                persistence.recordAll(events);
+            } catch (RuntimeException e) {
+                for (Reservation r : created) {
+                    spotHolders.remove(r.getSpotId(), r.getId());
+                    releaseSlot(r);
+                    spots.get(r.getSpotId()).release(); // pas encore publiée
+                }
+                throw new RemoteException("Erreur journal", e);
+            }
+            for (Reservation r : created) spotStateChanged(spots.get(r.getSpotId())); // publiées une fois journalisées
+
+            StringBuilder labels = new StringBuilder();
+            for (int i = 0; i < claimed.length; i++) {
+                if (claimed[i] == null) continue;
+                Reservation r = claims[i];
+                reservationIndex.add(r, claimed[i].getRegion());
+                reservations.put(r.getId(), r);
+                zoneIndex.adjustUnpaid(claimed[i].getRegion(), 1);
+                expiry.schedule(r.getId(), r.getEndAt());
+                claimed[i].addHistory(reservationHistory(r));
+                result.succeed(i, r);
+                labels.append(labels.length() == 0 ? "" : ", ").append(claimed[i].getLabel());
+            }
+            metrics.reservationsCreated(created.size());
+            if (!created.isEmpty()) {
+                notifyClient(client, new Notification("Réservation groupée créée", created.size() + " place(s) : " + labels));
+            }
+            return result;
+        } finally {
+            metrics.record(ServiceMetrics.Op.RESERVE_BATCH, t0);
+        }
+    }
+
+    /**
+     * Paiement d'une réservation.
+     * Le paiement se fait sous le moniteur de la réservation : deux paiements simultanés ne
+     * peuvent pas réussir tous les deux, et une annulation ou une expiration (qui attend ce
+     * moniteur, voir {@link #awaitPayment}) voit toujours l'état de paiement définitif.
+     */
+    @Override
+    public boolean payReservation(String reservationId, Payment payment) throws RemoteException {
+        long t0 = System.nanoTime();
+        try {
+            Reservation r = reservations.get(reservationId);
+            if (r == null) throw new RemoteException("Reservation introuvable");
+            if (Math.abs(r.getAmount() - payment.getAmount()) > 1e-6) throw new RemoteException("Montant incorrect");
+
+            LocalDateTime now = LocalDateTime.now();
+            String zone = zoneOf(r);
+            long wait = System.nanoTime();
+            synchronized (r) {
+                metrics.lockWait(ServiceMetrics.Lock.RESERVATION, wait);
+                if (reservations.get(reservationId) != r) throw new RemoteException("Reservation introuvable");
+                if (r.isPaid()) throw new RemoteException("Déjà payée");
+                try {
+                    persistence.record(JournalEvents.pay(reservationId, payment, now));
+                } catch (RuntimeException e) {
+                    throw new RemoteException("Erreur journal", e);
+                }
+                r.setPaid(true); // marque comme payé
+                reservationIndex.paid(r);
+                metrics.paymentReceived();
+                zoneIndex.adjustUnpaid(zone, -1);
+                zoneIndex.addRevenue(zone, payment.getAmount());
+            }
+
+            // ajoute historique sur la place
+            ParkingSpot spot = spots.get(r.getSpotId());
+            if (spot != null) spot.addHistory(paymentHistory(r, payment.getAmount(), now));
+
+            // notifie le client
+            notifyClient(r.getClient(), new Notification(
+                    "Paiement reçu",
+                    "Réf: " + reservationId + " Montant: " + payment.getAmount() + " DT"
+            ));
 
-        return true;
+            return true;
+        } finally {
+            metrics.record(ServiceMetrics.Op.PAY, t0);
+        }
+    }
+
+    /** Paiement idempotent : un rejeu avec le même identifiant de requête ne paie pas deux fois */
+    @Override
+    public boolean payReservation(String requestId, String reservationId, Payment payment) throws RemoteException {
+        return idempotency.execute("pay", requestId, () -> payReservation(reservationId, payment));
     }
 
     @Override
     public Reservation getReservation(String reservationId) throws RemoteException {
-        return reservations.get(reservationId);
+        long t0 = System.nanoTime();
+        try {
+            return reservations.get(reservationId);
+        } finally {
+            metrics.record(ServiceMetrics.Op.GET_RESERVATION, t0);
+        }
     }
 
     /** Enregistre un listener RMI pour notifications */
     @Override
     public void registerListener(String clientId, INotificationListener listener) throws RemoteException {
-        listeners.put(clientId, listener);
+        notifier.register(clientId, listener);
     }
 
     /** Supprime un listener */
     @Override
     public void unregisterListener(String clientId) throws RemoteException {
-        listeners.remove(clientId);
+        notifier.unregister(clientId);
+    }
+
+    /** Met à jour l'index des places libres et le flux de disponibilité après un changement d'état */
+    private void spotStateChanged(ParkingSpot s) {
+        zoneIndex.refresh(s);
+        availability.publish(s);
     }
 
-    /** Envoie une notification à un client */
+    /** Envoie une notification à un client (dépôt non bloquant, l'appel distant est asynchrone) */
     private void notifyClient(ClientInfo client, Notification n) {
-        try {
-            INotificationListener l = listeners.get(client.getPhone());
-            if (l != null) {
-                l.onNotification(n);
-            }
-        } catch (Exception ex) {
-            System.err.println("Erreur notify: " + ex.getMessage());
-        }
+        notifier.dispatch(client.getPhone(), n);
+    }
+
+    /** Distributeur de notifications (statistiques, arrêt) */
+    public NotificationDispatcher getNotifier() {
+        return notifier;
     }
 
     @Override
@@ -167,66 +694,553 @@ public class ReservationServiceImpl extends UnicastRemoteObject implements IRese
 
     // ======= Méthodes utilisées par AdminServiceImpl =======
 
-    public synchronized Map<Integer, ParkingSpot> getSpots() {
-        return spots;
+    /** Toutes les places, par id croissant */
+    public List<ParkingSpot> getSpots() {
+        return spots.values();
     }
 
-    public synchronized Map<String, Reservation> getReservations() {
+    public Map<String, Reservation> getReservations() {
         return reservations;
     }
 
-    public synchronized ParkingSpot getSpot(int id) {
+    /** Recherche paginée dans les réservations en cours, par les index secondaires */
+    public ReservationPage findReservations(ReservationQuery query) {
+        long t0 = System.nanoTime();
+        try {
+            return reservationIndex.query(query);
+        } finally {
+            metrics.record(ServiceMetrics.Op.FIND_RESERVATIONS, t0);
+        }
+    }
+
+    /** Recherche paginée dans l'archive des réservations terminées (page vide sans persistance) */
+    public ReservationPage findArchivedReservations(ReservationQuery query) {
+        long t0 = System.nanoTime();
+        try {
+            ReservationArchive archive = persistence.reservationArchive();
+            if (archive == null) return new ReservationPage(new ArrayList<>(), ReservationPage.END);
+            return archive.query(query);
+        } finally {
+            metrics.record(ServiceMetrics.Op.FIND_ARCHIVED, t0);
+        }
+    }
+
+    public int spotCount() {
+        return spots.size();
+    }
+
+    public ParkingSpot getSpot(int id) {
         return spots.get(id);
     }
 
-    public synchronized boolean removeReservation(String id) {
-        Reservation r = reservations.remove(id);
-        if (r != null) {
-            r.getSpot().setReserved(false);
-            r.getSpot().addHistory(new SpotHistory(
-                    LocalDateTime.now(),
-                    "CANCEL",
-                    "Annulation réservation " + id,
-                    0
-            ));
-            return true;
+    public boolean removeReservation(String id) {
+        long t0 = System.nanoTime();
+        try {
+            Reservation r = reservations.remove(id); // suppression atomique : un seul appelant gagne
+            if (r != null) {
+                awaitPayment(r);
+                LocalDateTime now = LocalDateTime.now();
+                try {
+                    persistence.record(JournalEvents.cancel(id, now)); // journalisé avant de rendre la place
+                } catch (RuntimeException e) {
+                    reservations.put(id, r);
+                    throw e;
+                }
+                applyCancel(r, now);
+                return true;
+            }
+            return false;
+        } finally {
+            metrics.record(ServiceMetrics.Op.CANCEL, t0);
+        }
+    }
+
+    /** Annule plusieurs réservations en une passe (une seule attente d'écriture du journal) */
+    public BatchResult<Boolean> cancelReservations(List<String> ids) {
+        long t0 = System.nanoTime();
+        try {
+            BatchResult<Boolean> result = new BatchResult<>(ids.size());
+            Reservation[] removed = new Reservation[ids.size()];
+            List<byte[]> events = new ArrayList<>();
+            LocalDateTime now = LocalDateTime.now();
+            for (int i = 0; i < ids.size(); i++) {
+                removed[i] = reservations.remove(ids.get(i)); // suppression atomique : un seul appelant gagne
+                if (removed[i] == null) {
+                    result.fail(i, "Réservation introuvable");
+                } else {
+                    awaitPayment(removed[i]);
+                    events.add(JournalEvents.cancel(ids.get(i), now));
+                }
+            }
+            try {
+                persistence.recordAll(events);
+            } catch (RuntimeException e) {
+                for (Reservation r : removed) if (r != null) reservations.put(r.getId(), r);
+                throw e;
+            }
+            for (int i = 0; i < removed.length; i++) {
+                if (removed[i] == null) continue;
+                applyCancel(removed[i], now);
+                result.succeed(i, true);
+            }
+            return result;
+        } finally {
+            metrics.record(ServiceMetrics.Op.CANCEL_BATCH, t0);
         }
-        return false;
     }
 
-    public synchronized ParkingSpot addSpot(String label, String region) {
-        int id = spots.size() + 1;
-        ParkingSpot p = new ParkingSpot(id, label, region);
-        spots.put(id, p);
-        return p;
+    /** Rend la place d'une réservation annulée (si elle la tient encore) et trace l'annulation */
+    private void applyCancel(Reservation r, LocalDateTime now) {
+        if (!r.isPaid()) zoneIndex.adjustUnpaid(zoneOf(r), -1);
+        reservationIndex.remove(r);
+        archive(r);
+        releaseSlot(r);
+        ParkingSpot spot = spots.get(r.getSpotId());
+        if (spot == null) return;
+        if (spotHolders.remove(spot.getId(), r.getId())) {
+            spot.release();
+            spotStateChanged(spot);
+        }
+        spot.addHistory(cancelHistory(r.getId(), now));
     }
 
-    public synchronized boolean removeSpot(int id) {
-        ParkingSpot p = spots.remove(id);
-        return p != null;
+    /**
+     * Attend la fin d'un paiement en cours sur une réservation qui vient de quitter la map.
+     * Un paiement qui n'a pas encore pris le moniteur échouera (réservation introuvable) ;
+     * après cette barrière, l'état de paiement ne change plus et l'événement PAY éventuel
+     * précède dans le journal celui de l'annulation ou de l'expiration. Le début d'un créneau
+     * ({@link #startReservations}) se fait sous le même moniteur, avec la même garantie.
+     */
+    private void awaitPayment(Reservation r) {
+        long wait = System.nanoTime();
+        synchronized (r) {
+            metrics.lockWait(ServiceMetrics.Lock.RESERVATION, wait); // barrière : rien d'autre à faire
+        }
     }
 
-    // ======= Gestion des zones =======
+    /**
+     * Range une réservation terminée dans l'archive disque (rapports). Une erreur d'archivage
+     * n'empêche pas la fin de la réservation : elle est déjà journalisée.
+     */
+    private void archive(Reservation r) {
+        ReservationArchive archive = persistence.reservationArchive();
+        if (archive == null) return;
+        try {
+            archive.append(r, zoneOf(r));
+        } catch (UncheckedIOException e) {
+            System.err.println("Erreur archive réservations: " + e.getMessage());
+        }
+    }
 
-    public synchronized boolean addZone(String name) {
-        for (ParkingZone z : zones) if (z.getName().equalsIgnoreCase(name)) return false;
-        zones.add(new ParkingZone(name, ""));
-        return true;
+    /** Zone de la place d'une réservation (null si la place a été supprimée) */
+    private String zoneOf(Reservation r) {
+        ParkingSpot spot = spots.get(r.getSpotId());
+        return spot == null ? null : spot.getRegion();
     }
 
-    public synchronized boolean removeZone(String name) {
-        // on supprime la zone seulement si aucune place n'y est associée
-        for (ParkingSpot p : spots.values()) {
-            if (p.getRegion().equals(name)) return false;
+    /**
+     * Traite un lot de réservations arrivées à échéance (thread de l'échéancier).
+     * Les réservations annulées entre-temps ont déjà quitté la map et sont ignorées. Toutes
+     * les expirations du lot sont journalisées en une seule écriture ; si elle échoue, les
+     * réservations sont remises en place et reprogrammées un peu plus tard.
+     */
+    private void expireReservations(List<String> reservationIds) {
+        long t0 = System.nanoTime();
+        try {
+            List<Reservation> expired = new ArrayList<>();
+            List<byte[]> events = new ArrayList<>();
+            LocalDateTime now = LocalDateTime.now();
+            for (String id : reservationIds) {
+                Reservation r = reservations.remove(id); // même suppression atomique qu'une annulation
+                if (r == null) continue;
+                awaitPayment(r);
+                expired.add(r);
+                events.add(JournalEvents.expire(id, now));
+            }
+            try {
+                persistence.recordAll(events); // journalisé avant de rendre les places
+            } catch (RuntimeException e) {
+                long retryAt = System.currentTimeMillis() + EXPIRE_RETRY_MS;
+                for (Reservation r : expired) {
+                    reservations.put(r.getId(), r);
+                    expiry.schedule(r.getId(), retryAt);
+                }
+                throw e;
+            }
+            for (Reservation r : expired) applyExpire(r, now);
+        } finally {
+            metrics.record(ServiceMetrics.Op.EXPIRE, t0);
         }
-        return zones.removeIf(z -> z.getName().equals(name));
     }
 
-    public synchronized List<ParkingSpot> listSpotsByZone(String zoneName) {
-        List<ParkingSpot> list = new ArrayList<>();
-        for (ParkingSpot p : spots.values()) {
-            if (p.getRegion().equals(zoneName)) list.add(p);
+    /**
+     * Relâche en bloc les places bloquées non payées à temps (thread du balayeur).
+     * Le retrait se fait sous le moniteur de la réservation, comme le paiement : un blocage
+     * payé n'est jamais relâché, et un paiement qui arrive après le retrait échoue. Toutes les
+     * expirations du lot sont journalisées en une seule écriture.
+     */
+    private void releaseHolds(List<String> reservationIds) {
+        long t0 = System.nanoTime();
+        try {
+            List<Reservation> released = new ArrayList<>();
+            List<byte[]> events = new ArrayList<>();
+            LocalDateTime now = LocalDateTime.now();
+            for (String id : reservationIds) {
+                Reservation r = reservations.get(id);
+                if (r == null) continue;
+                long wait = System.nanoTime();
+                synchronized (r) {
+                    metrics.lockWait(ServiceMetrics.Lock.RESERVATION, wait);
+                    if (!r.isHold() || !reservations.remove(id, r)) continue; // payée ou annulée entre-temps
+                }
+                released.add(r);
+                events.add(JournalEvents.expire(id, now));
+            }
+            try {
+                persistence.recordAll(events); // journalisé avant de rendre les places
+            } catch (RuntimeException e) {
+                for (Reservation r : released) reservations.put(r.getId(), r);
+                throw e;
+            }
+            for (Reservation r : released) applyExpire(r, now);
+            metrics.holdsReleased(released.size());
+        } finally {
+            metrics.record(ServiceMetrics.Op.RELEASE_HOLDS, t0);
+        }
+    }
+
+    /** Rend la place d'une réservation échue (si elle la tient encore), trace et notifie */
+    private void applyExpire(Reservation r, LocalDateTime now) {
+        if (!r.isPaid()) zoneIndex.adjustUnpaid(zoneOf(r), -1);
+        reservationIndex.remove(r);
+        archive(r);
+        releaseSlot(r);
+        ParkingSpot spot = spots.get(r.getSpotId());
+        if (spot != null) {
+            if (spotHolders.remove(spot.getId(), r.getId())) {
+                spot.release();
+                spotStateChanged(spot);
+            }
+            spot.addHistory(expireHistory(r, now));
         }
-        return list;
+        notifyClient(r.getClient(), new Notification(
+                r.isHold() ? "Blocage expiré" : "Réservation terminée",
+                "Réf: " + r.getId() + " Place: " + r.getSpotLabel() + " libérée"
+        ));
+    }
+
+    /** Échéancier des fins de réservation (statistiques, arrêt) */
+    public ExpiryScheduler getExpiry() {
+        return expiry;
+    }
+
+    /**
+     * Début des créneaux réservés à l'avance (thread de l'échéancier {@link #slotStarts}) :
+     * la réservation prend sa place, comme une réservation immédiate. Si la place est encore
+     * tenue (réservation précédente dont l'expiration n'est pas encore traitée, place bloquée
+     * par l'admin), le début est retenté au tick suivant, jusqu'à la fin du créneau.
+     */
+    private void startReservations(List<String> reservationIds) {
+        long t0 = System.nanoTime();
+        try {
+            for (String id : reservationIds) {
+                Reservation r = reservations.get(id);
+                if (r == null) continue;
+                ParkingSpot spot = spots.get(r.getSpotId());
+                if (spot == null) continue;
+                long wait = System.nanoTime();
+                synchronized (r) { // une annulation ou une expiration attend la fin du démarrage
+                    metrics.lockWait(ServiceMetrics.Lock.RESERVATION, wait);
+                    if (reservations.get(id) != r || !pendingStarts.contains(id)) continue;
+                    if (!spot.tryReserve()) {
+                        slotStarts.schedule(id, System.currentTimeMillis());
+                        continue;
+                    }
+                    try {
+                        persistence.record(JournalEvents.start(id, LocalDateTime.now())); // journalisé avant de prendre la place
+                    } catch (RuntimeException e) {
+                        spot.release();
+                        throw e;
+                    }
+                    pendingStarts.remove(id);
+                    spotHolders.put(spot.getId(), id);
+                }
+                spotStateChanged(spot);
+                notifyClient(r.getClient(), new Notification(
+                        "Début de réservation",
+                        "Réf: " + id + " Place: " + r.getSpotLabel() + " " + slotLabel(r)
+                ));
+            }
+        } finally {
+            metrics.record(ServiceMetrics.Op.START, t0);
+        }
+    }
+
+    /** Balayeur des places bloquées (statistiques, arrêt) */
+    public ExpiryScheduler getHoldSweeper() {
+        return holdSweeper;
+    }
+
+    /** Échéancier des débuts de créneaux (statistiques, arrêt) */
+    public ExpiryScheduler getSlotStarts() {
+        return slotStarts;
+    }
+
+    /** Nombre de créneaux réservés à l'avance pas encore commencés */
+    public int pendingSlotStartCount() {
+        return pendingStarts.size();
+    }
+
+    /** Mémoire des appels idempotents (statistiques) */
+    public IdempotencyCache getIdempotency() {
+        return idempotency;
+    }
+
+    /** Moteur de tarification (rechargement, arrêt) */
+    public PricingEngine getPricing() {
+        return pricing;
+    }
+
+    /** Instrumentation du service */
+    public ServiceMetrics getMetrics() {
+        return metrics;
+    }
+
+    /** Libère une place (action admin) et trace l'événement dans son historique */
+    public boolean freeSpot(int spotId) {
+        return freeSpots(List.of(spotId)).isSuccess(0);
+    }
+
+    /**
+     * Libère plusieurs places en une passe (ex : toute une zone à la fermeture).
+     * La réservation qui tenait une place est annulée avec elle : sinon son créneau resterait
+     * dans le planning de la place, qui serait listée libre mais refuserait toute réservation
+     * jusqu'à la fin de l'ancienne.
+     */
+    public BatchResult<Boolean> freeSpots(List<Integer> spotIds) {
+        long t0 = System.nanoTime();
+        try {
+            BatchResult<Boolean> result = new BatchResult<>(spotIds.size());
+            ParkingSpot[] found = new ParkingSpot[spotIds.size()];
+            Reservation[] ended = new Reservation[spotIds.size()];
+            List<byte[]> events = new ArrayList<>();
+            LocalDateTime now = LocalDateTime.now();
+            for (int i = 0; i < spotIds.size(); i++) {
+                found[i] = spots.get(spotIds.get(i));
+                if (found[i] == null) {
+                    result.fail(i, "Place introuvable");
+                    continue;
+                }
+                String holder = spotHolders.get(found[i].getId());
+                ended[i] = holder == null ? null : reservations.remove(holder); // même suppression atomique qu'une annulation
+                if (ended[i] != null) {
+                    awaitPayment(ended[i]);
+                    events.add(JournalEvents.cancel(holder, now));
+                }
+                events.add(JournalEvents.free(found[i].getId(), now));
+            }
+            try {
+                persistence.recordAll(events); // journalisé avant de rendre les places
+            } catch (RuntimeException e) {
+                for (Reservation r : ended) if (r != null) reservations.put(r.getId(), r);
+                throw e;
+            }
+            for (int i = 0; i < found.length; i++) {
+                ParkingSpot s = found[i];
+                if (s == null) continue;
+                if (ended[i] != null) applyCancel(ended[i], now); // libère aussi son créneau
+                spotHolders.remove(s.getId());
+                s.release();
+                spotStateChanged(s);
+                // ajoute un historique indiquant que l'admin a libéré la place
+                s.addHistory(freeHistory(s.getId(), now));
+                result.succeed(i, true);
+            }
+            return result;
+        } finally {
+            metrics.record(ServiceMetrics.Op.FREE, t0);
+        }
+    }
+
+    public ParkingSpot addSpot(String label, String region) {
+        return addSpots(List.of(label), region).get(0);
+    }
+
+    /** Crée plusieurs places dans une zone en une passe (provisionnement d'une zone) */
+    public BatchResult<ParkingSpot> addSpots(List<String> labels, String region) {
+        long t0 = System.nanoTime();
+        try {
+            BatchResult<ParkingSpot> result = new BatchResult<>(labels.size());
+            long wait = System.nanoTime();
+            synchronized (structureLock) {
+                metrics.lockWait(ServiceMetrics.Lock.STRUCTURE, wait);
+                List<ParkingSpot> created = new ArrayList<>(labels.size());
+                List<byte[]> events = new ArrayList<>(labels.size());
+                for (String label : labels) {
+                    ParkingSpot p = new ParkingSpot(spots.allocateId(), label, region); // id neuf : aucune place écrasée
+                    created.add(p);
+                    events.add(JournalEvents.spotAdd(p));
+                }
+                persistence.recordAll(events);
+                for (int i = 0; i < created.size(); i++) {
+                    ParkingSpot p = created.get(i);
+                    attachHistoryArchive(p);
+                    spots.put(p);
+                    zoneIndex.addSpot(p);
+                    availability.publish(p);
+                    result.succeed(i, p);
+                }
+            }
+            return result;
+        } finally {
+            metrics.record(ServiceMetrics.Op.ADD_SPOTS, t0);
+        }
+    }
+
+    public boolean removeSpot(int id) {
+        return removeSpots(List.of(id)).isSuccess(0);
+    }
+
+    /** Supprime plusieurs places en une passe */
+    public BatchResult<Boolean> removeSpots(List<Integer> spotIds) {
+        long t0 = System.nanoTime();
+        try {
+            BatchResult<Boolean> result = new BatchResult<>(spotIds.size());
+            long wait = System.nanoTime();
+            synchronized (structureLock) {
+                metrics.lockWait(ServiceMetrics.Lock.STRUCTURE, wait);
+                Set<Integer> removing = new HashSet<>();
+                List<byte[]> events = new ArrayList<>();
+                for (int i = 0; i < spotIds.size(); i++) {
+                    int id = spotIds.get(i);
+                    if (!spots.contains(id) || !removing.add(id)) {
+                        result.fail(i, "Place introuvable");
+                    } else {
+                        events.add(JournalEvents.spotRemove(id));
+                    }
+                }
+                persistence.recordAll(events);
+                for (int i = 0; i < spotIds.size(); i++) {
+                    if (!result.isSuccess(i)) continue;
+                    ParkingSpot p = spots.get(spotIds.get(i));
+                    // la zone ne compte plus les réservations non payées de la place, en cours ou à venir
+                    Set<String> dropped = new HashSet<>();
+                    String holder = spotHolders.remove(p.getId());
+                    if (holder != null) dropped.add(holder);
+                    SpotSchedule schedule = schedules.remove(p.getId());
+                    if (schedule != null) dropped.addAll(schedule.reservationIds());
+                    for (String rid : dropped) {
+                        Reservation r = reservations.get(rid);
+                        if (r != null && !r.isPaid()) zoneIndex.adjustUnpaid(p.getRegion(), -1);
+                    }
+                    spots.remove(p.getId());
+                    zoneIndex.removeSpot(p);
+                    availability.publishRemoved(p);
+                    result.succeed(i, true);
+                }
+            }
+            return result;
+        } finally {
+            metrics.record(ServiceMetrics.Op.REMOVE_SPOTS, t0);
+        }
+    }
+
+    /**
+     * Historique complet d'une place, du plus récent au plus ancien :
+     * le buffer mémoire puis, si elle existe, l'archive disque.
+     */
+    public List<SpotHistory> getSpotHistory(int spotId) {
+        long t0 = System.nanoTime();
+        try {
+            ParkingSpot s = spots.get(spotId);
+            if (s == null) return Collections.emptyList();
+            List<SpotHistory> list = s.getHistory();
+            HistoryArchive archive = persistence.historyArchive();
+            if (archive != null) list.addAll(archive.read(spotId, 0, Integer.MAX_VALUE));
+            return list;
+        } finally {
+            metrics.record(ServiceMetrics.Op.HISTORY, t0);
+        }
+    }
+
+    /** Page de l'historique d'une place, filtrée par période et par type */
+    public HistoryPage getSpotHistoryPage(int spotId, HistoryQuery query) {
+        long t0 = System.nanoTime();
+        try {
+            ParkingSpot s = spots.get(spotId);
+            if (s == null) return new HistoryPage(new ArrayList<>(), HistoryPage.END);
+            return new HistoryReader(s, persistence.historyArchive()).page(query);
+        } finally {
+            metrics.record(ServiceMetrics.Op.HISTORY, t0);
+        }
+    }
+
+    // ======= Compteurs par zone (O(1)) =======
+
+    /** Nombre total de places d'une zone */
+    public int countSpots(String zoneName) {
+        return zoneIndex.totalCount(zoneName);
+    }
+
+    /** Nombre de places libres d'une zone */
+    public int countFreeSpots(String zoneName) {
+        return zoneIndex.freeCount(zoneName);
+    }
+
+    /** Résumé de chaque zone (places, libres, impayées, recettes), en O(nombre de zones) */
+    public List<ZoneStats> getZoneStats() {
+        long t0 = System.nanoTime();
+        try {
+            List<ZoneStats> list = new ArrayList<>(zones.size());
+            for (ParkingZone z : zones) list.add(zoneIndex.stats(z.getName()));
+            return list;
+        } finally {
+            metrics.record(ServiceMetrics.Op.ZONE_STATS, t0);
+        }
+    }
+
+    // ======= Gestion des zones =======
+
+    public boolean addZone(String name) {
+        long t0 = System.nanoTime();
+        try {
+            long wait = System.nanoTime();
+            synchronized (structureLock) {
+                metrics.lockWait(ServiceMetrics.Lock.STRUCTURE, wait);
+                for (ParkingZone z : zones) if (z.getName().equalsIgnoreCase(name)) return false;
+                ParkingZone zone = new ParkingZone(name, "");
+                persistence.record(JournalEvents.zoneAdd(zone));
+                zones.add(zone);
+                zoneIndex.addZone(name);
+                availability.zonesChanged(); // les clients rechargent leur liste de zones
+                return true;
+            }
+        } finally {
+            metrics.record(ServiceMetrics.Op.ADD_ZONE, t0);
+        }
+    }
+
+    public boolean removeZone(String name) {
+        long t0 = System.nanoTime();
+        try {
+            long wait = System.nanoTime();
+            synchronized (structureLock) {
+                metrics.lockWait(ServiceMetrics.Lock.STRUCTURE, wait);
+                // on supprime la zone seulement si aucune place n'y est associée
+                if (zoneIndex.totalCount(name) > 0) return false;
+                if (zones.stream().noneMatch(z -> z.getName().equals(name))) return false;
+                persistence.record(JournalEvents.zoneRemove(name));
+                zones.removeIf(z -> z.getName().equals(name));
+                zoneIndex.removeZone(name);
+                availability.zonesChanged();
+                return true;
+            }
+        } finally {
+            metrics.record(ServiceMetrics.Op.REMOVE_ZONE, t0);
+        }
+    }
+
+    public List<ParkingSpot> listSpotsByZone(String zoneName) {
+        return zoneIndex.spots(zoneName);
     }
 }
@@ -0,0 +1,140 @@
+package server;
+
+import common.TunedSocket;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.rmi.server.RMIServerSocketFactory;
+import java.util.Objects;
+
+/**
+ * Fabrique des sockets d'écoute des services RMI.
+ *
+ * Les connexions acceptées reçoivent les mêmes réglages que côté client (TCP_NODELAY,
+ * tampons, compression : voir {@link common.RmiClientSocketFactory}) et sont mesurées une à
+ * une par {@link TransportMetrics}. La file d'attente des connexions (backlog) est réglable
+ * pour absorber l'arrivée simultanée de milliers de bornes.
+ *
+ * equals/hashCode portent sur les réglages : RMI exporte tous les objets d'une même
+ * fabrique sur le même port d'écoute.
+ */
+public class RmiServerSocketFactory implements RMIServerSocketFactory {
+
+    private final boolean noDelay;
+    private final int sendBuffer;
+    private final int receiveBuffer;
+    private final boolean compress;
+    private final int backlog;
+    private final TransportMetrics metrics;
+
+    /**
+     * Constructeur principal
+     * @param sendBuffer taille du tampon d'émission en octets, 0 = valeur du système
+     * @param receiveBuffer taille du tampon de réception en octets, 0 = valeur du système
+     * @param backlog connexions en attente d'acceptation
+     * @param metrics mesures des connexions
+     */
+    public RmiServerSocketFactory(boolean noDelay, int sendBuffer, int receiveBuffer, boolean compress,
+                                  int backlog, TransportMetrics metrics) {
+        this.noDelay = noDelay;
+        this.sendBuffer = sendBuffer;
+        this.receiveBuffer = receiveBuffer;
+        this.compress = compress;
+        this.backlog = backlog;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ServerSocket createServerSocket(int port) throws IOException {
+        ServerSocket server = new ServerSocket() {
+            @Override
+            public Socket accept() throws IOException {
+                MeteredSocket s = new MeteredSocket();
+                implAccept(s);
+                s.setTcpNoDelay(noDelay);
+                s.setKeepAlive(true);
+                if (sendBuffer > 0) s.setSendBufferSize(sendBuffer);
+                s.connection = metrics.opened(String.valueOf(s.getRemoteSocketAddress()));
+                return s;
+            }
+        };
+        server.setReuseAddress(true);
+        if (receiveBuffer > 0) server.setReceiveBufferSize(receiveBuffer); // hérité par les connexions acceptées
+        server.bind(new InetSocketAddress(port), backlog);
+        return server;
+    }
+
+    /** Connexion acceptée, qui compte ses octets sur le fil */
+    private final class MeteredSocket extends TunedSocket {
+        TransportMetrics.Connection connection;
+
+        MeteredSocket() {
+            super(compress);
+        }
+
+        @Override
+        protected InputStream rawInput(InputStream raw) {
+            return new FilterInputStream(raw) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) connection.received(1);
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buf, int off, int len) throws IOException {
+                    int n = super.read(buf, off, len);
+                    if (n > 0) connection.received(n);
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        protected OutputStream rawOutput(OutputStream raw) {
+            return new FilterOutputStream(raw) {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    connection.sent(1);
+                }
+
+                @Override
+                public void write(byte[] buf, int off, int len) throws IOException {
+                    out.write(buf, off, len);
+                    connection.sent(len);
+                }
+            };
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (connection != null) connection.closed();
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RmiServerSocketFactory)) return false;
+        RmiServerSocketFactory f = (RmiServerSocketFactory) o;
+        return noDelay == f.noDelay && sendBuffer == f.sendBuffer && receiveBuffer == f.receiveBuffer
+                && compress == f.compress && backlog == f.backlog && metrics == f.metrics;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(noDelay, sendBuffer, receiveBuffer, compress, backlog);
+    }
+}
@@ -0,0 +1,106 @@
+package server;
+
+import common.RmiClientSocketFactory;
+
+import java.rmi.server.RMIClientSocketFactory;
+import java.rmi.server.RMIServerSocketFactory;
+
+/**
+ * Réglages du transport RMI du serveur : ports, fabriques de sockets et threads de connexion.
+ *
+ * Les services sont exportés sur un port fixe (franchissable par un pare-feu) avec des
+ * fabriques réglées : TCP_NODELAY (les appels sont de petits messages, Nagle les retarderait
+ * jusqu'à l'accusé de réception précédent), tampons agrandis pour les grandes listes, et
+ * compression optionnelle du flux pour les bornes sur des liens lents. Les connexions
+ * acceptées sont mesurées ({@link TransportMetrics}).
+ *
+ * RMI sert chaque connexion avec son propre thread et garde les connexions inactives un
+ * moment pour les réutiliser. Le nombre de threads de connexion et le délai au bout duquel
+ * une connexion muette est fermée se règlent par des propriétés du runtime RMI, reprises
+ * ici sous des noms parking.rmi.* ({@link #applySystemProperties()}, à appeler avant tout
+ * usage de RMI dans le processus).
+ *
+ * Le registre reste sur des sockets ordinaires : les clients le contactent sans connaître
+ * les réglages, puis reçoivent avec le stub la fabrique client à utiliser.
+ *
+ * Paramètres (propriétés système) :
+ * - parking.rmi.port              : port du registre (défaut 1099)
+ * - parking.rmi.servicePort       : port d'export des services (défaut 1100, 0 = port libre quelconque)
+ * - parking.rmi.noDelay           : TCP_NODELAY (défaut true)
+ * - parking.rmi.sendBufferKB      : tampon d'émission (défaut 64, 0 = valeur du système)
+ * - parking.rmi.receiveBufferKB   : tampon de réception (défaut 64, 0 = valeur du système)
+ * - parking.rmi.compress          : compression du flux (défaut false)
+ * - parking.rmi.backlog           : connexions en attente d'acceptation (défaut 1024)
+ * - parking.rmi.connectTimeoutMs  : délai de connexion des clients (défaut 5000)
+ * - parking.rmi.maxConnectionThreads : threads de connexion au plus (défaut : illimité)
+ * - parking.rmi.idleTimeoutMs     : fermeture côté serveur d'une connexion muette (défaut 2 h, celui de RMI)
+ */
+public class RmiTransport {
+
+    private final int registryPort;
+    private final int servicePort;
+    private final RmiClientSocketFactory clientFactory;
+    private final RmiServerSocketFactory serverFactory;
+    private final TransportMetrics metrics;
+
+    /**
+     * Constructeur principal
+     * @param clientFactory fabrique client envoyée avec les stubs (null = sockets par défaut)
+     * @param serverFactory fabrique des sockets d'écoute (null = sockets par défaut)
+     */
+    public RmiTransport(int registryPort, int servicePort, RmiClientSocketFactory clientFactory,
+                        RmiServerSocketFactory serverFactory, TransportMetrics metrics) {
+        this.registryPort = registryPort;
+        this.servicePort = servicePort;
+        this.clientFactory = clientFactory;
+        this.serverFactory = serverFactory;
+        this.metrics = metrics;
+    }
+
+    /** Transport par défaut de RMI : port anonyme, sockets ordinaires, pas de mesures */
+    public static RmiTransport defaults() {
+        return new RmiTransport(1099, 0, null, null, null);
+    }
+
+    /** Transport configuré par les propriétés parking.rmi.* */
+    public static RmiTransport fromProperties() {
+        boolean noDelay = Boolean.parseBoolean(System.getProperty("parking.rmi.noDelay", "true"));
+        int sendBuffer = Integer.getInteger("parking.rmi.sendBufferKB", 64) * 1024;
+        int receiveBuffer = Integer.getInteger("parking.rmi.receiveBufferKB", 64) * 1024;
+        boolean compress = Boolean.getBoolean("parking.rmi.compress");
+        TransportMetrics metrics = new TransportMetrics("rmi");
+        return new RmiTransport(
+                Integer.getInteger("parking.rmi.port", 1099),
+                Integer.getInteger("parking.rmi.servicePort", 1100),
+                new RmiClientSocketFactory(noDelay, sendBuffer, receiveBuffer, compress,
+                        Integer.getInteger("parking.rmi.connectTimeoutMs", 5000)),
+                new RmiServerSocketFactory(noDelay, sendBuffer, receiveBuffer, compress,
+                        Integer.getInteger("parking.rmi.backlog", 1024), metrics),
+                metrics);
+    }
+
+    /**
+     * Reporte les réglages de threads et de délai sur les propriétés du runtime RMI
+     * (sans écraser une valeur déjà donnée en ligne de commande)
+     */
+    public static void applySystemProperties() {
+        copy("parking.rmi.maxConnectionThreads", "sun.rmi.transport.tcp.maxConnectionThreads");
+        copy("parking.rmi.idleTimeoutMs", "sun.rmi.transport.tcp.readTimeout");
+    }
+
+    private static void copy(String from, String to) {
+        String value = System.getProperty(from);
+        if (value != null && System.getProperty(to) == null) System.setProperty(to, value);
+    }
+
+    public int registryPort() { return registryPort; }
+
+    public int servicePort() { return servicePort; }
+
+    public RMIClientSocketFactory clientFactory() { return clientFactory; }
+
+    public RMIServerSocketFactory serverFactory() { return serverFactory; }
+
+    /** Mesures des connexions, ou null avec les sockets par défaut */
+    public TransportMetrics metrics() { return metrics; }
+}
@@ -1,5 +1,6 @@
 package server;
 
+import java.nio.file.Path;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 
@@ -10,20 +11,60 @@ public class ServerMain {
 
     public static void main(String[] args) {
         try {
-            // Création du registre RMI sur le port 1099
-            LocateRegistry.createRegistry(1099);
-            System.out.println("RMI Registry lancé...");
+            // Transport RMI : ports, fabriques de sockets réglées, threads de connexion (parking.rmi.*)
+            RmiTransport.applySystemProperties();
+            RmiTransport transport = RmiTransport.fromProperties();
 
-            // Instanciation du service de réservation
-            ReservationServiceImpl service = new ReservationServiceImpl();
+            // Création du registre RMI sur le port configuré (1099 par défaut)
+            Registry reg = LocateRegistry.createRegistry(transport.registryPort());
+            System.out.println("RMI Registry lancé sur le port " + transport.registryPort() + "...");
+
+            // Persistance : journal + snapshots dans le répertoire de données
+            Path dataDir = Path.of(System.getProperty("parking.data.dir", "data"));
+            PersistenceManager persistence = new PersistenceManager(dataDir);
+
+            // Instanciation du service de réservation (récupère l'état sauvegardé)
+            // (exporté sur le port fixe parking.rmi.servicePort avec les fabriques réglées)
+            ReservationServiceImpl service = new ReservationServiceImpl(persistence, transport);
+            persistence.start();
+            System.out.println("Etat récupéré depuis " + dataDir.toAbsolutePath());
+            AdminServiceImpl admin = new AdminServiceImpl(service, transport);
+
+            // Protocole binaire, à côté de RMI sur les mêmes services (parking.binary.port)
+            BinaryEndpoint binary = BinaryEndpoint.fromProperties(service, admin);
+            if (binary != null) {
+                System.out.println("Protocole binaire sur le port " + binary.getPort());
+            }
+
+            // Instrumentation : MBeans JMX + endpoint Prometheus local (parking.metrics.port)
+            service.getMetrics().addTransport(transport.metrics());
+            if (binary != null) service.getMetrics().addTransport(binary.metrics());
+            service.getMetrics().registerMBeans();
+            MetricsEndpoint metricsEndpoint = MetricsEndpoint.fromProperties(service.getMetrics());
+            if (metricsEndpoint != null) {
+                System.out.println("Métriques : http://localhost:" + metricsEndpoint.getPort() + "/metrics");
+            }
+
+            // Écrit les derniers événements en attente à l'arrêt du serveur
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    if (metricsEndpoint != null) metricsEndpoint.close();
+                    if (binary != null) binary.close();
+                    service.getExpiry().close();
+                    service.getSlotStarts().close();
+                    service.getHoldSweeper().close();
+                    service.getPricing().close();
+                    persistence.close();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }));
 
             // Liaison du service au registre RMI avec le nom "ParkingService"
-            Registry reg = LocateRegistry.getRegistry();
             reg.rebind("ParkingService", service);
             System.out.println("Serveur prêt !");
 
-            // Instanciation et liaison du service Admin au registre avec le nom "AdminService"
-            AdminServiceImpl admin = new AdminServiceImpl(service);
+            // Liaison du service Admin au registre avec le nom "AdminService"
             reg.rebind("AdminService", admin);
             System.out.println("Admin service prêt !");
 
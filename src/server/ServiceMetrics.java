@@ -0,0 +1,305 @@
+package server;
+
+import common.ZoneStats;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instrumentation du service : latence de chaque méthode, attente des verrous, compteurs
+ * et jauges (réservations, occupation, notifications).
+ *
+ * Le chemin critique n'appelle que {@link #record}, {@link #lockWait} et les compteurs :
+ * un histogramme choisi par l'ordinal d'un enum, des incréments atomiques, aucune allocation.
+ * Les jauges sont lues sur le service au moment de la consultation.
+ *
+ * Exposition : MBeans JMX (domaine "parking", voir {@link #registerMBeans()}) et format
+ * texte Prometheus ({@link #writePrometheus(StringBuilder)}, servi par {@link MetricsEndpoint}).
+ */
+public class ServiceMetrics implements ServiceMetricsMBean {
+
+    /** Méthodes instrumentées */
+    public enum Op {
+        LIST_AVAILABLE("listAvailableSpots"),
+        LIST_AVAILABLE_WINDOW("listAvailableSpotsWindow"),
+        AVAILABILITY_SNAPSHOT("getAvailabilitySnapshot"),
+        AVAILABILITY_CHANGES("getAvailabilityChanges"),
+        RESERVE("reserveSpot"),
+        QUOTE("quote"),
+        HOLD("holdSpot"),
+        RESERVE_SLOT("reserveSlot"),
+        RESERVE_BATCH("reserveSpots"),
+        PAY("payReservation"),
+        GET_RESERVATION("getReservation"),
+        CANCEL("cancelReservation"),
+        CANCEL_BATCH("cancelReservations"),
+        FREE("freeSpots"),
+        ADD_SPOTS("addSpots"),
+        REMOVE_SPOTS("removeSpots"),
+        ADD_ZONE("addZone"),
+        REMOVE_ZONE("removeZone"),
+        ZONE_STATS("getZoneStats"),
+        HISTORY("getSpotHistory"),
+        ALL_SPOTS("getAllSpots"),
+        ALL_RESERVATIONS("getAllReservations"),
+        FIND_RESERVATIONS("findReservations"),
+        FIND_ARCHIVED("findArchivedReservations"),
+        EXPIRE("expireReservations"),
+        START("startReservations"),
+        RELEASE_HOLDS("releaseHolds");
+
+        final String method;
+
+        Op(String method) {
+            this.method = method;
+        }
+    }
+
+    /** Verrous dont l'attente est mesurée */
+    public enum Lock {
+        STRUCTURE("structureLock"),
+        RESERVATION("reservationMonitor");
+
+        final String lockName;
+
+        Lock(String lockName) {
+            this.lockName = lockName;
+        }
+    }
+
+    private final ReservationServiceImpl service;
+    private final LatencyHistogram[] latency = new LatencyHistogram[Op.values().length];
+    private final LatencyHistogram[] lockWaits = new LatencyHistogram[Lock.values().length];
+
+    private final LongAdder reservations = new LongAdder();
+    private final LongAdder claimConflicts = new LongAdder();
+    private final LongAdder payments = new LongAdder();
+    private final LongAdder holdsReleased = new LongAdder();
+
+    /** Échantillon précédent du débit de réservations */
+    private long rateSampleNanos = System.nanoTime();
+    private long rateSampleCount;
+    private double rate;
+
+    /** Mesures des connexions des points d'accès (RMI, protocole binaire) */
+    private final List<TransportMetrics> transports = new CopyOnWriteArrayList<>();
+
+    public ServiceMetrics(ReservationServiceImpl service) {
+        this.service = service;
+        for (Op op : Op.values()) latency[op.ordinal()] = new LatencyHistogram(op.method);
+        for (Lock l : Lock.values()) lockWaits[l.ordinal()] = new LatencyHistogram(l.lockName);
+    }
+
+    // ======= Enregistrement (chemin critique) =======
+
+    /** Durée d'un appel commencé à startNanos (System.nanoTime()) */
+    public void record(Op op, long startNanos) {
+        latency[op.ordinal()].recordSince(startNanos);
+    }
+
+    /** Attente d'un verrou demandé à startNanos, à appeler dès qu'il est obtenu */
+    public void lockWait(Lock lock, long startNanos) {
+        lockWaits[lock.ordinal()].recordSince(startNanos);
+    }
+
+    public void reservationsCreated(int n) {
+        reservations.add(n);
+    }
+
+    /** Place demandée mais déjà prise par un autre client */
+    public void claimConflict() {
+        claimConflicts.increment();
+    }
+
+    public void paymentReceived() {
+        payments.increment();
+    }
+
+    /** Places bloquées relâchées faute de paiement */
+    public void holdsReleased(int n) {
+        holdsReleased.add(n);
+    }
+
+    public LatencyHistogram latency(Op op) {
+        return latency[op.ordinal()];
+    }
+
+    public LatencyHistogram lockWait(Lock lock) {
+        return lockWaits[lock.ordinal()];
+    }
+
+    // ======= Compteurs et jauges (ServiceMetricsMBean) =======
+
+    @Override
+    public long getReservationsTotal() { return reservations.sum(); }
+
+    /** Débit moyen entre deux lectures espacées d'au moins une seconde */
+    @Override
+    public synchronized double getReservationsPerSecond() {
+        long now = System.nanoTime();
+        long elapsed = now - rateSampleNanos;
+        if (elapsed >= 1_000_000_000L) {
+            long c = reservations.sum();
+            rate = (c - rateSampleCount) * 1e9 / elapsed;
+            rateSampleCount = c;
+            rateSampleNanos = now;
+        }
+        return rate;
+    }
+
+    @Override
+    public long getClaimConflicts() { return claimConflicts.sum(); }
+
+    @Override
+    public long getPaymentsTotal() { return payments.sum(); }
+
+    @Override
+    public long getHoldsReleased() { return holdsReleased.sum(); }
+
+    @Override
+    public int getActiveReservations() { return service.getReservations().size(); }
+
+    @Override
+    public int getPendingSlotStarts() { return service.pendingSlotStartCount(); }
+
+    @Override
+    public long getPendingExpiries() { return service.getExpiry().pendingCount(); }
+
+    @Override
+    public int getSpotCount() { return service.spotCount(); }
+
+    @Override
+    public int getFreeSpotCount() {
+        int free = 0;
+        for (ZoneStats z : service.getZoneStats()) free += z.getFree();
+        return free;
+    }
+
+    /** Part des places occupées (0 à 1) */
+    @Override
+    public double getOccupancy() {
+        int total = getSpotCount();
+        return total == 0 ? 0 : 1 - (double) getFreeSpotCount() / total;
+    }
+
+    @Override
+    public int getNotificationQueueDepth() { return service.getNotifier().pendingCount(); }
+
+    @Override
+    public int getNotificationListeners() { return service.getNotifier().listenerCount(); }
+
+    @Override
+    public long getNotificationsDelivered() { return service.getNotifier().deliveredCount(); }
+
+    @Override
+    public long getNotificationsDropped() { return service.getNotifier().droppedCount(); }
+
+    @Override
+    public long getNotificationFailures() { return service.getNotifier().failureCount(); }
+
+    @Override
+    public long getListenerEvictions() { return service.getNotifier().evictionCount(); }
+
+    @Override
+    public long getIdempotentReplays() { return service.getIdempotency().replayCount(); }
+
+    @Override
+    public int getIdempotencyCacheSize() { return service.getIdempotency().size(); }
+
+    /** Ajoute les mesures des connexions d'un point d'accès à l'exposition (avant registerMBeans) */
+    public void addTransport(TransportMetrics transport) {
+        if (transport != null) transports.add(transport);
+    }
+
+    // ======= Exposition =======
+
+    /**
+     * Enregistre les MBeans dans le serveur JMX de la plateforme :
+     * parking:type=Service, parking:type=Latency,name=&lt;méthode&gt; et
+     * parking:type=LockWait,name=&lt;verrou&gt;, et parking:type=Transport,name=&lt;protocole&gt; pour chaque point d'accès mesuré
+     */
+    public void registerMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, new ObjectName("parking:type=Service"));
+        for (LatencyHistogram h : latency) server.registerMBean(h, new ObjectName("parking:type=Latency,name=" + h.getName()));
+        for (LatencyHistogram h : lockWaits) server.registerMBean(h, new ObjectName("parking:type=LockWait,name=" + h.getName()));
+        for (TransportMetrics t : transports) server.registerMBean(t, new ObjectName("parking:type=Transport,name=" + t.getProtocol()));
+    }
+
+    /** Écrit toutes les métriques au format texte Prometheus (version 0.0.4) */
+    public void writePrometheus(StringBuilder out) {
+        out.append("# HELP parking_method_latency_seconds Durée des appels de service\n");
+        out.append("# TYPE parking_method_latency_seconds summary\n");
+        for (LatencyHistogram h : latency) summary(out, "parking_method_latency_seconds", "method", h);
+        out.append("# HELP parking_lock_wait_seconds Attente pour obtenir un verrou\n");
+        out.append("# TYPE parking_lock_wait_seconds summary\n");
+        for (LatencyHistogram h : lockWaits) summary(out, "parking_lock_wait_seconds", "lock", h);
+
+        counter(out, "parking_reservations_total", "Réservations créées", getReservationsTotal());
+        counter(out, "parking_claim_conflicts_total", "Places demandées déjà prises", getClaimConflicts());
+        counter(out, "parking_payments_total", "Paiements reçus", getPaymentsTotal());
+        counter(out, "parking_holds_released_total", "Places bloquées relâchées faute de paiement", getHoldsReleased());
+        gauge(out, "parking_active_reservations", "Réservations en cours", getActiveReservations());
+        gauge(out, "parking_pending_slot_starts", "Créneaux réservés pas encore commencés", getPendingSlotStarts());
+        gauge(out, "parking_pending_expiries", "Échéances programmées", getPendingExpiries());
+
+        out.append("# HELP parking_zone_spots Places par zone\n# TYPE parking_zone_spots gauge\n");
+        StringBuilder free = new StringBuilder("# HELP parking_zone_free_spots Places libres par zone\n# TYPE parking_zone_free_spots gauge\n");
+        int total = 0, totalFree = 0;
+        for (ZoneStats z : service.getZoneStats()) {
+            String label = "{zone=\"" + escape(z.getName()) + "\"} ";
+            out.append("parking_zone_spots").append(label).append(z.getTotal()).append('\n');
+            free.append("parking_zone_free_spots").append(label).append(z.getFree()).append('\n');
+            total += z.getTotal();
+            totalFree += z.getFree();
+        }
+        out.append(free);
+        gauge(out, "parking_occupancy_ratio", "Part des places occupées", total == 0 ? 0 : 1 - (double) totalFree / total);
+
+        gauge(out, "parking_notification_queue_depth", "Notifications en attente d'envoi", getNotificationQueueDepth());
+        gauge(out, "parking_notification_listeners", "Listeners clients enregistrés", getNotificationListeners());
+        counter(out, "parking_notifications_delivered_total", "Notifications délivrées", getNotificationsDelivered());
+        counter(out, "parking_notifications_dropped_total", "Notifications abandonnées (file pleine)", getNotificationsDropped());
+        counter(out, "parking_notification_failures_total", "Échecs d'appel des listeners", getNotificationFailures());
+        counter(out, "parking_listener_evictions_total", "Listeners retirés après échecs", getListenerEvictions());
+        counter(out, "parking_idempotent_replays_total", "Rejeux servis depuis la mémoire des requêtes", getIdempotentReplays());
+        gauge(out, "parking_idempotency_entries", "Requêtes mémorisées", getIdempotencyCacheSize());
+        if (!transports.isEmpty()) TransportMetrics.writePrometheus(out, transports);
+    }
+
+    private static void summary(StringBuilder out, String metric, String labelName, LatencyHistogram h) {
+        String label = labelName + "=\"" + h.getName() + "\"";
+        for (double q : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            out.append(metric).append('{').append(label).append(",quantile=\"").append(q).append("\"} ")
+                    .append(seconds(h.quantileNanos(q))).append('\n');
+        }
+        out.append(metric).append("_sum{").append(label).append("} ").append(seconds(h.getSumNanos())).append('\n');
+        out.append(metric).append("_count{").append(label).append("} ").append(h.getCount()).append('\n');
+    }
+
+    private static void counter(StringBuilder out, String metric, String help, long value) {
+        out.append("# HELP ").append(metric).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(metric).append(" counter\n");
+        out.append(metric).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String metric, String help, double value) {
+        out.append("# HELP ").append(metric).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(metric).append(" gauge\n");
+        out.append(metric).append(' ').append(value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value)).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
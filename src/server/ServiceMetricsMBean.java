@@ -0,0 +1,43 @@
+package server;
+
+/** Vue JMX des compteurs et jauges du service de réservation */
+public interface ServiceMetricsMBean {
+
+    long getReservationsTotal();
+
+    double getReservationsPerSecond();
+
+    long getClaimConflicts();
+
+    long getPaymentsTotal();
+
+    long getHoldsReleased();
+
+    int getActiveReservations();
+
+    int getPendingSlotStarts();
+
+    long getPendingExpiries();
+
+    int getSpotCount();
+
+    int getFreeSpotCount();
+
+    double getOccupancy();
+
+    int getNotificationQueueDepth();
+
+    int getNotificationListeners();
+
+    long getNotificationsDelivered();
+
+    long getNotificationsDropped();
+
+    long getNotificationFailures();
+
+    long getListenerEvictions();
+
+    long getIdempotentReplays();
+
+    int getIdempotencyCacheSize();
+}
@@ -0,0 +1,127 @@
+package server;
+
+import common.ParkingSpot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Registre des places, indexé directement par id.
+ *
+ * Les ids sont attribués par un compteur atomique strictement croissant : un id n'est jamais
+ * réutilisé, même après suppression de la place (une suppression laisse simplement la case
+ * vide). Les places sont rangées dans des blocs de 4096 cases, alloués à la demande : la
+ * lecture par id est un simple accès tableau, sans verrou, sans boxing ni allocation.
+ *
+ * Les blocs ne sont jamais réalloués (seul le tableau qui les référence est recopié en
+ * grandissant) ; les écritures sont sérialisées par le moniteur du registre.
+ */
+public class SpotRegistry {
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /** Blocs de cases (null = bloc jamais utilisé) */
+    private volatile AtomicReferenceArray<ParkingSpot>[] chunks = newChunkArray(0);
+
+    /** Prochain id attribué */
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    /** Nombre de places présentes */
+    private final AtomicInteger size = new AtomicInteger();
+
+    // ======= Attribution des ids =======
+
+    /** Nouvel id, jamais attribué auparavant (sans verrou) */
+    public int allocateId() {
+        return nextId.getAndIncrement();
+    }
+
+    /** Prochain id qui sera attribué */
+    public int nextId() {
+        return nextId.get();
+    }
+
+    /** Garantit que les ids déjà utilisés (jusqu'à maxUsedId inclus) ne seront plus attribués */
+    public void reserveIdsUpTo(int maxUsedId) {
+        nextId.accumulateAndGet(maxUsedId + 1, Math::max);
+    }
+
+    // ======= Lecture (sans verrou) =======
+
+    /** Place d'un id, ou null si elle n'existe pas (ou plus) */
+    public ParkingSpot get(int id) {
+        if (id <= 0) return null;
+        AtomicReferenceArray<ParkingSpot>[] cs = chunks;
+        int c = id >>> CHUNK_BITS;
+        if (c >= cs.length) return null;
+        AtomicReferenceArray<ParkingSpot> chunk = cs[c];
+        return chunk == null ? null : chunk.get(id & CHUNK_MASK);
+    }
+
+    public boolean contains(int id) {
+        return get(id) != null;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /** Toutes les places, par id croissant */
+    public List<ParkingSpot> values() {
+        List<ParkingSpot> list = new ArrayList<>(size.get());
+        for (AtomicReferenceArray<ParkingSpot> chunk : chunks) {
+            if (chunk == null) continue;
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                ParkingSpot p = chunk.get(i);
+                if (p != null) list.add(p);
+            }
+        }
+        return list;
+    }
+
+    // ======= Écriture =======
+
+    /**
+     * Range une place à la case de son id
+     * @return la place qui occupait cette case, ou null
+     */
+    public synchronized ParkingSpot put(ParkingSpot spot) {
+        int id = spot.getId();
+        if (id <= 0) throw new IllegalArgumentException("Id de place invalide: " + id);
+        reserveIdsUpTo(id);
+        int c = id >>> CHUNK_BITS;
+        AtomicReferenceArray<ParkingSpot>[] cs = chunks;
+        if (c >= cs.length) {
+            AtomicReferenceArray<ParkingSpot>[] grown = newChunkArray(Math.max(c + 1, cs.length * 2));
+            System.arraycopy(cs, 0, grown, 0, cs.length);
+            chunks = cs = grown;
+        }
+        if (cs[c] == null) {
+            cs[c] = new AtomicReferenceArray<>(CHUNK_SIZE);
+            chunks = cs; // republication du tableau (écriture volatile) pour les lecteurs
+        }
+        ParkingSpot old = cs[c].getAndSet(id & CHUNK_MASK, spot);
+        if (old == null) size.incrementAndGet();
+        return old;
+    }
+
+    /** Retire une place ; la case reste vide, l'id n'est pas réattribué */
+    public synchronized ParkingSpot remove(int id) {
+        if (id <= 0) return null;
+        AtomicReferenceArray<ParkingSpot>[] cs = chunks;
+        int c = id >>> CHUNK_BITS;
+        if (c >= cs.length || cs[c] == null) return null;
+        ParkingSpot old = cs[c].getAndSet(id & CHUNK_MASK, null);
+        if (old != null) size.decrementAndGet();
+        return old;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static AtomicReferenceArray<ParkingSpot>[] newChunkArray(int length) {
+        return (AtomicReferenceArray<ParkingSpot>[]) new AtomicReferenceArray[length];
+    }
+}
@@ -0,0 +1,63 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Planning d'une place : créneaux réservés, sans chevauchement, triés par début.
+ *
+ * Les créneaux sont des intervalles semi-ouverts [début, fin[ en millisecondes, rangés dans
+ * un arbre par date de début. Comme ils ne se chevauchent jamais, seul le créneau qui
+ * commence juste avant la fin d'une fenêtre peut la recouvrir : tester une fenêtre ou
+ * ajouter un créneau coûte une recherche en O(log n), quel que soit le nombre de
+ * réservations à venir sur la place.
+ *
+ * Les méthodes sont synchronisées sur le planning : deux réservations concurrentes du même
+ * créneau ne peuvent pas réussir toutes les deux.
+ */
+public class SpotSchedule {
+
+    /** Créneaux par date de début */
+    private final TreeMap<Long, Slot> slots = new TreeMap<>();
+
+    /** Un créneau réservé */
+    private record Slot(long end, String reservationId) {}
+
+    /** Vrai si aucun créneau ne recouvre [start, end[ */
+    public synchronized boolean isFree(long start, long end) {
+        Map.Entry<Long, Slot> before = slots.lowerEntry(end);
+        return before == null || before.getValue().end() <= start;
+    }
+
+    /**
+     * Réserve le créneau [start, end[ s'il est libre
+     * @return false si un créneau existant le recouvre
+     */
+    public synchronized boolean tryAdd(String reservationId, long start, long end) {
+        if (end <= start) throw new IllegalArgumentException("Créneau vide");
+        if (!isFree(start, end)) return false;
+        slots.put(start, new Slot(end, reservationId));
+        return true;
+    }
+
+    /** Retire le créneau d'une réservation (s'il lui appartient encore) */
+    public synchronized boolean remove(String reservationId, long start) {
+        Slot s = slots.get(start);
+        if (s == null || !s.reservationId().equals(reservationId)) return false;
+        slots.remove(start);
+        return true;
+    }
+
+    /** Réservations qui occupent un créneau, par date de début */
+    public synchronized List<String> reservationIds() {
+        List<String> ids = new ArrayList<>(slots.size());
+        for (Slot s : slots.values()) ids.add(s.reservationId());
+        return ids;
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+}
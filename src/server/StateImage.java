@@ -0,0 +1,291 @@
+package server;
+
+import common.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Image complète de l'état persistant (zones, places avec historique, réservations).
+ *
+ * Sert à la récupération au démarrage (snapshot + relecture du journal) et au compactage :
+ * un snapshot n'est rien d'autre qu'une image écrite sur disque avec la séquence du premier
+ * événement du journal qu'elle ne contient pas encore ({@link #nextSeq}).
+ */
+public class StateImage {
+
+    private static final int MAGIC = 0x504B534E; // "PKSN"
+    private static final int VERSION = 1;
+
+    /** État d'une réservation dans le snapshot */
+    private static final int HOLDER = 1, PENDING = 2;
+
+    final Map<String, ParkingZone> zones = new LinkedHashMap<>();
+    final Map<Integer, ParkingSpot> spots = new LinkedHashMap<>();
+    final Map<String, Reservation> reservations = new LinkedHashMap<>();
+
+    /** Réservation qui tient chaque place réservée : clé = id de la place */
+    final Map<Integer, String> holders = new HashMap<>();
+
+    /** Créneaux réservés à l'avance qui n'ont pas encore commencé (ids de réservation) */
+    final Set<String> pending = new HashSet<>();
+
+    /** Prochain id de place jamais attribué (les ids de places supprimées restent consommés) */
+    int nextSpotId = 1;
+
+    /** Total des paiements reçus par zone */
+    final Map<String, Double> revenue = new LinkedHashMap<>();
+
+    /** Séquence du premier événement du journal non encore appliqué à cette image */
+    long nextSeq;
+
+    public boolean isEmpty() {
+        return zones.isEmpty() && spots.isEmpty() && reservations.isEmpty();
+    }
+
+    public int spotCount() {
+        return spots.size();
+    }
+
+    public int reservationCount() {
+        return reservations.size();
+    }
+
+    // ======= Relecture du journal =======
+
+    /** Applique un événement du journal (voir {@link JournalEvents}) */
+    void apply(ByteBuffer buf) {
+        byte type = buf.get();
+        switch (type) {
+            case JournalEvents.ZONE_ADD -> {
+                String name = JournalEvents.getString(buf);
+                zones.put(name, new ParkingZone(name, JournalEvents.getString(buf)));
+            }
+            case JournalEvents.ZONE_REMOVE -> {
+                String name = JournalEvents.getString(buf);
+                zones.remove(name);
+                revenue.remove(name);
+            }
+            case JournalEvents.SPOT_ADD -> {
+                int id = buf.getInt();
+                nextSpotId = Math.max(nextSpotId, id + 1);
+                spots.put(id, new ParkingSpot(id, JournalEvents.getString(buf), JournalEvents.getString(buf)));
+            }
+            case JournalEvents.SPOT_REMOVE -> {
+                int id = buf.getInt();
+                spots.remove(id);
+                holders.remove(id);
+            }
+            case JournalEvents.RESERVE -> {
+                String id = JournalEvents.getString(buf);
+                ParkingSpot spot = spots.get(buf.getInt());
+                ClientInfo client = new ClientInfo(JournalEvents.getString(buf), JournalEvents.getString(buf));
+                Vehicle vehicle = new Vehicle(JournalEvents.getString(buf), JournalEvents.getString(buf), JournalEvents.getString(buf));
+                int hours = buf.getInt();
+                double amount = buf.getDouble();
+                LocalDateTime createdAt = JournalEvents.getTime(buf);
+                LocalDateTime startAt = buf.hasRemaining() ? JournalEvents.getTime(buf) : createdAt;
+                LocalDateTime holdUntil = buf.hasRemaining() ? optionalTime(buf.getLong()) : null;
+                if (spot == null) return;
+                Reservation r = new Reservation(id, client, vehicle, spot, hours, amount, createdAt, startAt, false);
+                r.setHoldUntil(holdUntil);
+                spot.addHistory(ReservationServiceImpl.reservationHistory(r));
+                reservations.put(id, r);
+                if (r.isScheduled()) {
+                    pending.add(id); // la place ne sera prise qu'au début du créneau (événement START)
+                } else {
+                    spot.setReserved(true);
+                    holders.put(spot.getId(), id);
+                }
+            }
+            case JournalEvents.START -> {
+                String id = JournalEvents.getString(buf);
+                JournalEvents.getTime(buf);
+                Reservation r = reservations.get(id);
+                if (r == null || !pending.remove(id)) return;
+                ParkingSpot spot = spots.get(r.getSpotId());
+                if (spot == null) return;
+                spot.setReserved(true);
+                holders.put(spot.getId(), id);
+            }
+            case JournalEvents.PAY -> {
+                Reservation r = reservations.get(JournalEvents.getString(buf));
+                JournalEvents.getString(buf); // méthode de paiement (non conservée dans l'état)
+                double amount = buf.getDouble();
+                LocalDateTime at = JournalEvents.getTime(buf);
+                if (r == null) return;
+                r.setPaid(true);
+                ParkingSpot spot = spots.get(r.getSpotId());
+                if (spot == null) return;
+                spot.addHistory(ReservationServiceImpl.paymentHistory(r, amount, at));
+                revenue.merge(spot.getRegion(), amount, Double::sum);
+            }
+            case JournalEvents.CANCEL, JournalEvents.EXPIRE -> {
+                String id = JournalEvents.getString(buf);
+                LocalDateTime at = JournalEvents.getTime(buf);
+                Reservation r = reservations.remove(id);
+                pending.remove(id);
+                ParkingSpot spot = r == null ? null : spots.get(r.getSpotId());
+                if (spot == null) return;
+                // la place n'est rendue que si cette réservation la tenait encore
+                if (holders.remove(spot.getId(), id)) spot.setReserved(false);
+                spot.addHistory(type == JournalEvents.CANCEL
+                        ? ReservationServiceImpl.cancelHistory(id, at)
+                        : ReservationServiceImpl.expireHistory(r, at));
+            }
+            case JournalEvents.FREE -> {
+                int spotId = buf.getInt();
+                LocalDateTime at = JournalEvents.getTime(buf);
+                ParkingSpot spot = spots.get(spotId);
+                if (spot == null) return;
+                holders.remove(spotId);
+                spot.setReserved(false);
+                spot.addHistory(ReservationServiceImpl.freeHistory(spotId, at));
+            }
+            default -> throw new IllegalStateException("Type d'événement inconnu: " + type);
+        }
+    }
+
+    // ======= Snapshots =======
+
+    /** Écrit l'image dans un fichier (via un fichier temporaire puis renommage atomique) */
+    void writeSnapshot(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(nextSeq);
+
+            out.writeInt(zones.size());
+            for (ParkingZone z : zones.values()) {
+                writeString(out, z.getName());
+                writeString(out, z.getDescription());
+            }
+
+            out.writeInt(spots.size());
+            for (ParkingSpot p : spots.values()) {
+                out.writeInt(p.getId());
+                writeString(out, p.getLabel());
+                writeString(out, p.getRegion());
+                out.writeBoolean(p.isReserved());
+                List<SpotHistory> history = p.getHistory();
+                out.writeInt(history.size());
+                for (int i = history.size() - 1; i >= 0; i--) { // du plus ancien au plus récent
+                    SpotHistory h = history.get(i);
+                    out.writeLong(JournalEvents.toMillis(h.getDate()));
+                    writeString(out, h.getType());
+                    writeString(out, h.getDetails());
+                    out.writeDouble(h.getAmount());
+                }
+            }
+
+            out.writeInt(reservations.size());
+            for (Reservation r : reservations.values()) {
+                writeString(out, r.getId());
+                out.writeInt(r.getSpotId());
+                writeString(out, r.getClient() == null ? null : r.getClient().getName());
+                writeString(out, r.getClient() == null ? null : r.getClient().getPhone());
+                writeString(out, r.getVehicle() == null ? null : r.getVehicle().getPlateNumber());
+                writeString(out, r.getVehicle() == null ? null : r.getVehicle().getModel());
+                writeString(out, r.getVehicle() == null ? null : r.getVehicle().getColor());
+                out.writeInt(r.getHours());
+                out.writeDouble(r.getAmount());
+                out.writeLong(JournalEvents.toMillis(r.getCreatedAt()));
+                out.writeBoolean(r.isPaid());
+                out.writeLong(JournalEvents.toMillis(r.getStartAt()));
+                out.writeByte(r.getId().equals(holders.get(r.getSpotId())) ? HOLDER : pending.contains(r.getId()) ? PENDING : 0);
+                out.writeLong(r.getHoldUntil() == null ? Long.MIN_VALUE : JournalEvents.toMillis(r.getHoldUntil()));
+            }
+
+            out.writeInt(revenue.size());
+            for (Map.Entry<String, Double> e : revenue.entrySet()) {
+                writeString(out, e.getKey());
+                out.writeDouble(e.getValue());
+            }
+
+            out.writeInt(nextSpotId);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Relit une image écrite par {@link #writeSnapshot(Path)} */
+    static StateImage readSnapshot(Path file) throws IOException {
+        StateImage img = new StateImage();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("Snapshot invalide: " + file);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Version de snapshot non supportée: " + version);
+            img.nextSeq = in.readLong();
+
+            int zoneCount = in.readInt();
+            for (int i = 0; i < zoneCount; i++) {
+                String name = readString(in);
+                img.zones.put(name, new ParkingZone(name, readString(in)));
+            }
+
+            int spotCount = in.readInt();
+            for (int i = 0; i < spotCount; i++) {
+                int id = in.readInt();
+                ParkingSpot p = new ParkingSpot(id, readString(in), readString(in));
+                p.setReserved(in.readBoolean());
+                int historyCount = in.readInt();
+                for (int h = 0; h < historyCount; h++) {
+                    LocalDateTime date = JournalEvents.toTime(in.readLong());
+                    p.addHistory(new SpotHistory(date, readString(in), readString(in), in.readDouble()));
+                }
+                img.spots.put(id, p);
+            }
+
+            int reservationCount = in.readInt();
+            for (int i = 0; i < reservationCount; i++) {
+                String id = readString(in);
+                ParkingSpot spot = img.spots.get(in.readInt());
+                ClientInfo client = new ClientInfo(readString(in), readString(in));
+                Vehicle vehicle = new Vehicle(readString(in), readString(in), readString(in));
+                int hours = in.readInt();
+                double amount = in.readDouble();
+                LocalDateTime createdAt = JournalEvents.toTime(in.readLong());
+                boolean paid = in.readBoolean();
+                LocalDateTime startAt = JournalEvents.toTime(in.readLong());
+                int state = in.readByte();
+                LocalDateTime holdUntil = optionalTime(in.readLong());
+                if (spot != null) {
+                    Reservation r = new Reservation(id, client, vehicle, spot, hours, amount, createdAt, startAt, paid);
+                    r.setHoldUntil(holdUntil);
+                    img.reservations.put(id, r);
+                    if (state == HOLDER) img.holders.put(spot.getId(), id);
+                    if (state == PENDING) img.pending.add(id);
+                }
+            }
+
+            int revenueCount = in.readInt();
+            for (int i = 0; i < revenueCount; i++) img.revenue.put(readString(in), in.readDouble());
+            img.nextSpotId = in.readInt();
+        }
+        return img;
+    }
+
+    /** Date optionnelle encodée en millisecondes (Long.MIN_VALUE = null) */
+    private static LocalDateTime optionalTime(long millis) {
+        return millis == Long.MIN_VALUE ? null : JournalEvents.toTime(millis);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
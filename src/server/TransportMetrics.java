@@ -0,0 +1,130 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mesures des connexions acceptées par un point d'accès du serveur : RMI (voir
+ * {@link RmiServerSocketFactory}) ou protocole binaire (voir {@link BinaryEndpoint}).
+ *
+ * Chaque connexion compte ses octets reçus et émis (sur le fil, donc après compression) ;
+ * les connexions ouvertes sont consultables une à une par JMX. À la fermeture, sa durée de
+ * vie et son volume rejoignent des histogrammes : on voit si les bornes réutilisent leurs
+ * connexions (longues, beaucoup d'octets) ou en rouvrent une à chaque appel.
+ */
+public class TransportMetrics implements TransportMetricsMBean {
+
+    /** Une connexion ouverte */
+    public final class Connection {
+        final long id = ids.incrementAndGet();
+        final String remote;
+        final long openedNanos = System.nanoTime();
+        final LongAdder received = new LongAdder();
+        final LongAdder sent = new LongAdder();
+
+        Connection(String remote) {
+            this.remote = remote;
+        }
+
+        public void received(int n) {
+            received.add(n);
+            bytesReceived.add(n);
+        }
+
+        public void sent(int n) {
+            sent.add(n);
+            bytesSent.add(n);
+        }
+
+        /** Fermeture : la connexion quitte la liste, ses totaux vont aux histogrammes */
+        public void closed() {
+            if (open.remove(id) == null) return; // déjà fermée
+            lifetime.recordSince(openedNanos);
+            volume.record(received.sum() + sent.sum()); // octets (l'histogramme ne connaît que des longs)
+        }
+    }
+
+    private final String protocol;
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<Long, Connection> open = new ConcurrentHashMap<>();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LatencyHistogram lifetime = new LatencyHistogram("connectionLifetime");
+    private final LatencyHistogram volume = new LatencyHistogram("connectionBytes");
+
+    /** @param protocol nom du point d'accès ("rmi", "binary"), étiquette des métriques */
+    public TransportMetrics(String protocol) {
+        this.protocol = protocol;
+    }
+
+    public String getProtocol() { return protocol; }
+
+    /** Nouvelle connexion acceptée */
+    public Connection opened(String remote) {
+        Connection c = new Connection(remote);
+        open.put(c.id, c);
+        accepted.increment();
+        return c;
+    }
+
+    @Override
+    public int getOpenConnections() { return open.size(); }
+
+    @Override
+    public long getAcceptedConnections() { return accepted.sum(); }
+
+    @Override
+    public long getBytesReceived() { return bytesReceived.sum(); }
+
+    @Override
+    public long getBytesSent() { return bytesSent.sum(); }
+
+    @Override
+    public String[] getConnections() {
+        long now = System.nanoTime();
+        List<String> lines = new ArrayList<>();
+        for (Connection c : open.values()) {
+            lines.add(String.format(Locale.ROOT, "#%d %s age=%.1fs in=%d out=%d",
+                    c.id, c.remote, (now - c.openedNanos) / 1e9, c.received.sum(), c.sent.sum()));
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    /** Écrit les métriques de plusieurs points d'accès au format texte Prometheus (étiquette protocol) */
+    public static void writePrometheus(StringBuilder out, List<TransportMetrics> transports) {
+        out.append("# HELP parking_transport_open_connections Connexions ouvertes\n# TYPE parking_transport_open_connections gauge\n");
+        for (TransportMetrics t : transports) t.sample(out, "parking_transport_open_connections", "", t.getOpenConnections());
+        out.append("# HELP parking_transport_accepted_connections_total Connexions acceptées\n# TYPE parking_transport_accepted_connections_total counter\n");
+        for (TransportMetrics t : transports) t.sample(out, "parking_transport_accepted_connections_total", "", t.getAcceptedConnections());
+        out.append("# HELP parking_transport_bytes_total Octets échangés sur le fil\n# TYPE parking_transport_bytes_total counter\n");
+        for (TransportMetrics t : transports) {
+            t.sample(out, "parking_transport_bytes_total", ",direction=\"in\"", t.getBytesReceived());
+            t.sample(out, "parking_transport_bytes_total", ",direction=\"out\"", t.getBytesSent());
+        }
+        out.append("# HELP parking_transport_connection_lifetime_seconds Durée de vie des connexions fermées\n# TYPE parking_transport_connection_lifetime_seconds summary\n");
+        for (TransportMetrics t : transports) {
+            for (double q : new double[]{0.5, 0.99}) {
+                t.sample(out, "parking_transport_connection_lifetime_seconds", ",quantile=\"" + q + "\"",
+                        String.format(Locale.ROOT, "%.6f", t.lifetime.quantileNanos(q) / 1e9));
+            }
+            t.sample(out, "parking_transport_connection_lifetime_seconds_count", "", t.lifetime.getCount());
+        }
+        out.append("# HELP parking_transport_connection_bytes Octets échangés par connexion fermée\n# TYPE parking_transport_connection_bytes summary\n");
+        for (TransportMetrics t : transports) {
+            for (double q : new double[]{0.5, 0.99}) {
+                t.sample(out, "parking_transport_connection_bytes", ",quantile=\"" + q + "\"", t.volume.quantileNanos(q));
+            }
+            t.sample(out, "parking_transport_connection_bytes_count", "", t.volume.getCount());
+        }
+    }
+
+    private void sample(StringBuilder out, String metric, String labels, Object value) {
+        out.append(metric).append("{protocol=\"").append(protocol).append('"').append(labels).append("} ").append(value).append('\n');
+    }
+}
@@ -0,0 +1,16 @@
+package server;
+
+/** Vue JMX des connexions RMI du serveur */
+public interface TransportMetricsMBean {
+
+    int getOpenConnections();
+
+    long getAcceptedConnections();
+
+    long getBytesReceived();
+
+    long getBytesSent();
+
+    /** Une ligne par connexion ouverte : adresse, âge, octets reçus et émis */
+    String[] getConnections();
+}
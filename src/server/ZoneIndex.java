@@ -0,0 +1,287 @@
+package server;
+
+import common.ParkingSpot;
+import common.ZoneStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Index secondaire des places par zone.
+ *
+ * Chaque zone range ses places dans des "slots" locaux, découpés en blocs de taille fixe.
+ * Un bitset par bloc (AtomicLongArray) marque les slots libres : la liste des places
+ * disponibles se lit mot par mot sans verrou, et les compteurs total/libres sont en O(1).
+ *
+ * Les blocs ne sont jamais réalloués (seul le tableau qui les référence est recopié en
+ * grandissant), donc une mise à jour du bitset par CAS reste valide pendant un agrandissement.
+ * Le slot de chaque place est retrouvé par son id dans une table dense d'entiers (les ids de
+ * places sont denses et croissants) : pas de boxing ni d'allocation sur le chemin de réservation.
+ * L'ajout et la suppression de places sont appelés sous le verrou de structure du service.
+ *
+ * Chaque zone tient aussi les compteurs du tableau de bord de l'admin (réservations non
+ * payées, recettes), mis à jour par le service à chaque changement : {@link #stats} est en O(1).
+ */
+public class ZoneIndex {
+
+    /** Nombre de slots par bloc (multiple de 64) */
+    private static final int CHUNK_SIZE = 1024;
+
+    /** Index des zones : clé = nom de la zone */
+    private final Map<String, Zone> zones = new ConcurrentHashMap<>();
+
+    /** Slot local de chaque place dans sa zone, indexé par id de place */
+    private final SlotTable slotOf = new SlotTable();
+
+    // ======= Structure (sous le verrou de structure du service) =======
+
+    /** Déclare une zone (sans effet si elle existe déjà) */
+    public void addZone(String name) {
+        zones.computeIfAbsent(name, Zone::new);
+    }
+
+    /** Retire une zone de l'index */
+    public void removeZone(String name) {
+        zones.remove(name);
+    }
+
+    /** Ajoute une place dans l'index de sa zone */
+    public void addSpot(ParkingSpot spot) {
+        zones.computeIfAbsent(spot.getRegion(), Zone::new).add(spot);
+    }
+
+    /** Retire une place de l'index de sa zone */
+    public void removeSpot(ParkingSpot spot) {
+        Zone z = zones.get(spot.getRegion());
+        if (z != null) z.remove(spot);
+    }
+
+    // ======= Mises à jour d'état (sans verrou) =======
+
+    /**
+     * Resynchronise le bit "libre" d'une place avec son état réel.
+     * À appeler après chaque changement de {@link ParkingSpot#isReserved()}.
+     */
+    public void refresh(ParkingSpot spot) {
+        Zone z = zones.get(spot.getRegion());
+        if (z != null) z.refresh(spot);
+    }
+
+    // ======= Lectures (sans verrou) =======
+
+    /** Places libres d'une zone, en O(taille du résultat + slots / 64) */
+    public List<ParkingSpot> availableSpots(String zoneName) {
+        Zone z = zones.get(zoneName);
+        return z == null ? new ArrayList<>() : z.available(new ArrayList<>(z.free.get()));
+    }
+
+    /** Places libres de toutes les zones */
+    public List<ParkingSpot> availableSpots() {
+        List<ParkingSpot> list = new ArrayList<>();
+        for (Zone z : zones.values()) z.available(list);
+        return list;
+    }
+
+    /** Toutes les places d'une zone */
+    public List<ParkingSpot> spots(String zoneName) {
+        Zone z = zones.get(zoneName);
+        return z == null ? new ArrayList<>() : z.all();
+    }
+
+    /** Nombre total de places d'une zone, en O(1) */
+    public int totalCount(String zoneName) {
+        Zone z = zones.get(zoneName);
+        return z == null ? 0 : z.total;
+    }
+
+    /** Nombre de places libres d'une zone, en O(1) */
+    public int freeCount(String zoneName) {
+        Zone z = zones.get(zoneName);
+        return z == null ? 0 : z.free.get();
+    }
+
+    // ======= Compteurs du tableau de bord =======
+
+    /** Ajoute delta au nombre de réservations non payées d'une zone */
+    public void adjustUnpaid(String zoneName, int delta) {
+        if (zoneName == null) return;
+        Zone z = zones.get(zoneName);
+        if (z != null) z.unpaid.addAndGet(delta);
+    }
+
+    /** Ajoute un paiement aux recettes d'une zone */
+    public void addRevenue(String zoneName, double amount) {
+        if (zoneName == null) return;
+        Zone z = zones.get(zoneName);
+        if (z != null) z.revenue.add(amount);
+    }
+
+    /** Résumé d'une zone, en O(1) */
+    public ZoneStats stats(String zoneName) {
+        Zone z = zones.get(zoneName);
+        if (z == null) return new ZoneStats(zoneName, 0, 0, 0, 0);
+        return new ZoneStats(zoneName, z.total, z.free.get(), z.unpaid.get(), z.revenue.sum());
+    }
+
+    /** Un bloc de slots : les places et le bitset des slots libres */
+    private static final class Chunk {
+        final AtomicReferenceArray<ParkingSpot> spots = new AtomicReferenceArray<>(CHUNK_SIZE);
+        final AtomicLongArray freeBits = new AtomicLongArray(CHUNK_SIZE / 64);
+    }
+
+    /**
+     * Table id de place → slot local, en blocs d'entiers alloués à la demande.
+     * Valeur stockée = slot + 1 (0 = place absente). Écritures sous le verrou de structure.
+     */
+    private static final class SlotTable {
+        private static final int BITS = 12;
+        private static final int SIZE = 1 << BITS;
+
+        private volatile AtomicIntegerArray[] blocks = new AtomicIntegerArray[0];
+
+        int get(int id) {
+            AtomicIntegerArray[] bs = blocks;
+            int b = id >>> BITS;
+            if (id < 0 || b >= bs.length || bs[b] == null) return -1;
+            return bs[b].get(id & (SIZE - 1)) - 1;
+        }
+
+        void set(int id, int slot) {
+            int b = id >>> BITS;
+            AtomicIntegerArray[] bs = blocks;
+            if (b >= bs.length) bs = Arrays.copyOf(bs, Math.max(b + 1, bs.length * 2));
+            if (bs[b] == null) bs[b] = new AtomicIntegerArray(SIZE);
+            bs[b].set(id & (SIZE - 1), slot + 1);
+            blocks = bs;
+        }
+
+        int remove(int id) {
+            int slot = get(id);
+            if (slot >= 0) blocks[id >>> BITS].set(id & (SIZE - 1), 0);
+            return slot;
+        }
+    }
+
+    /** Index d'une zone */
+    private final class Zone {
+        final String name;
+
+        /** Blocs de slots ; le tableau est remplacé en grandissant, les blocs restent les mêmes */
+        volatile Chunk[] chunks = new Chunk[0];
+
+        /** Slots libérés par des suppressions, réutilisés en priorité */
+        int[] recycled = new int[8];
+        int recycledCount;
+
+        /** Prochain slot jamais utilisé */
+        int nextSlot;
+
+        /** Nombre de places dans la zone (écrit sous le verrou de structure) */
+        volatile int total;
+
+        /** Nombre de places libres (bits à 1) */
+        final AtomicInteger free = new AtomicInteger();
+
+        /** Réservations en cours non payées sur les places de la zone */
+        final AtomicInteger unpaid = new AtomicInteger();
+
+        /** Total des paiements reçus */
+        final DoubleAdder revenue = new DoubleAdder();
+
+        Zone(String name) {
+            this.name = name;
+        }
+
+        void add(ParkingSpot spot) {
+            int slot = recycledCount > 0 ? recycled[--recycledCount] : nextSlot++;
+            Chunk[] cs = chunks;
+            int c = slot / CHUNK_SIZE;
+            if (c >= cs.length) {
+                cs = Arrays.copyOf(cs, c + 1);
+                cs[c] = new Chunk();
+                chunks = cs;
+            }
+            cs[c].spots.set(slot % CHUNK_SIZE, spot);
+            slotOf.set(spot.getId(), slot);
+            total++;
+            refresh(spot);
+        }
+
+        void remove(ParkingSpot spot) {
+            int slot = slotOf.remove(spot.getId());
+            if (slot < 0) return;
+            Chunk chunk = chunks[slot / CHUNK_SIZE];
+            chunk.spots.set(slot % CHUNK_SIZE, null);
+            setFree(chunk, slot % CHUNK_SIZE, false);
+            if (recycledCount == recycled.length) recycled = Arrays.copyOf(recycled, recycledCount * 2);
+            recycled[recycledCount++] = slot;
+            total--;
+        }
+
+        /**
+         * Aligne le bit sur l'état de la place. On relit l'état après l'écriture : si un autre
+         * thread l'a changé entre-temps, on recommence, si bien que le dernier écrivain laisse
+         * toujours le bit cohérent.
+         */
+        void refresh(ParkingSpot spot) {
+            int slot = slotOf.get(spot.getId());
+            if (slot < 0) return;
+            Chunk chunk = chunks[slot / CHUNK_SIZE];
+            int local = slot % CHUNK_SIZE;
+            boolean isFree;
+            do {
+                isFree = !spot.isReserved();
+                setFree(chunk, local, isFree);
+            } while (isFree == spot.isReserved() && chunk.spots.get(local) == spot);
+        }
+
+        /** Positionne un bit par CAS et ajuste le compteur seulement s'il a réellement changé */
+        void setFree(Chunk chunk, int local, boolean isFree) {
+            int word = local >>> 6;
+            long mask = 1L << local;
+            while (true) {
+                long cur = chunk.freeBits.get(word);
+                long next = isFree ? (cur | mask) : (cur & ~mask);
+                if (cur == next) return;
+                if (chunk.freeBits.compareAndSet(word, cur, next)) {
+                    free.addAndGet(isFree ? 1 : -1);
+                    return;
+                }
+            }
+        }
+
+        List<ParkingSpot> available(List<ParkingSpot> out) {
+            for (Chunk chunk : chunks) {
+                for (int w = 0; w < CHUNK_SIZE / 64; w++) {
+                    long bits = chunk.freeBits.get(w);
+                    while (bits != 0) {
+                        int local = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                        ParkingSpot p = chunk.spots.get(local);
+                        if (p != null && !p.isReserved()) out.add(p);
+                    }
+                }
+            }
+            return out;
+        }
+
+        List<ParkingSpot> all() {
+            List<ParkingSpot> out = new ArrayList<>(total);
+            for (Chunk chunk : chunks) {
+                for (int i = 0; i < CHUNK_SIZE; i++) {
+                    ParkingSpot p = chunk.spots.get(i);
+                    if (p != null) out.add(p);
+                }
+            }
+            return out;
+        }
+    }
+}
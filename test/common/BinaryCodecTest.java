@@ -0,0 +1,166 @@
+package common;
+
+import common.BinaryCodec.In;
+import common.BinaryCodec.Out;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryCodecTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2026, 3, 1, 23, 30, 15, 123_000_000);
+
+    @Test
+    void reservationRoundTripKeepsEveryField() throws IOException {
+        Reservation r = new Reservation("r-1", new ClientInfo("Amel", "+216 20 000 000"), new Vehicle("123 TU 4567", "Clio", "rouge"),
+                7, "A7", 3, 12.5, T, T.plusDays(1), true);
+        r.setHoldUntil(T.plusMinutes(10));
+
+        Reservation back = roundTrip(r, BinaryCodec::writeReservation, BinaryCodec::readReservation);
+
+        assertEquals("r-1", back.getId());
+        assertEquals("Amel", back.getClient().getName());
+        assertEquals("+216 20 000 000", back.getClient().getPhone());
+        assertEquals("123 TU 4567", back.getVehicle().getPlateNumber());
+        assertEquals("Clio", back.getVehicle().getModel());
+        assertEquals("rouge", back.getVehicle().getColor());
+        assertEquals(7, back.getSpotId());
+        assertEquals("A7", back.getSpotLabel());
+        assertEquals(3, back.getHours());
+        assertEquals(12.5, back.getAmount());
+        assertEquals(T, back.getCreatedAt());
+        assertEquals(T.plusDays(1), back.getStartAt());
+        assertEquals(T.plusMinutes(10), back.getHoldUntil());
+        assertTrue(back.isPaid());
+    }
+
+    @Test
+    void nullsSurviveTheRoundTrip() throws IOException {
+        Reservation r = new Reservation("r-2", null, null, 1, null, 1, 0, T, T, false);
+        Reservation back = roundTrip(r, BinaryCodec::writeReservation, BinaryCodec::readReservation);
+        assertNull(back.getClient());
+        assertNull(back.getVehicle());
+        assertNull(back.getSpotLabel());
+        assertNull(back.getHoldUntil());
+        assertFalse(back.isPaid());
+
+        assertNull(roundTrip(null, BinaryCodec::writeReservation, BinaryCodec::readReservation));
+        assertNull(roundTrip(null, BinaryCodec::writeSpot, BinaryCodec::readSpot));
+        assertNull(roundTrip(null, BinaryCodec::writeString, BinaryCodec::readString));
+        assertNull(roundTrip(null, BinaryCodec::writeTime, BinaryCodec::readTime));
+        assertNull(roundTrip(null, BinaryCodec::writeInts, BinaryCodec::readInts));
+    }
+
+    @Test
+    void spotAndListsRoundTrip() throws IOException {
+        ParkingSpot spot = new ParkingSpot(42, "B2", "Nord");
+        spot.setReserved(true);
+        ParkingSpot back = roundTrip(spot, BinaryCodec::writeSpot, BinaryCodec::readSpot);
+        assertEquals(42, back.getId());
+        assertEquals("B2", back.getLabel());
+        assertEquals("Nord", back.getRegion());
+        assertTrue(back.isReserved());
+
+        assertEquals(List.of(1, -2, Integer.MAX_VALUE), roundTrip(List.of(1, -2, Integer.MAX_VALUE), BinaryCodec::writeInts, BinaryCodec::readInts));
+        assertEquals(Arrays.asList("é", null, ""), roundTrip(Arrays.asList("é", null, ""), BinaryCodec::writeStrings, BinaryCodec::readStrings));
+        assertEquals(List.of(), roundTrip(List.of(), BinaryCodec::writeStrings, BinaryCodec::readStrings));
+    }
+
+    @Test
+    void deltaAndBatchRoundTrip() throws IOException {
+        AvailabilityDelta delta = new AvailabilityDelta(List.of(
+                new AvailabilityChange(5, new ParkingSpot(1, "A1", "Sud"), true),
+                new AvailabilityChange(6, new ParkingSpot(2, "A2", "Sud"), false)), 6, false, 3);
+        AvailabilityDelta d = roundTrip(delta, BinaryCodec::writeDelta, BinaryCodec::readDelta);
+        assertEquals(6, d.getSeq());
+        assertEquals(3, d.getZonesVersion());
+        assertFalse(d.isResetRequired());
+        assertEquals(2, d.getChanges().size());
+        AvailabilityChange c = d.getChanges().get(1);
+        assertEquals(6, c.getSeq());
+        assertEquals(2, c.getSpotId());
+        assertEquals("A2", c.getLabel());
+        assertEquals("Sud", c.getRegion());
+        assertFalse(c.isAvailable());
+
+        BatchResult<Boolean> batch = new BatchResult<>(3);
+        batch.succeed(0, true);
+        batch.fail(1, "Place introuvable: 9");
+        batch.succeed(2, false);
+        BatchResult<Boolean> b = roundTrip(batch, (o, v) -> BinaryCodec.writeBatch(o, v, DataOutputStream::writeBoolean),
+                i -> BinaryCodec.readBatch(i, In::readBoolean));
+        assertEquals(3, b.size());
+        assertEquals(true, b.get(0));
+        assertEquals("Place introuvable: 9", b.getError(1));
+        assertEquals(false, b.get(2));
+    }
+
+    @Test
+    void queriesAndPagesRoundTrip() throws IOException {
+        ReservationQuery query = new ReservationQuery(false, "+216", "TU", "Nord", T, T.plusHours(2), 50, 1234);
+        ReservationQuery q = roundTrip(query, BinaryCodec::writeReservationQuery, BinaryCodec::readReservationQuery);
+        assertEquals(false, q.getPaid());
+        assertEquals("+216", q.getPhone());
+        assertEquals("TU", q.getPlate());
+        assertEquals("Nord", q.getZone());
+        assertEquals(T, q.getFrom());
+        assertEquals(T.plusHours(2), q.getTo());
+        assertEquals(50, q.getPageSize());
+        assertEquals(1234, q.getCursor());
+        assertNull(roundTrip(ReservationQuery.byPlate("TU", 10), BinaryCodec::writeReservationQuery,
+                BinaryCodec::readReservationQuery).getPaid());
+
+        HistoryQuery history = new HistoryQuery(T, null, Set.of("PAIEMENT"), 20, 99);
+        HistoryQuery h = roundTrip(history, BinaryCodec::writeHistoryQuery, BinaryCodec::readHistoryQuery);
+        assertEquals(T, h.getFrom());
+        assertNull(h.getTo());
+        assertEquals(Set.of("PAIEMENT"), h.getTypes());
+        assertEquals(20, h.getPageSize());
+        assertEquals(99, h.getCursor());
+
+        ReservationPage page = new ReservationPage(List.of(new Reservation("r-3", null, null, 3, "C3", 2, 4, T, T, false)), ReservationPage.END);
+        ReservationPage p = roundTrip(page, BinaryCodec::writeReservationPage, BinaryCodec::readReservationPage);
+        assertEquals(1, p.getItems().size());
+        assertEquals("r-3", p.getItems().get(0).getId());
+        assertFalse(p.hasNext());
+    }
+
+    @Test
+    void timesKeepMillisecondsOnly() throws IOException {
+        LocalDateTime precise = T.plusNanos(456_789);
+        assertEquals(precise.truncatedTo(ChronoUnit.MILLIS), roundTrip(precise, BinaryCodec::writeTime, BinaryCodec::readTime));
+    }
+
+    @Test
+    void unknownVersionIsRejected() throws IOException {
+        byte[] bytes = encode(new ParkingSpot(1, "A1", "Sud"), BinaryCodec::writeSpot);
+        bytes[1] = 99; // octet de version, après le marqueur non nul
+        assertThrows(IOException.class, () -> BinaryCodec.readSpot(new In(new ByteArrayInputStream(bytes))));
+    }
+
+    private static <T> byte[] encode(T value, BinaryCodec.Writer<T> writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Out out = new Out(bytes);
+        writer.write(out, value);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /** Encode puis décode la valeur, en vérifiant que tout l'encodage est consommé */
+    private static <T> T roundTrip(T value, BinaryCodec.Writer<T> writer, BinaryCodec.Reader<T> reader) throws IOException {
+        In in = new In(new ByteArrayInputStream(encode(value, writer)));
+        T back = reader.read(in);
+        assertEquals(0, in.available(), "octets non lus");
+        return back;
+    }
+}
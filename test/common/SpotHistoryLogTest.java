@@ -0,0 +1,75 @@
+package common;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpotHistoryLogTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2026, 1, 1, 8, 0);
+
+    @Test
+    void keepsTheNewestEventsAndEvictsTheOldestInOrder() {
+        SpotHistoryLog log = new SpotHistoryLog(10);
+        List<String> evicted = new ArrayList<>();
+        log.setOverflow(item -> evicted.add(item.getDetails()));
+        for (int i = 0; i < 25; i++) log.add(event(i));
+
+        assertEquals(10, log.size());
+        assertEquals(25, log.appendedCount());
+        for (int i = 0; i < 10; i++) assertEquals("e" + (24 - i), log.newest(i).getDetails());
+        assertEquals(T.plusMinutes(24), log.newest(0).getDate());
+        assertThrows(IndexOutOfBoundsException.class, () -> log.newest(10));
+
+        assertEquals(15, evicted.size());
+        for (int i = 0; i < 15; i++) assertEquals("e" + i, evicted.get(i));
+    }
+
+    @Test
+    void growingKeepsEventsInOrder() {
+        SpotHistoryLog log = new SpotHistoryLog(100);
+        for (int i = 0; i < 37; i++) log.add(event(i)); // plusieurs agrandissements
+        List<SpotHistory> list = log.toList();
+        assertEquals(37, list.size());
+        for (int i = 0; i < 37; i++) {
+            SpotHistory h = list.get(i);
+            assertEquals("e" + (36 - i), h.getDetails());
+            assertEquals(i % 2 == 0 ? "RESERVATION" : "PAYMENT", h.getType());
+            assertEquals(36 - i, h.getAmount());
+        }
+    }
+
+    @Test
+    void sequencesStayStableAfterEviction() {
+        SpotHistoryLog log = new SpotHistoryLog(4);
+        for (int i = 0; i < 9; i++) log.add(event(i));
+        assertEquals(5, log.oldestSeq());
+        assertNull(log.bySeq(4)); // écrasé
+        assertEquals(-1, log.typeBySeq(4));
+        assertEquals(Long.MIN_VALUE, log.timeBySeq(9)); // pas encore ajouté
+        assertEquals("e5", log.bySeq(5).getDetails());
+        assertEquals("e8", log.bySeq(8).getDetails());
+        assertEquals(SpotHistoryLog.toMillis(T.plusMinutes(6)), log.timeBySeq(6));
+        assertEquals(SpotHistoryLog.typeCode("RESERVATION"), log.typeBySeq(6));
+
+        log.setAppendedCount(100); // recalage sur l'archive après récupération
+        assertEquals(96, log.oldestSeq());
+        assertEquals("e8", log.bySeq(99).getDetails());
+    }
+
+    @Test
+    void withoutOverflowOldEventsAreDropped() {
+        SpotHistoryLog log = new SpotHistoryLog(1);
+        log.add(event(0));
+        log.add(event(1));
+        assertEquals(List.of("e1"), log.toList().stream().map(SpotHistory::getDetails).toList());
+    }
+
+    private static SpotHistory event(int i) {
+        return new SpotHistory(T.plusMinutes(i), i % 2 == 0 ? "RESERVATION" : "PAYMENT", "e" + i, i);
+    }
+}
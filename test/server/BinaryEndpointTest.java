@@ -0,0 +1,101 @@
+package server;
+
+import common.BinaryProtocol;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.rmi.server.UnicastRemoteObject;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryEndpointTest {
+
+    private static final int REQUESTS = 1_000_000;
+
+    private ReservationServiceImpl service;
+    private AdminServiceImpl admin;
+    private BinaryEndpoint endpoint;
+
+    @BeforeEach
+    void start() throws Exception {
+        service = new ReservationServiceImpl();
+        admin = new AdminServiceImpl(service);
+        endpoint = new BinaryEndpoint(service, admin, 0, 4, 8);
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        endpoint.close();
+        UnicastRemoteObject.unexportObject(admin, true);
+        UnicastRemoteObject.unexportObject(service, true);
+        service.getExpiry().close();
+        service.getSlotStarts().close();
+        service.getHoldSweeper().close();
+    }
+
+    @Test
+    void pipelinedResponsesAllComeBack() throws Exception {
+        try (Socket socket = connect()) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            for (int id = 1; id <= 1000; id++) writeQuote(out, id);
+            out.flush();
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            boolean[] seen = new boolean[1001];
+            for (int i = 0; i < 1000; i++) {
+                byte[] frame = new byte[in.readInt()];
+                in.readFully(frame);
+                int id = new DataInputStream(new ByteArrayInputStream(frame)).readInt();
+                assertFalse(seen[id]);
+                seen[id] = true;
+            }
+        }
+    }
+
+    @Test
+    void clientThatNeverReadsIsThrottled() throws Exception {
+        try (Socket socket = connect()) {
+            Thread writer = Thread.ofVirtual().start(() -> {
+                try {
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                    for (int id = 1; id <= REQUESTS; id++) writeQuote(out, id);
+                    out.flush();
+                } catch (IOException e) {
+                    // socket fermée à la fin du test
+                }
+            });
+            // sans frein, le serveur lit tout et garde les réponses en mémoire
+            long total = 5L + REQUESTS * 17L;
+            Thread.sleep(3000);
+            long received = endpoint.metrics().getBytesReceived();
+            assertTrue(writer.isAlive(), "le client aurait dû être bloqué");
+            assertTrue(received < total / 2, "octets lus par le serveur: " + received + " sur " + total);
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(4096); // avant connect : petite fenêtre annoncée
+        socket.connect(new InetSocketAddress("localhost", endpoint.getPort()));
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        out.writeInt(BinaryProtocol.MAGIC);
+        out.writeByte(BinaryProtocol.VERSION);
+        out.flush();
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        assertEquals(BinaryProtocol.MAGIC, in.readInt());
+        assertEquals(BinaryProtocol.VERSION, in.readUnsignedByte());
+        return socket;
+    }
+
+    /** Requête QUOTE sur une place inexistante : réponse d'erreur courte, sans effet sur le service */
+    private static void writeQuote(DataOutputStream out, int id) throws IOException {
+        out.writeInt(13);
+        out.writeInt(id);
+        out.writeByte(BinaryProtocol.Op.QUOTE.ordinal());
+        out.writeInt(-1);
+        out.writeInt(1);
+    }
+}
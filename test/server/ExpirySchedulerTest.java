@@ -0,0 +1,165 @@
+package server;
+
+import common.ClientInfo;
+import common.ParkingSpot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.rmi.server.UnicastRemoteObject;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpirySchedulerTest {
+
+    private TimeZone defaultZone;
+    private final List<String> expired = new CopyOnWriteArrayList<>();
+    private ExpiryScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        defaultZone = TimeZone.getDefault();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) scheduler.close();
+        TimeZone.setDefault(defaultZone);
+        System.clearProperty("parking.expiry.tickMs");
+    }
+
+    private void start(long tickMs) {
+        scheduler = new ExpiryScheduler(expired::addAll, "test-expiry", tickMs, 64);
+        scheduler.start();
+    }
+
+    @Test
+    void localDeadlinesFollowTheJvmZone() throws Exception {
+        for (String zone : new String[]{"America/New_York", "Africa/Tunis"}) {
+            TimeZone.setDefault(TimeZone.getTimeZone(zone));
+            expired.clear();
+            start(50);
+            scheduler.schedule("later", LocalDateTime.now().plusHours(1));
+            scheduler.schedule("soon", LocalDateTime.now().plusNanos(300_000_000));
+            Thread.sleep(1000);
+            assertEquals(List.of("soon"), expired, zone);
+            scheduler.close();
+        }
+    }
+
+    @Test
+    void deadlinesCascadeFromUpperWheelsOnTime() throws Exception {
+        Map<String, Long> firedAt = new ConcurrentHashMap<>();
+        scheduler = new ExpiryScheduler(ids -> ids.forEach(id -> firedAt.put(id, System.currentTimeMillis())),
+                "test-expiry", 1, 64);
+        scheduler.start();
+        long base = System.currentTimeMillis();
+        // 1 ms par tick : au-delà de 255 ms l'échéance passe par la deuxième roue avant de redescendre
+        long[] delays = {5, 255, 256, 257, 511, 512, 700, 1000, 1500};
+        for (long d : delays) scheduler.schedule("d" + d, base + d);
+        Thread.sleep(2000);
+        for (long d : delays) {
+            Long at = firedAt.get("d" + d);
+            assertNotNull(at, "échéance perdue: " + d);
+            assertTrue(at >= base + d, "échéance " + d + " traitée en avance de " + (base + d - at) + " ms");
+            assertTrue(at < base + d + 200, "échéance " + d + " traitée en retard de " + (at - base - d) + " ms");
+        }
+        assertEquals(0, scheduler.pendingCount());
+        assertEquals(delays.length, scheduler.expiredCount());
+    }
+
+    @Test
+    void everyDeadlineFiresOnceInBoundedBatches() throws Exception {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        scheduler = new ExpiryScheduler(ids -> {
+            batchSizes.add(ids.size());
+            expired.addAll(ids);
+        }, "test-expiry", 1, 64);
+        scheduler.start();
+        long base = System.currentTimeMillis();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 5000; i++) scheduler.schedule("r" + i, base + random.nextLong(-100, 800));
+        Thread.sleep(1500);
+        assertEquals(5000, expired.size());
+        assertEquals(5000, new HashSet<>(expired).size());
+        assertTrue(batchSizes.stream().allMatch(n -> n <= 64));
+        assertEquals(0, scheduler.pendingCount());
+    }
+
+    @Test
+    void reservationOutsideUtcIsNotExpiredEarly() throws Exception {
+        ReservationServiceImpl service = newService("America/New_York");
+        try {
+            service.addZone("Z");
+            ParkingSpot spot = service.addSpot("A1", "Z");
+            String id = service.reserveSpot(new ClientInfo("Test", "22123456"), null, spot.getId(), 1).getId();
+            Thread.sleep(1500);
+            assertNotNull(service.getReservation(id));
+            assertTrue(service.getSpot(spot.getId()).isReserved());
+        } finally {
+            close(service);
+        }
+    }
+
+    @Test
+    void holdOutsideUtcIsNotReleasedEarly() throws Exception {
+        ReservationServiceImpl service = newService("America/New_York");
+        try {
+            service.addZone("Z");
+            ParkingSpot spot = service.addSpot("A1", "Z");
+            String id = service.holdSpot("req-1", new ClientInfo("Test", "22123456"), null, spot.getId(), 1).getId();
+            Thread.sleep(1500);
+            assertNotNull(service.getReservation(id));
+            assertTrue(service.getSpot(spot.getId()).isReserved());
+        } finally {
+            close(service);
+        }
+    }
+
+    @Test
+    void futureSlotStartsOnTimeOutsideUtc() throws Exception {
+        ReservationServiceImpl service = newService("America/New_York");
+        try {
+            service.addZone("Z");
+            ParkingSpot spot = service.addSpot("A1", "Z");
+            service.reserveSpot(new ClientInfo("Test", "22123456"), null, spot.getId(), LocalDateTime.now().plusHours(2), 1);
+            Thread.sleep(1500);
+            assertFalse(service.getSpot(spot.getId()).isReserved()); // le créneau n'a pas commencé
+        } finally {
+            close(service);
+        }
+
+        service = newService("Africa/Tunis");
+        try {
+            service.addZone("Z");
+            ParkingSpot spot = service.addSpot("A1", "Z");
+            service.reserveSpot(new ClientInfo("Test", "22123456"), null, spot.getId(), LocalDateTime.now().plusSeconds(1), 1);
+            Thread.sleep(2500);
+            assertTrue(service.getSpot(spot.getId()).isReserved()); // le créneau a commencé à l'heure
+        } finally {
+            close(service);
+        }
+    }
+
+    /** Service en mémoire dans un fuseau donné, avec un échéancier au dixième de seconde */
+    private static ReservationServiceImpl newService(String zone) throws Exception {
+        TimeZone.setDefault(TimeZone.getTimeZone(zone));
+        System.setProperty("parking.expiry.tickMs", "100");
+        return new ReservationServiceImpl();
+    }
+
+    private static void close(ReservationServiceImpl service) throws Exception {
+        UnicastRemoteObject.unexportObject(service, true);
+        service.getExpiry().close();
+        service.getSlotStarts().close();
+        service.getHoldSweeper().close();
+    }
+}
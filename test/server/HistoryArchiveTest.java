@@ -0,0 +1,78 @@
+package server;
+
+import common.SpotHistory;
+import common.SpotHistoryLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryArchiveTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2026, 1, 1, 8, 0);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void evictedEventsLandInTheArchive() throws Exception {
+        Path file = dir.resolve("history.dat");
+        try (HistoryArchive archive = new HistoryArchive(file)) {
+            SpotHistoryLog a = new SpotHistoryLog(3), b = new SpotHistoryLog(3);
+            a.setOverflow(archive.overflowFor(1));
+            b.setOverflow(archive.overflowFor(2));
+            for (int i = 0; i < 10; i++) {
+                a.add(event(i, "a"));
+                b.add(event(i, "b"));
+            }
+            assertEquals(7, archive.count(1));
+            assertEquals(7, archive.count(2));
+            assertEquals(0, archive.count(3));
+            assertEquals("a0", archive.get(1, 0).getDetails());
+            assertEquals(SpotHistoryLog.toMillis(T.plusMinutes(6)), archive.timeAt(1, 6));
+            assertEquals(SpotHistoryLog.typeCode("PAYMENT"), archive.typeAt(2, 1));
+            // du plus récent au plus ancien, après les événements encore en mémoire
+            assertEquals(List.of("b6", "b5", "b4"), details(archive.read(2, 0, 3)));
+            assertEquals(List.of("b1", "b0"), details(archive.read(2, 5, 10)));
+            assertTrue(archive.read(3, 0, 10).isEmpty());
+        }
+    }
+
+    @Test
+    void indexIsRebuiltOnReopenAndTornTailIsCut() throws Exception {
+        Path file = dir.resolve("history.dat");
+        try (HistoryArchive archive = new HistoryArchive(file)) {
+            for (int i = 0; i < 5; i++) archive.append(7, event(i, "x"));
+        }
+        long complete = Files.size(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(complete);
+            raf.writeInt(7);
+            raf.writeLong(0); // enregistrement coupé en plein milieu
+        }
+        try (HistoryArchive archive = new HistoryArchive(file)) {
+            assertEquals(complete, Files.size(file));
+            assertEquals(5, archive.count(7));
+            SpotHistory last = archive.get(7, 4);
+            assertEquals("x4", last.getDetails());
+            assertEquals(T.plusMinutes(4), last.getDate());
+            assertEquals(4.0, last.getAmount());
+            archive.append(7, event(5, "x"));
+            assertEquals(List.of("x5", "x4"), details(archive.read(7, 0, 2)));
+        }
+    }
+
+    private static SpotHistory event(int i, String prefix) {
+        return new SpotHistory(T.plusMinutes(i), i % 2 == 0 ? "RESERVATION" : "PAYMENT", prefix + i, i);
+    }
+
+    private static List<String> details(List<SpotHistory> items) {
+        return items.stream().map(SpotHistory::getDetails).toList();
+    }
+}
@@ -0,0 +1,133 @@
+package server;
+
+import common.ClientInfo;
+import common.Payment;
+import common.Reservation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyTest {
+
+    private final ClientInfo client = new ClientInfo("Test", "22123456");
+    private ReservationServiceImpl service;
+
+    @BeforeEach
+    void start() throws Exception {
+        service = new ReservationServiceImpl();
+        service.addZone("Z");
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        UnicastRemoteObject.unexportObject(service, true);
+        service.getExpiry().close();
+        service.getSlotStarts().close();
+        service.getHoldSweeper().close();
+    }
+
+    @Test
+    void replayedReservationReturnsTheOriginal() throws Exception {
+        int spot = service.addSpot("A1", "Z").getId();
+        Reservation first = service.reserveSpot("req-1", client, null, spot, 2);
+        Reservation replay = service.reserveSpot("req-1", client, null, spot, 2);
+        assertEquals(first.getId(), replay.getId());
+        assertEquals(1, service.getReservations().size());
+        assertEquals(1, service.getIdempotency().replayCount());
+        // une autre requête sur la même place est une vraie seconde tentative
+        assertThrows(RemoteException.class, () -> service.reserveSpot("req-2", client, null, spot, 2));
+    }
+
+    @Test
+    void replayedPaymentDoesNotPayTwice() throws Exception {
+        int spot = service.addSpot("A1", "Z").getId();
+        Reservation r = service.reserveSpot(client, null, spot, 1);
+        Payment p = new Payment("carte", r.getAmount());
+        assertTrue(service.payReservation("pay-1", r.getId(), p));
+        assertTrue(service.payReservation("pay-1", r.getId(), p)); // réponse d'origine
+        assertEquals(1, service.getMetrics().getPaymentsTotal());
+        assertThrows(RemoteException.class, () -> service.payReservation("pay-2", r.getId(), p)); // déjà payée
+    }
+
+    @Test
+    void sameRequestIdForTwoOperationsDoesNotCollide() throws Exception {
+        int a = service.addSpot("A1", "Z").getId(), b = service.addSpot("B1", "Z").getId();
+        Reservation r = service.reserveSpot("shared", client, null, a, 1);
+        Reservation h = service.holdSpot("shared", client, null, b, 1);
+        assertNotEquals(r.getId(), h.getId());
+    }
+
+    @Test
+    void failuresAreNotRemembered() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(10, TimeUnit.MINUTES.toNanos(1));
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(RemoteException.class, () -> cache.execute("op", "r", () -> {
+            calls.incrementAndGet();
+            throw new RemoteException("Déjà prise");
+        }));
+        assertEquals("ok", cache.execute("op", "r", () -> {
+            calls.incrementAndGet();
+            return "ok";
+        }));
+        assertEquals(2, calls.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void replayDuringTheOriginalCallWaitsForItsResult() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(10, TimeUnit.MINUTES.toNanos(1));
+        CountDownLatch running = new CountDownLatch(1), release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> original = pool.submit(() -> cache.execute("op", "r", () -> {
+                calls.incrementAndGet();
+                running.countDown();
+                await(release);
+                return "résultat";
+            }));
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            Future<String> replay = pool.submit(() -> cache.execute("op", "r", () -> {
+                calls.incrementAndGet();
+                return "autre";
+            }));
+            Thread.sleep(100);
+            assertFalse(replay.isDone());
+            release.countDown();
+            assertEquals("résultat", original.get(5, TimeUnit.SECONDS));
+            assertEquals("résultat", replay.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void entriesAreBoundedInCountAndTime() throws Exception {
+        IdempotencyCache bounded = new IdempotencyCache(2, TimeUnit.MINUTES.toNanos(1));
+        for (String id : new String[]{"a", "b", "c"}) bounded.execute("op", id, () -> id);
+        assertEquals(2, bounded.size());
+        assertEquals("a-bis", bounded.execute("op", "a", () -> "a-bis")); // évincée : réexécutée
+        assertEquals("c", bounded.execute("op", "c", () -> "c-bis"));
+
+        IdempotencyCache shortLived = new IdempotencyCache(10, TimeUnit.MILLISECONDS.toNanos(20));
+        shortLived.execute("op", "a", () -> "a");
+        Thread.sleep(50);
+        assertEquals("a-bis", shortLived.execute("op", "a", () -> "a-bis")); // expirée : réexécutée
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
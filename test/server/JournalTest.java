@@ -0,0 +1,145 @@
+package server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+
+    private static final int SEGMENT = 4096;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysRecordsAcrossSegmentsAfterReopen() throws Exception {
+        try (Journal journal = new Journal(dir, 256, true)) {
+            for (int i = 0; i < 20; i++) journal.append(record("r" + i, 40));
+        }
+        assertTrue(segments().size() > 1);
+        try (Journal journal = new Journal(dir, 256, true)) {
+            journal.append(record("r20", 40));
+        }
+        List<String> all = replay(0, Long.MAX_VALUE);
+        assertEquals(21, all.size());
+        for (int i = 0; i < all.size(); i++) assertEquals("r" + i, all.get(i));
+        assertEquals(List.of("r5", "r6"), replay(5, 7));
+    }
+
+    @Test
+    void tornTailIsIgnoredAndOverwritten() throws Exception {
+        long end;
+        try (Journal journal = new Journal(dir, SEGMENT, true)) {
+            journal.append(record("a", 10));
+            journal.append(record("b", 10));
+        }
+        end = dataEnd();
+        // écriture interrompue : en-tête complet, données tronquées (longueur annoncée plus grande)
+        try (FileChannel ch = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+            ByteBuffer torn = ByteBuffer.allocate(12).putInt(100).putInt(12345).putInt(0x41414141).flip();
+            ch.write(torn, end);
+        }
+        assertEquals(List.of("a", "b"), replay(0, Long.MAX_VALUE));
+
+        try (Journal journal = new Journal(dir, SEGMENT, true)) {
+            journal.append(record("c", 10)); // reprend à la fin des données valides
+        }
+        assertEquals(List.of("a", "b", "c"), replay(0, Long.MAX_VALUE));
+    }
+
+    @Test
+    void crcMismatchEndsReplay() throws Exception {
+        try (Journal journal = new Journal(dir, SEGMENT, true)) {
+            for (String s : List.of("a", "b", "c")) journal.append(record(s, 10));
+        }
+        // un octet des données du deuxième enregistrement (en-tête 8 + données 10 par enregistrement)
+        try (FileChannel ch = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(new byte[]{'X'}), 18 + 8 + 3);
+        }
+        assertEquals(List.of("a"), replay(0, Long.MAX_VALUE));
+    }
+
+    @Test
+    void failedBatchLeavesNoRecordToReplay() throws Exception {
+        Journal journal = new Journal(dir, 256, true);
+        journal.append(record("ok", 40));
+        // le bloc ne tient pas dans le segment courant et le suivant ne peut pas être créé :
+        // un répertoire porte déjà son nom
+        Path next = dir.resolve("journal-00000000000000000001.log");
+        Files.createDirectory(next);
+        List<byte[]> batch = new ArrayList<>();
+        for (int i = 0; i < 5; i++) batch.add(record("b" + i, 40));
+        assertThrows(CompletionException.class, () -> journal.appendAll(batch));
+        journal.append(record("next", 40)); // tient encore dans le premier segment
+        journal.close();
+        Files.delete(next);
+
+        // le bloc refusé (que l'appelant a annulé) ne réapparaît pas à la relecture
+        assertEquals(List.of("ok", "next"), replay(0, Long.MAX_VALUE));
+        try (Journal reopened = new Journal(dir, 256, true)) {
+            reopened.append(record("after", 40));
+        }
+        assertEquals(List.of("ok", "next", "after"), replay(0, Long.MAX_VALUE));
+    }
+
+    @Test
+    void blockIsWrittenInOneSegment() throws Exception {
+        try (Journal journal = new Journal(dir, 256, true)) {
+            journal.append(record("a", 100));
+            journal.appendAll(List.of(record("b", 40), record("c", 40), record("d", 40), record("e", 40)));
+            assertThrows(IllegalArgumentException.class, () -> journal.appendAll(
+                    List.of(record("x", 100), record("y", 100), record("z", 100))));
+        }
+        assertEquals(2, segments().size()); // b..e ne tiennent pas après a : ils passent ensemble au segment suivant
+        assertEquals(List.of("a", "b", "c", "d", "e"), replay(0, Long.MAX_VALUE));
+    }
+
+    // ======= Outils =======
+
+    /** Enregistrement de taille fixe commençant par un libellé */
+    private static byte[] record(String label, int size) {
+        byte[] data = new byte[size];
+        byte[] text = label.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(text, 0, data, 0, text.length);
+        return data;
+    }
+
+    private static String label(ByteBuffer record) {
+        byte[] data = new byte[record.remaining()];
+        record.get(data);
+        int n = 0;
+        while (n < data.length && data[n] != 0) n++;
+        return new String(data, 0, n, StandardCharsets.UTF_8);
+    }
+
+    private List<String> replay(long from, long to) throws IOException {
+        List<String> out = new ArrayList<>();
+        Journal.replay(dir, from, to, r -> out.add(label(r)));
+        return out;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith("journal-")).sorted().toList();
+        }
+    }
+
+    /** Position de fin des données valides du premier segment */
+    private long dataEnd() throws IOException {
+        long[] end = {0};
+        Journal.replay(dir, 0, Long.MAX_VALUE, r -> end[0] += 8 + r.remaining());
+        return end[0];
+    }
+}
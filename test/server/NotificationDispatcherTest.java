@@ -0,0 +1,81 @@
+package server;
+
+import common.INotificationListener;
+import common.Notification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationDispatcherTest {
+
+    /** Listener d'un ancien client : seule onNotification existe côté objet exporté */
+    public interface OldListener extends Remote {
+        void onNotification(Notification notification) throws RemoteException;
+    }
+
+    static class OldClient implements OldListener {
+        final List<String> received = new CopyOnWriteArrayList<>();
+        final CountDownLatch firstCall = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done;
+
+        OldClient(int expected) {
+            done = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onNotification(Notification notification) {
+            received.add(notification.getTitle());
+            firstCall.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS); // laisse la file se remplir derrière le premier envoi
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        }
+    }
+
+    private OldClient client;
+    private NotificationDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (dispatcher != null) dispatcher.shutdown();
+        if (client != null) UnicastRemoteObject.unexportObject(client, true);
+    }
+
+    @Test
+    void oldClientFallsBackToSingleNotifications() throws Exception {
+        client = new OldClient(4);
+        OldListener stub = (OldListener) UnicastRemoteObject.exportObject(client, 0);
+        // vu du serveur, le stub se présente comme un INotificationListener : onNotifications
+        // part sur le fil avec un hash de méthode que l'objet exporté ne connaît pas
+        INotificationListener listener = (INotificationListener) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{INotificationListener.class},
+                Proxy.getInvocationHandler(stub));
+
+        dispatcher = new NotificationDispatcher(1, 16, 16, 3);
+        dispatcher.register("22123456", listener);
+
+        assertTrue(dispatcher.dispatch("22123456", new Notification("n1", "m")));
+        assertTrue(client.firstCall.await(5, TimeUnit.SECONDS));
+        for (int i = 2; i <= 4; i++) assertTrue(dispatcher.dispatch("22123456", new Notification("n" + i, "m")));
+        client.release.countDown();
+
+        assertTrue(client.done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("n1", "n2", "n3", "n4"), client.received);
+        assertEquals(0, dispatcher.failureCount());
+        assertEquals(1, dispatcher.listenerCount());
+    }
+}
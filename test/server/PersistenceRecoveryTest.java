@@ -0,0 +1,75 @@
+package server;
+
+import common.ClientInfo;
+import common.Payment;
+import common.Reservation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistenceRecoveryTest {
+
+    @TempDir
+    java.nio.file.Path dir;
+
+    private final ClientInfo client = new ClientInfo("Test", "22123456");
+
+    @Test
+    void stateSurvivesSnapshotAndJournalReplay() throws Exception {
+        LocalDateTime slot = LocalDateTime.now().plusDays(1).withNano(0);
+        int a, b, c;
+        String paid, unpaid, future;
+
+        ReservationServiceImpl service = open();
+        try {
+            service.addZone("Z");
+            a = service.addSpot("A", "Z").getId();
+            b = service.addSpot("B", "Z").getId();
+            c = service.addSpot("C", "Z").getId();
+            Reservation r = service.reserveSpot(client, null, a, 2);
+            service.payReservation(r.getId(), new Payment("carte", r.getAmount()));
+            paid = r.getId();
+            String cancelled = service.reserveSpot(client, null, c, 1).getId();
+            assertTrue(service.removeReservation(cancelled));
+
+            service.getPersistence().snapshot(); // la suite n'est que dans le journal
+
+            unpaid = service.reserveSpot(client, null, b, 3).getId();
+            future = service.reserveSpot(client, null, c, slot, 2).getId();
+        } finally {
+            close(service);
+        }
+
+        ReservationServiceImpl recovered = open();
+        try {
+            assertTrue(recovered.getReservation(paid).isPaid());
+            assertFalse(recovered.getReservation(unpaid).isPaid());
+            assertNotNull(recovered.getReservation(future));
+            assertTrue(recovered.getSpot(a).isReserved());
+            assertTrue(recovered.getSpot(b).isReserved());
+            assertFalse(recovered.getSpot(c).isReserved()); // annulée, créneau futur pas commencé
+            assertTrue(recovered.listAvailableSpots("Z").stream().anyMatch(p -> p.getId() == c));
+            // le créneau futur est toujours réservé
+            assertThrows(RemoteException.class, () -> recovered.reserveSpot(client, null, c, slot.plusHours(1), 1));
+        } finally {
+            close(recovered);
+        }
+    }
+
+    private ReservationServiceImpl open() throws Exception {
+        return new ReservationServiceImpl(new PersistenceManager(dir, 1 << 20, true));
+    }
+
+    private static void close(ReservationServiceImpl service) throws Exception {
+        UnicastRemoteObject.unexportObject(service, true);
+        service.getExpiry().close();
+        service.getSlotStarts().close();
+        service.getHoldSweeper().close();
+        service.getPersistence().close();
+    }
+}
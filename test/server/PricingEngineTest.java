@@ -0,0 +1,101 @@
+package server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingEngineTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 3, 1, 0, 0);
+
+    @TempDir
+    Path dir;
+
+    private static Properties rules() {
+        Properties p = new Properties();
+        p.setProperty("rate", "1.0");
+        p.setProperty("band.8-18", "1.2");
+        p.setProperty("band.22-24", "0.5");
+        p.setProperty("zone.Mall.rate", "1.5");
+        p.setProperty("zone.Mall.band.18-24", "0.8");
+        p.setProperty("zone.Centre Ville.rate", "2.0");
+        p.setProperty("surge.0.80", "1.25");
+        p.setProperty("surge.0.95", "1.5");
+        return p;
+    }
+
+    @Test
+    void prefixSumsMatchHourByHourAcrossMidnightAndDays() {
+        PricingEngine engine = new PricingEngine(rules());
+        for (String zone : new String[]{null, "Inconnue", "Mall", "Centre Ville"}) {
+            for (int start = 0; start < 24; start++) {
+                for (int hours = 1; hours <= 80; hours++) {
+                    double expected = 0;
+                    for (int i = 0; i < hours; i++) expected += engine.hourlyRate(zone, (start + i) % 24);
+                    assertEquals(Math.round(expected * 1000) / 1000.0, engine.price(zone, DAY.withHour(start), hours, 0),
+                            1e-9, zone + " " + start + "h +" + hours + "h");
+                }
+            }
+        }
+    }
+
+    @Test
+    void bandsAndZonesApply() {
+        PricingEngine engine = new PricingEngine(rules());
+        assertEquals(1.0, engine.hourlyRate("Sud", 7));
+        assertEquals(1.2, engine.hourlyRate("Sud", 8));
+        assertEquals(0.5, engine.hourlyRate("Sud", 23));
+        assertEquals(1.5 * 1.2, engine.hourlyRate("Mall", 10), 1e-9);
+        assertEquals(1.5 * 0.8, engine.hourlyRate("Mall", 23), 1e-9); // la bande de la zone remplace la générale
+        assertEquals(2.0, engine.hourlyRate("Centre Ville", 3));
+
+        // 23h → 1h : une heure à 0.5 avant minuit, une à 1.0 après
+        assertEquals(1.5, engine.price("Sud", DAY.withHour(23), 2, 0));
+        // une journée entière plus une heure
+        double day = 0;
+        for (int h = 0; h < 24; h++) day += engine.hourlyRate("Sud", h);
+        assertEquals(Math.round((day + 1.2) * 1000) / 1000.0, engine.price("Sud", DAY.withHour(9), 25, 0), 1e-9);
+    }
+
+    @Test
+    void surgeFollowsOccupancyThresholds() {
+        PricingEngine engine = new PricingEngine(rules());
+        LocalDateTime night = DAY.withHour(2);
+        assertEquals(2.0, engine.price("Sud", night, 2, 0.79));
+        assertEquals(2.5, engine.price("Sud", night, 2, 0.80));
+        assertEquals(3.0, engine.price("Sud", night, 2, 0.99));
+    }
+
+    @Test
+    void withoutRulesTheDefaultRateApplies() {
+        PricingEngine engine = new PricingEngine(new Properties());
+        assertEquals(PricingEngine.DEFAULT_RATE * 30, engine.price("Z", DAY.withHour(20), 30, 1.0));
+    }
+
+    @Test
+    void reloadInstallsNewRulesAndKeepsTheOldOnError() throws Exception {
+        Path file = dir.resolve("pricing.properties");
+        Files.writeString(file, "rate=2.0\n");
+        try (PricingEngine engine = new PricingEngine(file)) {
+            assertEquals(2.0, engine.hourlyRate("Z", 0));
+            assertFalse(engine.reload()); // inchangé
+
+            Files.writeString(file, "rate=3.0\n");
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 2000));
+            assertTrue(engine.reload());
+            assertEquals(3.0, engine.hourlyRate("Z", 0));
+
+            Files.writeString(file, "rate=abc\n");
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 4000));
+            assertThrows(RuntimeException.class, engine::reload);
+            assertEquals(3.0, engine.hourlyRate("Z", 0));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package server;
+
+import common.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationIndexTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2026, 3, 1, 8, 0);
+
+    /** 100 réservations, une par minute ; les paires sont payées, zone Nord pour les multiples de 3 */
+    private static List<Reservation> fill(ReservationIndex index) {
+        List<Reservation> all = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Reservation r = new Reservation("r" + i, new ClientInfo("c", i % 10 == 0 ? "111" : "222"),
+                    new Vehicle("TU-" + (i % 4), "m", "c"), i, "P" + i, 1, 1.0, T.plusMinutes(i), T.plusMinutes(i), i % 2 == 0);
+            index.add(r, i % 3 == 0 ? "Nord" : "Sud");
+            all.add(r);
+        }
+        return all;
+    }
+
+    /** Toutes les pages d'une requête, en suivant les curseurs */
+    private static List<String> allPages(ReservationIndex index, ReservationQuery q) {
+        List<String> ids = new ArrayList<>();
+        for (int pages = 0; pages < 1000; pages++) {
+            ReservationPage page = index.query(q);
+            assertTrue(page.getItems().size() <= Math.max(1, q.getPageSize()));
+            page.getItems().forEach(r -> ids.add(r.getId()));
+            if (!page.hasNext()) return ids;
+            q = q.next(page);
+        }
+        throw new AssertionError("pagination sans fin");
+    }
+
+    private static List<String> newestFirst(List<Reservation> all, Predicate<Reservation> filter) {
+        List<String> ids = new ArrayList<>();
+        for (int i = all.size() - 1; i >= 0; i--) if (filter.test(all.get(i))) ids.add(all.get(i).getId());
+        return ids;
+    }
+
+    @Test
+    void cursorPagingVisitsEveryMatchOnceNewestFirst() {
+        ReservationIndex index = new ReservationIndex();
+        List<Reservation> all = fill(index);
+        for (int pageSize : new int[]{1, 7, 50, 100, 1000}) {
+            assertEquals(newestFirst(all, r -> true),
+                    allPages(index, new ReservationQuery(null, null, null, null, null, null, pageSize, ReservationQuery.FIRST_PAGE)));
+            assertEquals(newestFirst(all, r -> !r.isPaid()), allPages(index, ReservationQuery.unpaid(pageSize)));
+            assertEquals(newestFirst(all, r -> r.getClient().getPhone().equals("111")), allPages(index, ReservationQuery.byPhone("111", pageSize)));
+            assertEquals(newestFirst(all, r -> r.getVehicle().getPlateNumber().equals("TU-1")), allPages(index, ReservationQuery.byPlate("TU-1", pageSize)));
+        }
+    }
+
+    @Test
+    void combinedCriteriaAndPeriodAreApplied() {
+        ReservationIndex index = new ReservationIndex();
+        List<Reservation> all = fill(index);
+        ReservationQuery q = new ReservationQuery(false, null, "TU-3", "Nord", T.plusMinutes(20), T.plusMinutes(80), 2,
+                ReservationQuery.FIRST_PAGE);
+        List<String> expected = newestFirst(all, r -> {
+            int i = r.getSpotId();
+            return !r.isPaid() && r.getVehicle().getPlateNumber().equals("TU-3") && i % 3 == 0 && i >= 20 && i < 80;
+        });
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, allPages(index, q));
+        assertEquals(newestFirst(all, r -> r.getSpotId() % 3 != 0 && !r.isPaid()),
+                allPages(index, new ReservationQuery(false, null, null, "Sud", null, null, 9, ReservationQuery.FIRST_PAGE)));
+    }
+
+    @Test
+    void paymentsAndRemovalsUpdateTheIndexes() {
+        ReservationIndex index = new ReservationIndex();
+        List<Reservation> all = fill(index);
+        Reservation r1 = all.get(1), r3 = all.get(3);
+        r1.setPaid(true);
+        index.paid(r1);
+        index.remove(r3);
+        index.remove(r3); // déjà retirée
+        assertEquals(99, index.size());
+
+        List<String> unpaid = allPages(index, ReservationQuery.unpaid(10));
+        assertFalse(unpaid.contains("r1"));
+        assertFalse(unpaid.contains("r3"));
+        assertEquals(48, unpaid.size());
+        assertFalse(allPages(index, ReservationQuery.byPlate("TU-3", 10)).contains("r3"));
+        assertTrue(allPages(index, ReservationQuery.byPhone("999", 10)).isEmpty());
+    }
+
+    @Test
+    void keysStayOrderedWithinTheSameMillisecond() {
+        ReservationIndex index = new ReservationIndex();
+        for (int i = 0; i < 30; i++) {
+            index.add(new Reservation("s" + i, null, null, i, "P", 1, 1, T, T, false), "Z");
+        }
+        List<String> expected = new ArrayList<>();
+        for (int i = 29; i >= 0; i--) expected.add("s" + i);
+        assertEquals(expected, allPages(index, ReservationQuery.unpaid(4)));
+    }
+}
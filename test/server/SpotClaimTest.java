@@ -0,0 +1,103 @@
+package server;
+
+import common.ClientInfo;
+import common.ParkingSpot;
+import common.Reservation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpotClaimTest {
+
+    private static final int THREADS = 16;
+
+    private ReservationServiceImpl service;
+
+    @BeforeEach
+    void start() throws Exception {
+        service = new ReservationServiceImpl();
+        service.addZone("Z");
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        UnicastRemoteObject.unexportObject(service, true);
+        service.getExpiry().close();
+        service.getSlotStarts().close();
+        service.getHoldSweeper().close();
+    }
+
+    @Test
+    void tryReserveHasASingleWinner() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            ParkingSpot spot = new ParkingSpot(1, "A1", "Z");
+            AtomicInteger winners = new AtomicInteger();
+            race(() -> {
+                if (spot.tryReserve()) winners.incrementAndGet();
+            });
+            assertEquals(1, winners.get());
+            assertTrue(spot.isReserved());
+            assertTrue(spot.release());
+            assertFalse(spot.release());
+        }
+    }
+
+    @Test
+    void concurrentReservationsOfOneSpotHaveASingleWinner() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            int spotId = service.addSpot("P" + round, "Z").getId();
+            List<Reservation> won = new CopyOnWriteArrayList<>();
+            AtomicInteger refused = new AtomicInteger();
+            race(() -> {
+                try {
+                    won.add(service.reserveSpot(new ClientInfo("c", "1"), null, spotId, 1));
+                } catch (RemoteException e) {
+                    refused.incrementAndGet();
+                }
+            });
+            assertEquals(1, won.size());
+            assertEquals(THREADS - 1, refused.get());
+            assertTrue(service.getSpot(spotId).isReserved());
+            assertEquals(1, service.getReservations().values().stream().filter(r -> r.getSpotId() == spotId).count());
+        }
+        assertEquals(50L * (THREADS - 1), service.getMetrics().getClaimConflicts());
+    }
+
+    @Test
+    void freedSpotCanBeClaimedAgain() throws Exception {
+        int spotId = service.addSpot("A1", "Z").getId();
+        Reservation first = service.reserveSpot(new ClientInfo("c", "1"), null, spotId, 1);
+        assertThrows(RemoteException.class, () -> service.reserveSpot(new ClientInfo("d", "2"), null, spotId, 1));
+        assertTrue(service.removeReservation(first.getId()));
+        assertFalse(service.getSpot(spotId).isReserved());
+        assertNotNull(service.reserveSpot(new ClientInfo("d", "2"), null, spotId, 1));
+    }
+
+    /** Lance la tâche sur THREADS threads libérés en même temps */
+    private static void race(Runnable task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CyclicBarrier start = new CyclicBarrier(THREADS);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) f.get(10, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
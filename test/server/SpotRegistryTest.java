@@ -0,0 +1,80 @@
+package server;
+
+import common.ParkingSpot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpotRegistryTest {
+
+    @Test
+    void concurrentAllocationNeverHandsOutTheSameIdTwice() throws Exception {
+        SpotRegistry registry = new SpotRegistry();
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) assertTrue(ids.add(registry.allocateId()));
+                }));
+            }
+            for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(80_000, ids.size());
+        assertEquals(1, ids.stream().mapToInt(Integer::intValue).min().getAsInt());
+        assertEquals(80_001, registry.nextId());
+    }
+
+    @Test
+    void removedIdsAreNotReallocated() {
+        SpotRegistry registry = new SpotRegistry();
+        int a = registry.allocateId(), b = registry.allocateId();
+        registry.put(new ParkingSpot(a, "A", "Z"));
+        registry.put(new ParkingSpot(b, "B", "Z"));
+        assertEquals("B", registry.remove(b).getLabel());
+        assertNull(registry.remove(b));
+        assertEquals(b + 1, registry.allocateId());
+        assertFalse(registry.contains(b));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void putAdvancesTheAllocatorPastRestoredIds() {
+        SpotRegistry registry = new SpotRegistry();
+        registry.put(new ParkingSpot(41, "R", "Z")); // place relue d'un snapshot
+        assertEquals(42, registry.allocateId());
+        registry.reserveIdsUpTo(100);
+        assertEquals(101, registry.allocateId());
+        registry.reserveIdsUpTo(10); // jamais en arrière
+        assertEquals(102, registry.allocateId());
+    }
+
+    @Test
+    void spotsAreStoredAcrossChunksInIdOrder() {
+        SpotRegistry registry = new SpotRegistry();
+        int[] ids = {9000, 1, 4095, 4096, 20_000, 4097};
+        for (int id : ids) assertNull(registry.put(new ParkingSpot(id, "P" + id, "Z")));
+        assertEquals(ids.length, registry.size());
+        for (int id : ids) assertEquals("P" + id, registry.get(id).getLabel());
+        assertNull(registry.get(2));
+        assertNull(registry.get(0));
+        assertNull(registry.get(-5));
+        assertNull(registry.get(1 << 30)); // bloc jamais alloué
+        assertEquals(List.of(1, 4095, 4096, 4097, 9000, 20_000),
+                registry.values().stream().map(ParkingSpot::getId).toList());
+
+        ParkingSpot replacement = new ParkingSpot(4096, "X", "Z");
+        assertEquals("P4096", registry.put(replacement).getLabel());
+        assertSame(replacement, registry.get(4096));
+        assertEquals(ids.length, registry.size());
+        assertThrows(IllegalArgumentException.class, () -> registry.put(new ParkingSpot(0, "Z0", "Z")));
+    }
+}
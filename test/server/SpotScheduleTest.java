@@ -0,0 +1,85 @@
+package server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpotScheduleTest {
+
+    @Test
+    void overlappingSlotsAreRefused() {
+        SpotSchedule schedule = new SpotSchedule();
+        assertTrue(schedule.tryAdd("a", 100, 200));
+        assertTrue(schedule.tryAdd("b", 300, 400));
+
+        assertFalse(schedule.tryAdd("x", 150, 160)); // contenu
+        assertFalse(schedule.tryAdd("x", 50, 101)); // chevauche le début
+        assertFalse(schedule.tryAdd("x", 199, 250)); // chevauche la fin
+        assertFalse(schedule.tryAdd("x", 50, 450)); // recouvre les deux
+        assertFalse(schedule.tryAdd("x", 100, 200)); // identique
+        assertFalse(schedule.tryAdd("x", 250, 301));
+
+        // intervalles semi-ouverts : se toucher n'est pas se chevaucher
+        assertTrue(schedule.tryAdd("c", 200, 300));
+        assertTrue(schedule.tryAdd("d", 50, 100));
+        assertTrue(schedule.tryAdd("e", 400, 500));
+        assertEquals(List.of("d", "a", "c", "b", "e"), schedule.reservationIds());
+        assertThrows(IllegalArgumentException.class, () -> schedule.tryAdd("x", 600, 600));
+    }
+
+    @Test
+    void isFreeMatchesTryAdd() {
+        SpotSchedule schedule = new SpotSchedule();
+        schedule.tryAdd("a", 1000, 2000);
+        assertTrue(schedule.isFree(0, 1000));
+        assertTrue(schedule.isFree(2000, 3000));
+        assertFalse(schedule.isFree(1999, 2001));
+        assertFalse(schedule.isFree(0, 1001));
+        assertFalse(schedule.isFree(0, Long.MAX_VALUE));
+    }
+
+    @Test
+    void removeOnlyFreesTheOwnersSlot() {
+        SpotSchedule schedule = new SpotSchedule();
+        schedule.tryAdd("a", 100, 200);
+        assertFalse(schedule.remove("b", 100)); // pas à elle
+        assertFalse(schedule.remove("a", 101)); // mauvais début
+        assertFalse(schedule.isFree(100, 200));
+        assertTrue(schedule.remove("a", 100));
+        assertFalse(schedule.remove("a", 100));
+        assertTrue(schedule.isFree(100, 200));
+        assertEquals(0, schedule.size());
+    }
+
+    @Test
+    void concurrentBookingsOfOverlappingSlotsHaveASingleWinner() throws Exception {
+        for (int round = 0; round < 100; round++) {
+            SpotSchedule schedule = new SpotSchedule();
+            AtomicInteger won = new AtomicInteger();
+            CyclicBarrier start = new CyclicBarrier(8);
+            ExecutorService pool = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    long offset = t * 10L; // toutes les fenêtres se recouvrent
+                    String id = "r" + t;
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        if (schedule.tryAdd(id, 1000 + offset, 2000 + offset)) won.incrementAndGet();
+                        return null;
+                    }));
+                }
+                for (Future<?> f : futures) f.get(10, TimeUnit.SECONDS);
+            } finally {
+                pool.shutdownNow();
+            }
+            assertEquals(1, won.get());
+            assertEquals(1, schedule.size());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package server;
+
+import common.ParkingSpot;
+import common.ZoneStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZoneIndexTest {
+
+    @Test
+    void freeBitsFollowSpotStateAcrossChunks() {
+        ZoneIndex index = new ZoneIndex();
+        index.addZone("Z");
+        List<ParkingSpot> spots = new ArrayList<>();
+        for (int id = 1; id <= 2500; id++) { // trois blocs de 1024 slots
+            ParkingSpot p = new ParkingSpot(id, "P" + id, "Z");
+            spots.add(p);
+            index.addSpot(p);
+        }
+        assertEquals(2500, index.totalCount("Z"));
+        assertEquals(2500, index.freeCount("Z"));
+
+        for (ParkingSpot p : spots) {
+            if (p.getId() % 3 == 0) {
+                assertTrue(p.tryReserve());
+                index.refresh(p);
+            }
+        }
+        Set<Integer> free = ids(index.availableSpots("Z"));
+        assertEquals(2500 - 833, free.size());
+        assertEquals(free.size(), index.freeCount("Z"));
+        for (int id = 1; id <= 2500; id++) assertEquals(id % 3 != 0, free.contains(id), "place " + id);
+
+        index.refresh(spots.get(1)); // état inchangé : le compteur ne bouge pas
+        assertEquals(free.size(), index.freeCount("Z"));
+    }
+
+    @Test
+    void removedSlotsAreReusedAndCountersStayExact() {
+        ZoneIndex index = new ZoneIndex();
+        ParkingSpot a = new ParkingSpot(1, "A", "Z"), b = new ParkingSpot(2, "B", "Z"), c = new ParkingSpot(3, "C", "Z");
+        index.addSpot(a);
+        index.addSpot(b);
+        b.setReserved(true);
+        index.refresh(b);
+
+        index.removeSpot(a);
+        index.removeSpot(b);
+        index.removeSpot(b); // déjà retirée : sans effet
+        assertEquals(0, index.totalCount("Z"));
+        assertEquals(0, index.freeCount("Z"));
+        assertTrue(index.availableSpots("Z").isEmpty());
+
+        index.addSpot(c); // reprend un slot libéré
+        assertEquals(1, index.totalCount("Z"));
+        assertEquals(Set.of(3), ids(index.availableSpots("Z")));
+        assertEquals(Set.of(3), ids(index.spots("Z")));
+        a.setReserved(false);
+        index.refresh(a); // place retirée : ignorée
+        assertEquals(1, index.freeCount("Z"));
+    }
+
+    @Test
+    void zonesAreIndependentAndUnknownZonesAreEmpty() {
+        ZoneIndex index = new ZoneIndex();
+        index.addSpot(new ParkingSpot(1, "A", "Nord"));
+        index.addSpot(new ParkingSpot(2, "B", "Sud"));
+        assertEquals(Set.of(1), ids(index.availableSpots("Nord")));
+        assertEquals(Set.of(1, 2), ids(index.availableSpots()));
+        assertEquals(0, index.totalCount("Est"));
+        assertTrue(index.availableSpots("Est").isEmpty());
+
+        index.adjustUnpaid("Nord", 2);
+        index.adjustUnpaid("Nord", -1);
+        index.addRevenue("Nord", 7.5);
+        index.addRevenue("Est", 100); // zone inconnue : ignorée
+        ZoneStats stats = index.stats("Nord");
+        assertEquals(1, stats.getTotal());
+        assertEquals(1, stats.getFree());
+        assertEquals(1, stats.getUnpaid());
+        assertEquals(7.5, stats.getRevenue());
+    }
+
+    @Test
+    void concurrentClaimsAndReleasesKeepTheFreeCountExact() throws Exception {
+        ZoneIndex index = new ZoneIndex();
+        List<ParkingSpot> spots = new ArrayList<>();
+        for (int id = 1; id <= 128; id++) {
+            ParkingSpot p = new ParkingSpot(id, "P" + id, "Z");
+            spots.add(p);
+            index.addSpot(p);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 20_000; i++) {
+                        ParkingSpot p = spots.get(random.nextInt(spots.size()));
+                        if (p.tryReserve() || p.release()) index.refresh(p);
+                    }
+                }));
+            }
+            for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        long reallyFree = spots.stream().filter(p -> !p.isReserved()).count();
+        assertEquals(reallyFree, index.freeCount("Z"));
+        assertEquals(reallyFree, index.availableSpots("Z").size());
+    }
+
+    private static Set<Integer> ids(List<ParkingSpot> spots) {
+        return spots.stream().map(ParkingSpot::getId).collect(Collectors.toSet());
+    }
+}